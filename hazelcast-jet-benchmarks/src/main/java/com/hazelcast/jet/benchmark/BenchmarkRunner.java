@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+
+/**
+ * Entry point of the benchmarks JAR. Accepts the standard JMH command
+ * line options and after the run writes a {@link RegressionReport}.
+ * <p>
+ * System properties:
+ * <ul><li>
+ *     {@code jet.benchmark.report}: the file to write the report to,
+ *     {@code jet-benchmarks.tsv} by default
+ * </li><li>
+ *     {@code jet.benchmark.baseline}: a report from a previous run. If
+ *     given, the new results are compared against it
+ * </li><li>
+ *     {@code jet.benchmark.threshold}: the relative change in percent
+ *     that's considered a regression when comparing
+ * </li></ul>
+ * Example:
+ * <pre>
+ * java -Djet.benchmark.baseline=jet-3.1.tsv -jar benchmarks.jar ProcessorTasklet
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        Collection<RunResult> results = new Runner(options).run();
+        if (results.isEmpty()) {
+            return;
+        }
+        RegressionReport report = RegressionReport.of(results);
+        Path reportFile = Paths.get(System.getProperty("jet.benchmark.report", "jet-benchmarks.tsv"));
+        report.write(reportFile);
+        System.out.println("Benchmark report written to " + reportFile.toAbsolutePath());
+
+        String baselineFile = System.getProperty("jet.benchmark.baseline");
+        if (baselineFile != null) {
+            double threshold = Double.parseDouble(System.getProperty("jet.benchmark.threshold",
+                    String.valueOf(RegressionReport.DEFAULT_THRESHOLD_PERCENT)));
+            int regressions = report.compareTo(RegressionReport.read(Paths.get(baselineFile)), threshold, System.out);
+            if (regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+}
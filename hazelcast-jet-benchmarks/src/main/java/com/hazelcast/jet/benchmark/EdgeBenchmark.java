@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.jet.Jet;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.processor.Processors.noopP;
+import static com.hazelcast.jet.function.Functions.wholeItem;
+
+/**
+ * Measures the end-to-end throughput of a single DAG edge on a two-member
+ * cluster running in this JVM. Each member runs one source processor
+ * emitting {@value #ITEMS_PER_SOURCE} items, which go through the edge to
+ * {@code fanOut} sink processors per member.
+ * <p>
+ * Every invocation submits and joins one job, so the score includes a
+ * small, constant job-startup overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EdgeBenchmark {
+
+    private static final int MEMBER_COUNT = 2;
+    private static final int ITEMS_PER_SOURCE = 2_000_000;
+
+    @Param({"local", "localPartitioned", "distributed", "distributedPartitioned"})
+    public String edgeType;
+
+    @Param({"1", "4"})
+    public int fanOut;
+
+    private JetInstance[] members;
+
+    @Setup
+    public void setup() {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setCooperativeThreadCount(Math.max(2, fanOut));
+        config.getHazelcastConfig().getGroupConfig().setName(UUID.randomUUID().toString());
+        config.getHazelcastConfig().setProperty("hazelcast.phone.home.enabled", "false");
+        JoinConfig join = config.getHazelcastConfig().getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        members = new JetInstance[MEMBER_COUNT];
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            members[i] = Jet.newJetInstance(config);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (JetInstance member : members) {
+            member.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT * ITEMS_PER_SOURCE)
+    public void edge() {
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", GenerateP::new).localParallelism(1);
+        Vertex sink = dag.newVertex("sink", noopP()).localParallelism(fanOut);
+        dag.edge(configureEdge(between(source, sink)));
+        members[0].newJob(dag).join();
+    }
+
+    private Edge configureEdge(Edge edge) {
+        switch (edgeType) {
+            case "local":
+                return edge;
+            case "localPartitioned":
+                return edge.partitioned(wholeItem());
+            case "distributed":
+                return edge.distributed();
+            case "distributedPartitioned":
+                return edge.distributed().partitioned(wholeItem());
+            default:
+                throw new IllegalArgumentException("Unknown edge type: " + edgeType);
+        }
+    }
+
+    private static final class GenerateP extends AbstractProcessor {
+        private long counter;
+
+        @Override
+        public boolean complete() {
+            while (counter < ITEMS_PER_SOURCE) {
+                if (!tryEmit(counter)) {
+                    return false;
+                }
+                counter++;
+            }
+            return true;
+        }
+    }
+}
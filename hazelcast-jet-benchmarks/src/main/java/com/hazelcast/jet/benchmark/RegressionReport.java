@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Plain-text benchmark report that can be diffed between runs.
+ * <p>
+ * There's one line per benchmark and parameter combination, sorted, with
+ * tab-separated columns:
+ * <pre>
+ * benchmark  params  mode  unit  score  error
+ * </pre>
+ * The parameters are formatted as {@code name=value} pairs, sorted by
+ * name and separated by commas. Lines starting with {@code #} are
+ * comments.
+ * <p>
+ * Two reports can be compared with {@link #main}:
+ * <pre>
+ * java -cp benchmarks.jar com.hazelcast.jet.benchmark.RegressionReport \
+ *         baseline.tsv current.tsv [thresholdPercent]
+ * </pre>
+ * The comparison lists the relative change of each score and marks the
+ * ones worse than the threshold (default {@value #DEFAULT_THRESHOLD_PERCENT}%)
+ * as regressions, taking into account whether a higher or lower score is
+ * better for the benchmark mode. The exit code is 1 if there's a regression.
+ */
+public final class RegressionReport {
+
+    static final double DEFAULT_THRESHOLD_PERCENT = 5;
+
+    private static final String HEADER = "# benchmark\tparams\tmode\tunit\tscore\terror";
+
+    // key is "benchmark\tparams"
+    private final Map<String, Line> lines;
+
+    private RegressionReport(Map<String, Line> lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Creates a report from the results of a JMH run.
+     */
+    public static RegressionReport of(Collection<RunResult> results) {
+        Map<String, Line> lines = new TreeMap<>();
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            Result primary = runResult.getPrimaryResult();
+            String paramsString = params.getParamsKeys().stream()
+                                        .sorted()
+                                        .map(key -> key + '=' + params.getParam(key))
+                                        .collect(joining(","));
+            Line line = new Line(params.getBenchmark(), paramsString, params.getMode().shortLabel(),
+                    primary.getScoreUnit(), primary.getScore(), primary.getScoreError());
+            lines.put(line.key(), line);
+        }
+        return new RegressionReport(lines);
+    }
+
+    /**
+     * Reads a report previously written by {@link #write}.
+     */
+    public static RegressionReport read(Path file) throws IOException {
+        Map<String, Line> lines = new TreeMap<>();
+        for (String s : Files.readAllLines(file, UTF_8)) {
+            if (s.isEmpty() || s.startsWith("#")) {
+                continue;
+            }
+            String[] cols = s.split("\t", -1);
+            if (cols.length != 6) {
+                throw new IOException("Malformed line in " + file + ": " + s);
+            }
+            Line line = new Line(cols[0], cols[1], cols[2], cols[3], parse(cols[4]), parse(cols[5]));
+            lines.put(line.key(), line);
+        }
+        return new RegressionReport(lines);
+    }
+
+    private static double parse(String s) {
+        return "NaN".equals(s) ? Double.NaN : Double.parseDouble(s);
+    }
+
+    /**
+     * Writes this report to the given file.
+     */
+    public void write(Path file) throws IOException {
+        List<String> out = new ArrayList<>(lines.size() + 1);
+        out.add(HEADER);
+        for (Line line : lines.values()) {
+            out.add(line.toString());
+        }
+        Files.write(file, out, UTF_8);
+    }
+
+    /**
+     * Prints the comparison of this report against the {@code baseline}.
+     *
+     * @return the number of regressions worse than {@code thresholdPercent}
+     */
+    public int compareTo(RegressionReport baseline, double thresholdPercent, PrintStream out) {
+        int regressions = 0;
+        out.printf(Locale.ROOT, "%-70s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Line current : lines.values()) {
+            Line base = baseline.lines.get(current.key());
+            String name = current.benchmark + (current.params.isEmpty() ? "" : " [" + current.params + ']');
+            if (base == null) {
+                out.printf(Locale.ROOT, "%-70s %14s %14.3f %9s%n", name, "-", current.score, "new");
+                continue;
+            }
+            double changePercent = (current.score - base.score) / base.score * 100;
+            // for the time-based modes lower score is better
+            double improvementPercent = Mode.Throughput.shortLabel().equals(current.mode)
+                    ? changePercent : -changePercent;
+            boolean isRegression = improvementPercent < -thresholdPercent;
+            if (isRegression) {
+                regressions++;
+            }
+            out.printf(Locale.ROOT, "%-70s %14.3f %14.3f %+8.1f%%%s%n", name, base.score, current.score,
+                    changePercent, isRegression ? "  REGRESSION" : "");
+        }
+        for (Line base : baseline.lines.values()) {
+            if (!lines.containsKey(base.key())) {
+                out.printf(Locale.ROOT, "%-70s %14.3f %14s %9s%n", base.benchmark, base.score, "-", "missing");
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Compares two report files, see the class javadoc.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: RegressionReport <baseline> <current> [thresholdPercent]");
+            System.exit(2);
+        }
+        RegressionReport baseline = read(Paths.get(args[0]));
+        RegressionReport current = read(Paths.get(args[1]));
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        int regressions = current.compareTo(baseline, threshold, System.out);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static final class Line {
+        final String benchmark;
+        final String params;
+        final String mode;
+        final String unit;
+        final double score;
+        final double error;
+
+        Line(String benchmark, String params, String mode, String unit, double score, double error) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.mode = mode;
+            this.unit = unit;
+            this.score = score;
+            this.error = error;
+        }
+
+        String key() {
+            return benchmark + '\t' + params;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s\t%s\t%s\t%s\t%.3f\t%.3f", benchmark, params, mode, unit,
+                    score, error);
+        }
+    }
+}
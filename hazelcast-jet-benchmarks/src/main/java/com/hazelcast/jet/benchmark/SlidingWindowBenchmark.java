@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
+import com.hazelcast.jet.function.ComparatorEx;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.aggregate.AggregateOperations.maxBy;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.TimestampKind.EVENT;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the single-stage sliding window processor ({@code
+ * SlidingWindowP}): accumulating the items into frames and emitting the
+ * windows as the watermark advances. Each item advances the event time by
+ * one millisecond and a watermark follows every batch.
+ * <p>
+ * The {@code aggregation} parameter selects between an aggregate operation
+ * with a {@code deductFn} ({@code counting}) and one without it ({@code
+ * maxBy}), which has to combine all the frames of each emitted window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlidingWindowBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final long SLIDE_BY = 64;
+
+    @Param({"100", "10000"})
+    public int keyCount;
+
+    @Param({"1", "16", "256"})
+    public int slidesPerWindow;
+
+    @Param({"counting", "maxBy"})
+    public String aggregation;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private Queue<Object> outboxQueue;
+    private long nextTimestamp;
+
+    @Setup
+    public void setup() throws Exception {
+        final long keyCountL = keyCount;
+        FunctionEx<Long, Long> keyFn = ts -> ts % keyCountL;
+        ToLongFunctionEx<Long> timestampFn = ts -> ts;
+        List<FunctionEx<?, ? extends Long>> keyFns = singletonList(keyFn);
+        List<ToLongFunctionEx<?>> timestampFns = singletonList(timestampFn);
+        SlidingWindowPolicy winPolicy = slidingWinPolicy(SLIDE_BY * slidesPerWindow, SLIDE_BY);
+        switch (aggregation) {
+            case "counting":
+                processor = aggregateToSlidingWindowP(keyFns, timestampFns, EVENT, winPolicy, 0L,
+                        counting(), KeyedWindowResult::new).get();
+                break;
+            case "maxBy":
+                processor = aggregateToSlidingWindowP(keyFns, timestampFns, EVENT, winPolicy, 0L,
+                        maxBy(ComparatorEx.<Long>naturalOrder()), KeyedWindowResult::new).get();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown aggregation: " + aggregation);
+        }
+        TestOutbox outbox = new TestOutbox(Integer.MAX_VALUE);
+        processor.init(outbox, new TestProcessorContext());
+        outboxQueue = outbox.queue(0);
+        inbox = new TestInbox();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        processor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean accumulateAndEmit() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inbox.add(nextTimestamp++);
+        }
+        processor.process(0, inbox);
+        boolean done = processor.tryProcessWatermark(new Watermark(nextTimestamp - 1));
+        outboxQueue.clear();
+        return done;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
+
+/**
+ * Measures {@link ConcurrentInboundEdgeStream#drainTo} over a conveyor with
+ * the given number of upstream queues, optionally with a watermark at the
+ * end of each queue's batch so that the {@link WatermarkCoalescer} is
+ * exercised as well.
+ * <p>
+ * The queues are filled and drained by the benchmark thread, the score
+ * therefore includes the cost of {@code offer()}, but no cross-thread
+ * contention.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentInboundEdgeStreamBenchmark {
+
+    private static final int ITEMS_PER_INVOCATION = 1024;
+    private static final int QUEUE_SIZE = 2048;
+
+    @Param({"1", "16", "64"})
+    public int queueCount;
+
+    @Param({"false", "true"})
+    public boolean withWatermarks;
+
+    private ConcurrentConveyor<Object> conveyor;
+    private ConcurrentInboundEdgeStream stream;
+    private Predicate<Object> dest;
+    private int itemsPerQueue;
+    private long wmTimestamp;
+    private long drainedCount;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        QueuedPipe<Object>[] queues = new QueuedPipe[queueCount];
+        for (int i = 0; i < queueCount; i++) {
+            queues[i] = new OneToOneConcurrentArrayQueue<>(QUEUE_SIZE);
+        }
+        conveyor = concurrentConveyor(null, queues);
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, "benchmark");
+        itemsPerQueue = ITEMS_PER_INVOCATION / queueCount;
+        dest = item -> {
+            drainedCount++;
+            return true;
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_INVOCATION)
+    public long fillAndDrain() {
+        Watermark wm = withWatermarks ? new Watermark(++wmTimestamp) : null;
+        for (int queueIndex = 0; queueIndex < queueCount; queueIndex++) {
+            for (int i = 0; i < itemsPerQueue; i++) {
+                conveyor.offer(queueIndex, i);
+            }
+            if (wm != null) {
+                conveyor.offer(queueIndex, wm);
+            }
+        }
+        // drainTo() returns early after forwarding a watermark, call it until all queues are empty
+        while (stream.sizes() > 0) {
+            stream.drainTo(dest);
+        }
+        return drainedCount;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link OutboundCollector} that accepts everything, counting the items
+ * and remembering the last one so the JIT can't eliminate the producer.
+ */
+class CountingOutboundCollector implements OutboundCollector {
+
+    long count;
+    Object lastItem;
+
+    private final int[] partitions;
+
+    CountingOutboundCollector() {
+        this(null);
+    }
+
+    CountingOutboundCollector(@Nullable int[] partitions) {
+        this.partitions = partitions;
+    }
+
+    @Override
+    public ProgressState offer(Object item) {
+        count++;
+        lastItem = item;
+        return ProgressState.DONE;
+    }
+
+    @Override
+    public int[] getPartitions() {
+        return partitions;
+    }
+}
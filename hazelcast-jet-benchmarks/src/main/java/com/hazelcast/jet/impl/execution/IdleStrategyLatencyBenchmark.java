@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.config.IdleStrategyType;
+import com.hazelcast.util.concurrent.IdleStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures how quickly a worker thread idling with each {@link
+ * IdleStrategyType} reacts to new data. The worker runs the same loop as
+ * a cooperative worker: it polls for a request and calls the idle
+ * strategy while there's none. The benchmark thread publishes a request
+ * and waits until the worker acknowledges it. The sample-time mode
+ * reports the percentiles of this round trip.
+ * <p>
+ * The benchmark thread pauses for {@code pauseMicros} before each request
+ * (outside of the measured time), so that the worker is idle for some
+ * time and the backing-off strategies reach longer sleeps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdleStrategyLatencyBenchmark {
+
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(25);
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1000);
+
+    @Param({"BUSY_SPIN", "YIELD", "BACKOFF", "PARK"})
+    public IdleStrategyType idleStrategy;
+
+    @Param({"0", "100", "1000"})
+    public long pauseMicros;
+
+    private volatile long request;
+    private volatile long response;
+    private volatile boolean running;
+    private Thread worker;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        IdleStrategy idler = TaskletExecutionService.createIdler(idleStrategy, MIN_PARK_NANOS, MAX_PARK_NANOS);
+        running = true;
+        worker = new Thread(() -> {
+            long lastSeen = 0;
+            long idleCount = 0;
+            while (running) {
+                long r = request;
+                if (r != lastSeen) {
+                    lastSeen = r;
+                    response = r;
+                    idleCount = 0;
+                } else {
+                    idler.idle(++idleCount);
+                }
+            }
+        }, "idle-strategy-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        worker.join();
+    }
+
+    @Setup(Level.Invocation)
+    public void pause() {
+        if (pauseMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(pauseMicros));
+        }
+    }
+
+    @Benchmark
+    public long wakeUp() {
+        long seq = ++sequence;
+        request = seq;
+        while (response != seq) {
+            // busy-wait, we measure the worker's latency, not ours
+        }
+        return seq;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.core.Partitioner;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the 1-to-N fan-out cost of emitting through {@link OutboxImpl}.
+ * <p>
+ * The {@code routing} parameter selects how the {@code fanOut} downstream
+ * collectors are wired:
+ * <ul><li>
+ *     {@code edges}: the outbox has {@code fanOut} outbound edges with
+ *     one consumer each and every item is offered to all of them
+ * </li><li>
+ *     {@code unicast}, {@code partitioned}, {@code broadcast}: the outbox
+ *     has a single outbound edge with {@code fanOut} consumers, routed the
+ *     same way as the corresponding {@link OutboundCollector} composite
+ *     routes it for a DAG edge
+ * </li></ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboxImplBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int PARTITION_COUNT = 271;
+
+    @Param({"1", "4", "16"})
+    public int fanOut;
+
+    @Param({"edges", "unicast", "partitioned", "broadcast"})
+    public String routing;
+
+    private OutboxImpl outbox;
+    private Object[] items;
+
+    @Setup
+    public void setup() {
+        OutboundCollector[] collectors;
+        if ("edges".equals(routing)) {
+            collectors = new OutboundCollector[fanOut];
+            for (int i = 0; i < fanOut; i++) {
+                collectors[i] = new CountingOutboundCollector();
+            }
+        } else {
+            collectors = new OutboundCollector[] {createComposite()};
+        }
+        outbox = new OutboxImpl(collectors, false, new ProgressTracker(),
+                new DefaultSerializationServiceBuilder().build(), Integer.MAX_VALUE,
+                new AtomicLongArray(collectors.length));
+        items = new Object[BATCH_SIZE];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "item-" + i;
+        }
+    }
+
+    private OutboundCollector createComposite() {
+        OutboundCollector[] consumers = new OutboundCollector[fanOut];
+        for (int i = 0; i < fanOut; i++) {
+            final int consumerIndex = i;
+            int[] partitions = IntStream.range(0, PARTITION_COUNT)
+                                        .filter(p -> p % fanOut == consumerIndex)
+                                        .toArray();
+            consumers[i] = new CountingOutboundCollector(partitions);
+        }
+        if (fanOut == 1) {
+            return consumers[0];
+        }
+        switch (routing) {
+            case "unicast":
+                return new OutboundCollector.RoundRobin(consumers);
+            case "partitioned":
+                return new OutboundCollector.Partitioned(consumers, Partitioner.HASH_CODE, PARTITION_COUNT);
+            case "broadcast":
+                return new OutboundCollector.Broadcast(consumers);
+            default:
+                throw new IllegalArgumentException("Unknown routing: " + routing);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean offer() {
+        outbox.reset();
+        boolean result = true;
+        for (Object item : items) {
+            result &= outbox.offer(item);
+        }
+        return result;
+    }
+}
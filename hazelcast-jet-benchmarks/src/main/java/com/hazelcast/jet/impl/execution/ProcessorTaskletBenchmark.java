@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.core.processor.Processors.filterP;
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+
+/**
+ * Measures the per-item overhead of the {@link ProcessorTasklet} state
+ * machine: filling the inbox from the inbound streams, calling the
+ * processor and pushing the results through {@link OutboxImpl} to the
+ * outbound collectors. The inbound streams are mocks which always have a
+ * full chunk ready, so the score excludes any queue contention.
+ * <p>
+ * One {@code call()} drains exactly one chunk from one inbound stream,
+ * therefore the score is reported in items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessorTaskletBenchmark {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @Param({"1", "4"})
+    public int inboundEdgeCount;
+
+    @Param({"1", "4"})
+    public int outboundEdgeCount;
+
+    @Param({"map", "filter"})
+    public String processor;
+
+    private ProcessorTasklet tasklet;
+    private List<CountingOutboundCollector> collectors;
+
+    @Setup
+    public void setup() {
+        Object[] chunk = new Object[CHUNK_SIZE];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = i;
+        }
+        List<InboundEdgeStream> instreams = new ArrayList<>();
+        for (int i = 0; i < inboundEdgeCount; i++) {
+            instreams.add(new RepeatingInboundStream(i, chunk));
+        }
+        collectors = new ArrayList<>();
+        List<OutboundEdgeStream> outstreams = new ArrayList<>();
+        for (int i = 0; i < outboundEdgeCount; i++) {
+            CountingOutboundCollector collector = new CountingOutboundCollector();
+            collectors.add(collector);
+            outstreams.add(new OutboundEdgeStream(i, collector));
+        }
+        SnapshotContext ssContext = new SnapshotContext(Logger.getLogger(SnapshotContext.class), "benchmark", 0,
+                ProcessingGuarantee.NONE);
+        tasklet = new ProcessorTasklet(new TestProcessorContext(), new DefaultSerializationServiceBuilder().build(),
+                createProcessor(), instreams, outstreams, ssContext, new CountingOutboundCollector(), null);
+        tasklet.init();
+    }
+
+    private Processor createProcessor() {
+        switch (processor) {
+            case "map":
+                return mapP(FunctionEx.identity()).get();
+            case "filter":
+                return filterP((Integer i) -> (i & 1) == 0).get();
+            default:
+                throw new IllegalArgumentException("Unknown processor: " + processor);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tasklet.close();
+        long total = 0;
+        for (CountingOutboundCollector collector : collectors) {
+            total += collector.count;
+        }
+        if (total == 0) {
+            throw new AssertionError("No items were emitted");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public ProgressState call() {
+        return tasklet.call();
+    }
+}
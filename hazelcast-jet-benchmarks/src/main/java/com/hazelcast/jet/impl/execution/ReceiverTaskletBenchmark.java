@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.LogListener;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.logging.LoggingService;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Measures the receiving side of a distributed edge: decoding the packets
+ * in the format written by {@link SenderTasklet} and pushing the items to
+ * the local collector. Besides items per millisecond it reports the
+ * decoded packet bytes per millisecond as the {@code bytes} secondary
+ * result.
+ * <p>
+ * The end-to-end cost of distributed edges, including the sender and the
+ * network, is measured by {@code com.hazelcast.jet.benchmark.EdgeBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiverTaskletBenchmark {
+
+    private static final int ITEMS_PER_PACKET = 256;
+    private static final int PACKETS_PER_INVOCATION = 4;
+
+    @Param({"long", "string"})
+    public String payload;
+
+    private InternalSerializationService serializationService;
+    private CountingOutboundCollector collector;
+    private ReceiverTasklet tasklet;
+    private byte[] packet;
+
+    @Setup
+    public void setup() throws IOException {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        collector = new CountingOutboundCollector();
+        tasklet = new ReceiverTasklet(collector, 3, 100, new BenchmarkLoggingService(), "benchmark");
+
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        out.writeInt(ITEMS_PER_PACKET);
+        for (int i = 0; i < ITEMS_PER_PACKET; i++) {
+            out.writeObject("long".equals(payload) ? (Object) (long) i : "item-" + i);
+            out.writeInt(i); // partition id
+        }
+        packet = out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_PACKET * PACKETS_PER_INVOCATION)
+    public ProgressState receive(ByteCounter byteCounter) {
+        for (int i = 0; i < PACKETS_PER_INVOCATION; i++) {
+            tasklet.receiveStreamPacket(serializationService.createObjectDataInput(packet));
+        }
+        // all the packets are decoded in one call, the collector never refuses
+        byteCounter.bytes += (long) packet.length * PACKETS_PER_INVOCATION;
+        return tasklet.call();
+    }
+
+    /**
+     * Counts the received bytes, JMH reports them as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ByteCounter {
+        public long bytes;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    private static final class BenchmarkLoggingService implements LoggingService {
+        @Override
+        public void addLogListener(@Nonnull Level level, @Nonnull LogListener logListener) {
+        }
+
+        @Override
+        public void removeLogListener(@Nonnull LogListener logListener) {
+        }
+
+        @Nonnull @Override
+        public ILogger getLogger(@Nonnull String name) {
+            return Logger.getLogger(name);
+        }
+
+        @Nonnull @Override
+        public ILogger getLogger(@Nonnull Class type) {
+            return Logger.getLogger(type);
+        }
+    }
+}
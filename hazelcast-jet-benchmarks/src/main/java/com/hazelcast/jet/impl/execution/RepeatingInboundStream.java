@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.util.function.Predicate;
+
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+
+/**
+ * {@link InboundEdgeStream} that never completes and delivers the same
+ * chunk of items on every {@link #drainTo} call. Used to feed a tasklet
+ * under benchmark without the cost of a concurrent queue.
+ */
+class RepeatingInboundStream implements InboundEdgeStream {
+
+    private final int ordinal;
+    private final Object[] chunk;
+
+    RepeatingInboundStream(int ordinal, Object[] chunk) {
+        this.ordinal = ordinal;
+        this.chunk = chunk;
+    }
+
+    @Override
+    public ProgressState drainTo(Predicate<Object> dest) {
+        for (Object item : chunk) {
+            dest.test(item);
+        }
+        return MADE_PROGRESS;
+    }
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
+    @Override
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public int priority() {
+        return 0;
+    }
+
+    @Override
+    public int sizes() {
+        return chunk.length;
+    }
+
+    @Override
+    public int capacities() {
+        return chunk.length;
+    }
+
+    @Override
+    public long topObservedWm() {
+        return Long.MIN_VALUE;
+    }
+
+    @Override
+    public long coalescedWm() {
+        return Long.MIN_VALUE;
+    }
+}
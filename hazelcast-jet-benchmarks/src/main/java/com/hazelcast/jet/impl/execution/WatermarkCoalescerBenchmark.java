@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.execution.WatermarkCoalescer.StandardImpl;
+import com.hazelcast.jet.impl.execution.WatermarkCoalescer.TournamentTreeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+
+/**
+ * Compares the {@link WatermarkCoalescer} implementations for 2..n inputs:
+ * {@code scan} ({@link StandardImpl}) and {@code tree} ({@link
+ * TournamentTreeImpl}).
+ * <p>
+ * The watermarks arrive on the queues in a round-robin fashion, so each
+ * new watermark is on the queue that was the minimum until then. This is
+ * the worst case for the tree, since the whole path to the root changes.
+ * With {@code idleEvery} greater than zero, every n-th watermark is
+ * replaced by an idle message, that queue then becomes active again with
+ * its next watermark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WatermarkCoalescerBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int queueCount;
+
+    @Param({"scan", "tree"})
+    public String impl;
+
+    @Param({"0", "10"})
+    public int idleEvery;
+
+    private WatermarkCoalescer coalescer;
+    private int queueIndex;
+    private long wm;
+    private long count;
+
+    @Setup
+    public void setup() {
+        coalescer = "scan".equals(impl) ? new StandardImpl(queueCount) : new TournamentTreeImpl(queueCount);
+    }
+
+    @Benchmark
+    public long observeWm() {
+        if (++queueIndex == queueCount) {
+            queueIndex = 0;
+        }
+        if (idleEvery > 0 && ++count % idleEvery == 0) {
+            return coalescer.observeWm(queueIndex, IDLE_MESSAGE.timestamp());
+        }
+        return coalescer.observeWm(queueIndex, ++wm);
+    }
+}
@@ -266,4 +266,131 @@ class AccumulatorSerializerHooks {
             return true;
         }
     }
+
+    public static final class HyperLogLogAccHook implements SerializerHook<HyperLogLogAccumulator> {
+
+        @Override
+        public Class<HyperLogLogAccumulator> getSerializationType() {
+            return HyperLogLogAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<HyperLogLogAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.HYPER_LOG_LOG_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, HyperLogLogAccumulator object) throws IOException {
+                    out.writeByteArray(object.registers());
+                }
+
+                @Override
+                public HyperLogLogAccumulator read(ObjectDataInput in) throws IOException {
+                    return new HyperLogLogAccumulator(in.readByteArray());
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
+
+    public static final class CountMinSketchAccHook implements SerializerHook<CountMinSketchAccumulator> {
+
+        @Override
+        public Class<CountMinSketchAccumulator> getSerializationType() {
+            return CountMinSketchAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<CountMinSketchAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.COUNT_MIN_SKETCH_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, CountMinSketchAccumulator object) throws IOException {
+                    out.writeInt(object.depth());
+                    out.writeInt(object.width());
+                    out.writeLongArray(object.counters());
+                    out.writeLong(object.totalCount());
+                }
+
+                @Override
+                public CountMinSketchAccumulator read(ObjectDataInput in) throws IOException {
+                    return new CountMinSketchAccumulator(in.readInt(), in.readInt(), in.readLongArray(), in.readLong());
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
+
+    public static final class KllSketchAccHook implements SerializerHook<KllSketchAccumulator> {
+
+        @Override
+        public Class<KllSketchAccumulator> getSerializationType() {
+            return KllSketchAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<KllSketchAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.KLL_SKETCH_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, KllSketchAccumulator object) throws IOException {
+                    out.writeInt(object.k());
+                    out.writeLong(object.count());
+                    out.writeInt(object.levelCount());
+                    for (int i = 0; i < object.levelCount(); i++) {
+                        out.writeDoubleArray(object.level(i));
+                    }
+                }
+
+                @Override
+                public KllSketchAccumulator read(ObjectDataInput in) throws IOException {
+                    int k = in.readInt();
+                    long count = in.readLong();
+                    double[][] levels = new double[in.readInt()][];
+                    int[] levelSizes = new int[levels.length];
+                    for (int i = 0; i < levels.length; i++) {
+                        levels[i] = in.readDoubleArray();
+                        levelSizes[i] = levels[i].length;
+                    }
+                    return new KllSketchAccumulator(k, count, levels, levelSizes);
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
 }
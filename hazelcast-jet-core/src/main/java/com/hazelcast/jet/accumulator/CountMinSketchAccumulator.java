@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.accumulator;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+import static com.hazelcast.jet.impl.util.Util.hash64;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * A Count-Min sketch that estimates how many times an item was added to
+ * it. It keeps {@code depth} rows of {@code width} counters. The estimate
+ * is never lower than the real count and it exceeds it by more than
+ * {@code e / width * totalCount()} with the probability of at most {@code
+ * e^-depth}.
+ * <p>
+ * Boxed primitives, strings and enums are hashed to 64 bits, see {@link
+ * com.hazelcast.jet.aggregate.AggregateOperations#approximateCountDistinct
+ * approximateCountDistinct()}. Other items are hashed using their {@code
+ * hashCode()}, so the items that are equal must have equal hash codes.
+ * Sketches can be combined and deducted from each other.
+ *
+ * @since 3.2
+ */
+public final class CountMinSketchAccumulator {
+
+    private final int depth;
+    private final int width;
+    // the rows one after another
+    private final long[] counters;
+    private long totalCount;
+
+    /**
+     * Creates a new empty sketch with the given number of rows and counters
+     * in each row.
+     */
+    public CountMinSketchAccumulator(int depth, int width) {
+        checkPositive(depth, "depth must be positive");
+        checkPositive(width, "width must be positive");
+        checkTrue((long) depth * width <= Integer.MAX_VALUE, "depth * width is too large");
+        this.depth = depth;
+        this.width = width;
+        this.counters = new long[depth * width];
+    }
+
+    /**
+     * Creates a copy of the given sketch.
+     */
+    public CountMinSketchAccumulator(@Nonnull CountMinSketchAccumulator sketch) {
+        this(sketch.depth, sketch.width, sketch.counters.clone(), sketch.totalCount);
+    }
+
+    /**
+     * Creates a sketch with the given counters. Intended only for
+     * deserialization.
+     */
+    CountMinSketchAccumulator(int depth, int width, @Nonnull long[] counters, long totalCount) {
+        this.depth = depth;
+        this.width = width;
+        this.counters = counters;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of counters in each row.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the sum of all counts added to this sketch.
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Adds the given count of the item to this sketch.
+     */
+    public CountMinSketchAccumulator add(Object item, long count) {
+        long hash = hash64(item);
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + column(hash, row)] += count;
+        }
+        totalCount += count;
+        return this;
+    }
+
+    /**
+     * Returns the estimated count of the item.
+     */
+    public long estimateCount(Object item) {
+        long hash = hash64(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counts of the supplied sketch to this one. Both sketches must
+     * have the same depth and width.
+     */
+    public CountMinSketchAccumulator combine(@Nonnull CountMinSketchAccumulator that) {
+        checkSameShape(that);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += that.counters[i];
+        }
+        totalCount += that.totalCount;
+        return this;
+    }
+
+    /**
+     * Subtracts the counts of the supplied sketch from this one. Both
+     * sketches must have the same depth and width.
+     */
+    public CountMinSketchAccumulator deduct(@Nonnull CountMinSketchAccumulator that) {
+        checkSameShape(that);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= that.counters[i];
+        }
+        totalCount -= that.totalCount;
+        return this;
+    }
+
+    long[] counters() {
+        return counters;
+    }
+
+    private void checkSameShape(CountMinSketchAccumulator that) {
+        checkTrue(depth == that.depth && width == that.width, "can't combine sketches with different dimensions");
+    }
+
+    /**
+     * Returns the column for the item in the given row, derived from the
+     * two halves of its hash.
+     */
+    private int column(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> Integer.SIZE);
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CountMinSketchAccumulator that = (CountMinSketchAccumulator) o;
+        return depth == that.depth
+                && width == that.width
+                && totalCount == that.totalCount
+                && Arrays.equals(counters, that.counters);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = depth;
+        result = 31 * result + width;
+        result = 31 * result + Arrays.hashCode(counters);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketchAccumulator(depth=" + depth + ", width=" + width + ", totalCount=" + totalCount + ')';
+    }
+}
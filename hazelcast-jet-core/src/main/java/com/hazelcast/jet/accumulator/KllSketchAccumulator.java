@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.accumulator;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * A KLL sketch that estimates the quantiles of the {@code double} values
+ * added to it. It keeps a hierarchy of compactors: level {@code h} holds
+ * values that each stand for {@code 2^h} of the added values. When a level
+ * is full, it's sorted and every other value is promoted to the level
+ * above. The parameter {@code k} bounds the size of the top level; the
+ * sketch keeps about {@code 3k} values and the rank error of the estimated
+ * quantiles is about {@code 1.7 / k}, for example 1% with {@code k = 200}.
+ * <p>
+ * Sketches can be combined, but not deducted from each other.
+ *
+ * @since 3.2
+ */
+public final class KllSketchAccumulator {
+
+    /**
+     * The minimum supported value of {@code k}.
+     */
+    public static final int MIN_K = 8;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private long count;
+    private double[][] levels;
+    private int[] levelSizes;
+
+    /**
+     * Creates a new empty sketch with the given {@code k}, which must be at
+     * least {@value #MIN_K}.
+     */
+    public KllSketchAccumulator(int k) {
+        checkTrue(k >= MIN_K, "k must be at least " + MIN_K);
+        this.k = k;
+        this.levels = new double[][] {new double[k]};
+        this.levelSizes = new int[1];
+    }
+
+    /**
+     * Creates a copy of the given sketch.
+     */
+    public KllSketchAccumulator(@Nonnull KllSketchAccumulator sketch) {
+        this.k = sketch.k;
+        this.count = sketch.count;
+        this.levels = new double[sketch.levels.length][];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = sketch.levels[i].clone();
+        }
+        this.levelSizes = sketch.levelSizes.clone();
+    }
+
+    /**
+     * Creates a sketch with the given levels. Intended only for
+     * deserialization.
+     */
+    KllSketchAccumulator(int k, long count, @Nonnull double[][] levels, @Nonnull int[] levelSizes) {
+        this.k = k;
+        this.count = count;
+        this.levels = levels;
+        this.levelSizes = levelSizes;
+    }
+
+    /**
+     * Returns the parameter {@code k} of this sketch.
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Returns the number of values added to this sketch.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Adds the value to this sketch.
+     */
+    public KllSketchAccumulator add(double value) {
+        append(0, value);
+        count++;
+        compactIfNeeded();
+        return this;
+    }
+
+    /**
+     * Adds the values of the supplied sketch to this one. Both sketches must
+     * have the same {@code k}.
+     */
+    public KllSketchAccumulator combine(@Nonnull KllSketchAccumulator that) {
+        checkTrue(k == that.k, "can't combine sketches with different k");
+        for (int level = 0; level < that.levels.length; level++) {
+            while (level >= levels.length) {
+                addLevel();
+            }
+            for (int i = 0; i < that.levelSizes[level]; i++) {
+                append(level, that.levels[level][i]);
+            }
+        }
+        count += that.count;
+        compactIfNeeded();
+        return this;
+    }
+
+    /**
+     * Returns the estimated value at the given quantile, which must be
+     * between 0 and 1. For example, {@code quantile(0.5)} estimates the
+     * median. Returns {@code NaN} if the sketch is empty.
+     */
+    public double quantile(double quantile) {
+        checkTrue(quantile >= 0 && quantile <= 1, "quantile must be between 0 and 1");
+        int size = 0;
+        for (int levelSize : levelSizes) {
+            size += levelSize;
+        }
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        long totalWeight = 0;
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < levelSizes[level]; i++) {
+                values[n] = levels[level][i];
+                weights[n] = 1L << level;
+                totalWeight += weights[n];
+                n++;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> Double.compare(values[i1], values[i2]));
+        long targetWeight = (long) Math.ceil(quantile * totalWeight);
+        long cumulativeWeight = 0;
+        for (int i : order) {
+            cumulativeWeight += weights[i];
+            if (cumulativeWeight >= targetWeight) {
+                return values[i];
+            }
+        }
+        return values[order[size - 1]];
+    }
+
+    int levelCount() {
+        return levels.length;
+    }
+
+    double[] level(int level) {
+        return Arrays.copyOf(levels[level], levelSizes[level]);
+    }
+
+    private void append(int level, double value) {
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(MIN_LEVEL_CAPACITY, 2 * levels[level].length));
+        }
+        levels[level][levelSizes[level]++] = value;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new double[MIN_LEVEL_CAPACITY];
+        levelSizes = Arrays.copyOf(levelSizes, levelSizes.length + 1);
+    }
+
+    /**
+     * Returns the capacity of the level. The top level has the capacity of
+     * {@code k}, each lower level 2/3 of the level above it.
+     */
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void compactIfNeeded() {
+        while (true) {
+            int size = 0;
+            int maxSize = 0;
+            for (int level = 0; level < levels.length; level++) {
+                size += levelSizes[level];
+                maxSize += capacity(level);
+            }
+            if (size <= maxSize) {
+                return;
+            }
+            compactFirstFullLevel();
+        }
+    }
+
+    private void compactFirstFullLevel() {
+        for (int level = 0; level < levels.length; level++) {
+            int size = levelSizes[level];
+            if (size < capacity(level)) {
+                continue;
+            }
+            if (level == levels.length - 1) {
+                addLevel();
+            }
+            double[] values = levels[level];
+            Arrays.sort(values, 0, size);
+            // with an odd size, the smallest value stays in the level
+            int remaining = size % 2;
+            int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+            for (int i = remaining + offset; i < size; i += 2) {
+                append(level + 1, values[i]);
+            }
+            levelSizes[level] = remaining;
+            return;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KllSketchAccumulator that = (KllSketchAccumulator) o;
+        if (k != that.k || count != that.count || levels.length != that.levels.length) {
+            return false;
+        }
+        for (int level = 0; level < levels.length; level++) {
+            if (!Arrays.equals(level(level), that.level(level))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = k;
+        result = 31 * result + (int) (count ^ (count >>> 32));
+        for (int level = 0; level < levels.length; level++) {
+            result = 31 * result + Arrays.hashCode(level(level));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "KllSketchAccumulator(k=" + k + ", count=" + count + ')';
+    }
+}
@@ -19,7 +19,10 @@ package com.hazelcast.jet.aggregate;
 import com.hazelcast.aggregation.Aggregator;
 import com.hazelcast.core.IMap;
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.CountMinSketchAccumulator;
 import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.HyperLogLogAccumulator;
+import com.hazelcast.jet.accumulator.KllSketchAccumulator;
 import com.hazelcast.jet.accumulator.LinTrendAccumulator;
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.accumulator.LongDoubleAccumulator;
@@ -62,6 +65,8 @@ import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.function.FunctionEx.identity;
 import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
 
 /**
  * Utility class with factory methods for several useful aggregate
@@ -435,6 +440,138 @@ public final class AggregateOperations {
                 .andExportFinish(LinTrendAccumulator::export);
     }
 
+    /**
+     * Returns an aggregate operation that estimates the number of distinct
+     * keys extracted from the items, using a {@link HyperLogLogAccumulator
+     * HyperLogLog} sketch with the given precision. The sketch takes {@code
+     * 2^precision} bytes regardless of the number of items and the standard
+     * error of the result is about {@code 1.04 / sqrt(2^precision)}.
+     * <p>
+     * This sample estimates the number of distinct users who visited each
+     * page:
+     * <pre>{@code
+     * BatchStage<PageVisit> visits = pipeline.drawFrom(visitSource);
+     * BatchStage<Entry<String, Long>> uniqueVisitors = visits
+     *         .groupingKey(PageVisit::getPage)
+     *         .aggregate(approximateCountDistinct(14, PageVisit::getUserId));
+     * }</pre>
+     * Keys of type {@code Long}, {@code Integer}, {@code Short}, {@code
+     * Byte}, {@code Double}, {@code Float}, {@code Character}, {@code
+     * String} and enums are hashed to 64 bits. Other keys are hashed using
+     * their 32-bit {@code hashCode()}: since there are at most 2^32 distinct
+     * hash values, their hash collisions make the result underestimate the
+     * count beyond the standard error above about 10^8 distinct keys, by
+     * about 10% at 10^9 distinct keys. Extract one of the types above from
+     * such keys if you expect so many. The operation has no deduct
+     * primitive.
+     *
+     * @param precision the precision of the sketch, between {@value
+     *                  HyperLogLogAccumulator#MIN_PRECISION} and {@value
+     *                  HyperLogLogAccumulator#MAX_PRECISION}
+     * @param getKeyFn  a function to extract the key to count from the item
+     * @param <T> type of the input item
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public static <T> AggregateOperation1<T, HyperLogLogAccumulator, Long> approximateCountDistinct(
+            int precision,
+            @Nonnull FunctionEx<? super T, ?> getKeyFn
+    ) {
+        checkTrue(precision >= HyperLogLogAccumulator.MIN_PRECISION
+                        && precision <= HyperLogLogAccumulator.MAX_PRECISION,
+                "precision must be between " + HyperLogLogAccumulator.MIN_PRECISION
+                        + " and " + HyperLogLogAccumulator.MAX_PRECISION);
+        checkSerializable(getKeyFn, "getKeyFn");
+        return AggregateOperation
+                .withCreate(() -> new HyperLogLogAccumulator(precision))
+                .andAccumulate((HyperLogLogAccumulator a, T item) -> a.add(getKeyFn.apply(item)))
+                .andCombine(HyperLogLogAccumulator::combine)
+                .andExportFinish(HyperLogLogAccumulator::estimate);
+    }
+
+    /**
+     * Returns an aggregate operation that counts the occurrences of the keys
+     * extracted from the items in a {@link CountMinSketchAccumulator
+     * Count-Min sketch} with the given dimensions. The result is the sketch,
+     * which estimates the count of any key without keeping the keys, for
+     * example to check whether a key is a heavy hitter. The sketch takes
+     * {@code 8 * depth * width} bytes regardless of the number of items.
+     * <p>
+     * This sample estimates how many times each product was ordered in the
+     * last minute:
+     * <pre>{@code
+     * StreamStage<WindowResult<CountMinSketchAccumulator>> productCounts = orders
+     *         .window(WindowDefinition.sliding(MINUTES.toMillis(1), SECONDS.toMillis(1)))
+     *         .aggregate(countMinSketch(5, 2000, Order::getProductId));
+     * }</pre>
+     * The keys are hashed the same way as in {@link
+     * #approximateCountDistinct}. The operation has a deduct primitive, so
+     * sliding windows are computed efficiently.
+     *
+     * @param depth    the number of rows of the sketch
+     * @param width    the number of counters in each row
+     * @param getKeyFn a function to extract the key to count from the item
+     * @param <T> type of the input item
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public static <T> AggregateOperation1<T, CountMinSketchAccumulator, CountMinSketchAccumulator> countMinSketch(
+            int depth,
+            int width,
+            @Nonnull FunctionEx<? super T, ?> getKeyFn
+    ) {
+        checkPositive(depth, "depth must be positive");
+        checkPositive(width, "width must be positive");
+        checkSerializable(getKeyFn, "getKeyFn");
+        return AggregateOperation
+                .withCreate(() -> new CountMinSketchAccumulator(depth, width))
+                .andAccumulate((CountMinSketchAccumulator a, T item) -> a.add(getKeyFn.apply(item), 1))
+                .andCombine(CountMinSketchAccumulator::combine)
+                .andDeduct(CountMinSketchAccumulator::deduct)
+                .andExport(CountMinSketchAccumulator::new)
+                .andFinish(identity());
+    }
+
+    /**
+     * Returns an aggregate operation that collects the {@code double} values
+     * extracted from the items in a {@link KllSketchAccumulator KLL sketch}
+     * with the given parameter {@code k}. The result is the sketch, which
+     * estimates any quantile of the values. The sketch keeps about {@code 3k}
+     * values regardless of the number of items and the rank error of the
+     * estimated quantiles is about {@code 1.7 / k}.
+     * <p>
+     * This sample estimates the 99th percentile of the request latency:
+     * <pre>{@code
+     * BatchStage<Double> p99 = requests
+     *         .aggregate(quantilesSketch(200, Request::getLatency))
+     *         .map(sketch -> sketch.quantile(0.99));
+     * }</pre>
+     * The operation has no deduct primitive.
+     *
+     * @param k          the parameter of the sketch, at least {@value
+     *                   KllSketchAccumulator#MIN_K}
+     * @param getValueFn a function to extract the value from the item
+     * @param <T> type of the input item
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public static <T> AggregateOperation1<T, KllSketchAccumulator, KllSketchAccumulator> quantilesSketch(
+            int k,
+            @Nonnull ToDoubleFunctionEx<? super T> getValueFn
+    ) {
+        checkTrue(k >= KllSketchAccumulator.MIN_K, "k must be at least " + KllSketchAccumulator.MIN_K);
+        checkSerializable(getValueFn, "getValueFn");
+        return AggregateOperation
+                .withCreate(() -> new KllSketchAccumulator(k))
+                .andAccumulate((KllSketchAccumulator a, T item) -> a.add(getValueFn.applyAsDouble(item)))
+                .andCombine(KllSketchAccumulator::combine)
+                .andExport(KllSketchAccumulator::new)
+                .andFinish(identity());
+    }
+
     /**
      * Returns an aggregate operation that takes string items and concatenates
      * them into a single string.
@@ -20,6 +20,7 @@ import com.hazelcast.jet.core.Edge;
 
 import java.io.Serializable;
 
+import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static com.hazelcast.util.Preconditions.checkPositive;
 
 /**
@@ -46,9 +47,19 @@ public class EdgeConfig implements Serializable {
      */
     public static final int DEFAULT_PACKET_SIZE_LIMIT = 1 << 14;
 
+    /**
+     * The default {@link #setCompressionThreshold(int) compression threshold}.
+     *
+     * @since 3.2
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private int receiveWindowMultiplier = DEFAULT_RECEIVE_WINDOW_MULTIPLIER;
     private int packetSizeLimit = DEFAULT_PACKET_SIZE_LIMIT;
+    private boolean adaptiveFlowControlEnabled;
+    private boolean compressionEnabled;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
 
     /**
      * Sets the capacity of processor-to-processor concurrent queues. The value
@@ -148,4 +159,103 @@ public class EdgeConfig implements Serializable {
     public int getPacketSizeLimit() {
         return packetSizeLimit;
     }
+
+    /**
+     * Enables the adaptive flow control of a distributed edge. Instead of
+     * sizing the receive window as a {@link #setReceiveWindowMultiplier(int)
+     * fixed multiple} of the data processed in one flow-control period, the
+     * receiving member sizes it according to the bandwidth-delay product of
+     * the connection: the maximum rate at which it recently processed the
+     * data, multiplied by the minimum measured round-trip time. The window
+     * gets twice the product while the receiver keeps up, which lets the
+     * sender probe for more bandwidth, and shrinks to the product while items
+     * wait at the receiver, which avoids a standing queue.
+     * <p>
+     * The receiver also adapts the packet size to the receive window, within
+     * 4 times below or above the {@link #setPacketSizeLimit(int) packet size
+     * limit}: a small window gets smaller packets which interleave better, a
+     * large window larger packets with less per-packet overhead.
+     * <p>
+     * Adaptive flow control helps on links with a high or a varying latency
+     * and with bursty sources. It's disabled by default. This setting has no
+     * effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     * @since 3.2
+     */
+    public EdgeConfig setAdaptiveFlowControlEnabled(boolean adaptiveFlowControlEnabled) {
+        this.adaptiveFlowControlEnabled = adaptiveFlowControlEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setAdaptiveFlowControlEnabled(boolean)
+     * adaptive flow control} is enabled.
+     *
+     * @since 3.2
+     */
+    public boolean isAdaptiveFlowControlEnabled() {
+        return adaptiveFlowControlEnabled;
+    }
+
+    /**
+     * Enables compressing the network packets of a distributed edge. The
+     * sending member compresses the items in each packet with a fast LZ77
+     * compressor (the LZ4 block format) and the receiving member decompresses
+     * them before it deserializes the items.
+     * <p>
+     * Compression trades CPU time for network bandwidth: it pays off when the
+     * network is the bottleneck and the serialized items are repetitive, for
+     * example text or records with many equal field values. A packet is sent
+     * uncompressed if its items are shorter than the {@link
+     * #setCompressionThreshold(int) compression threshold} or if they don't
+     * compress to a shorter form.
+     * <p>
+     * Compression is disabled by default. This setting has no effect on a
+     * non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     * @since 3.2
+     */
+    public EdgeConfig setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setCompressionEnabled(boolean) network packet
+     * compression} is enabled.
+     *
+     * @since 3.2
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets the minimum size of the items in a network packet, in bytes, for
+     * the packet to be compressed. Compressing a small packet saves little
+     * bandwidth, but still costs CPU time on both members. Has no effect if
+     * the {@link #setCompressionEnabled(boolean) compression} isn't enabled.
+     * <p>
+     * The default value is {@value #DEFAULT_COMPRESSION_THRESHOLD}.
+     *
+     * @return {@code this} instance for fluent API
+     * @since 3.2
+     */
+    public EdgeConfig setCompressionThreshold(int compressionThreshold) {
+        checkNotNegative(compressionThreshold, "compressionThreshold should not be negative");
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCompressionThreshold(int) compression threshold},
+     * in bytes.
+     *
+     * @since 3.2
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
 }
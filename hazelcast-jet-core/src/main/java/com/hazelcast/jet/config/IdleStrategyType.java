@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+import com.hazelcast.jet.core.JetProperties;
+
+/**
+ * The strategy a Jet worker thread uses to wait when none of its
+ * processors made progress. The strategies are listed in the order of
+ * decreasing CPU usage and increasing latency of reacting to new data.
+ * <p>
+ * Cooperative processors of different jobs share the worker threads. A
+ * thread uses the first strategy in this order among the strategies of
+ * its processors, so a busy-spinning job makes the whole thread spin.
+ * Use it together with a dedicated cluster or with {@link
+ * JetProperties#JET_COOPERATIVE_THREAD_CPU_AFFINITY CPU pinning}.
+ *
+ * @since 3.2
+ */
+public enum IdleStrategyType {
+
+    /**
+     * The thread never stops polling. Gives the lowest latency, but keeps
+     * its CPU core fully busy even when there's no data.
+     */
+    BUSY_SPIN,
+
+    /**
+     * The thread calls {@link Thread#yield()} between polls, which lets the
+     * operating system run other threads on the core, but it still uses
+     * the core when there's nothing else to run.
+     */
+    YIELD,
+
+    /**
+     * The thread sleeps for increasingly long periods, from {@link
+     * JetProperties#JET_IDLE_COOPERATIVE_MIN_MICROSECONDS} to {@link
+     * JetProperties#JET_IDLE_COOPERATIVE_MAX_MICROSECONDS}. This is the
+     * default strategy.
+     */
+    BACKOFF,
+
+    /**
+     * The thread immediately sleeps for {@link
+     * JetProperties#JET_IDLE_COOPERATIVE_MAX_MICROSECONDS}. Uses the least
+     * CPU, suitable for batch jobs that don't care about latency.
+     */
+    PARK
+}
@@ -142,6 +142,9 @@ public final class JetConfigXmlGenerator {
            .node("queue-size", defaultEdge.getQueueSize())
            .node("packet-size-limit", defaultEdge.getPacketSizeLimit())
            .node("receive-window-multiplier", defaultEdge.getReceiveWindowMultiplier())
+           .node("adaptive-flow-control-enabled", defaultEdge.isAdaptiveFlowControlEnabled())
+           .node("compression-enabled", defaultEdge.isCompressionEnabled())
+           .node("compression-threshold", defaultEdge.getCompressionThreshold())
            .close();
 
     }
@@ -57,6 +57,12 @@ public class JobConfig implements IdentifiedDataSerializable {
     private List<ResourceConfig> resourceConfigs = new ArrayList<>();
     private JobClassLoaderFactory classLoaderFactory;
     private String initialSnapshotName;
+    private long offHeapStateMemoryLimit;
+    private long spillMemoryLimit;
+    private IdleStrategyType idleStrategy;
+    private int maxIncrementalSnapshots;
+    private boolean unalignedSnapshots;
+    private int preAggregationMaxKeys;
 
     /**
      * Returns the name of the job or {@code null} if no name was given.
@@ -472,6 +478,226 @@ public class JobConfig implements IdentifiedDataSerializable {
         return this;
     }
 
+    /**
+     * Sets the maximum amount of off-heap memory, in bytes, the keyed state
+     * of the job's processors can use on each member. When set to a positive
+     * value, the grouping, windowing and stateful-mapping processors keep
+     * their keyed state serialized in off-heap memory instead of keeping
+     * the objects on the Java heap. This reduces the heap size and GC
+     * pauses needed for jobs with large state at the cost of serializing
+     * the state on each access. The job fails if the state exceeds the
+     * limit.
+     * <p>
+     * The memory is allocated as direct buffers, so the JVM's {@code
+     * -XX:MaxDirectMemorySize} must be large enough for all the jobs
+     * running on the member.
+     * <p>
+     * The default value is {@code 0}, which means the state is kept on the
+     * heap.
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setOffHeapStateMemoryLimit(long bytes) {
+        Preconditions.checkNotNegative(bytes, "offHeapStateMemoryLimit can't be negative");
+        this.offHeapStateMemoryLimit = bytes;
+        return this;
+    }
+
+    /**
+     * Returns the maximum amount of off-heap memory, in bytes, the keyed
+     * state of the job's processors can use on each member. See {@link
+     * #setOffHeapStateMemoryLimit(long)}.
+     *
+     * @since 3.2
+     */
+    public long getOffHeapStateMemoryLimit() {
+        return offHeapStateMemoryLimit;
+    }
+
+    /**
+     * Sets the amount of memory, in bytes, the state of each batch grouping
+     * or hash-join collecting processor can use before it's written to
+     * the local disk. The size of the state is estimated from the
+     * serialized size of a sample of its entries.
+     * <p>
+     * A grouping processor writes its partial aggregation results to disk
+     * and combines them when all the input was received, so it needs an
+     * aggregate operation with a {@linkplain
+     * com.hazelcast.jet.aggregate.AggregateOperation#combineFn() combine
+     * function}. A hash-join collecting processor writes the items to disk
+     * and the joining processors then look them up in memory-mapped files.
+     * The files are stored in the directory configured with {@link
+     * com.hazelcast.jet.core.JetProperties#JET_SPILL_DIRECTORY}.
+     * <p>
+     * The default value is {@code 0}, which means the state is always kept
+     * in memory.
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setSpillMemoryLimit(long bytes) {
+        Preconditions.checkNotNegative(bytes, "spillMemoryLimit can't be negative");
+        this.spillMemoryLimit = bytes;
+        return this;
+    }
+
+    /**
+     * Returns the amount of memory, in bytes, the state of each batch
+     * grouping or hash-join collecting processor can use before it's written
+     * to the local disk. See {@link #setSpillMemoryLimit(long)}.
+     *
+     * @since 3.2
+     */
+    public long getSpillMemoryLimit() {
+        return spillMemoryLimit;
+    }
+
+    /**
+     * Sets the strategy the threads running this job's tasklets use when
+     * they have no work to do. It can be overridden for individual vertices
+     * with {@link com.hazelcast.jet.core.Vertex#idleStrategy}.
+     * <p>
+     * The default value is {@code null}, which means {@link
+     * IdleStrategyType#BACKOFF}, configured with the {@code jet.idle.*}
+     * properties.
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setIdleStrategy(@Nullable IdleStrategyType idleStrategy) {
+        this.idleStrategy = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Returns the idle strategy of this job's threads. See {@link
+     * #setIdleStrategy(IdleStrategyType)}.
+     *
+     * @since 3.2
+     */
+    @Nullable
+    public IdleStrategyType getIdleStrategy() {
+        return idleStrategy;
+    }
+
+    /**
+     * Sets the maximum number of consecutive incremental snapshots taken
+     * after a full snapshot. In an incremental snapshot the processors that
+     * support it, such as the windowing and the stateful mapping processors,
+     * save only the state they changed since the previous snapshot. The
+     * incremental snapshots are stored next to the full snapshot they build
+     * on. After this number of incremental snapshots the next snapshot is
+     * full again: this bounds the amount of data read when the job restores
+     * from the snapshot.
+     * <p>
+     * Exported snapshots are always full. A failed snapshot also causes the
+     * next snapshot to be full. This setting is only relevant with
+     * <i>at-least-once</i> or <i>exactly-once</i> processing guarantees.
+     * <p>
+     * The default value is {@code 0}, which means all snapshots are full.
+     *
+     * @return {@code this} instance for fluent API
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setMaxIncrementalSnapshots(int maxIncrementalSnapshots) {
+        Preconditions.checkNotNegative(maxIncrementalSnapshots, "maxIncrementalSnapshots can't be negative");
+        this.maxIncrementalSnapshots = maxIncrementalSnapshots;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of consecutive incremental snapshots. See
+     * {@link #setMaxIncrementalSnapshots(int)}.
+     *
+     * @since 3.2
+     */
+    public int getMaxIncrementalSnapshots() {
+        return maxIncrementalSnapshots;
+    }
+
+    /**
+     * Sets whether the job takes unaligned snapshots. This setting is only
+     * relevant with the <i>exactly-once</i> processing guarantee.
+     * <p>
+     * In an aligned snapshot a processor with multiple inputs stops
+     * receiving items from an input where it received the snapshot barrier
+     * until it receives the barrier from all the other inputs. When the job
+     * is backpressured, the barrier waits behind all the items queued in
+     * front of it and the snapshot takes long. In an unaligned snapshot the
+     * processor saves its state as soon as it receives the barrier from the
+     * first input and forwards the barrier downstream right away. The items
+     * it then receives from the other inputs in front of the barrier are
+     * saved to the snapshot along with the state and are processed again
+     * when the job restores from the snapshot. This keeps the snapshot
+     * duration independent of the queue sizes, at the cost of larger
+     * snapshots.
+     * <p>
+     * A processor takes unaligned snapshots only if all of its input edges
+     * are {@linkplain com.hazelcast.jet.core.Edge#partitioned partitioned}
+     * or unicast. The terminal snapshot, taken when the job is gracefully
+     * suspended or restarted, is always aligned.
+     * <p>
+     * The default value is {@code false}.
+     *
+     * @return {@code this} instance for fluent API
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setUnalignedSnapshots(boolean unalignedSnapshots) {
+        this.unalignedSnapshots = unalignedSnapshots;
+        return this;
+    }
+
+    /**
+     * Returns whether the job takes unaligned snapshots. See {@link
+     * #setUnalignedSnapshots(boolean)}.
+     *
+     * @since 3.2
+     */
+    public boolean isUnalignedSnapshots() {
+        return unalignedSnapshots;
+    }
+
+    /**
+     * Sets the maximum number of keys the first stage of a two-stage window
+     * aggregation keeps in each processor. When a new key would exceed the
+     * limit, the processor sends the least recently used partial result of
+     * the oldest frame to the second stage right away, instead of keeping it
+     * until the frame is complete. The second stage combines the partial
+     * results of the same key and frame, so the final results don't change.
+     * <p>
+     * With high-cardinality keys the first stage reduces the network
+     * traffic only a little, but keeps as much state as the second stage.
+     * The limit keeps only the hot keys in the first stage, at the cost of
+     * sending more partial results over the network.
+     * <p>
+     * The default value is {@code 0}, which means there's no limit.
+     *
+     * @return {@code this} instance for fluent API
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public JobConfig setPreAggregationMaxKeys(int preAggregationMaxKeys) {
+        Preconditions.checkNotNegative(preAggregationMaxKeys, "preAggregationMaxKeys can't be negative");
+        this.preAggregationMaxKeys = preAggregationMaxKeys;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of keys in the first stage of a two-stage
+     * window aggregation. See {@link #setPreAggregationMaxKeys(int)}.
+     *
+     * @since 3.2
+     */
+    public int getPreAggregationMaxKeys() {
+        return preAggregationMaxKeys;
+    }
+
     @Override
     public int getFactoryId() {
         return JetConfigDataSerializerHook.FACTORY_ID;
@@ -494,6 +720,12 @@ public class JobConfig implements IdentifiedDataSerializable {
         out.writeUTF(initialSnapshotName);
         out.writeBoolean(enableMetrics);
         out.writeBoolean(storeMetricsAfterJobCompletion);
+        out.writeLong(offHeapStateMemoryLimit);
+        out.writeLong(spillMemoryLimit);
+        out.writeObject(idleStrategy);
+        out.writeInt(maxIncrementalSnapshots);
+        out.writeBoolean(unalignedSnapshots);
+        out.writeInt(preAggregationMaxKeys);
     }
 
     @Override
@@ -508,6 +740,12 @@ public class JobConfig implements IdentifiedDataSerializable {
         initialSnapshotName = in.readUTF();
         enableMetrics = in.readBoolean();
         storeMetricsAfterJobCompletion = in.readBoolean();
+        offHeapStateMemoryLimit = in.readLong();
+        spillMemoryLimit = in.readLong();
+        idleStrategy = in.readObject();
+        maxIncrementalSnapshots = in.readInt();
+        unalignedSnapshots = in.readBoolean();
+        preAggregationMaxKeys = in.readInt();
     }
 
 
@@ -525,8 +763,14 @@ public class JobConfig implements IdentifiedDataSerializable {
             splitBrainProtectionEnabled == jobConfig.splitBrainProtectionEnabled &&
             enableMetrics == jobConfig.enableMetrics &&
             storeMetricsAfterJobCompletion == jobConfig.storeMetricsAfterJobCompletion &&
+            offHeapStateMemoryLimit == jobConfig.offHeapStateMemoryLimit &&
+            spillMemoryLimit == jobConfig.spillMemoryLimit &&
+            maxIncrementalSnapshots == jobConfig.maxIncrementalSnapshots &&
+            unalignedSnapshots == jobConfig.unalignedSnapshots &&
+            preAggregationMaxKeys == jobConfig.preAggregationMaxKeys &&
             Objects.equals(name, jobConfig.name) &&
             processingGuarantee == jobConfig.processingGuarantee &&
+            idleStrategy == jobConfig.idleStrategy &&
             Objects.equals(resourceConfigs, jobConfig.resourceConfigs) &&
             Objects.equals(classLoaderFactory, jobConfig.classLoaderFactory) &&
             Objects.equals(initialSnapshotName, jobConfig.initialSnapshotName);
@@ -536,7 +780,9 @@ public class JobConfig implements IdentifiedDataSerializable {
     public int hashCode() {
         return Objects.hash(name, processingGuarantee, snapshotIntervalMillis, autoScaling,
                 splitBrainProtectionEnabled, enableMetrics, storeMetricsAfterJobCompletion, resourceConfigs,
-                classLoaderFactory, initialSnapshotName
+                classLoaderFactory, initialSnapshotName, offHeapStateMemoryLimit,
+                spillMemoryLimit, idleStrategy, maxIncrementalSnapshots, unalignedSnapshots,
+                preAggregationMaxKeys
         );
     }
 }
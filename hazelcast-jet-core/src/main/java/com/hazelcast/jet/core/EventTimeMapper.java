@@ -19,6 +19,8 @@ package com.hazelcast.jet.core;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.core.function.ObjLongBiFunction;
+import com.hazelcast.jet.core.metrics.MetricNames;
+import com.hazelcast.jet.core.metrics.MetricTags;
 import com.hazelcast.jet.pipeline.Sources;
 
 import javax.annotation.Nonnull;
@@ -30,6 +32,7 @@ import java.util.function.ToLongFunction;
 
 import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static com.hazelcast.jet.impl.util.Util.subtractClamped;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
@@ -76,6 +79,14 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
  * are broadcast to all processors. The mapper ensures that watermarks are
  * emitted according to the throttling frame size.
  *
+ * <h4>5. Skew between partitions</h4>
+ *
+ * If the {@link EventTimePolicy#maxSkew()} is set, the mapper tracks which
+ * partitions are too far ahead of the slowest active partition. The source
+ * should stop reading from such partitions until {@link
+ * #isPartitionThrottled(int)} returns {@code false} for them again.
+ * Throttled partitions aren't marked as idle.
+ *
  * <h3>Usage</h3>
  *
  * The API is designed to be used as a flat-mapping step in the {@link
@@ -120,6 +131,9 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
  *     broadcastKey()}, because the external partitions don't match Hazelcast
  *     partitions. This way, all processor instances will see all keys and they
  *     can restore the partitions they handle and ignore others.
+ * <li>
+ *     Call {@link #registerMetrics} from {@link Processor#init} to publish
+ *     the skew and lag of each partition.
  * </ul>
  *
  * @param <T> the event type
@@ -139,6 +153,7 @@ public class EventTimeMapper<T> {
     private static final long[] EMPTY_LONGS = {};
 
     private final long idleTimeoutNanos;
+    private final long maxSkew;
     @Nullable
     private final ToLongFunction<? super T> timestampFn;
     private final Supplier<? extends WatermarkPolicy> newWmPolicyFn;
@@ -152,7 +167,10 @@ public class EventTimeMapper<T> {
     private long[] markIdleAt = EMPTY_LONGS;
     private long lastEmittedWm = Long.MIN_VALUE;
     private long topObservedWm = Long.MIN_VALUE;
+    private long bottomWm = Long.MAX_VALUE;
     private boolean allAreIdle;
+    private Processor.Context metricsContext;
+    private int partitionsWithMetrics;
 
     /**
      * The partition count is initially set to 0, call {@link #addPartitions}
@@ -166,6 +184,7 @@ public class EventTimeMapper<T> {
         this.timestampFn = eventTimePolicy.timestampFn();
         this.wrapFn = eventTimePolicy.wrapFn();
         this.newWmPolicyFn = eventTimePolicy.newWmPolicyFn();
+        this.maxSkew = eventTimePolicy.maxSkew() > 0 ? eventTimePolicy.maxSkew() : Long.MAX_VALUE;
         if (eventTimePolicy.watermarkThrottlingFrameSize() != 0) {
             this.watermarkThrottlingFrame = tumblingWinPolicy(eventTimePolicy.watermarkThrottlingFrameSize())
                     .withOffset(eventTimePolicy.watermarkThrottlingFrameOffset());
@@ -232,6 +251,7 @@ public class EventTimeMapper<T> {
 
     private void handleNoEventInternal(long now) {
         long min = Long.MAX_VALUE;
+        long bottom = Long.MAX_VALUE;
         for (int i = 0; i < watermarks.length; i++) {
             if (idleTimeoutNanos > 0 && markIdleAt[i] <= now) {
                 continue;
@@ -239,6 +259,20 @@ public class EventTimeMapper<T> {
             watermarks[i] = Math.max(watermarks[i], wmPolicies[i].getCurrentWatermark());
             topObservedWm = Math.max(topObservedWm, watermarks[i]);
             min = Math.min(min, watermarks[i]);
+            if (watermarks[i] != Long.MIN_VALUE) {
+                // partitions without a watermark yet don't hold back the others
+                bottom = Math.min(bottom, watermarks[i]);
+            }
+        }
+        bottomWm = bottom;
+        if (maxSkew != Long.MAX_VALUE && idleTimeoutNanos > 0) {
+            // a throttled partition has no events because the source doesn't read
+            // from it, not because it's idle
+            for (int i = 0; i < watermarks.length; i++) {
+                if (markIdleAt[i] > now && isPartitionThrottled(i)) {
+                    markIdleAt[i] = now + idleTimeoutNanos;
+                }
+            }
         }
 
         if (min == Long.MAX_VALUE) {
@@ -291,6 +325,7 @@ public class EventTimeMapper<T> {
             watermarks[i] = Long.MIN_VALUE;
             markIdleAt[i] = now + idleTimeoutNanos;
         }
+        registerPartitionMetrics();
     }
 
     /**
@@ -330,6 +365,65 @@ public class EventTimeMapper<T> {
         return res;
     }
 
+    /**
+     * Returns {@code true} if the watermark of the given partition is ahead
+     * of the watermark of the slowest active partition by more than the
+     * {@link EventTimePolicy#maxSkew() maximum skew}. The source should stop
+     * reading from such a partition until this method returns {@code false}
+     * again. Always returns {@code false} if the maximum skew isn't set.
+     *
+     * @param partitionIndex 0-based source partition index
+     * @since 3.2
+     */
+    public boolean isPartitionThrottled(int partitionIndex) {
+        return bottomWm != Long.MAX_VALUE && subtractClamped(watermarks[partitionIndex], bottomWm) > maxSkew;
+    }
+
+    /**
+     * Registers the {@link MetricNames#SOURCE_PARTITION_SKEW skew} and the
+     * {@link MetricNames#SOURCE_PARTITION_LAG lag} metrics of each partition,
+     * including the partitions added later, through {@link
+     * Processor.Context#registerMetric}. Call it from {@link Processor#init}.
+     *
+     * @since 3.2
+     */
+    public void registerMetrics(@Nonnull Processor.Context context) {
+        metricsContext = context;
+        registerPartitionMetrics();
+    }
+
+    private void registerPartitionMetrics() {
+        if (metricsContext == null) {
+            return;
+        }
+        for (; partitionsWithMetrics < watermarks.length; partitionsWithMetrics++) {
+            int index = partitionsWithMetrics;
+            String tagValue = String.valueOf(index);
+            metricsContext.registerMetric(MetricTags.SOURCE_PARTITION, tagValue, MetricNames.SOURCE_PARTITION_SKEW,
+                    () -> partitionSkew(index));
+            metricsContext.registerMetric(MetricTags.SOURCE_PARTITION, tagValue, MetricNames.SOURCE_PARTITION_LAG,
+                    () -> partitionLag(index));
+        }
+    }
+
+    // package-visible for tests
+    long partitionSkew(int partitionIndex) {
+        long[] wms = watermarks;
+        if (partitionIndex >= wms.length || wms[partitionIndex] == Long.MIN_VALUE || bottomWm == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(0, subtractClamped(wms[partitionIndex], bottomWm));
+    }
+
+    // package-visible for tests
+    long partitionLag(int partitionIndex) {
+        long[] wms = watermarks;
+        if (partitionIndex >= wms.length || wms[partitionIndex] == Long.MIN_VALUE) {
+            return 0;
+        }
+        return Math.max(0, subtractClamped(topObservedWm, wms[partitionIndex]));
+    }
+
     /**
      * Returns the current partition count.
      */
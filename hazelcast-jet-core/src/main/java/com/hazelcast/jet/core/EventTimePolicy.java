@@ -54,6 +54,9 @@ import static com.hazelcast.util.Preconditions.checkTrue;
  *     Pipeline API uses this to wrap items into {@code JetEvent}s as a way
  *     to propagate the event timestamps through the pipeline regardless of
  *     the transformation the user does on the event objects themselves.
+ * </li><li>
+ *     {@code maxSkew}: the maximum distance between the watermarks of the
+ *     partitions of a source, see {@link #withMaxSkew(long)}.
  * </li></ul>
  *
  * This class should be used with {@link EventTimeMapper} when implementing a
@@ -90,6 +93,7 @@ public final class EventTimePolicy<T> implements Serializable {
     private final long watermarkThrottlingFrameSize;
     private final long watermarkThrottlingFrameOffset;
     private final long idleTimeoutMillis;
+    private final long maxSkew;
 
     private EventTimePolicy(
             @Nullable ToLongFunctionEx<? super T> timestampFn,
@@ -97,19 +101,22 @@ public final class EventTimePolicy<T> implements Serializable {
             @Nonnull SupplierEx<? extends WatermarkPolicy> newWmPolicyFn,
             long watermarkThrottlingFrameSize,
             long watermarkThrottlingFrameOffset,
-            long idleTimeoutMillis
+            long idleTimeoutMillis,
+            long maxSkew
     ) {
         checkNotNegative(watermarkThrottlingFrameSize, "watermarkThrottlingFrameSize must be >= 0");
         checkNotNegative(watermarkThrottlingFrameOffset, "watermarkThrottlingFrameOffset must be >= 0");
         checkTrue(watermarkThrottlingFrameOffset < watermarkThrottlingFrameSize || watermarkThrottlingFrameSize == 0,
                 "offset must be smaller than frame size");
         checkNotNegative(idleTimeoutMillis, "idleTimeoutMillis must be >= 0 (0 means disabled)");
+        checkNotNegative(maxSkew, "maxSkew must be >= 0 (0 means disabled)");
         this.timestampFn = timestampFn;
         this.newWmPolicyFn = newWmPolicyFn;
         this.wrapFn = wrapFn;
         this.idleTimeoutMillis = idleTimeoutMillis;
         this.watermarkThrottlingFrameSize = watermarkThrottlingFrameSize;
         this.watermarkThrottlingFrameOffset = watermarkThrottlingFrameOffset;
+        this.maxSkew = maxSkew;
     }
 
     /**
@@ -141,7 +148,7 @@ public final class EventTimePolicy<T> implements Serializable {
         checkSerializable(newWmPolicyFn, "newWmPolicyFn");
 
         return new EventTimePolicy<>(timestampFn, wrapFn, newWmPolicyFn, watermarkThrottlingFrameSize,
-                watermarkThrottlingFrameOffset, idleTimeoutMillis);
+                watermarkThrottlingFrameOffset, idleTimeoutMillis, 0);
     }
 
     /**
@@ -252,4 +259,41 @@ public final class EventTimePolicy<T> implements Serializable {
     public long idleTimeoutMillis() {
         return idleTimeoutMillis;
     }
+
+    /**
+     * Returns a copy of this policy with the given maximum skew. If a
+     * partition's watermark gets ahead of the watermark of the slowest
+     * partition by more than {@code maxSkew}, the source stops reading from
+     * it until the slow partition catches up. Idle partitions aren't
+     * considered.
+     * <p>
+     * Without this limit, a single lagging partition holds back the
+     * watermark of the source while the other partitions keep on adding
+     * events to the windows downstream, which have to keep them until the
+     * watermark advances. With it, the state of the windows stays bounded by
+     * about {@code maxSkew} and no events are dropped. The events that are
+     * already read aren't held back, therefore the watermarks can be a
+     * little further apart than {@code maxSkew}.
+     * <p>
+     * The value is in the units of the event timestamps. Use 0 to disable
+     * the limit, this is the default. The source must support it, see {@link
+     * EventTimeMapper#isPartitionThrottled(int)}.
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public EventTimePolicy<T> withMaxSkew(long maxSkew) {
+        return new EventTimePolicy<>(timestampFn, wrapFn, newWmPolicyFn, watermarkThrottlingFrameSize,
+                watermarkThrottlingFrameOffset, idleTimeoutMillis, maxSkew);
+    }
+
+    /**
+     * Returns the maximum skew between the source partitions, see {@link
+     * #withMaxSkew(long)}. 0 means there's no limit.
+     *
+     * @since 3.2
+     */
+    public long maxSkew() {
+        return maxSkew;
+    }
 }
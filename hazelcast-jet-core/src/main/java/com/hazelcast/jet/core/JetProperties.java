@@ -168,6 +168,159 @@ public final class JetProperties {
     public static final HazelcastProperty JET_IDLE_NONCOOPERATIVE_MAX_MICROSECONDS
         = new HazelcastProperty("jet.idle.noncooperative.max.microseconds", 5000, MICROSECONDS);
 
+    /**
+     * Whether idle cooperative worker threads take over tasklets from busy
+     * ones. Cooperative tasklets are assigned to the worker threads
+     * round-robin when a job starts. Without work stealing they stay on
+     * that thread until the job completes, so a single hot partition or a
+     * slow vertex can keep one thread fully busy while the others are idle.
+     * <p>
+     * With work stealing enabled, a worker which made no progress for a
+     * while takes one tasklet from the worker with the most tasklets that
+     * are making progress. The tasklet is handed over by the owning thread
+     * between two calls, so it is never called concurrently.
+     * <p>
+     * The default value is {@code false}.
+     * <p>
+     * See also: {@link #JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS}
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_COOPERATIVE_WORK_STEALING_ENABLED
+        = new HazelcastProperty("jet.cooperative.work.stealing.enabled", false);
+
+    /**
+     * The minimum time in milliseconds a tasklet stays on a cooperative
+     * worker thread after it was moved there by work stealing, before it can
+     * be stolen again. Prevents the tasklets from bouncing between threads.
+     * <p>
+     * The default value is {@code 100ms}.
+     * <p>
+     * See also: {@link #JET_COOPERATIVE_WORK_STEALING_ENABLED}
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS
+        = new HazelcastProperty("jet.cooperative.work.stealing.cooldown.millis", 100, MILLISECONDS);
+
+    /**
+     * The period in milliseconds of the cost-based rebalancing of
+     * cooperative tasklets. When enabled, the time spent in each call to a
+     * cooperative tasklet is measured. After each period, tasklets are
+     * moved from the thread that spent the most time calling its tasklets
+     * to the one that spent the least, until the difference is small. The
+     * moved tasklet then stays on its new thread for at least {@link
+     * #JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS}.
+     * <p>
+     * Measuring the call time adds a small overhead to each call. The
+     * default value is {@code 0}, which disables the rebalancing.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_COOPERATIVE_REBALANCE_PERIOD_MILLIS
+        = new HazelcastProperty("jet.cooperative.rebalance.period.millis", 0, MILLISECONDS);
+
+    /**
+     * The directory where the batch grouping and hash-join processors
+     * write their state when it exceeds {@link
+     * com.hazelcast.jet.config.JobConfig#setSpillMemoryLimit(long) the
+     * spill memory limit}. Each processor creates its own subdirectory and
+     * deletes it when it completes.
+     * <p>
+     * The default value is the {@code java.io.tmpdir} system property.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_SPILL_DIRECTORY
+            = new HazelcastProperty("jet.spill.directory", System.getProperty("java.io.tmpdir"));
+
+    /**
+     * Where the jobs store the data of their snapshots:
+     * <ul>
+     *     <li>{@code imap}: in the snapshot IMaps, replicated to the number of
+     *     backups configured by {@link
+     *     com.hazelcast.jet.config.InstanceConfig#setBackupCount(int)}
+     *
+     *     <li>{@code local-disk}: in files in the {@link
+     *     #JET_SNAPSHOT_STORE_DIRECTORY} of the member that took the
+     *     snapshot, optionally copied to one peer member, see {@link
+     *     #JET_SNAPSHOT_STORE_REPLICATION_ENABLED}. The files are deleted
+     *     when the member shuts down
+     * </ul>
+     * Exported snapshots are always stored in IMaps. All members must use
+     * the same value.
+     * <p>
+     * The default value is {@code imap}.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_SNAPSHOT_STORE
+            = new HazelcastProperty("jet.snapshot.store", "imap");
+
+    /**
+     * The directory where the {@code local-disk} {@link #JET_SNAPSHOT_STORE
+     * snapshot store} writes its files. Each member creates its own
+     * subdirectory.
+     * <p>
+     * The default value is the {@code java.io.tmpdir} system property.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_SNAPSHOT_STORE_DIRECTORY
+            = new HazelcastProperty("jet.snapshot.store.directory", System.getProperty("java.io.tmpdir"));
+
+    /**
+     * Whether the {@code local-disk} {@link #JET_SNAPSHOT_STORE snapshot
+     * store} copies the snapshot data of each member to the next member in
+     * the member list. Without the copy, the snapshot data of a member is
+     * lost with the member and the job fails to restore from it.
+     * <p>
+     * The default value is {@code true}.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_SNAPSHOT_STORE_REPLICATION_ENABLED
+            = new HazelcastProperty("jet.snapshot.store.replication.enabled", true);
+
+    /**
+     * The maximum rate in bytes per second at which the jobs on a member
+     * write their snapshot data, shared by all jobs on the member. When a
+     * snapshot starts, all stateful processors emit their state at once and
+     * an unlimited write can saturate the network and the partition threads,
+     * causing latency spikes in the processing and in the sinks.
+     * <p>
+     * While the writes are throttled, the snapshot writers also use smaller
+     * chunks, so that the writers of all vertices take turns more often.
+     * The snapshot writes also don't take the slots for parallel async
+     * operations of the sinks.
+     * <p>
+     * The default value is {@code 0}, which means unlimited.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_SNAPSHOT_WRITE_BYTES_PER_SECOND
+            = new HazelcastProperty("jet.snapshot.write.bytes.per.second", 0);
+
+    /**
+     * The CPUs to pin the cooperative worker threads to, as a comma-separated
+     * list of CPU numbers and ranges, for example {@code "2-5,8"}. The
+     * threads are assigned to the listed CPUs in a round-robin fashion.
+     * Pinning reduces the latency jitter of {@link
+     * com.hazelcast.jet.config.IdleStrategyType#BUSY_SPIN busy-spinning}
+     * threads, especially if the CPUs are isolated from the operating system
+     * scheduler.
+     * <p>
+     * Pinning requires the <a href="https://github.com/OpenHFT/Java-Thread-Affinity">
+     * OpenHFT Java Thread Affinity</a> library on the classpath. If it's not
+     * there, a warning is logged and the threads aren't pinned.
+     * <p>
+     * The default value is empty, which disables the pinning.
+     *
+     * @since 3.2
+     */
+    public static final HazelcastProperty JET_COOPERATIVE_THREAD_CPU_AFFINITY
+            = new HazelcastProperty("jet.cooperative.thread.cpu.affinity", "");
+
     private JetProperties() {
     }
 }
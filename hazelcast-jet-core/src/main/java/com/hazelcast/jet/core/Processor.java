@@ -20,6 +20,7 @@ import com.hazelcast.jet.JetException;
 import com.hazelcast.logging.ILogger;
 
 import javax.annotation.Nonnull;
+import java.util.function.LongSupplier;
 
 /**
  * When Jet executes a DAG, it creates one or more instances of {@code
@@ -307,5 +308,29 @@ public interface Processor {
          * they will have indexes 4..7.
          */
         int globalProcessorIndex();
+
+        /**
+         * Registers a metric of the processor, identified by the given name
+         * and an additional tag. The metric is removed together with the
+         * other metrics of the processor. Call it from {@link
+         * Processor#init}.
+         * <p>
+         * The default implementation does nothing. Implementations that
+         * wrap another context should delegate to it.
+         *
+         * @param tagName name of the additional tag, see {@link
+         *     com.hazelcast.jet.core.metrics.MetricTags}
+         * @param tagValue value of the additional tag
+         * @param name name of the metric, see {@link
+         *     com.hazelcast.jet.core.metrics.MetricNames}
+         * @param valueFn function returning the current value of the metric
+         *
+         * @since 3.2
+         */
+        default void registerMetric(
+                @Nonnull String tagName, @Nonnull String tagValue, @Nonnull String name,
+                @Nonnull LongSupplier valueFn
+        ) {
+        }
     }
 }
@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.core;
 
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.function.SupplierEx;
 import com.hazelcast.jet.impl.execution.init.CustomClassLoadedObject;
 import com.hazelcast.nio.ObjectDataInput;
@@ -24,6 +25,7 @@ import com.hazelcast.nio.serialization.HazelcastSerializationException;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.function.UnaryOperator;
 
@@ -63,6 +65,7 @@ public class Vertex implements IdentifiedDataSerializable {
     private ProcessorMetaSupplier metaSupplier;
     private String name;
     private int localParallelism = -1;
+    private IdleStrategyType idleStrategy;
 
     /**
      * Constructor used internally for deserialization.
@@ -148,6 +151,36 @@ public class Vertex implements IdentifiedDataSerializable {
         return localParallelism;
     }
 
+    /**
+     * Sets the strategy the threads running this vertex's processors use
+     * when they have no work to do, overriding the {@linkplain
+     * com.hazelcast.jet.config.JobConfig#setIdleStrategy job-level one}. A
+     * latency-sensitive vertex can use {@link IdleStrategyType#BUSY_SPIN} or
+     * {@link IdleStrategyType#YIELD}, while the rest of the job uses less CPU.
+     * <p>
+     * Cooperative processors share threads with other processors; a thread
+     * uses the most eager strategy among its processors' strategies.
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public Vertex idleStrategy(@Nullable IdleStrategyType idleStrategy) {
+        this.idleStrategy = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Returns the idle strategy set with {@link
+     * #idleStrategy(IdleStrategyType)} or {@code null} if the job-level one
+     * should be used.
+     *
+     * @since 3.2
+     */
+    @Nullable
+    public IdleStrategyType getIdleStrategy() {
+        return idleStrategy;
+    }
+
     /**
      * Returns the name of this vertex.
      */
@@ -186,6 +219,7 @@ public class Vertex implements IdentifiedDataSerializable {
         out.writeInt(localParallelism);
         out.writeUTF(name);
         CustomClassLoadedObject.write(out, metaSupplier);
+        out.writeObject(idleStrategy);
     }
 
     @Override
@@ -197,6 +231,7 @@ public class Vertex implements IdentifiedDataSerializable {
         } catch (HazelcastSerializationException e) {
             throw new HazelcastSerializationException("Error deserializing vertex '" + name + "': " + e, e);
         }
+        idleStrategy = in.readObject();
     }
 
     @Override
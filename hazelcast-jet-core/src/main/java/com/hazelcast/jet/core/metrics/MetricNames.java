@@ -133,6 +133,17 @@ public final class MetricNames {
      */
     public static final String DISTRIBUTED_BYTES_IN = "distributedBytesIn";
 
+    /**
+     * Tracks the data volume (bytes) coming in over the network for
+     * DISTRIBUTED input {@link Edge}s before decompression. It's equal
+     * to {@link #DISTRIBUTED_BYTES_IN} unless {@link
+     * com.hazelcast.jet.config.EdgeConfig#setCompressionEnabled(boolean)
+     * compression} is enabled for the edge.
+     *
+     * @since 3.2
+     */
+    public static final String DISTRIBUTED_UNCOMPRESSED_BYTES_IN = "distributedUncompressedBytesIn";
+
     /**
      * Counts data items going out over the network for DISTRIBUTED output
      * {@link Edge}s of particular {@link Vertex} instances running on
@@ -151,6 +162,92 @@ public final class MetricNames {
      */
     public static final String DISTRIBUTED_BYTES_OUT = "distributedBytesOut";
 
+    /**
+     * Tracks the data volume (bytes) going out over the network for
+     * DISTRIBUTED output {@link Edge}s before compression. It's equal to
+     * {@link #DISTRIBUTED_BYTES_OUT} unless {@link
+     * com.hazelcast.jet.config.EdgeConfig#setCompressionEnabled(boolean)
+     * compression} is enabled for the edge.
+     *
+     * @since 3.2
+     */
+    public static final String DISTRIBUTED_UNCOMPRESSED_BYTES_OUT = "distributedUncompressedBytesOut";
+
+    /**
+     * Tracks the receive window (bytes) of DISTRIBUTED input {@link Edge}s
+     * of particular {@link Vertex} instances: the amount of data the senders
+     * may send beyond the data already processed, summed over all senders.
+     * See {@link com.hazelcast.jet.config.EdgeConfig#setAdaptiveFlowControlEnabled(boolean)}.
+     *
+     * @since 3.2
+     */
+    public static final String DISTRIBUTED_RECEIVE_WINDOW = "distributedReceiveWindow";
+
+    /**
+     * Tracks the network packet size limit (bytes) the receivers of
+     * DISTRIBUTED input {@link Edge}s of particular {@link Vertex} instances
+     * tell the senders to use, the maximum over all senders. It's constant
+     * unless {@link com.hazelcast.jet.config.EdgeConfig#setAdaptiveFlowControlEnabled(boolean)
+     * adaptive flow control} is enabled.
+     *
+     * @since 3.2
+     */
+    public static final String DISTRIBUTED_PACKET_SIZE_LIMIT = "distributedPacketSizeLimit";
+
+    /**
+     * Tracks the minimum round-trip time (microseconds) to the senders of
+     * DISTRIBUTED input {@link Edge}s of particular {@link Vertex} instances,
+     * the maximum over all senders. It's only measured if {@link
+     * com.hazelcast.jet.config.EdgeConfig#setAdaptiveFlowControlEnabled(boolean)
+     * adaptive flow control} is enabled, otherwise it's 0.
+     *
+     * @since 3.2
+     */
+    public static final String DISTRIBUTED_MIN_RTT_MICROS = "distributedMinRttMicros";
+
+    /**
+     * Counts the snapshot entries restored to particular {@link Vertex}
+     * instances running on various {@link Processor}s when the job starts
+     * from a snapshot. These in turn can be identified based on the {@link
+     * MetricTags#VERTEX} & {@link MetricTags#PROCESSOR} tags of the metric.
+     * Only present for jobs started from a snapshot.
+     *
+     * @since 3.2
+     */
+    public static final String SNAPSHOT_RESTORED_ENTRIES = "snapshotRestoredEntries";
+
+    /**
+     * Tracks whether particular {@link Vertex} instances running on various
+     * {@link Processor}s finished restoring their state from the snapshot:
+     * it's 0 while the restore is in progress and 1 after it finished. Together
+     * with {@link #SNAPSHOT_RESTORED_ENTRIES} it shows the restore progress
+     * of the vertex. Only present for jobs started from a snapshot.
+     *
+     * @since 3.2
+     */
+    public static final String SNAPSHOT_RESTORE_FINISHED = "snapshotRestoreFinished";
+
+    /**
+     * Tracks how far the watermark of a source partition is ahead of the
+     * watermark of the slowest active partition of the same source {@link
+     * Processor}, in the units of the event timestamps. The partition is
+     * identified by the {@link MetricTags#SOURCE_PARTITION} tag. See {@link
+     * com.hazelcast.jet.core.EventTimePolicy#withMaxSkew(long)}.
+     *
+     * @since 3.2
+     */
+    public static final String SOURCE_PARTITION_SKEW = "partitionSkew";
+
+    /**
+     * Tracks how far the watermark of a source partition is behind the top
+     * watermark observed by the same source {@link Processor}, in the units
+     * of the event timestamps. The partition is identified by the {@link
+     * MetricTags#SOURCE_PARTITION} tag.
+     *
+     * @since 3.2
+     */
+    public static final String SOURCE_PARTITION_LAG = "partitionLag";
+
     private MetricNames() {
     }
 
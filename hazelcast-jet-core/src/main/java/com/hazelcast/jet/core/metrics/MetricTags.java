@@ -95,6 +95,14 @@ public final class MetricTags {
      */
     public static final String COOPERATIVE_WORKER = "cooperativeWorker";
 
+    /**
+     * Index of the source partition sourcing the metric, as used by the
+     * {@link com.hazelcast.jet.core.EventTimeMapper} of the source processor.
+     *
+     * @since 3.2
+     */
+    public static final String SOURCE_PARTITION = "sourcePartition";
+
     /**
      * Index of the vertex input or output edges sourcing the metric.
      */
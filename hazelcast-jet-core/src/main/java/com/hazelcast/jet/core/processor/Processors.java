@@ -31,6 +31,7 @@ import com.hazelcast.jet.core.SlidingWindowPolicy;
 import com.hazelcast.jet.core.TimestampKind;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.function.KeyedWindowResultFunction;
+import com.hazelcast.jet.datamodel.ColumnarBatch;
 import com.hazelcast.jet.datamodel.KeyedWindowResult;
 import com.hazelcast.jet.function.BiFunctionEx;
 import com.hazelcast.jet.function.BiPredicateEx;
@@ -38,6 +39,7 @@ import com.hazelcast.jet.function.ConsumerEx;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.PredicateEx;
 import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.function.ToDoubleFunctionEx;
 import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.processor.AsyncTransformUsingContextOrderedP;
@@ -46,12 +48,14 @@ import com.hazelcast.jet.impl.processor.GroupP;
 import com.hazelcast.jet.impl.processor.InsertWatermarksP;
 import com.hazelcast.jet.impl.processor.SessionWindowP;
 import com.hazelcast.jet.impl.processor.SlidingWindowP;
+import com.hazelcast.jet.impl.processor.ToColumnarP;
 import com.hazelcast.jet.impl.processor.TransformP;
 import com.hazelcast.jet.impl.processor.TransformStatefulP;
 import com.hazelcast.jet.impl.processor.TransformUsingContextP;
 import com.hazelcast.jet.pipeline.ContextFactory;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
@@ -716,6 +720,81 @@ public final class Processors {
         return mapP((T t) -> filterFn.test(t) ? t : null);
     }
 
+    /**
+     * Returns a supplier of processors for a vertex that collects the
+     * received items into {@link ColumnarBatch}es of up to {@code
+     * maxBatchSize} records and emits the batches. Each function in {@code
+     * longFns} and {@code doubleFns} extracts one column of the batch.
+     * <p>
+     * The downstream vertices receive one item per batch instead of one per
+     * record, which reduces the per-item overhead of the edges, inboxes and
+     * outboxes. Use the methods of {@code ColumnarBatch} in the downstream
+     * stages to process the records in tight loops over primitive arrays.
+     * Consecutive {@code map} stages are fused into one vertex by the
+     * pipeline planner, so a chain of such operations runs without passing
+     * the batch through a queue. Suitable for numeric records, where the
+     * fields can be represented as {@code long} or {@code double} columns.
+     * <p>
+     * The processor emits a partial batch whenever its inbox is drained,
+     * therefore it doesn't delay the items, it only batches the items that
+     * are already there. It also emits it before forwarding a watermark and
+     * before saving a snapshot. It's meant for the DAG API or for {@code
+     * customTransform()} on stages without timestamps. Use {@link
+     * #fromColumnarP fromColumnarP()} to turn the batches back into records.
+     * <p>
+     * This processor is stateless.
+     *
+     * @param maxBatchSize the maximum number of records in a batch
+     * @param longFns      functions that extract the {@code long} columns
+     * @param doubleFns    functions that extract the {@code double} columns
+     * @param <T> type of received item
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public static <T> SupplierEx<Processor> toColumnarP(
+            int maxBatchSize,
+            @Nonnull List<? extends ToLongFunctionEx<? super T>> longFns,
+            @Nonnull List<? extends ToDoubleFunctionEx<? super T>> doubleFns
+    ) {
+        List<ToLongFunctionEx<? super T>> longFnList = new ArrayList<>(longFns);
+        List<ToDoubleFunctionEx<? super T>> doubleFnList = new ArrayList<>(doubleFns);
+        return () -> new ToColumnarP<>(maxBatchSize, longFnList, doubleFnList);
+    }
+
+    /**
+     * Returns a supplier of processors for a vertex that turns each received
+     * {@link ColumnarBatch} back into records, the reverse of {@link
+     * #toColumnarP toColumnarP()}. It applies {@code rowFn} to each row index
+     * of the batch and emits the results in row order. If {@code rowFn}
+     * returns {@code null}, no record is emitted for that row.
+     * <p>
+     * This processor is stateless.
+     *
+     * @param rowFn a stateless function that creates the record for the given
+     *              row of the given batch
+     * @param <R> type of emitted item
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    public static <R> SupplierEx<Processor> fromColumnarP(
+            @Nonnull BiFunctionEx<? super ColumnarBatch, ? super Integer, ? extends R> rowFn
+    ) {
+        return flatMapP((ColumnarBatch batch) -> {
+            int[] row = {0};
+            return () -> {
+                while (row[0] < batch.size()) {
+                    R record = rowFn.apply(batch, row[0]++);
+                    if (record != null) {
+                        return record;
+                    }
+                }
+                return null;
+            };
+        });
+    }
+
     /**
      * Returns a supplier of processors for a vertex that applies the provided
      * item-to-traverser mapping function to each received item and emits all
@@ -22,6 +22,10 @@ import com.hazelcast.jet.core.Processor;
 import com.hazelcast.logging.ILogger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 /**
  * {@link Processor.Context} implementation suitable to be used in tests.
@@ -32,6 +36,7 @@ public class TestProcessorContext extends TestProcessorSupplierContext implement
 
     private int localProcessorIndex;
     private int globalProcessorIndex;
+    private final Map<String, LongSupplier> metrics = new HashMap<>();
 
     /**
      * Constructor with default values.
@@ -55,6 +60,32 @@ public class TestProcessorContext extends TestProcessorSupplierContext implement
         return globalProcessorIndex;
     }
 
+    /**
+     * Records the metric, see {@link #metric(String, String, String)}.
+     */
+    @Override
+    public void registerMetric(
+            @Nonnull String tagName, @Nonnull String tagValue, @Nonnull String name,
+            @Nonnull LongSupplier valueFn
+    ) {
+        metrics.put(metricKey(tagName, tagValue, name), valueFn);
+    }
+
+    /**
+     * Returns the function of a metric registered through {@link
+     * #registerMetric}, or {@code null}, if there's no such metric.
+     *
+     * @since 3.2
+     */
+    @Nullable
+    public LongSupplier metric(@Nonnull String tagName, @Nonnull String tagValue, @Nonnull String name) {
+        return metrics.get(metricKey(tagName, tagValue, name));
+    }
+
+    private static String metricKey(String tagName, String tagValue, String name) {
+        return name + '[' + tagName + '=' + tagValue + ']';
+    }
+
     /**
      * Set the local processor index
      */
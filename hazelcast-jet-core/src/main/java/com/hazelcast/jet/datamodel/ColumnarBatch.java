@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.datamodel;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * An immutable chunk of records stored column by column, each column in a
+ * primitive array. Passing one batch instead of its records one by one
+ * amortizes the per-item cost of the queues, the inbox and the outbox
+ * over all the records of the batch and lets the operations below run as
+ * tight loops over primitive arrays. See {@link
+ * com.hazelcast.jet.core.processor.Processors#toColumnarP
+ * Processors.toColumnarP()} and {@link
+ * com.hazelcast.jet.core.processor.Processors#fromColumnarP
+ * Processors.fromColumnarP()}.
+ * <p>
+ * The operations that change the data return a new batch. A mapping
+ * operation copies only the column it maps, the other columns are shared
+ * with the original batch.
+ *
+ * @since 3.2
+ */
+public final class ColumnarBatch {
+
+    private static final long[][] NO_LONG_COLUMNS = {};
+    private static final double[][] NO_DOUBLE_COLUMNS = {};
+
+    private final int size;
+    private final long[][] longColumns;
+    private final double[][] doubleColumns;
+
+    private ColumnarBatch(int size, long[][] longColumns, double[][] doubleColumns) {
+        this.size = size;
+        this.longColumns = longColumns;
+        this.doubleColumns = doubleColumns;
+    }
+
+    /**
+     * Returns a batch of {@code size} records backed by the given columns.
+     * The arrays are not copied, the caller must not change them afterwards.
+     * Each array must have at least {@code size} elements, the elements
+     * after them are ignored.
+     *
+     * @param size          the number of records in the batch
+     * @param longColumns   the {@code long} columns, can be {@code null}
+     * @param doubleColumns the {@code double} columns, can be {@code null}
+     */
+    @Nonnull
+    public static ColumnarBatch columnarBatch(int size, long[][] longColumns, double[][] doubleColumns) {
+        checkNotNegative(size, "size must be >= 0");
+        longColumns = longColumns != null ? longColumns : NO_LONG_COLUMNS;
+        doubleColumns = doubleColumns != null ? doubleColumns : NO_DOUBLE_COLUMNS;
+        for (long[] column : longColumns) {
+            checkTrue(column.length >= size, "a long column is shorter than the batch size");
+        }
+        for (double[] column : doubleColumns) {
+            checkTrue(column.length >= size, "a double column is shorter than the batch size");
+        }
+        return new ColumnarBatch(size, longColumns, doubleColumns);
+    }
+
+    /**
+     * Returns the number of records in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of {@code long} columns.
+     */
+    public int longColumnCount() {
+        return longColumns.length;
+    }
+
+    /**
+     * Returns the number of {@code double} columns.
+     */
+    public int doubleColumnCount() {
+        return doubleColumns.length;
+    }
+
+    /**
+     * Returns the value of the given {@code long} column in the given record.
+     */
+    public long getLong(int column, int row) {
+        checkRow(row);
+        return longColumns[column][row];
+    }
+
+    /**
+     * Returns the value of the given {@code double} column in the given
+     * record.
+     */
+    public double getDouble(int column, int row) {
+        checkRow(row);
+        return doubleColumns[column][row];
+    }
+
+    /**
+     * Returns a batch in which the given {@code long} column is replaced by
+     * the result of applying {@code mapFn} to each of its values.
+     */
+    @Nonnull
+    public ColumnarBatch mapLongs(int column, @Nonnull LongUnaryOperator mapFn) {
+        long[] src = longColumns[column];
+        long[] dst = new long[size];
+        for (int i = 0; i < size; i++) {
+            dst[i] = mapFn.applyAsLong(src[i]);
+        }
+        long[][] newLongColumns = longColumns.clone();
+        newLongColumns[column] = dst;
+        return new ColumnarBatch(size, newLongColumns, doubleColumns);
+    }
+
+    /**
+     * Returns a batch in which the given {@code double} column is replaced by
+     * the result of applying {@code mapFn} to each of its values.
+     */
+    @Nonnull
+    public ColumnarBatch mapDoubles(int column, @Nonnull DoubleUnaryOperator mapFn) {
+        double[] src = doubleColumns[column];
+        double[] dst = new double[size];
+        for (int i = 0; i < size; i++) {
+            dst[i] = mapFn.applyAsDouble(src[i]);
+        }
+        double[][] newDoubleColumns = doubleColumns.clone();
+        newDoubleColumns[column] = dst;
+        return new ColumnarBatch(size, longColumns, newDoubleColumns);
+    }
+
+    /**
+     * Returns a batch with only the records whose value in the given {@code
+     * long} column passes {@code filterFn}. Returns {@code this} if all
+     * records pass.
+     */
+    @Nonnull
+    public ColumnarBatch filterLongs(int column, @Nonnull LongPredicate filterFn) {
+        long[] src = longColumns[column];
+        int[] selected = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            selected[count] = i;
+            count += filterFn.test(src[i]) ? 1 : 0;
+        }
+        return select(selected, count);
+    }
+
+    /**
+     * Returns a batch with only the records whose value in the given {@code
+     * double} column passes {@code filterFn}. Returns {@code this} if all
+     * records pass.
+     */
+    @Nonnull
+    public ColumnarBatch filterDoubles(int column, @Nonnull DoublePredicate filterFn) {
+        double[] src = doubleColumns[column];
+        int[] selected = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            selected[count] = i;
+            count += filterFn.test(src[i]) ? 1 : 0;
+        }
+        return select(selected, count);
+    }
+
+    /**
+     * Returns the sum of the values in the given {@code long} column.
+     */
+    public long sumLongs(int column) {
+        long[] src = longColumns[column];
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += src[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the values in the given {@code double} column.
+     */
+    public double sumDoubles(int column) {
+        double[] src = doubleColumns[column];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += src[i];
+        }
+        return sum;
+    }
+
+    private ColumnarBatch select(int[] selected, int count) {
+        if (count == size) {
+            return this;
+        }
+        long[][] newLongColumns = new long[longColumns.length][];
+        for (int c = 0; c < longColumns.length; c++) {
+            long[] src = longColumns[c];
+            long[] dst = new long[count];
+            for (int i = 0; i < count; i++) {
+                dst[i] = src[selected[i]];
+            }
+            newLongColumns[c] = dst;
+        }
+        double[][] newDoubleColumns = new double[doubleColumns.length][];
+        for (int c = 0; c < doubleColumns.length; c++) {
+            double[] src = doubleColumns[c];
+            double[] dst = new double[count];
+            for (int i = 0; i < count; i++) {
+                dst[i] = src[selected[i]];
+            }
+            newDoubleColumns[c] = dst;
+        }
+        return new ColumnarBatch(count, newLongColumns, newDoubleColumns);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row=" + row + ", size=" + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ColumnarBatch that = (ColumnarBatch) obj;
+        if (size != that.size
+                || longColumns.length != that.longColumns.length
+                || doubleColumns.length != that.doubleColumns.length) {
+            return false;
+        }
+        for (int c = 0; c < longColumns.length; c++) {
+            for (int i = 0; i < size; i++) {
+                if (longColumns[c][i] != that.longColumns[c][i]) {
+                    return false;
+                }
+            }
+        }
+        for (int c = 0; c < doubleColumns.length; c++) {
+            for (int i = 0; i < size; i++) {
+                if (Double.doubleToLongBits(doubleColumns[c][i]) != Double.doubleToLongBits(that.doubleColumns[c][i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hc = size;
+        for (long[] column : longColumns) {
+            for (int i = 0; i < size; i++) {
+                hc = 73 * hc + Long.hashCode(column[i]);
+            }
+        }
+        for (double[] column : doubleColumns) {
+            for (int i = 0; i < size; i++) {
+                hc = 73 * hc + Double.hashCode(column[i]);
+            }
+        }
+        return hc;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ColumnarBatch{size=").append(size);
+        for (int c = 0; c < longColumns.length; c++) {
+            sb.append(", longs").append(c).append('=').append(Arrays.toString(Arrays.copyOf(longColumns[c], size)));
+        }
+        for (int c = 0; c < doubleColumns.length; c++) {
+            sb.append(", doubles").append(c).append('=')
+              .append(Arrays.toString(Arrays.copyOf(doubleColumns[c], size)));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.datamodel.Tuple4.tuple4;
@@ -168,6 +169,68 @@ class DataModelSerializerHooks {
         }
     }
 
+    public static final class ColumnarBatchHook implements SerializerHook<ColumnarBatch> {
+
+        @Override
+        public Class<ColumnarBatch> getSerializationType() {
+            return ColumnarBatch.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<ColumnarBatch>() {
+                @Override
+                public void write(ObjectDataOutput out, ColumnarBatch batch) throws IOException {
+                    int size = batch.size();
+                    out.writeInt(size);
+                    out.writeInt(batch.longColumnCount());
+                    out.writeInt(batch.doubleColumnCount());
+                    for (int c = 0; c < batch.longColumnCount(); c++) {
+                        for (int i = 0; i < size; i++) {
+                            out.writeLong(batch.getLong(c, i));
+                        }
+                    }
+                    for (int c = 0; c < batch.doubleColumnCount(); c++) {
+                        for (int i = 0; i < size; i++) {
+                            out.writeDouble(batch.getDouble(c, i));
+                        }
+                    }
+                }
+
+                @Override
+                public ColumnarBatch read(ObjectDataInput in) throws IOException {
+                    int size = in.readInt();
+                    long[][] longColumns = new long[in.readInt()][size];
+                    double[][] doubleColumns = new double[in.readInt()][size];
+                    for (long[] column : longColumns) {
+                        for (int i = 0; i < size; i++) {
+                            column[i] = in.readLong();
+                        }
+                    }
+                    for (double[] column : doubleColumns) {
+                        for (int i = 0; i < size; i++) {
+                            column[i] = in.readDouble();
+                        }
+                    }
+                    return columnarBatch(size, longColumns, doubleColumns);
+                }
+
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.COLUMNAR_BATCH;
+                }
+
+                @Override
+                public void destroy() {
+                }
+            };
+        }
+
+        @Override public boolean isOverwritable() {
+            return false;
+        }
+    }
+
     public static final class Tuple2Hook implements SerializerHook<Tuple2> {
 
         @Override
@@ -22,36 +22,112 @@ import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
 import com.hazelcast.jet.impl.execution.BroadcastEntry;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.Util.doWithClassLoader;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
 
+/**
+ * Reads the snapshot chunks and emits the snapshot entries to the vertices
+ * they belong to.
+ * <p>
+ * The chunks are deserialized in parallel on the {@value
+ * #RESTORE_EXECUTOR_NAME} executor. The entries of a chunk are emitted in
+ * their original order, but the chunks are emitted in the order they are
+ * deserialized.
+ * <p>
+ * If the snapshot map contains incremental snapshots on top of the full
+ * one, the processor has two inputs, both partitioned by the chunk's
+ * partition key, so that all versions of a state key are handled by the
+ * same processor. Ordinal 0 with higher priority carries the chunks of the
+ * incremental snapshots: the entries of the vertices supporting incremental
+ * snapshots are buffered, the newest version of each key wins. Ordinal 1
+ * carries the chunks of the full snapshot: its entries are emitted, unless
+ * they were replaced by an incremental snapshot.
+ */
 public class ExplodeSnapshotP extends AbstractProcessor {
 
-    private final Map<String, FlatMapper<byte[], Object>> vertexToFlatMapper = new HashMap<>();
+    /**
+     * Name of the executor deserializing the snapshot chunks.
+     */
+    public static final String RESTORE_EXECUTOR_NAME = "jet:snapshot-restore";
+
+    static final int DELTAS_ORDINAL = 0;
+    static final int BASE_ORDINAL = 1;
+
+    // per member, shared by the local processors
+    private static final int MAX_PENDING_CHUNKS_PER_CPU = 2;
+
+    private final Map<String, Integer> vertexToOrdinal;
+    private final Set<String> unknownVertices = new HashSet<>();
+    private final long[] snapshotIds;
+    private final long baseSnapshotId;
     private final long expectedSnapshotId;
+
+    // the deserialized chunks are added by the executor threads
+    private final Queue<DeserializedChunk> deserializedChunks = new ConcurrentLinkedQueue<>();
+    private int maxPendingChunks;
+    private int pendingChunks;
+    private Traverser<Object> chunkTraverser;
+    private int chunkOrdinal;
+
+    // keyed by vertex name
+    private final Map<String, VertexDeltas> deltas = new HashMap<>();
+    private Iterator<Entry<String, VertexDeltas>> deltasIterator;
+    private Traverser<Object> deltasTraverser;
+    private int deltasOrdinal;
+
     private InternalSerializationService serializationService;
+    private Executor executor;
+    private ClassLoader classLoader;
 
     ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId) {
-        this.expectedSnapshotId = expectedSnapshotId;
-        for (Entry<String, Integer> en : vertexToOrdinal.entrySet()) {
-            Object oldValue = vertexToFlatMapper.put(en.getKey(), flatMapper(en.getValue(), this::traverser));
-            assert oldValue == null : "Duplicate ordinal: " + en.getValue();
-        }
+        this(vertexToOrdinal, new long[] {expectedSnapshotId});
+    }
+
+    /**
+     * @param snapshotIds the IDs of the snapshots in the map, see {@link
+     *     SnapshotValidationRecord#snapshotIds()}
+     */
+    ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long[] snapshotIds) {
+        this.vertexToOrdinal = vertexToOrdinal;
+        this.snapshotIds = snapshotIds;
+        this.baseSnapshotId = snapshotIds[0];
+        this.expectedSnapshotId = snapshotIds[snapshotIds.length - 1];
     }
 
     @Override
     protected void init(@Nonnull Context context) {
-        serializationService =
-                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        HazelcastInstanceImpl hzInstance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = hzInstance.getSerializationService();
+        executor = hzInstance.node.nodeEngine.getExecutionService().getExecutor(RESTORE_EXECUTOR_NAME);
+        maxPendingChunks = Math.max(1,
+                MAX_PENDING_CHUNKS_PER_CPU * Runtime.getRuntime().availableProcessors() / context.localParallelism());
+        // the tasklet runs with the job's class loader, the executor threads need it to deserialize user classes
+        classLoader = Thread.currentThread().getContextClassLoader();
     }
 
     private Traverser<Object> traverser(byte[] data) {
@@ -64,35 +140,259 @@ public class ExplodeSnapshotP extends AbstractProcessor {
                 return null;
             }
             Object value = in.readObject();
-            return key instanceof BroadcastKey
-                    ? new BroadcastEntry(key, value)
-                    : entry(key, value);
+            return toItem(key, value);
         });
     }
 
+    private static Object toItem(Object key, Object value) {
+        return key instanceof BroadcastKey
+                ? new BroadcastEntry(key, value)
+                : entry(key, value);
+    }
+
     @Override
     protected boolean tryProcess0(@Nonnull Object item) {
         if (((Entry) item).getKey() instanceof SnapshotValidationRecord.SnapshotValidationKey) {
             // ignore the validation record
             return true;
         }
+        if (!emitDeserializedChunks() || pendingChunks >= maxPendingChunks) {
+            return false;
+        }
         Entry<SnapshotDataKey, byte[]> casted = (Entry<SnapshotDataKey, byte[]>) item;
-        String vertexName = casted.getKey().vertexName();
-        FlatMapper<byte[], Object> flatMapper = vertexToFlatMapper.get(vertexName);
-        if (flatMapper == null) {
-            if (!vertexToFlatMapper.containsKey(vertexName)) {
-                // log only once
-                vertexToFlatMapper.put(vertexName, null);
-                getLogger().warning("Data for unknown vertex found in the snapshot, ignoring. Vertex=" + vertexName);
-            }
+        SnapshotDataKey dataKey = casted.getKey();
+        if (vertexOrdinal(dataKey.vertexName()) == null) {
             return true;
         }
-        long snapshotId = casted.getKey().snapshotId();
-        if (snapshotId != expectedSnapshotId) {
+        long snapshotId = dataKey.snapshotId();
+        if (!isInChain(snapshotId)) {
             getLogger().warning("Data for unexpected snapshot ID encountered, ignoring. Expected="
                     + expectedSnapshotId + ", found=" + snapshotId);
             return true;
         }
-        return flatMapper.tryProcess(casted.getValue());
+        if (snapshotIds.length > 1 && dataKey.isIncremental()) {
+            deserializeAsync(dataKey, casted.getValue(), ChunkKind.DELTAS);
+            return true;
+        }
+        if (snapshotId != expectedSnapshotId) {
+            // a vertex not supporting incremental snapshots saves its full state in each snapshot
+            return true;
+        }
+        deserializeAsync(dataKey, casted.getValue(), ChunkKind.FULL);
+        return true;
+    }
+
+    @Override
+    protected boolean tryProcess1(@Nonnull Object item) {
+        if (!emitDeserializedChunks() || pendingChunks >= maxPendingChunks) {
+            return false;
+        }
+        Entry<SnapshotDataKey, byte[]> casted = (Entry<SnapshotDataKey, byte[]>) item;
+        SnapshotDataKey dataKey = casted.getKey();
+        if (vertexOrdinal(dataKey.vertexName()) == null) {
+            return true;
+        }
+        if (dataKey.snapshotId() != baseSnapshotId || !dataKey.isIncremental()) {
+            // chunks of other snapshot IDs are never routed here and a non-incremental
+            // vertex's state in the full snapshot is outdated
+            return true;
+        }
+        deserializeAsync(dataKey, casted.getValue(), ChunkKind.BASE);
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        return emitDeserializedChunks();
+    }
+
+    @Override
+    public boolean completeEdge(int ordinal) {
+        if (ordinal != DELTAS_ORDINAL || snapshotIds.length == 1) {
+            return true;
+        }
+        // all deltas must be buffered before the full snapshot is read
+        if (!emitDeserializedChunks() || pendingChunks > 0) {
+            return false;
+        }
+        if (deltasIterator == null) {
+            deltasIterator = deltas.entrySet().iterator();
+        }
+        while (true) {
+            if (deltasTraverser != null && !emitFromTraverser(deltasOrdinal, deltasTraverser)) {
+                return false;
+            }
+            if (!deltasIterator.hasNext()) {
+                // keep only the keys to filter the full snapshot
+                for (VertexDeltas vertexDeltas : deltas.values()) {
+                    vertexDeltas.replacedKeys = new HashSet<>(vertexDeltas.entries.keySet());
+                    vertexDeltas.entries = null;
+                    vertexDeltas.broadcastEntries = null;
+                }
+                deltasTraverser = null;
+                return true;
+            }
+            Entry<String, VertexDeltas> en = deltasIterator.next();
+            VertexDeltas vertexDeltas = en.getValue();
+            deltasOrdinal = vertexToOrdinal.get(en.getKey());
+            deltasTraverser = traverseStream(Stream.concat(
+                    vertexDeltas.entries.entrySet().stream().map(e -> toItem(e.getKey(), e.getValue().value)),
+                    vertexDeltas.broadcastEntries.stream()));
+        }
+    }
+
+    @Override
+    public boolean complete() {
+        return emitDeserializedChunks() && pendingChunks == 0;
+    }
+
+    private Integer vertexOrdinal(String vertexName) {
+        Integer ordinal = vertexToOrdinal.get(vertexName);
+        if (ordinal == null && unknownVertices.add(vertexName)) {
+            // log only once
+            getLogger().warning("Data for unknown vertex found in the snapshot, ignoring. Vertex=" + vertexName);
+        }
+        return ordinal;
+    }
+
+    private void deserializeAsync(SnapshotDataKey dataKey, byte[] data, ChunkKind kind) {
+        pendingChunks++;
+        CompletableFuture
+                .supplyAsync(() -> deserialize(data), executor)
+                .whenComplete((items, e) -> deserializedChunks.add(new DeserializedChunk(dataKey, kind, items, e)));
+    }
+
+    private List<Object> deserialize(byte[] data) {
+        List<Object> items = new ArrayList<>();
+        doWithClassLoader(classLoader, () -> {
+            Traverser<Object> traverser = traverser(data);
+            for (Object item; (item = traverser.next()) != null; ) {
+                items.add(item);
+            }
+        });
+        return items;
+    }
+
+    /**
+     * Emits the entries of the deserialized chunks or buffers them, if they
+     * are deltas. Returns false, if the outbox is full.
+     */
+    private boolean emitDeserializedChunks() {
+        while (true) {
+            if (chunkTraverser != null) {
+                if (!emitFromTraverser(chunkOrdinal, chunkTraverser)) {
+                    return false;
+                }
+                chunkTraverser = null;
+            }
+            DeserializedChunk chunk = deserializedChunks.poll();
+            if (chunk == null) {
+                return true;
+            }
+            pendingChunks--;
+            if (chunk.error != null) {
+                throw sneakyThrow(peel(chunk.error));
+            }
+            String vertexName = chunk.dataKey.vertexName();
+            chunkOrdinal = vertexToOrdinal.get(vertexName);
+            switch (chunk.kind) {
+                case DELTAS:
+                    bufferDeltas(chunk.dataKey, chunk.items);
+                    break;
+                case BASE:
+                    chunkTraverser = traverseIterable(chunk.items)
+                            .filter(item -> !isReplaced(vertexName, (Entry) item));
+                    break;
+                default:
+                    chunkTraverser = traverseIterable(chunk.items);
+            }
+        }
+    }
+
+    private void bufferDeltas(SnapshotDataKey dataKey, List<Object> items) {
+        VertexDeltas vertexDeltas = deltas.computeIfAbsent(dataKey.vertexName(), x -> new VertexDeltas());
+        long snapshotId = dataKey.snapshotId();
+        for (Object item : items) {
+            Entry<Object, Object> entry = (Entry<Object, Object>) item;
+            if (item instanceof BroadcastEntry) {
+                // each snapshot contains all broadcast entries, use only those from the newest one
+                if (snapshotId == expectedSnapshotId) {
+                    vertexDeltas.broadcastEntries.add(item);
+                }
+                continue;
+            }
+            if (entry.getKey() instanceof InFlightItemKey && snapshotId != expectedSnapshotId) {
+                // in-flight items of an unaligned snapshot are only valid with the state of that snapshot
+                continue;
+            }
+            Delta delta = vertexDeltas.entries.get(entry.getKey());
+            if (delta == null) {
+                vertexDeltas.entries.put(entry.getKey(), new Delta(snapshotId, entry.getValue()));
+            } else if (delta.snapshotId < snapshotId) {
+                delta.snapshotId = snapshotId;
+                delta.value = entry.getValue();
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the entry from the full snapshot is replaced by a newer
+     * version or if it's a broadcast entry or an in-flight item from an older
+     * snapshot.
+     */
+    private boolean isReplaced(String vertexName, Entry item) {
+        if (item instanceof BroadcastEntry || item.getKey() instanceof InFlightItemKey) {
+            return baseSnapshotId != expectedSnapshotId;
+        }
+        VertexDeltas vertexDeltas = deltas.get(vertexName);
+        return vertexDeltas != null && vertexDeltas.replacedKeys.contains(item.getKey());
+    }
+
+    private boolean isInChain(long snapshotId) {
+        for (long id : snapshotIds) {
+            if (id == snapshotId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum ChunkKind {
+        /** a chunk of a snapshot without incremental snapshots or of a non-incremental vertex */
+        FULL,
+        /** a chunk of an incremental snapshot */
+        DELTAS,
+        /** a chunk of the full snapshot the incremental snapshots build on */
+        BASE
+    }
+
+    private static final class DeserializedChunk {
+        final SnapshotDataKey dataKey;
+        final ChunkKind kind;
+        final List<Object> items;
+        final Throwable error;
+
+        DeserializedChunk(SnapshotDataKey dataKey, ChunkKind kind, List<Object> items, Throwable error) {
+            this.dataKey = dataKey;
+            this.kind = kind;
+            this.items = items;
+            this.error = error;
+        }
+    }
+
+    private static final class VertexDeltas {
+        Map<Object, Delta> entries = new HashMap<>();
+        List<Object> broadcastEntries = new ArrayList<>();
+        Set<Object> replacedKeys;
+    }
+
+    private static final class Delta {
+        long snapshotId;
+        Object value;
+
+        Delta(long snapshotId, Object value) {
+            this.snapshotId = snapshotId;
+            this.value = value;
+        }
     }
 }
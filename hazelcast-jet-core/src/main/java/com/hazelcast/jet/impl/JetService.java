@@ -30,6 +30,10 @@ import com.hazelcast.jet.impl.execution.TaskletExecutionService;
 import com.hazelcast.jet.impl.metrics.JetMetricsService;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
+import com.hazelcast.jet.impl.util.IMapSnapshotStore;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
+import com.hazelcast.jet.impl.util.SnapshotStore;
+import com.hazelcast.jet.impl.util.SnapshotWriteThrottle;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Packet;
 import com.hazelcast.spi.LiveOperations;
@@ -41,8 +45,12 @@ import com.hazelcast.spi.MembershipServiceEvent;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.properties.HazelcastProperties;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -51,6 +59,11 @@ import java.util.function.Supplier;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.core.JetProperties.JET_SHUTDOWNHOOK_ENABLED;
+import static com.hazelcast.jet.core.JetProperties.JET_SNAPSHOT_STORE;
+import static com.hazelcast.jet.core.JetProperties.JET_SNAPSHOT_STORE_DIRECTORY;
+import static com.hazelcast.jet.core.JetProperties.JET_SNAPSHOT_STORE_REPLICATION_ENABLED;
+import static com.hazelcast.jet.core.JetProperties.JET_SNAPSHOT_WRITE_BYTES_PER_SECOND;
+import static com.hazelcast.jet.impl.JobRepository.SNAPSHOT_DATA_MAP_PREFIX;
 import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
 import static com.hazelcast.spi.properties.GroupProperty.SHUTDOWNHOOK_POLICY;
 import static java.lang.Boolean.parseBoolean;
@@ -82,8 +95,14 @@ public class JetService
     private JobCoordinationService jobCoordinationService;
     private JobExecutionService jobExecutionService;
     private JetMetricsService jetMetricsService;
+    private SnapshotStore imapSnapshotStore;
+    // null, if the snapshots are stored in IMaps
+    private LocalDiskSnapshotStore localDiskSnapshotStore;
 
     private final AtomicInteger numConcurrentAsyncOps = new AtomicInteger();
+    // the snapshot writers have their own limit so that they don't take the slots of the sinks
+    private final AtomicInteger numConcurrentSnapshotAsyncOps = new AtomicInteger();
+    private SnapshotWriteThrottle snapshotWriteThrottle;
 
     private final Supplier<int[]> sharedPartitionKeys = memoizeConcurrent(this::computeSharedPartitionKeys);
 
@@ -112,6 +131,11 @@ public class JetService
 
         networking = new Networking(engine, jobExecutionService, config.getInstanceConfig().getFlowControlPeriodMs());
 
+        imapSnapshotStore = new IMapSnapshotStore(engine.getHazelcastInstance());
+        localDiskSnapshotStore = createLocalDiskSnapshotStore();
+        snapshotWriteThrottle = new SnapshotWriteThrottle(
+                new HazelcastProperties(config.getProperties()).getLong(JET_SNAPSHOT_WRITE_BYTES_PER_SECOND));
+
         ClientEngineImpl clientEngine = engine.getService(ClientEngineImpl.SERVICE_NAME);
         ExceptionUtil.registerJetExceptions(clientEngine.getClientExceptions());
 
@@ -174,6 +198,9 @@ public class JetService
         taskletExecutionService.shutdown();
         taskletExecutionService.awaitWorkerTermination();
         networking.shutdown();
+        if (localDiskSnapshotStore != null) {
+            localDiskSnapshotStore.close();
+        }
     }
 
     @Override
@@ -272,6 +299,14 @@ public class JetService
         return numConcurrentAsyncOps;
     }
 
+    public AtomicInteger numConcurrentSnapshotAsyncOps() {
+        return numConcurrentSnapshotAsyncOps;
+    }
+
+    public SnapshotWriteThrottle snapshotWriteThrottle() {
+        return snapshotWriteThrottle;
+    }
+
     @Override
     public void populate(LiveOperations liveOperations) {
         liveOperationRegistry.populate(liveOperations);
@@ -299,6 +334,39 @@ public class JetService
         return keys;
     }
 
+    /**
+     * Returns the store of the chunks of the given snapshot map. Exported
+     * snapshots are always stored in their IMaps.
+     */
+    @Nonnull
+    public SnapshotStore getSnapshotStore(@Nonnull String mapName) {
+        return localDiskSnapshotStore != null && mapName.startsWith(SNAPSHOT_DATA_MAP_PREFIX)
+                ? localDiskSnapshotStore
+                : imapSnapshotStore;
+    }
+
+    @Nullable
+    public LocalDiskSnapshotStore getLocalDiskSnapshotStore() {
+        return localDiskSnapshotStore;
+    }
+
+    @Nullable
+    private LocalDiskSnapshotStore createLocalDiskSnapshotStore() {
+        HazelcastProperties properties = new HazelcastProperties(config.getProperties());
+        String store = properties.getString(JET_SNAPSHOT_STORE);
+        switch (store) {
+            case "imap":
+                return null;
+            case "local-disk":
+                String directory = properties.getString(JET_SNAPSHOT_STORE_DIRECTORY);
+                boolean replicate = properties.getBoolean(JET_SNAPSHOT_STORE_REPLICATION_ENABLED);
+                logger.info("Storing the snapshots in " + directory + (replicate ? ", replicated to one peer" : ""));
+                return new LocalDiskSnapshotStore(nodeEngine, Paths.get(directory), replicate);
+            default:
+                throw new IllegalArgumentException("Unknown " + JET_SNAPSHOT_STORE.getName() + ": " + store);
+        }
+    }
+
     public MigrationWatcher getSharedMigrationWatcher() {
         return sharedMigrationWatcher;
     }
@@ -37,6 +37,7 @@ import com.hazelcast.jet.core.metrics.JobMetrics;
 import com.hazelcast.jet.impl.exception.EnteringPassiveClusterStateException;
 import com.hazelcast.jet.impl.operation.GetClusterMetadataOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.serialization.Data;
@@ -871,6 +872,10 @@ public class JobCoordinationService {
     // runs periodically to restart jobs on coordinator failure and perform GC
     private void scanJobs() {
         try {
+            LocalDiskSnapshotStore snapshotStore = jetService.getLocalDiskSnapshotStore();
+            if (snapshotStore != null) {
+                jobRepository.cleanupLocalSnapshotData(snapshotStore);
+            }
             if (!shouldStartJobs()) {
                 return;
             }
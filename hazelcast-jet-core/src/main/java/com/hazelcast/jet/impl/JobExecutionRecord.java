@@ -23,14 +23,20 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.util.Clock;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
 import static com.hazelcast.jet.impl.util.Util.toLocalTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Runtime information about the job. There's one instance for each jobId, used
@@ -58,6 +64,18 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
     private volatile long ongoingSnapshotId = NO_SNAPSHOT;
     private volatile long ongoingSnapshotStartTime = Long.MIN_VALUE;
     private volatile String exportedSnapshotMapName;
+    private volatile boolean ongoingSnapshotIncremental;
+    /**
+     * The number of incremental snapshots stored on top of the last full
+     * snapshot in the current data map.
+     */
+    private volatile int incrementalSnapshotCount;
+    /**
+     * True if the last snapshot failed or was exported. In both cases the
+     * processors might have forgotten the changes not stored in the data map,
+     * so the next snapshot must be full.
+     */
+    private volatile boolean fullSnapshotRequired;
     @Nullable
     private volatile String lastSnapshotFailure;
     @Nullable
@@ -109,26 +127,51 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT",
             justification = "all updates to ongoingSnapshotId are synchronized")
-    public void startNewSnapshot(String exportedSnapshotMapName) {
+    public void startNewSnapshot(String exportedSnapshotMapName, boolean incremental) {
+        assert !incremental || canTakeIncrementalSnapshot(Integer.MAX_VALUE) && exportedSnapshotMapName == null
+                : "incremental snapshot not possible";
         ongoingSnapshotId++;
         ongoingSnapshotStartTime = Clock.currentTimeMillis();
         this.exportedSnapshotMapName = exportedSnapshotMapName;
+        this.ongoingSnapshotIncremental = incremental;
+    }
+
+    /**
+     * Returns true, if the next snapshot can store only the changes since the
+     * current successful snapshot, given the maximum length of a chain of
+     * incremental snapshots.
+     */
+    public boolean canTakeIncrementalSnapshot(int maxIncrementalSnapshots) {
+        return snapshotId != NO_SNAPSHOT && !fullSnapshotRequired && incrementalSnapshotCount < maxIncrementalSnapshots;
     }
 
     public SnapshotStats ongoingSnapshotDone(
             long numBytes, long numKeys, long numChunks, @Nullable String failureText
+    ) {
+        return ongoingSnapshotDone(numBytes, numKeys, numChunks, Collections.emptyMap(), failureText);
+    }
+
+    public SnapshotStats ongoingSnapshotDone(
+            long numBytes, long numKeys, long numChunks, @Nonnull Map<String, VertexSnapshotStats> vertexStats,
+            @Nullable String failureText
     ) {
         lastSnapshotFailure = failureText;
         SnapshotStats res = new SnapshotStats(
-                ongoingSnapshotId, ongoingSnapshotStartTime, Clock.currentTimeMillis(), numBytes, numKeys, numChunks
+                ongoingSnapshotId, ongoingSnapshotStartTime, Clock.currentTimeMillis(), numBytes, numKeys, numChunks,
+                vertexStats
         );
         // switch dataMapIndex only if the snapshot was successful and it wasn't an exported one
         if (failureText == null && exportedSnapshotMapName == null) {
             dataMapIndex = ongoingDataMapIndex();
             snapshotId = ongoingSnapshotId;
             snapshotStats = res;
+            incrementalSnapshotCount = ongoingSnapshotIncremental ? incrementalSnapshotCount + 1 : 0;
+            fullSnapshotRequired = false;
+        } else {
+            fullSnapshotRequired = true;
         }
         exportedSnapshotMapName = null;
+        ongoingSnapshotIncremental = false;
         ongoingSnapshotStartTime = Long.MIN_VALUE;
         return res;
     }
@@ -151,9 +194,13 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
 
     /**
      * Returns the index of the data map into which the new snapshot will be
-     * written.
+     * written. An incremental snapshot is written to the map of the current
+     * successful snapshot, a full one to the other map.
      */
     int ongoingDataMapIndex() {
+        if (ongoingSnapshotIncremental) {
+            return dataMapIndex;
+        }
         assert dataMapIndex == 0 // we'll return 1
                 || dataMapIndex == 1 // we'll return 0
                 || dataMapIndex == -1 // we'll return 0
@@ -169,6 +216,14 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         return ongoingSnapshotId;
     }
 
+    /**
+     * Returns true, if the ongoing snapshot stores only the changes since the
+     * current successful snapshot.
+     */
+    public boolean ongoingSnapshotIncremental() {
+        return ongoingSnapshotIncremental;
+    }
+
     /**
      * Start time of the ongoing snapshot or {@code Long.MIN_VALUE}, if there's
      * no ongoing snapshot.
@@ -254,6 +309,9 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         out.writeBoolean(suspended);
         out.writeBoolean(executed);
         out.writeLong(timestamp.get());
+        out.writeBoolean(ongoingSnapshotIncremental);
+        out.writeInt(incrementalSnapshotCount);
+        out.writeBoolean(fullSnapshotRequired);
     }
 
     @Override
@@ -270,6 +328,9 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         suspended = in.readBoolean();
         executed = in.readBoolean();
         timestamp.set(in.readLong());
+        ongoingSnapshotIncremental = in.readBoolean();
+        incrementalSnapshotCount = in.readInt();
+        fullSnapshotRequired = in.readBoolean();
     }
 
     @Override
@@ -284,11 +345,34 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                 ", snapshotId=" + snapshotId +
                 ", ongoingSnapshotId=" + ongoingSnapshotId +
                 ", ongoingSnapshotStartTime=" + toLocalTime(ongoingSnapshotStartTime) +
+                ", ongoingSnapshotIncremental=" + ongoingSnapshotIncremental +
+                ", incrementalSnapshotCount=" + incrementalSnapshotCount +
                 ", snapshotStats=" + snapshotStats +
                 ", lastSnapshotFailure=" + (lastSnapshotFailure == null ? "null" : '\'' + lastSnapshotFailure + '\'') +
                 '}';
     }
 
+    public static void writeVertexStats(ObjectDataOutput out, Map<String, VertexSnapshotStats> vertexStats)
+            throws IOException {
+        out.writeInt(vertexStats.size());
+        for (Entry<String, VertexSnapshotStats> en : vertexStats.entrySet()) {
+            out.writeUTF(en.getKey());
+            out.writeObject(en.getValue());
+        }
+    }
+
+    public static Map<String, VertexSnapshotStats> readVertexStats(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, VertexSnapshotStats> res = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            res.put(in.readUTF(), in.readObject());
+        }
+        return res;
+    }
+
     public static class SnapshotStats implements IdentifiedDataSerializable {
 
         private long snapshotId;
@@ -299,17 +383,20 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         private long numBytes;
         private long numKeys;
         private long numChunks;
+        private Map<String, VertexSnapshotStats> vertexStats = Collections.emptyMap();
 
         public SnapshotStats() {
         }
 
-        SnapshotStats(long snapshotId, long startTime, long endTime, long numBytes, long numKeys, long numChunks) {
+        SnapshotStats(long snapshotId, long startTime, long endTime, long numBytes, long numKeys, long numChunks,
+                      @Nonnull Map<String, VertexSnapshotStats> vertexStats) {
             this.snapshotId = snapshotId;
             this.startTime = startTime;
             this.endTime = endTime;
             this.numBytes = numBytes;
             this.numKeys = numKeys;
             this.numChunks = numChunks;
+            this.vertexStats = vertexStats;
         }
 
         public long startTime() {
@@ -346,6 +433,15 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             return numChunks;
         }
 
+        /**
+         * Write statistics of the vertices that saved some state, by vertex
+         * name.
+         */
+        @Nonnull
+        public Map<String, VertexSnapshotStats> vertexStats() {
+            return vertexStats;
+        }
+
         @Override
         public int getFactoryId() {
             return JetInitDataSerializerHook.FACTORY_ID;
@@ -364,6 +460,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             out.writeLong(numBytes);
             out.writeLong(numKeys);
             out.writeLong(numChunks);
+            writeVertexStats(out, vertexStats);
         }
 
         @Override
@@ -374,6 +471,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             numBytes = in.readLong();
             numKeys = in.readLong();
             numChunks = in.readLong();
+            vertexStats = readVertexStats(in);
         }
 
         @Override
@@ -390,12 +488,13 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                     endTime == that.endTime &&
                     numBytes == that.numBytes &&
                     numKeys == that.numKeys &&
-                    numChunks == that.numChunks;
+                    numChunks == that.numChunks &&
+                    vertexStats.equals(that.vertexStats);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(snapshotId, startTime, endTime, numBytes, numKeys, numChunks);
+            return Objects.hash(snapshotId, startTime, endTime, numBytes, numKeys, numChunks, vertexStats);
         }
 
         @Override
@@ -407,6 +506,158 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                     ", numBytes=" + numBytes +
                     ", numKeys=" + numKeys +
                     ", numChunks=" + numChunks +
+                    ", vertexStats=" + vertexStats +
+                    '}';
+        }
+    }
+
+    /**
+     * Write statistics of a single vertex in a single snapshot, summed over
+     * all members.
+     */
+    public static class VertexSnapshotStats implements IdentifiedDataSerializable {
+
+        private long numBytes;
+        private long numKeys;
+        private long numChunks;
+        private long writeTimeNanos;
+        private long putLatencyNanos;
+        private long stallTimeNanos;
+
+        public VertexSnapshotStats() {
+        }
+
+        public VertexSnapshotStats(long numBytes, long numKeys, long numChunks, long writeTimeNanos,
+                                   long putLatencyNanos, long stallTimeNanos) {
+            this.numBytes = numBytes;
+            this.numKeys = numKeys;
+            this.numChunks = numChunks;
+            this.writeTimeNanos = writeTimeNanos;
+            this.putLatencyNanos = putLatencyNanos;
+            this.stallTimeNanos = stallTimeNanos;
+        }
+
+        public long numBytes() {
+            return numBytes;
+        }
+
+        public long numKeys() {
+            return numKeys;
+        }
+
+        public long numChunks() {
+            return numChunks;
+        }
+
+        /**
+         * The time from the first chunk written by the vertex to the
+         * completion of its last one, the maximum over the members.
+         */
+        public long writeTimeNanos() {
+            return writeTimeNanos;
+        }
+
+        /**
+         * The put latency summed over the chunks: the time from issuing the
+         * asynchronous put of a chunk to the snapshot store until its
+         * completion.
+         */
+        public long putLatencyNanos() {
+            return putLatencyNanos;
+        }
+
+        /**
+         * The total time the vertex couldn't write its state because of the
+         * {@linkplain com.hazelcast.jet.core.JetProperties#JET_SNAPSHOT_WRITE_BYTES_PER_SECOND
+         * write budget} or of the limit of parallel writes. The processors of
+         * the vertex can be blocked during this time.
+         */
+        public long stallTimeNanos() {
+            return stallTimeNanos;
+        }
+
+        /**
+         * Returns the average write throughput of the vertex in bytes per
+         * second.
+         */
+        public long bytesPerSecond() {
+            return writeTimeNanos == 0 ? 0 : (long) ((double) numBytes * SECONDS.toNanos(1) / writeTimeNanos);
+        }
+
+        /**
+         * Merges the stats of another member or tasklet of the same vertex
+         * into this instance.
+         */
+        public void merge(VertexSnapshotStats other) {
+            numBytes += other.numBytes;
+            numKeys += other.numKeys;
+            numChunks += other.numChunks;
+            writeTimeNanos = Math.max(writeTimeNanos, other.writeTimeNanos);
+            putLatencyNanos += other.putLatencyNanos;
+            stallTimeNanos += other.stallTimeNanos;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return JetInitDataSerializerHook.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return JetInitDataSerializerHook.VERTEX_SNAPSHOT_STATS;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeLong(numBytes);
+            out.writeLong(numKeys);
+            out.writeLong(numChunks);
+            out.writeLong(writeTimeNanos);
+            out.writeLong(putLatencyNanos);
+            out.writeLong(stallTimeNanos);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            numBytes = in.readLong();
+            numKeys = in.readLong();
+            numChunks = in.readLong();
+            writeTimeNanos = in.readLong();
+            putLatencyNanos = in.readLong();
+            stallTimeNanos = in.readLong();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            VertexSnapshotStats that = (VertexSnapshotStats) o;
+            return numBytes == that.numBytes &&
+                    numKeys == that.numKeys &&
+                    numChunks == that.numChunks &&
+                    writeTimeNanos == that.writeTimeNanos &&
+                    putLatencyNanos == that.putLatencyNanos &&
+                    stallTimeNanos == that.stallTimeNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(numBytes, numKeys, numChunks, writeTimeNanos, putLatencyNanos, stallTimeNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "VertexSnapshotStats{" +
+                    "numBytes=" + numBytes +
+                    ", numKeys=" + numKeys +
+                    ", numChunks=" + numChunks +
+                    ", writeTimeNanos=" + writeTimeNanos +
+                    ", putLatencyNanos=" + putLatencyNanos +
+                    ", stallTimeNanos=" + stallTimeNanos +
                     '}';
         }
     }
@@ -29,6 +29,7 @@ import com.hazelcast.jet.core.JetProperties;
 import com.hazelcast.jet.core.JobNotFoundException;
 import com.hazelcast.jet.core.metrics.JobMetrics;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.map.EntryBackupProcessor;
@@ -49,6 +50,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -381,6 +383,25 @@ public class JobRepository {
         logger.fine("Job cleanup took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
     }
 
+    /**
+     * Deletes the snapshot data of finished jobs from the local-disk
+     * snapshot store of this member. Unlike {@link #cleanup}, it runs on
+     * each member.
+     */
+    void cleanupLocalSnapshotData(LocalDiskSnapshotStore snapshotStore) {
+        List<String> mapNames = new ArrayList<>(snapshotStore.mapNames());
+        if (mapNames.isEmpty()) {
+            return;
+        }
+        // take the list of active job records after getting the list of maps, see cleanup()
+        Set<Long> activeJobs = jobRecords.keySet();
+        for (String mapName : mapNames) {
+            if (!activeJobs.contains(jobIdFromMapName(mapName, SNAPSHOT_DATA_MAP_PREFIX))) {
+                snapshotStore.clearMap(mapName);
+            }
+        }
+    }
+
     private long jobIdFromMapName(String map, String prefix) {
         int idx = prefix.length();
         String jobId = map.substring(idx, idx + JOB_ID_STRING_LENGTH);
@@ -29,6 +29,7 @@ import com.hazelcast.jet.core.TopologyChangedException;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.core.metrics.JobMetrics;
 import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate;
 import com.hazelcast.jet.impl.exception.JobTerminateRequestedException;
 import com.hazelcast.jet.impl.exception.TerminatedWithSnapshotException;
@@ -40,9 +41,11 @@ import com.hazelcast.jet.impl.operation.GetLocalJobMetricsOperation.ExecutionNot
 import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.StartExecutionOperation;
 import com.hazelcast.jet.impl.operation.TerminateExecutionOperation;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
+import com.hazelcast.jet.impl.util.SnapshotStore;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.ExecutionService;
@@ -51,6 +54,7 @@ import com.hazelcast.spi.Operation;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -68,6 +72,7 @@ import java.util.function.Supplier;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.config.ProcessingGuarantee.NONE;
 import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
 import static com.hazelcast.jet.core.JobStatus.COMPLETED;
 import static com.hazelcast.jet.core.JobStatus.FAILED;
 import static com.hazelcast.jet.core.JobStatus.NOT_RUNNING;
@@ -75,7 +80,6 @@ import static com.hazelcast.jet.core.JobStatus.RUNNING;
 import static com.hazelcast.jet.core.JobStatus.STARTING;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED_EXPORTING_SNAPSHOT;
-import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.function.Functions.entryKey;
 import static com.hazelcast.jet.impl.JobRepository.EXPORTED_SNAPSHOTS_PREFIX;
@@ -357,19 +361,27 @@ public class MasterJobContext {
     ) throws UserCausedException {
         try {
             IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(mapName);
-            long resolvedSnapshotId = validateSnapshot(
-                    snapshotId, snapshotMap, mc.jobIdString(), snapshotName);
+            SnapshotStore snapshotStore = mc.getJetService().getSnapshotStore(mapName);
+            SnapshotValidationRecord validationRecord = validateSnapshot(
+                    snapshotId, snapshotMap, snapshotStore, mc.jobIdString(), snapshotName);
+            long[] snapshotIds = validationRecord.snapshotIds();
             logger.info(String.format(
                     "About to restore the state of %s from snapshot %d, mapName = %s",
-                    mc.jobIdString(), resolvedSnapshotId, mapName));
+                    mc.jobIdString(), validationRecord.snapshotId(), mapName)
+                    + (snapshotIds.length > 1 ? ", incremental snapshots: " + Arrays.toString(snapshotIds) : ""));
             List<Vertex> originalVertices = new ArrayList<>();
             dag.iterator().forEachRemaining(originalVertices::add);
 
             Map<String, Integer> vertexToOrdinal = new HashMap<>();
-            Vertex readSnapshotVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "read", readMapP(mapName));
             Vertex explodeVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "explode",
-                    () -> new ExplodeSnapshotP(vertexToOrdinal, resolvedSnapshotId));
-            dag.edge(between(readSnapshotVertex, explodeVertex).isolated());
+                    () -> new ExplodeSnapshotP(vertexToOrdinal, snapshotIds));
+            if (snapshotIds.length == 1) {
+                Vertex readSnapshotVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "read",
+                        snapshotStore.readP(mapName, snapshotIds[0], snapshotIds[0]));
+                dag.edge(between(readSnapshotVertex, explodeVertex).isolated());
+            } else {
+                addIncrementalSnapshotReaders(dag, snapshotStore, mapName, snapshotIds[0], explodeVertex);
+            }
 
             int index = 0;
             // add the edges
@@ -384,6 +396,32 @@ public class MasterJobContext {
         }
     }
 
+    /**
+     * Adds two readers of the snapshot data: one for the incremental snapshots
+     * and one for the full snapshot they build on. The incremental snapshots
+     * are read first, see {@link ExplodeSnapshotP}. These are ordinary edges
+     * with ordinary priorities, only the edges from the explode vertex to the
+     * user vertices are snapshot restore edges.
+     */
+    private static void addIncrementalSnapshotReaders(
+            DAG dag, SnapshotStore snapshotStore, String mapName, long baseSnapshotId, Vertex explodeVertex
+    ) {
+        Vertex readDeltasVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "readIncremental",
+                snapshotStore.readP(mapName, baseSnapshotId + 1, Long.MAX_VALUE));
+        Vertex readBaseVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "read",
+                snapshotStore.readP(mapName, baseSnapshotId, baseSnapshotId));
+        // all versions of a key are in the chunks with the same partition key
+        FunctionEx<Map.Entry<SnapshotDataKey, Object>, Object> chunkPartitionKey = e -> e.getKey().getPartitionKey();
+        dag.edge(from(readDeltasVertex).to(explodeVertex, ExplodeSnapshotP.DELTAS_ORDINAL)
+                   .distributed()
+                   .partitioned(chunkPartitionKey)
+                   .priority(0));
+        dag.edge(from(readBaseVertex).to(explodeVertex, ExplodeSnapshotP.BASE_ORDINAL)
+                   .distributed()
+                   .partitioned(chunkPartitionKey)
+                   .priority(1));
+    }
+
     private boolean scheduleRestartIfQuorumAbsent() {
         int quorumSize = mc.jobExecutionRecord().getQuorumSize();
         if (mc.coordinationService().isQuorumPresent(quorumSize)) {
@@ -43,6 +43,7 @@ import static com.hazelcast.jet.impl.JobRepository.EXPORTED_SNAPSHOTS_PREFIX;
 import static com.hazelcast.jet.impl.JobRepository.exportedSnapshotMapName;
 import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Part of {@link MasterContext} that deals with snapshot creation.
@@ -117,6 +118,7 @@ class MasterSnapshotContext {
         boolean isTerminal;
         String snapshotMapName;
         CompletableFuture<Void> future;
+        boolean isIncremental;
         mc.lock();
         try {
             if (mc.jobStatus() != RUNNING) {
@@ -140,7 +142,10 @@ class MasterSnapshotContext {
             snapshotMapName = requestedSnapshot.f0();
             isTerminal = requestedSnapshot.f1();
             future = requestedSnapshot.f2();
-            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName);
+            // exported snapshots are always full, they must be restorable on their own
+            isIncremental = snapshotMapName == null && mc.jobExecutionRecord().canTakeIncrementalSnapshot(
+                    mc.jobConfig().getMaxIncrementalSnapshots());
+            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName, isIncremental);
         } finally {
             mc.unlock();
         }
@@ -150,13 +155,18 @@ class MasterSnapshotContext {
         boolean isExport = snapshotMapName != null;
         String finalMapName = isExport ? exportedSnapshotMapName(snapshotMapName)
                 : snapshotDataMapName(mc.jobId(), mc.jobExecutionRecord().ongoingDataMapIndex());
-        mc.nodeEngine().getHazelcastInstance().getMap(finalMapName).clear();
+        if (!isIncremental) {
+            // an incremental snapshot is added to the snapshots already in the map
+            mc.nodeEngine().getHazelcastInstance().getMap(finalMapName).clear();
+        }
         logger.info(String.format("Starting snapshot %d for %s", newSnapshotId, mc.jobIdString())
                 + (isTerminal ? ", terminal" : "")
+                + (isIncremental ? ", incremental" : "")
                 + (isExport ? ", exporting to '" + snapshotMapName + '\'' : ""));
 
         Function<ExecutionPlan, Operation> factory =
-                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal);
+                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal,
+                        isIncremental);
 
         // Need to take a copy of executionId: we don't cancel the scheduled task when the execution
         // finalizes. If a new execution is started in the meantime, we'll use the execution ID to detect it.
@@ -165,7 +175,7 @@ class MasterSnapshotContext {
                 factory,
                 responses -> mc.coordinationService().submitToCoordinatorThread(() ->
                         onSnapshotCompleted(responses, localExecutionId, newSnapshotId, finalMapName, isExport, isTerminal,
-                                future)),
+                                isIncremental, future)),
                 null, true);
     }
 
@@ -176,6 +186,7 @@ class MasterSnapshotContext {
             String snapshotMapName,
             boolean wasExport,
             boolean wasTerminal,
+            boolean wasIncremental,
             @Nullable CompletableFuture<Void> future
     ) {
         // Note: this method can be called after finalizeJob() is called or even after new execution started.
@@ -193,18 +204,10 @@ class MasterSnapshotContext {
 
         IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(snapshotMapName);
         try {
-            SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
-                    mergedResult.getNumChunks(), mergedResult.getNumBytes(),
-                    mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
-                    mc.jobRecord().getDagJson());
-            Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
-            if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
-                String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
-                mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
-            }
-            if (oldValue != null) {
-                logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName + "' for "
-                        + mc.jobIdString() + ": snapshot data might be corrupted");
+            if (wasIncremental) {
+                putIncrementalValidationRecord(snapshotMap, snapshotId, mergedResult);
+            } else {
+                putValidationRecord(snapshotMap, snapshotId, mergedResult);
             }
         } catch (Exception e) {
             mergedResult.merge(new SnapshotOperationResult(0, 0, 0, e));
@@ -214,16 +217,20 @@ class MasterSnapshotContext {
         if (!isSuccess) {
             logger.warning(mc.jobIdString() + " snapshot " + snapshotId + " failed on some member(s), " +
                     "one of the failures: " + mergedResult.getError());
-            try {
-                snapshotMap.clear();
-            } catch (Exception e) {
-                logger.warning(mc.jobIdString() + ": failed to clear snapshot map '" + snapshotMapName
-                                + "' after a failure", e);
+            if (!wasIncremental) {
+                // The map of a failed incremental snapshot still contains the previous snapshots. The chunks of
+                // the failed one are ignored when restoring and removed when the next full snapshot is written.
+                try {
+                    snapshotMap.clear();
+                } catch (Exception e) {
+                    logger.warning(mc.jobIdString() + ": failed to clear snapshot map '" + snapshotMapName
+                            + "' after a failure", e);
+                }
             }
         }
         SnapshotStats stats = mc.jobExecutionRecord().ongoingSnapshotDone(
                 mergedResult.getNumBytes(), mergedResult.getNumKeys(), mergedResult.getNumChunks(),
-                mergedResult.getError());
+                mergedResult.getVertexStats(), mergedResult.getError());
         mc.writeJobExecutionRecord(false);
         logger.info(String.format("Snapshot %d for %s completed with status %s in %dms, " +
                         "%,d bytes, %,d keys in %,d chunks, stored in '%s'",
@@ -231,6 +238,13 @@ class MasterSnapshotContext {
                 stats.duration(), stats.numBytes(),
                 stats.numKeys(), stats.numChunks(),
                 snapshotMapName));
+        if (logger.isFineEnabled()) {
+            stats.vertexStats().forEach((vertexName, vs) -> logger.fine(String.format(
+                    "Snapshot %d for %s, vertex '%s': %,d bytes in %,d chunks, %,d bytes/s, " +
+                            "put latency %,dms, stalled %,dms",
+                    snapshotId, mc.jobIdString(), vertexName, vs.numBytes(), vs.numChunks(), vs.bytesPerSecond(),
+                    NANOSECONDS.toMillis(vs.putLatencyNanos()), NANOSECONDS.toMillis(vs.stallTimeNanos()))));
+        }
         if (!wasExport) {
             mc.jobRepository().clearSnapshotData(mc.jobId(), mc.jobExecutionRecord().ongoingDataMapIndex());
         }
@@ -272,6 +286,43 @@ class MasterSnapshotContext {
         tryBeginSnapshot();
     }
 
+    private void putValidationRecord(
+            IMap<Object, Object> snapshotMap, long snapshotId, SnapshotOperationResult mergedResult
+    ) {
+        String snapshotMapName = snapshotMap.getName();
+        SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
+                mergedResult.getNumChunks(), mergedResult.getNumBytes(),
+                mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
+                mc.jobRecord().getDagJson());
+        Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
+        if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
+            String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
+            mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
+        }
+        if (oldValue != null) {
+            logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName + "' for "
+                    + mc.jobIdString() + ": snapshot data might be corrupted");
+        }
+    }
+
+    private void putIncrementalValidationRecord(
+            IMap<Object, Object> snapshotMap, long snapshotId, SnapshotOperationResult mergedResult
+    ) {
+        if (mergedResult.getError() != null) {
+            // the record of the previous snapshot stays in the map
+            return;
+        }
+        SnapshotValidationRecord previousRecord =
+                (SnapshotValidationRecord) snapshotMap.get(SnapshotValidationRecord.KEY);
+        if (previousRecord == null) {
+            throw new JetException("SnapshotValidationRecord of the previous snapshot missing in '"
+                    + snapshotMap.getName() + "' for " + mc.jobIdString());
+        }
+        snapshotMap.put(SnapshotValidationRecord.KEY, previousRecord.withIncrementalSnapshot(snapshotId,
+                mergedResult.getNumChunks(), mergedResult.getNumBytes(),
+                mc.jobExecutionRecord().ongoingSnapshotStartTime()));
+    }
+
     CompletableFuture<Void> terminalSnapshotFuture() {
         return terminalSnapshotFuture;
     }
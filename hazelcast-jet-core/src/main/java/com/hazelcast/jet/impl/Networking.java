@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl;
 
 import com.hazelcast.jet.impl.execution.ExecutionContext;
+import com.hazelcast.jet.impl.execution.ReceiverTasklet;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
@@ -115,6 +116,8 @@ public class Networking {
         try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
             final boolean[] hasData = {false};
             Map<Long, ExecutionContext> executionContexts = jobExecutionService.getExecutionContextsFor(member);
+            // senders echo the timestamp back in data packets so that receivers can measure the round-trip time
+            out.writeLong(System.nanoTime());
             out.writeInt(executionContexts.size());
             executionContexts.forEach((execId, exeCtx) -> uncheckRun(() -> {
                 out.writeLong(execId);
@@ -123,7 +126,9 @@ public class Networking {
                         ordinalToSenderToTasklet.forEach((ordinal, senderToTasklet) -> uncheckRun(() -> {
                             out.writeInt(vertexId);
                             out.writeInt(ordinal);
-                            out.writeInt(senderToTasklet.get(member).updateAndGetSendSeqLimitCompressed());
+                            ReceiverTasklet receiver = senderToTasklet.get(member);
+                            out.writeInt(receiver.updateAndGetSendSeqLimitCompressed());
+                            out.writeInt(receiver.getPacketSizeLimit());
                             hasData[0] = true;
                         })));
             }));
@@ -133,6 +138,7 @@ public class Networking {
 
     private void handleFlowControlPacket(Address fromAddr, byte[] packet) throws IOException {
         try (BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet)) {
+            final long ackTimestamp = in.readLong();
             final int executionCtxCount = in.readInt();
             for (int j = 0; j < executionCtxCount; j++) {
                 final long executionId = in.readLong();
@@ -148,6 +154,7 @@ public class Networking {
                     int destVertexId = in.readInt();
                     int destOrdinal = in.readInt();
                     int sendSeqLimitCompressed = in.readInt();
+                    int packetSizeLimit = in.readInt();
                     final SenderTasklet t = Optional.ofNullable(senderMap.get(destVertexId))
                                                     .map(ordinalMap -> ordinalMap.get(destOrdinal))
                                                     .map(addrMap -> addrMap.get(fromAddr))
@@ -157,6 +164,7 @@ public class Networking {
                         return;
                     }
                     t.setSendSeqLimitCompressed(sendSeqLimitCompressed);
+                    t.setPacketSizeLimit(packetSizeLimit, ackTimestamp);
                 }
             }
         }
@@ -23,11 +23,18 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     public static final SnapshotValidationKey KEY = SnapshotValidationKey.KEY;
 
     private long snapshotId;
+    /**
+     * IDs of the snapshots stored in the map: the full snapshot first,
+     * followed by the incremental snapshots built on top of it. The last
+     * element is equal to {@link #snapshotId}.
+     */
+    private long[] snapshotIds;
     private long numChunks;
     private long numBytes;
 
@@ -42,6 +49,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     SnapshotValidationRecord(long snapshotId, long numChunks, long numBytes, long creationTime, long jobId,
                                     @Nonnull String jobName, @Nonnull String dagJsonString) {
         this.snapshotId = snapshotId;
+        this.snapshotIds = new long[] {snapshotId};
         this.numChunks = numChunks;
         this.numBytes = numBytes;
         this.creationTime = creationTime;
@@ -54,6 +62,29 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         return snapshotId;
     }
 
+    /**
+     * Returns a record for the map after an incremental snapshot with the
+     * given ID was added to it. The number of chunks and bytes are
+     * cumulative.
+     */
+    SnapshotValidationRecord withIncrementalSnapshot(long snapshotId, long numChunks, long numBytes,
+                                                     long creationTime) {
+        SnapshotValidationRecord res = new SnapshotValidationRecord(snapshotId, this.numChunks + numChunks,
+                this.numBytes + numBytes, creationTime, jobId, jobName, dagJsonString);
+        res.snapshotIds = Arrays.copyOf(snapshotIds, snapshotIds.length + 1);
+        res.snapshotIds[snapshotIds.length] = snapshotId;
+        return res;
+    }
+
+    /**
+     * Returns the IDs of the snapshots stored in the map, the full snapshot
+     * first. The array has more than one element if there are incremental
+     * snapshots built on top of the full one.
+     */
+    public long[] snapshotIds() {
+        return snapshotIds;
+    }
+
     public long numChunks() {
         return numChunks;
     }
@@ -91,6 +122,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
         out.writeLong(snapshotId);
+        out.writeLongArray(snapshotIds);
         out.writeLong(numChunks);
         out.writeLong(numBytes);
         out.writeLong(creationTime);
@@ -102,6 +134,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     @Override
     public void readData(ObjectDataInput in) throws IOException {
         snapshotId = in.readLong();
+        snapshotIds = in.readLongArray();
         numChunks = in.readLong();
         numBytes = in.readLong();
         creationTime = in.readLong();
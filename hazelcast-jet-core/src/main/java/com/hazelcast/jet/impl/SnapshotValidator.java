@@ -16,10 +16,9 @@
 
 package com.hazelcast.jet.impl;
 
-import com.hazelcast.aggregation.Aggregators;
 import com.hazelcast.core.IMap;
 import com.hazelcast.jet.JetException;
-import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.SnapshotStore;
 
 import static com.hazelcast.jet.impl.JobExecutionRecord.NO_SNAPSHOT;
 
@@ -34,13 +33,15 @@ final class SnapshotValidator {
      * @param snapshotId snapshot ID or {@link JobExecutionRecord#NO_SNAPSHOT}
      *                   if snapshot ID is not known
      * @param snapshotMap snapshot map to validate
+     * @param snapshotStore the store of the chunks of the snapshot map
      * @param jobIdString name and ID of the job, for debug output
      * @param snapshotName user-supplied snapshot name for debug output,
      *                     null if it's not an exported snapshot
-     * @return the snapshot ID of the snapshot being validated
+     * @return the validation record of the snapshot
      */
-    static long validateSnapshot(
-            long snapshotId, IMap<Object, Object> snapshotMap, String jobIdString, String snapshotName
+    static SnapshotValidationRecord validateSnapshot(
+            long snapshotId, IMap<Object, Object> snapshotMap, SnapshotStore snapshotStore, String jobIdString,
+            String snapshotName
     ) {
         SnapshotValidationRecord validationRecord =
                 (SnapshotValidationRecord) snapshotMap.get(SnapshotValidationRecord.KEY);
@@ -51,15 +52,12 @@ final class SnapshotValidator {
                     nameOrId, jobIdString));
         }
         if (validationRecord.numChunks() != snapshotMap.size() - 1) {
-            // fallback validation that counts using aggregate(), ignoring different snapshot IDs
-            long filteredCount = snapshotMap.aggregate(
-                    Aggregators.count(),
-                    e -> e.getKey() instanceof SnapshotDataKey
-                            && ((SnapshotDataKey) e.getKey()).snapshotId() == snapshotId);
+            // fallback validation that counts the chunks in the store, ignoring snapshot IDs not in the chain
+            long filteredCount = snapshotStore.countChunks(snapshotMap.getName(), validationRecord.snapshotIds());
             if (validationRecord.numChunks() != filteredCount) {
                 throw new JetException(String.format(
                         "State for %s in IMap '%s' is corrupted: it should have %,d entries, but has %,d",
-                        jobIdString, snapshotMap.getName(), validationRecord.numChunks(), snapshotMap.size() - 1));
+                        jobIdString, snapshotMap.getName(), validationRecord.numChunks(), filteredCount));
             }
         }
         if (snapshotId != NO_SNAPSHOT && snapshotId != validationRecord.snapshotId()) {
@@ -67,6 +65,6 @@ final class SnapshotValidator {
                     "%s: IMap '%s' was supposed to contain snapshotId %d, but it contains snapshotId %d",
                     jobIdString, snapshotMap.getName(), snapshotId, validationRecord.snapshotId()));
         }
-        return validationRecord.snapshotId();
+        return validationRecord;
     }
 }
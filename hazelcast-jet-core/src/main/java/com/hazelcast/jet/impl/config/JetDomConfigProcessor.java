@@ -137,6 +137,17 @@ public class JetDomConfigProcessor extends AbstractDomConfigProcessor {
                             getIntegerValue("receive-window-multiplier", getTextContent(child))
                     );
                     break;
+                case "adaptive-flow-control-enabled":
+                    edgeConfig.setAdaptiveFlowControlEnabled(getBooleanValue(getTextContent(child)));
+                    break;
+                case "compression-enabled":
+                    edgeConfig.setCompressionEnabled(getBooleanValue(getTextContent(child)));
+                    break;
+                case "compression-threshold":
+                    edgeConfig.setCompressionThreshold(
+                            getIntegerValue("compression-threshold", getTextContent(child))
+                    );
+                    break;
                 default:
                     throw new AssertionError("Unrecognized element: " + name);
             }
@@ -26,7 +26,10 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.BitSet;
+import java.util.function.ObjIntConsumer;
 import java.util.function.ToIntFunction;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
@@ -60,6 +63,15 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     private SnapshotBarrier currentBarrier;  // next snapshot barrier to emit
     private long numActiveQueues; // number of active queues remaining
 
+    // Maps an in-flight item to the key of the partition the edge routed it
+    // to, null if the stream doesn't take part in unaligned snapshots.
+    private final ToIntFunction<Object> inFlightItemPartitionKeyFn;
+    // Items taken from the queues in front of the barrier during an unaligned
+    // snapshot, they are drained before the items remaining in the queue.
+    private final ArrayDeque<Object>[] overtakenItems;
+    private final BitSet overtakenQueues; // indicates if all in-flight items were taken from the queue
+    private ObjIntConsumer<Object> inFlightItemSink; // non-null while overtaking
+
     /**
      * @param waitForAllBarriers If {@code true}, a queue that had a barrier won't
      *          be drained until the same barrier is received from all other
@@ -68,10 +80,35 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      */
     public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
                                        boolean waitForAllBarriers, String debugName) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, null, debugName);
+    }
+
+    /**
+     * @param waitForAllBarriers If {@code true}, a queue that had a barrier won't
+     *          be drained until the same barrier is received from all other
+     *          queues. This will enforce exactly-once vs. at-least-once, if it
+     *          is {@code false}.
+     * @param inFlightItemPartitionKeyFn If not null, the stream takes part in
+     *          unaligned snapshots: it forwards a barrier as soon as it's
+     *          received from the first queue and the items in front of the
+     *          barrier in the other queues are saved to the snapshot instead
+     *          of waiting for them. The function maps such an item to the key
+     *          of the partition the edge routed it to. Ignored unless {@code
+     *          waitForAllBarriers} is {@code true}.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers,
+                                       @Nullable ToIntFunction<Object> inFlightItemPartitionKeyFn,
+                                       String debugName) {
         this.conveyor = conveyor;
         this.ordinal = ordinal;
         this.priority = priority;
-        this.waitForAllBarriers = waitForAllBarriers;
+        this.inFlightItemPartitionKeyFn = waitForAllBarriers ? inFlightItemPartitionKeyFn : null;
+        this.waitForAllBarriers = waitForAllBarriers && this.inFlightItemPartitionKeyFn == null;
+        this.overtakenItems = this.inFlightItemPartitionKeyFn != null
+                ? new ArrayDeque[conveyor.queueCount()] : null;
+        this.overtakenQueues = new BitSet(conveyor.queueCount());
 
         watermarkCoalescer = WatermarkCoalescer.create(conveyor.queueCount());
 
@@ -105,7 +142,7 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 continue;
             }
 
-            ProgressState result = drainQueue(q, dest);
+            ProgressState result = drainQueue(queueIndex, q, dest);
             tracker.mergeWith(result);
 
             if (itemDetector.item == DONE_ITEM) {
@@ -133,6 +170,12 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 }
             } else if (itemDetector.item instanceof SnapshotBarrier) {
                 observeBarrier(queueIndex, (SnapshotBarrier) itemDetector.item);
+                if (forwardFirstBarrier()) {
+                    // unaligned snapshot: the other queues will be overtaken after the processor saved its state
+                    boolean res = dest.test(currentBarrier);
+                    assert res : "test result expected to be true";
+                    return MADE_PROGRESS;
+                }
             } else if (result.isMadeProgress()) {
                 watermarkCoalescer.observeEvent(queueIndex);
             }
@@ -141,7 +184,7 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 return tracker.toProgressState();
             }
 
-            if (itemDetector.item != null) {
+            if (itemDetector.item != null && !forwardFirstBarrier()) {
                 // if we have received the current snapshot from all active queues, forward it
                 if (receivedBarriers.cardinality() == numActiveQueues) {
                     assert currentBarrier != null : "currentBarrier == null";
@@ -182,17 +225,96 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     /**
      * Drains the supplied queue into a {@code dest} collection, up to the next
      * {@link Watermark} or {@link SnapshotBarrier}. Also updates the {@code tracker} with new status.
-     *
+     * The items overtaken from the queue are drained first.
      */
-    private ProgressState drainQueue(Pipe<Object> queue, Predicate<Object> dest) {
+    private ProgressState drainQueue(int queueIndex, Pipe<Object> queue, Predicate<Object> dest) {
         itemDetector.reset(dest);
 
-        int drainedCount = queue.drain(itemDetector);
+        int drainedCount = 0;
+        ArrayDeque<Object> overtaken = overtakenItems != null ? overtakenItems[queueIndex] : null;
+        if (overtaken != null) {
+            for (Object item; itemDetector.item == null && (item = overtaken.poll()) != null; ) {
+                itemDetector.test(item);
+                drainedCount++;
+            }
+        }
+        // While overtaking, the items in front of the barrier are taken from the queue only by overtake()
+        if (itemDetector.item == null && (overtaken == null || overtaken.isEmpty())
+                && (inFlightItemSink == null || overtakenQueues.get(queueIndex))) {
+            drainedCount += queue.drain(itemDetector);
+        }
 
         itemDetector.dest = null;
         return ProgressState.valueOf(drainedCount > 0, itemDetector.item == DONE_ITEM);
     }
 
+    /**
+     * Returns true, if a non-terminal barrier is forwarded as soon as it's
+     * received from the first queue.
+     */
+    private boolean forwardFirstBarrier() {
+        return inFlightItemPartitionKeyFn != null && !waitForAllBarriers;
+    }
+
+    @Override
+    public boolean supportsUnalignedSnapshots() {
+        return inFlightItemPartitionKeyFn != null;
+    }
+
+    @Override
+    public void startOvertaking(ObjIntConsumer<Object> inFlightItemSink) {
+        assert supportsUnalignedSnapshots() : "unaligned snapshots not supported";
+        assert this.inFlightItemSink == null : "already overtaking";
+        this.inFlightItemSink = inFlightItemSink;
+        // the queues where the barrier was received have no in-flight items
+        overtakenQueues.or(receivedBarriers);
+    }
+
+    @Override
+    public ProgressState overtake() {
+        if (inFlightItemSink == null) {
+            return DONE;
+        }
+        boolean madeProgress = false;
+        boolean done = true;
+        for (int queueIndex = 0; queueIndex < conveyor.queueCount(); queueIndex++) {
+            final QueuedPipe<Object> q = conveyor.queue(queueIndex);
+            if (q == null || overtakenQueues.get(queueIndex)) {
+                continue;
+            }
+            if (overtakenItems[queueIndex] == null) {
+                overtakenItems[queueIndex] = new ArrayDeque<>();
+            }
+            for (Object item; (item = q.poll()) != null; ) {
+                madeProgress = true;
+                if (item instanceof SnapshotBarrier) {
+                    observeBarrier(queueIndex, (SnapshotBarrier) item);
+                    overtakenQueues.set(queueIndex);
+                    break;
+                }
+                overtakenItems[queueIndex].add(item);
+                if (item == DONE_ITEM) {
+                    overtakenQueues.set(queueIndex);
+                    break;
+                }
+                if (!(item instanceof BroadcastItem)) {
+                    inFlightItemSink.accept(item, inFlightItemPartitionKeyFn.applyAsInt(item));
+                }
+            }
+            done &= overtakenQueues.get(queueIndex);
+        }
+        if (done) {
+            if (logger.isFinestEnabled()) {
+                logger.finest("Overtaken all in-flight items of " + currentBarrier);
+            }
+            inFlightItemSink = null;
+            overtakenQueues.clear();
+            receivedBarriers.clear();
+            currentBarrier = null;
+        }
+        return ProgressState.valueOf(madeProgress, done);
+    }
+
     private void observeBarrier(int queueIndex, SnapshotBarrier barrier) {
         if (currentBarrier == null) {
             currentBarrier = barrier;
@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
@@ -41,6 +42,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static com.hazelcast.jet.Util.idToString;
 import static java.util.Collections.emptyList;
@@ -73,6 +75,7 @@ public class ExecutionContext {
     private List<Processor> processors = emptyList();
 
     private List<Tasklet> tasklets = emptyList();
+    private Function<Tasklet, IdleStrategyType> idleStrategyFn = t -> null;
 
     // future which is completed only after all tasklets are completed and contains execution result
     private volatile CompletableFuture<Void> executionFuture;
@@ -84,6 +87,7 @@ public class ExecutionContext {
     private final TaskletExecutionService taskletExecService;
     private SnapshotContext snapshotContext;
     private JobConfig jobConfig;
+    private OffHeapStateMemory offHeapStateMemory;
 
     private volatile RawJobMetrics jobMetrics = RawJobMetrics.empty();
 
@@ -119,6 +123,8 @@ public class ExecutionContext {
         receiverMap = unmodifiableMap(plan.getReceiverMap());
         senderMap = unmodifiableMap(plan.getSenderMap());
         tasklets = plan.getTasklets();
+        offHeapStateMemory = plan.getOffHeapStateMemory();
+        idleStrategyFn = plan::getIdleStrategy;
         return this;
     }
 
@@ -140,7 +146,7 @@ public class ExecutionContext {
                 // begin job execution
                 JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
                 ClassLoader cl = service.getJobExecutionService().getClassLoader(jobConfig, jobId);
-                executionFuture = taskletExecService.beginExecute(tasklets, cancellationFuture, cl)
+                executionFuture = taskletExecService.beginExecute(tasklets, cancellationFuture, cl, idleStrategyFn)
                         .thenApply(res -> {
                             // There's a race here: a snapshot could be requested after the job just completed
                             // normally, in that case we'll report that it terminated with snapshot.
@@ -181,6 +187,9 @@ public class ExecutionContext {
                         + " encountered an exception in ProcessorSupplier.complete(), ignoring it", e);
             }
         }
+        if (offHeapStateMemory != null) {
+            offHeapStateMemory.dispose();
+        }
         MetricsRegistry metricsRegistry = ((NodeEngineImpl) nodeEngine).getMetricsRegistry();
         processors.forEach(metricsRegistry::deregister);
         tasklets.forEach(metricsRegistry::deregister);
@@ -214,7 +223,7 @@ public class ExecutionContext {
      * Starts a new snapshot by incrementing the current snapshot id
      */
     public CompletableFuture<SnapshotOperationResult> beginSnapshot(long snapshotId, String mapName,
-                                                                  boolean isTerminal) {
+                                                                  boolean isTerminal, boolean isIncremental) {
         synchronized (executionLock) {
             if (cancellationFuture.isDone()) {
                 throw new CancellationException();
@@ -222,7 +231,7 @@ public class ExecutionContext {
                 // if execution is done, there are 0 processors to take snapshots. Therefore we're done now.
                 return CompletableFuture.completedFuture(new SnapshotOperationResult(0, 0, 0, null));
             }
-            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal);
+            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal, isIncremental);
         }
     }
 
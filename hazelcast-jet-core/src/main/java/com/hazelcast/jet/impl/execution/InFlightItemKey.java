@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The snapshot key of an item that was in front of the snapshot barrier in
+ * an input queue when the processor saved its state during an unaligned
+ * snapshot. Such items are saved along with the processor's state and are
+ * processed again after the state is restored.
+ * <p>
+ * The key is partitioned the same way as the edge the item came from, so
+ * that it's restored to the processor that receives the item's partition.
+ */
+public final class InFlightItemKey implements IdentifiedDataSerializable, PartitionAware<Integer> {
+
+    private long snapshotId;
+    private int ordinal;
+    private int processorIndex;
+    private long sequence;
+    private int partitionKey;
+
+    // for deserialization
+    public InFlightItemKey() {
+    }
+
+    /**
+     * @param snapshotId the ID of the snapshot the item belongs to
+     * @param ordinal the ordinal of the edge the item was received from
+     * @param processorIndex global index of the processor that saved the item
+     * @param sequence sequence of the item among the in-flight items of
+     *      the processor, items are restored in this order
+     * @param partitionKey a key of the partition the edge routed the item to
+     */
+    public InFlightItemKey(long snapshotId, int ordinal, int processorIndex, long sequence, int partitionKey) {
+        this.snapshotId = snapshotId;
+        this.ordinal = ordinal;
+        this.processorIndex = processorIndex;
+        this.sequence = sequence;
+        this.partitionKey = partitionKey;
+    }
+
+    public long snapshotId() {
+        return snapshotId;
+    }
+
+    public int ordinal() {
+        return ordinal;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public Integer getPartitionKey() {
+        return partitionKey;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.IN_FLIGHT_ITEM_KEY;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(snapshotId);
+        out.writeInt(ordinal);
+        out.writeInt(processorIndex);
+        out.writeLong(sequence);
+        out.writeInt(partitionKey);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        snapshotId = in.readLong();
+        ordinal = in.readInt();
+        processorIndex = in.readInt();
+        sequence = in.readLong();
+        partitionKey = in.readInt();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InFlightItemKey that = (InFlightItemKey) o;
+        return snapshotId == that.snapshotId &&
+                processorIndex == that.processorIndex &&
+                sequence == that.sequence;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(snapshotId, processorIndex, sequence);
+    }
+
+    @Override
+    public String toString() {
+        return "InFlightItemKey{" +
+                "snapshotId=" + snapshotId +
+                ", ordinal=" + ordinal +
+                ", processorIndex=" + processorIndex +
+                ", sequence=" + sequence +
+                ", partitionKey=" + partitionKey +
+                '}';
+    }
+}
@@ -19,6 +19,8 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.util.function.Predicate;
 
+import java.util.function.ObjIntConsumer;
+
 /**
  * The inbound side of a data stream corresponding to a single DAG edge identified by its ordinal. In the
  * {@code ProcessorTasklet} it corresponds to the target of an edge; in {@code SenderTasklet} it corresponds to the
@@ -65,4 +67,42 @@ public interface InboundEdgeStream {
      * Returns the last coalesced WM that was forwarded from the edge.
      */
     long coalescedWm();
+
+    /**
+     * Returns true, if the stream takes part in unaligned snapshots. Such a
+     * stream forwards the snapshot barrier as soon as it's received from the
+     * first queue. After the processor saved its state, the items in front
+     * of the barrier in the other queues are in-flight items: they must be
+     * {@linkplain #startOvertaking(ObjIntConsumer) overtaken} and saved to
+     * the snapshot.
+     */
+    default boolean supportsUnalignedSnapshots() {
+        return false;
+    }
+
+    /**
+     * Starts overtaking the in-flight items of the current snapshot, see
+     * {@link #overtake()}.
+     * <p>
+     * The default implementation does nothing: a stream that doesn't {@link
+     * #supportsUnalignedSnapshots() support unaligned snapshots} has no
+     * in-flight items, it forwards the barrier only after receiving it from
+     * all queues.
+     *
+     * @param inFlightItemSink consumer of the in-flight items and of the
+     *      keys of the partitions the edge routed them to
+     */
+    default void startOvertaking(ObjIntConsumer<Object> inFlightItemSink) {
+    }
+
+    /**
+     * Takes the items in front of the current snapshot barrier from the
+     * queues where the barrier wasn't yet received and passes them to the
+     * in-flight item sink. The items are still returned by the subsequent
+     * {@link #drainTo} calls in the original order. Returns {@code DONE},
+     * after the barrier was received from all queues.
+     */
+    default ProgressState overtake() {
+        return ProgressState.DONE;
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.JobConfig;
+
+import com.hazelcast.jet.impl.util.ReflectionUtils;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap memory for the keyed state of the processors of one job
+ * execution on one member, limited to {@link
+ * JobConfig#getOffHeapStateMemoryLimit()} bytes. The memory is allocated
+ * as direct {@code ByteBuffer}s, in blocks of {@link #BLOCK_SIZE} or
+ * larger.
+ * <p>
+ * The blocks are used by a single processor, only the accounting is
+ * shared and thread-safe. A released block doesn't go back to the
+ * operating system until its {@code ByteBuffer} is garbage-collected,
+ * a limited number of released blocks is kept for reuse instead. When the
+ * execution completes, {@link #dispose()} frees all the blocks right away,
+ * so that restarting jobs don't exhaust the direct memory before a GC
+ * runs.
+ */
+public class OffHeapStateMemory {
+
+    /**
+     * The size of a regular block.
+     */
+    public static final int BLOCK_SIZE = 1 << 16;
+
+    private static final int MAX_POOLED_BLOCKS = 64;
+    private static final Consumer<ByteBuffer> FREE_FN = createFreeFn();
+
+    private final long limit;
+    private final String jobNameAndExecutionId;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final Queue<ByteBuffer> pooledBlocks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBlockCount = new AtomicInteger();
+    // the blocks allocated and not released, ByteBuffer.equals() compares the contents
+    private final Set<ByteBuffer> liveBlocks = Collections.newSetFromMap(
+            Collections.synchronizedMap(new IdentityHashMap<>()));
+    private volatile boolean disposed;
+
+    public OffHeapStateMemory(long limit, @Nonnull String jobNameAndExecutionId) {
+        this.limit = limit;
+        this.jobNameAndExecutionId = jobNameAndExecutionId;
+    }
+
+    /**
+     * Allocates a block of at least {@code minSize} bytes. The returned
+     * buffer is cleared.
+     *
+     * @throws JetException if the allocation would exceed the limit
+     */
+    @Nonnull
+    public ByteBuffer allocate(int minSize) {
+        if (disposed) {
+            throw new IllegalStateException("Off-heap state memory of " + jobNameAndExecutionId + " was disposed");
+        }
+        int size = Math.max(minSize, BLOCK_SIZE);
+        long used = usedBytes.addAndGet(size);
+        if (used > limit) {
+            usedBytes.addAndGet(-size);
+            throw new JetException("Off-heap state memory limit of " + limit + " bytes exceeded for "
+                    + jobNameAndExecutionId + ", used: " + (used - size) + " bytes, requested: " + size
+                    + " bytes. Increase JobConfig.offHeapStateMemoryLimit");
+        }
+        if (size == BLOCK_SIZE) {
+            ByteBuffer block = pooledBlocks.poll();
+            if (block != null) {
+                pooledBlockCount.decrementAndGet();
+                block.clear();
+                liveBlocks.add(block);
+                return block;
+            }
+        }
+        ByteBuffer block = ByteBuffer.allocateDirect(size);
+        liveBlocks.add(block);
+        return block;
+    }
+
+    /**
+     * Returns a block obtained from {@link #allocate}. The caller must not
+     * use it afterwards.
+     */
+    public void release(@Nonnull ByteBuffer block) {
+        if (!liveBlocks.remove(block)) {
+            // already freed by dispose()
+            return;
+        }
+        usedBytes.addAndGet(-block.capacity());
+        if (disposed || block.capacity() != BLOCK_SIZE) {
+            return;
+        }
+        if (pooledBlockCount.incrementAndGet() <= MAX_POOLED_BLOCKS) {
+            pooledBlocks.add(block);
+        } else {
+            pooledBlockCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Frees all the blocks, including those not yet released. Called when
+     * the execution completes, after the processors were closed. The
+     * blocks must not be used afterwards.
+     */
+    public void dispose() {
+        disposed = true;
+        List<ByteBuffer> blocks;
+        synchronized (liveBlocks) {
+            blocks = new ArrayList<>(liveBlocks);
+            liveBlocks.clear();
+        }
+        for (ByteBuffer block; (block = pooledBlocks.poll()) != null; ) {
+            pooledBlockCount.decrementAndGet();
+            blocks.add(block);
+        }
+        for (ByteBuffer block : blocks) {
+            FREE_FN.accept(block);
+        }
+        usedBytes.set(0);
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    /**
+     * Returns a function that frees a direct buffer immediately, or does
+     * nothing if that's not possible on this JVM, in which case the memory
+     * is freed when the buffer is garbage-collected.
+     */
+    private static Consumer<ByteBuffer> createFreeFn() {
+        // JDK 9+
+        Object unsafe = ReflectionUtils.readStaticFieldOrNull("sun.misc.Unsafe", "theUnsafe");
+        if (unsafe != null) {
+            try {
+                Method invokeCleaner = unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+                return buffer -> invoke(invokeCleaner, unsafe, buffer);
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        // JDK 8
+        try {
+            Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> invoke(cleanMethod, invoke(cleanerMethod, buffer));
+        } catch (ClassNotFoundException | NoSuchMethodException ignored) {
+        }
+        return buffer -> { };
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (Exception e) {
+            throw new JetException("Failed to free a direct buffer", e);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Processor.Context;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.metrics.MetricTags;
+import com.hazelcast.jet.impl.processor.IncrementalSnapshotProcessor;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
 import com.hazelcast.jet.impl.util.ArrayDequeInbox;
 import com.hazelcast.jet.impl.util.CircularListCursor;
@@ -33,6 +34,7 @@ import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.Preconditions;
 import com.hazelcast.util.function.Predicate;
@@ -43,13 +45,17 @@ import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.core.metrics.MetricNames.COALESCED_WM;
 import static com.hazelcast.jet.core.metrics.MetricNames.EMITTED_COUNT;
 import static com.hazelcast.jet.core.metrics.MetricNames.LAST_FORWARDED_WM;
@@ -58,6 +64,8 @@ import static com.hazelcast.jet.core.metrics.MetricNames.QUEUE_CAPACITY;
 import static com.hazelcast.jet.core.metrics.MetricNames.QUEUE_SIZES;
 import static com.hazelcast.jet.core.metrics.MetricNames.RECEIVED_BATCHES;
 import static com.hazelcast.jet.core.metrics.MetricNames.RECEIVED_COUNT;
+import static com.hazelcast.jet.core.metrics.MetricNames.SNAPSHOT_RESTORED_ENTRIES;
+import static com.hazelcast.jet.core.metrics.MetricNames.SNAPSHOT_RESTORE_FINISHED;
 import static com.hazelcast.jet.core.metrics.MetricNames.TOP_OBSERVED_WM;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.execution.ProcessorState.COMPLETE;
@@ -77,6 +85,7 @@ import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.sum;
 import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingLong;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toCollection;
 
@@ -91,6 +100,7 @@ public class ProcessorTasklet implements Tasklet {
 
     private final Processor processor;
     private final SnapshotContext ssContext;
+    private final IncrementalSnapshotProcessor incrementalSnapshotProcessor;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the ordinal
 
     private final ArrayDequeInbox inbox = new ArrayDequeInbox(progTracker);
@@ -98,6 +108,17 @@ public class ProcessorTasklet implements Tasklet {
     private final WatermarkCoalescer watermarkCoalescer;
     private final ILogger logger;
     private final SerializationService serializationService;
+    private final OutboundCollector ssCollector;
+
+    // the input streams taking part in unaligned snapshots
+    private final List<InboundEdgeStream> unalignedInstreams;
+    // The barrier of the unaligned snapshot whose in-flight items are being saved.
+    // It's emitted to the snapshot collector after them.
+    private SnapshotBarrier unalignedBarrier;
+    private final Queue<Entry<Data, Data>> pendingInFlightEntries = new ArrayDeque<>();
+    private long inFlightItemSequence;
+    // in-flight items restored from the snapshot by ordinal, null if there are none
+    private Map<Integer, List<Entry<InFlightItemKey, Object>>> restoredInFlightItems;
 
     private int numActiveOrdinals; // counter for remaining active ordinals
     private CircularListCursor<InboundEdgeStream> instreamCursor;
@@ -107,6 +128,7 @@ public class ProcessorTasklet implements Tasklet {
     private SnapshotBarrier currentBarrier;
     private Watermark pendingWatermark;
     private boolean processorClosed;
+    private boolean unalignedBarrierReceived; // the current barrier was forwarded by an unaligned stream
 
     // Tells whether we are operating in exactly-once or at-least-once mode.
     // In other words, whether a barrier from all inputs must be present before
@@ -119,6 +141,8 @@ public class ProcessorTasklet implements Tasklet {
     private final AtomicLongArray emittedCounts;
     private final AtomicLong queuesSize = new AtomicLong();
     private final AtomicLong queuesCapacity = new AtomicLong();
+    private final AtomicLong snapshotRestoredEntries = new AtomicLong();
+    private final AtomicLong snapshotRestoreFinished = new AtomicLong();
     private final Predicate<Object> addToInboxFunction = inbox.queue()::add;
 
     @SuppressWarnings("checkstyle:ExecutableStatementCount")
@@ -144,6 +168,11 @@ public class ProcessorTasklet implements Tasklet {
                                     .sorted(comparing(OutboundEdgeStream::ordinal))
                                     .toArray(OutboundEdgeStream[]::new);
         this.ssContext = ssContext;
+        this.ssCollector = ssCollector;
+        this.unalignedInstreams = instreams.stream()
+                                           .filter(InboundEdgeStream::supportsUnalignedSnapshots)
+                                           .collect(toCollection(ArrayList<InboundEdgeStream>::new));
+        this.incrementalSnapshotProcessor = IncrementalSnapshotProcessor.unwrap(processor);
         this.logger = getLogger(context);
 
         instreamCursor = popInstreamGroup();
@@ -207,6 +236,13 @@ public class ProcessorTasklet implements Tasklet {
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesSize.get());
         probeBuilder.register(this, QUEUE_CAPACITY, ProbeLevel.INFO, ProbeUnit.COUNT,
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesCapacity.get());
+
+        if (instreams.stream().anyMatch(instream -> instream.priority() == Integer.MIN_VALUE)) {
+            probeBuilder.register(this, SNAPSHOT_RESTORED_ENTRIES, ProbeLevel.INFO, ProbeUnit.COUNT,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.snapshotRestoredEntries.get());
+            probeBuilder.register(this, SNAPSHOT_RESTORE_FINISHED, ProbeLevel.INFO, ProbeUnit.COUNT,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.snapshotRestoreFinished.get());
+        }
     }
 
     private OutboxImpl createOutbox(@Nonnull OutboundCollector ssCollector) {
@@ -239,6 +275,9 @@ public class ProcessorTasklet implements Tasklet {
         assert !processorClosed : "processor closed";
         progTracker.reset();
         outbox.reset();
+        if (unalignedBarrier != null) {
+            saveInFlightItems();
+        }
         stateMachineStep();
         ProgressState progressState = progTracker.toProgressState();
         if (progressState.isDone()) {
@@ -308,8 +347,9 @@ public class ProcessorTasklet implements Tasklet {
                         progTracker.madeProgress();
                         return;
                     } else if (numActiveOrdinals > 0
-                            && receivedBarriers.cardinality() == numActiveOrdinals) {
-                        // we have an empty inbox and received the current snapshot barrier from all active ordinals
+                            && (receivedBarriers.cardinality() == numActiveOrdinals || unalignedBarrierReceived)) {
+                        // we have an empty inbox and received the current snapshot barrier from all active ordinals,
+                        // or from one ordinal, if the snapshot is unaligned
                         state = SAVE_SNAPSHOT;
                         return;
                     } else if (numActiveOrdinals == 0) {
@@ -327,6 +367,9 @@ public class ProcessorTasklet implements Tasklet {
                         ? processor.finishSnapshotRestore() : processor.completeEdge(currInstream.ordinal())) {
                     assert !outbox.hasUnfinishedItem() :
                             "outbox has unfinished item after successful completeEdge() or finishSnapshotRestore()";
+                    if (isSnapshotInbox()) {
+                        snapshotRestoreFinished.lazySet(1);
+                    }
                     progTracker.madeProgress();
                     state = initialProcessingState();
                 }
@@ -334,6 +377,9 @@ public class ProcessorTasklet implements Tasklet {
 
             case SAVE_SNAPSHOT:
                 progTracker.notDone();
+                if (incrementalSnapshotProcessor != null) {
+                    incrementalSnapshotProcessor.setSnapshotIncremental(ssContext.isIncrementalSnapshot());
+                }
                 if (processor.saveToSnapshot()) {
                     progTracker.madeProgress();
                     state = EMIT_BARRIER;
@@ -342,11 +388,16 @@ public class ProcessorTasklet implements Tasklet {
 
             case EMIT_BARRIER:
                 assert currentBarrier != null : "currentBarrier == null";
-                if (outbox.offerToEdgesAndSnapshot(currentBarrier)) {
+                // the barrier of an unaligned snapshot is emitted to the snapshot after the in-flight items
+                if (unalignedBarrierReceived
+                        ? outbox.offer(currentBarrier) : outbox.offerToEdgesAndSnapshot(currentBarrier)) {
                     progTracker.madeProgress();
                     if (currentBarrier.isTerminal()) {
                         state = EMIT_DONE_ITEM;
                     } else {
+                        if (unalignedBarrierReceived) {
+                            startOvertaking();
+                        }
                         currentBarrier = null;
                         receivedBarriers.clear();
                         pendingSnapshotId++;
@@ -381,7 +432,7 @@ public class ProcessorTasklet implements Tasklet {
                 return;
 
             case EMIT_DONE_ITEM:
-                if (!outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
+                if (unalignedBarrier != null || !outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
                     progTracker.notDone();
                     return;
                 }
@@ -412,6 +463,11 @@ public class ProcessorTasklet implements Tasklet {
                 instreamCursor.advance();
                 continue;
             }
+            // the restored in-flight items precede all items in the input
+            if (restoredInFlightItems != null && replayInFlightItems(currInstream.ordinal())) {
+                progTracker.madeProgress();
+                break;
+            }
             result = currInstream.drainTo(addToInboxFunction);
             progTracker.madeProgress(result.isMadeProgress());
 
@@ -429,6 +485,10 @@ public class ProcessorTasklet implements Tasklet {
             } else if (lastItem != null && !(lastItem instanceof BroadcastItem)) {
                 watermarkCoalescer.observeEvent(currInstream.ordinal());
             }
+            if (isSnapshotInbox()) {
+                inbox.queue().removeIf(this::bufferRestoredInFlightItem);
+                lazyAdd(snapshotRestoredEntries, inbox.size());
+            }
 
             if (result.isDone()) {
                 receivedBarriers.clear(currInstream.ordinal());
@@ -478,6 +538,7 @@ public class ProcessorTasklet implements Tasklet {
                     ", expected " + pendingSnapshotId);
         }
         currentBarrier = barrier;
+        unalignedBarrierReceived |= !barrier.isTerminal() && currInstream.supportsUnalignedSnapshots();
         if (barrier.isTerminal()) {
             // Switch to exactly-once mode. The reason is that there will be DONE_ITEM just after the
             // terminal barrier and if we process it before receiving the other barriers, it could cause
@@ -488,6 +549,98 @@ public class ProcessorTasklet implements Tasklet {
         receivedBarriers.set(ordinal);
     }
 
+    /**
+     * Called after the processor saved its state to an unaligned snapshot and
+     * the barrier was emitted to the outbound edges. The in-flight items of
+     * the inputs are then saved to the snapshot, see {@link
+     * #saveInFlightItems()}.
+     */
+    private void startOvertaking() {
+        unalignedBarrier = currentBarrier;
+        unalignedBarrierReceived = false;
+        for (InboundEdgeStream instream : unalignedInstreams) {
+            if (!instream.isDone()) {
+                int ordinal = instream.ordinal();
+                instream.startOvertaking((item, partitionKey) -> addInFlightItem(ordinal, item, partitionKey));
+            }
+        }
+    }
+
+    private void addInFlightItem(int ordinal, Object item, int partitionKey) {
+        InFlightItemKey key = new InFlightItemKey(unalignedBarrier.snapshotId(), ordinal,
+                context.globalProcessorIndex(), inFlightItemSequence++, partitionKey);
+        pendingInFlightEntries.add(entry(serializationService.toData(key), serializationService.toData(item)));
+    }
+
+    /**
+     * Takes the in-flight items from the inputs and offers them to the
+     * snapshot collector. This happens independently of the processor, which
+     * might be backpressured. When all of them are saved, emits the barrier to
+     * the snapshot collector, which completes the tasklet's snapshot.
+     */
+    private void saveInFlightItems() {
+        boolean overtaken = true;
+        for (InboundEdgeStream instream : unalignedInstreams) {
+            ProgressState result = instream.overtake();
+            progTracker.madeProgress(result.isMadeProgress());
+            overtaken &= result.isDone();
+        }
+        for (Entry<Data, Data> inFlightEntry; (inFlightEntry = pendingInFlightEntries.peek()) != null; ) {
+            if (!ssCollector.offer(inFlightEntry).isDone()) {
+                progTracker.notDone();
+                return;
+            }
+            pendingInFlightEntries.remove();
+            lazyIncrement(emittedCounts, outstreams.length);
+            progTracker.madeProgress();
+        }
+        if (overtaken && ssCollector.offerBroadcast(unalignedBarrier).isDone()) {
+            unalignedBarrier = null;
+            progTracker.madeProgress();
+        } else {
+            progTracker.notDone();
+        }
+    }
+
+    /**
+     * If the item is an in-flight item restored from an unaligned snapshot,
+     * buffers it to be processed after the restore is finished and returns
+     * true.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean bufferRestoredInFlightItem(Object item) {
+        if (!(item instanceof Entry) || !(((Entry) item).getKey() instanceof InFlightItemKey)) {
+            return false;
+        }
+        Entry<InFlightItemKey, Object> inFlightEntry = (Entry<InFlightItemKey, Object>) item;
+        if (restoredInFlightItems == null) {
+            restoredInFlightItems = new HashMap<>();
+        }
+        restoredInFlightItems.computeIfAbsent(inFlightEntry.getKey().ordinal(), x -> new ArrayList<>())
+                             .add(inFlightEntry);
+        return true;
+    }
+
+    /**
+     * Adds the restored in-flight items of the ordinal to the inbox, in the
+     * order they were received before the snapshot. Returns false, if there
+     * are none.
+     */
+    private boolean replayInFlightItems(int ordinal) {
+        List<Entry<InFlightItemKey, Object>> items = restoredInFlightItems.remove(ordinal);
+        if (restoredInFlightItems.isEmpty()) {
+            restoredInFlightItems = null;
+        }
+        if (items == null) {
+            return false;
+        }
+        items.sort(comparingLong(e -> e.getKey().sequence()));
+        for (Entry<InFlightItemKey, Object> e : items) {
+            inbox.queue().add(e.getValue());
+        }
+        return true;
+    }
+
     /**
      * Initial state of the processor. If there are no inbound ordinals left, we will go to COMPLETE state
      * otherwise to PROCESS_INBOX.
@@ -17,17 +17,18 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
+import com.hazelcast.jet.config.EdgeConfig;
 import com.hazelcast.jet.config.InstanceConfig;
-import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
+import com.hazelcast.jet.impl.util.Lz4BlockCodec;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingService;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,10 +37,27 @@ import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Receives from a remote member the data associated with a single edge.
+ * <p>
+ * The received packets are queued undecoded. The items are decoded one by
+ * one, directly from the packet buffer, only when the collector is ready
+ * to accept them, so the tasklet doesn't allocate a wrapper or an inbox
+ * slot per item and holds the backlog in its compact serialized form.
+ * <p>
+ * A packet compressed by the {@link SenderTasklet} is decompressed as a
+ * whole into a buffer reused for all packets when its first item is
+ * needed.
+ * <p>
+ * With {@link EdgeConfig#setAdaptiveFlowControlEnabled(boolean) adaptive
+ * flow control} the receive window follows the bandwidth-delay product of
+ * the connection instead of a fixed multiple of the processing rate, see
+ * {@link #updateAndGetSendSeqLimitCompressed(long)}.
  */
 public class ReceiverTasklet implements Tasklet {
 
@@ -68,23 +86,75 @@ public class ReceiverTasklet implements Tasklet {
      */
     static final int INITIAL_RECEIVE_WINDOW_COMPRESSED = 800;
 
+    /**
+     * With adaptive flow control, the factor applied to the bandwidth-delay
+     * product to get the target receive window while the receiver keeps up.
+     * The headroom allows the sender to probe for more bandwidth.
+     */
+    static final double PROBE_GAIN = 2;
+    /**
+     * With adaptive flow control, the factor applied to the bandwidth-delay
+     * product to get the target receive window while items wait in the
+     * receiver. It keeps the link busy without a standing queue.
+     */
+    static final double DRAIN_GAIN = 1;
+    /**
+     * The number of flow-control periods over which the maximum delivery
+     * rate is taken as the bandwidth estimate.
+     */
+    static final int DELIVERY_RATE_FILTER_LENGTH = 10;
+    /**
+     * The time after which the minimum RTT sample expires and is replaced by
+     * the current sample, so that the estimate follows a changed route.
+     */
+    static final long MIN_RTT_EXPIRY_NANOS = SECONDS.toNanos(10);
+    /**
+     * With adaptive flow control, the packet size limit aims to fit this many
+     * packets in the receive window, within {@link #PACKET_SIZE_ADAPTATION_RANGE}
+     * times smaller or larger than the configured limit.
+     */
+    static final int PACKETS_PER_RECEIVE_WINDOW = 8;
+    static final int PACKET_SIZE_ADAPTATION_RANGE = 4;
+
     /**
      * Receive Window converges towards the amount of data processed per flow-control
      * period multiplied by this number.
      */
     private final int rwinMultiplier;
     private final double flowControlPeriodNs;
+    private final boolean adaptiveFlowControl;
+    private final int configuredPacketSizeLimit;
     private final ILogger logger;
 
-    private final Queue<BufferObjectDataInput> incoming = new MPSCQueue<>(null);
+    private final Queue<ReceivedPacket> incoming = new MPSCQueue<>(null);
     private final ProgressTracker tracker = new ProgressTracker();
-    private final ArrayDeque<ObjWithPtionIdAndSize> inbox = new ArrayDeque<>();
     private final OutboundCollector collector;
 
+    // the packet being decoded and the number of its items not decoded yet
+    private BufferObjectDataInput currentPacket;
+    private int itemsLeftInPacket;
+    // the decoded item the collector didn't accept yet, its partition ID and footprint
+    private Object pendingItem;
+    private int pendingPartitionId;
+    private long pendingMemoryFootprint;
+    // buffers reused to decompress compressed packets
+    private byte[] compressedBuffer = new byte[0];
+    private byte[] decompressedBuffer = new byte[0];
+    // true if currentPacket reads from decompressedBuffer
+    private boolean currentPacketDecompressed;
+
     private boolean receptionDone;
 
     private final AtomicLong itemsInCounter = new AtomicLong();
     private final AtomicLong bytesInCounter = new AtomicLong();
+    private final AtomicLong uncompressedBytesInCounter = new AtomicLong();
+    // flow-control decisions, published for metrics and the networking thread
+    private final AtomicLong receiveWindowBytes = new AtomicLong();
+    private final AtomicLong packetSizeLimit = new AtomicLong();
+    private final AtomicLong minRttNanos = new AtomicLong();
+
+    // read and written by the tasklet execution thread
+    private long minRttTimestamp;
 
     //                    FLOW-CONTROL STATE
     //            All arrays are indexed by sender ID.
@@ -96,19 +166,34 @@ public class ReceiverTasklet implements Tasklet {
     // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler
     private int receiveWindowCompressed;
     private int prevAckedSeqCompressed;
+    private long prevAckedSeq;
     private long prevTimestamp;
+    private final double[] deliveryRates = new double[DELIVERY_RATE_FILTER_LENGTH];
+    private int deliveryRatesIndex;
 
     //                 END FLOW-CONTROL STATE
 
     public ReceiverTasklet(
             OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs,
             LoggingService loggingService, String debugName
+    ) {
+        this(collector, rwinMultiplier, EdgeConfig.DEFAULT_PACKET_SIZE_LIMIT, false, flowControlPeriodMs,
+                loggingService, debugName);
+    }
+
+    public ReceiverTasklet(
+            OutboundCollector collector, int rwinMultiplier, int packetSizeLimit, boolean adaptiveFlowControl,
+            int flowControlPeriodMs, LoggingService loggingService, String debugName
     ) {
         this.collector = collector;
         this.rwinMultiplier = rwinMultiplier;
+        this.configuredPacketSizeLimit = packetSizeLimit;
+        this.adaptiveFlowControl = adaptiveFlowControl;
         this.flowControlPeriodNs = (double) MILLISECONDS.toNanos(flowControlPeriodMs);
         this.logger = loggingService.getLogger(getClass().getName() + '.' + debugName);
         this.receiveWindowCompressed = INITIAL_RECEIVE_WINDOW_COMPRESSED;
+        this.receiveWindowBytes.set((long) INITIAL_RECEIVE_WINDOW_COMPRESSED << COMPRESSED_SEQ_UNIT_LOG2);
+        this.packetSizeLimit.set(packetSizeLimit);
     }
 
     @Override @Nonnull
@@ -118,32 +203,46 @@ public class ReceiverTasklet implements Tasklet {
         }
         tracker.reset();
         tracker.notDone();
-        tryFillInbox();
-        for (ObjWithPtionIdAndSize o; (o = inbox.peek()) != null; ) {
-            final Object item = o.getItem();
-            if (item == DONE_ITEM) {
-                receptionDone = true;
-                inbox.remove();
-                assert inbox.peek() == null : "Found something in the queue beyond the DONE_ITEM: " + inbox.remove();
-                break;
-            }
-            ProgressState outcome = item instanceof BroadcastItem
-                    ? collector.offerBroadcast((BroadcastItem) item)
-                    : collector.offer(item, o.getPartitionId());
-            if (!outcome.isDone()) {
-                tracker.madeProgress(outcome.isMadeProgress());
-                break;
+        try {
+            for (Object item; (item = pendingItem != null ? pendingItem : nextItem()) != null; ) {
+                pendingItem = null;
+                if (item == DONE_ITEM) {
+                    receptionDone = true;
+                    assert itemsLeftInPacket == 0 && incoming.isEmpty()
+                            : "Found something in the queue beyond the DONE_ITEM";
+                    releaseCurrentPacket();
+                    break;
+                }
+                ProgressState outcome = item instanceof BroadcastItem
+                        ? collector.offerBroadcast((BroadcastItem) item)
+                        : collector.offer(item, pendingPartitionId);
+                if (!outcome.isDone()) {
+                    pendingItem = item;
+                    tracker.madeProgress(outcome.isMadeProgress());
+                    break;
+                }
+                tracker.madeProgress();
+                ackItem(pendingMemoryFootprint);
             }
-            tracker.madeProgress();
-            inbox.remove();
-            ackItem(o.estimatedMemoryFootprint);
+        } catch (IOException e) {
+            throw rethrow(e);
         }
-        numWaitingInInbox = inbox.size();
+        // the queued packets count as one item each, we only need to know whether anything waits
+        numWaitingInInbox = itemsLeftInPacket + (pendingItem != null ? 1 : 0) + (incoming.isEmpty() ? 0 : 1);
         return tracker.toProgressState();
     }
 
     void receiveStreamPacket(BufferObjectDataInput packetInput) {
-        incoming.add(packetInput);
+        receiveStreamPacket(packetInput, adaptiveFlowControl ? System.nanoTime() : 0);
+    }
+
+    /**
+     * Queues the packet with the time it arrived. The RTT sample is taken
+     * using the arrival time so that the time the packet waits in the queue
+     * doesn't inflate it.
+     */
+    void receiveStreamPacket(BufferObjectDataInput packetInput, long receivedAtNanos) {
+        incoming.add(new ReceivedPacket(packetInput, receivedAtNanos));
     }
 
     /**
@@ -180,6 +279,22 @@ public class ReceiverTasklet implements Tasklet {
      *     Return the {@code sentSeq} limit as the current acked seq plus the current
      *     receive window.
      * </li></ol>
+     * With adaptive flow control, the target receive window in step 2 is
+     * instead derived from the bandwidth-delay product (BDP) of the connection:
+     * <ol><li>
+     *     the bandwidth is the maximum delivery rate, {@code seqDelta / timeDelta},
+     *     over the last {@value #DELIVERY_RATE_FILTER_LENGTH} calls
+     * </li><li>
+     *     the delay is the minimum round-trip time measured by {@link
+     *     #recordRttSample} plus one ack period, because the sender learns about
+     *     the processed data only in the next ack
+     * </li><li>
+     *     the target receive window is the BDP times {@value #PROBE_GAIN} if
+     *     the receiver keeps up and times {@value #DRAIN_GAIN} if items wait in
+     *     its inbox
+     * </li></ol>
+     * The packet size limit is then adapted to fit {@value
+     * #PACKETS_PER_RECEIVE_WINDOW} packets into the receive window.
      *
      * @param timestampNow value of the timestamp at the time the method is called. The timestamp
      *                     must be obtained from {@code System.nanoTime()}.
@@ -191,15 +306,23 @@ public class ReceiverTasklet implements Tasklet {
         final long ackTimeDelta = timestampNow - prevTimestamp;
         prevTimestamp = timestampNow;
 
+        final long ackedSeq = this.ackedSeq;
         final int ackedSeqCompressed = compressSeq(ackedSeq);
         final int ackedSeqCompressedDelta = ackedSeqCompressed - prevAckedSeqCompressed;
+        final long ackedSeqDelta = ackedSeq - prevAckedSeq;
         prevAckedSeqCompressed = ackedSeqCompressed;
+        prevAckedSeq = ackedSeq;
 
         if (hadPrevStats) {
-            final double ackedSeqsPerAckPeriod = flowControlPeriodNs * ackedSeqCompressedDelta / ackTimeDelta;
-            final int targetRwin = rwinMultiplier * (int) ceil(ackedSeqsPerAckPeriod);
-            int rwinDiff = targetRwin - receiveWindowCompressed;
             int numWaitingInInbox = this.numWaitingInInbox;
+            final int targetRwin;
+            if (adaptiveFlowControl) {
+                targetRwin = adaptiveTargetRwin(ackedSeqDelta, ackTimeDelta, numWaitingInInbox > 0);
+            } else {
+                final double ackedSeqsPerAckPeriod = flowControlPeriodNs * ackedSeqCompressedDelta / ackTimeDelta;
+                targetRwin = rwinMultiplier * (int) ceil(ackedSeqsPerAckPeriod);
+            }
+            int rwinDiff = targetRwin - receiveWindowCompressed;
             // If nothing is waiting in the inbox, our processing speed isn't the cause
             // for less traffic through the processor, it's the sender who's not
             // sending enough data. Don't shrink the RWIN in this case.
@@ -210,11 +333,48 @@ public class ReceiverTasklet implements Tasklet {
             receiveWindowCompressed += rwinDiff;
             if (rwinDiff != 0) {
                 logFinest(logger, "receiveWindowCompressed changed by %d to %d", rwinDiff, receiveWindowCompressed);
+                receiveWindowBytes.lazySet((long) receiveWindowCompressed << COMPRESSED_SEQ_UNIT_LOG2);
+                if (adaptiveFlowControl) {
+                    packetSizeLimit.lazySet(adaptivePacketSizeLimit());
+                }
             }
         }
         return ackedSeqCompressed + receiveWindowCompressed;
     }
 
+    private int adaptiveTargetRwin(long ackedSeqDelta, long ackTimeDelta, boolean itemsWaiting) {
+        deliveryRates[deliveryRatesIndex] = (double) ackedSeqDelta / ackTimeDelta;
+        deliveryRatesIndex = (deliveryRatesIndex + 1) % deliveryRates.length;
+        double maxDeliveryRate = 0;
+        for (double rate : deliveryRates) {
+            maxDeliveryRate = max(maxDeliveryRate, rate);
+        }
+        final double bdp = maxDeliveryRate * (minRttNanos.get() + flowControlPeriodNs);
+        final double gain = itemsWaiting ? DRAIN_GAIN : PROBE_GAIN;
+        return (int) ceil(gain * bdp / (1 << COMPRESSED_SEQ_UNIT_LOG2));
+    }
+
+    private long adaptivePacketSizeLimit() {
+        final long target = receiveWindowBytes.get() / PACKETS_PER_RECEIVE_WINDOW;
+        return max(configuredPacketSizeLimit / PACKET_SIZE_ADAPTATION_RANGE,
+                min((long) configuredPacketSizeLimit * PACKET_SIZE_ADAPTATION_RANGE, target));
+    }
+
+    /**
+     * Records a round-trip time sample: the time from sending a flow-control
+     * packet to receiving a data packet the sender created after receiving
+     * it. The sender's idle time inflates some samples, therefore only the
+     * minimum is kept. It expires after {@link #MIN_RTT_EXPIRY_NANOS}.
+     */
+    // Invoked by the tasklet execution thread
+    void recordRttSample(long rttNanos, long timestampNow) {
+        final long minRtt = minRttNanos.get();
+        if (minRtt == 0 || rttNanos <= minRtt || timestampNow - minRttTimestamp > MIN_RTT_EXPIRY_NANOS) {
+            minRttNanos.lazySet(max(1, rttNanos));
+            minRttTimestamp = timestampNow;
+        }
+    }
+
     // Only one thread writes to ackedSeq
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     long ackItem(long itemWeight) {
@@ -237,49 +397,88 @@ public class ReceiverTasklet implements Tasklet {
         return (int) (seq >> COMPRESSED_SEQ_UNIT_LOG2);
     }
 
+    /**
+     * Estimates the heap occupied by a received item after it's offered to
+     * the collector. The item is decoded straight from the packet buffer and
+     * handed over without a wrapper, so only the item object itself and its
+     * slot in the downstream queue count on top of the serialized size.
+     */
     static long estimatedMemoryFootprint(long itemBlobSize) {
-        final int inboxSlot = 4; // slot in ArrayDeque<ObjPtionAndSenderId> inbox
-        final int objPtionAndSenderIdHeader = 16; // object header of ObjPtionAndSenderId instance
-        final int itemField = 4; // ObjectWithPartitionId.item
+        final int queueSlot = 4; // slot in the conveyor queue of the downstream processor
         final int itemObjHeader = 16; // header of the item object (unknown type)
-        final int partitionIdField = 4; // ObjectWithPartitionId.item
-        final int senderIdField = 4; // ObjectWithPartitionId.senderId
-        final int estimatedMemoryFootprintField = 8;  // ObjectWithPartitionId.estimatedMemoryFootprint
-        final int overhead = inboxSlot + objPtionAndSenderIdHeader + itemField + itemObjHeader + partitionIdField
-                + senderIdField + estimatedMemoryFootprintField;
+        final int overhead = queueSlot + itemObjHeader;
         return overhead + itemBlobSize;
     }
 
-    private void tryFillInbox() {
-        try {
-            long totalBytes = 0;
-            long totalItems = 0;
-            for (BufferObjectDataInput received; (received = incoming.poll()) != null; ) {
-                final int itemCount = received.readInt();
-                for (int i = 0; i < itemCount; i++) {
-                    final int mark = received.position();
-                    final Object item = received.readObject();
-                    final int itemSize = received.position() - mark;
-                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize));
+    /**
+     * Decodes the next item from the received packets and stores its
+     * partition ID and footprint to the {@code pending*} fields. Returns
+     * {@code null} if there are no more received items.
+     */
+    private Object nextItem() throws IOException {
+        while (itemsLeftInPacket == 0) {
+            releaseCurrentPacket();
+            final ReceivedPacket receivedPacket = incoming.poll();
+            if (receivedPacket == null) {
+                return null;
+            }
+            currentPacket = receivedPacket.input;
+            if (adaptiveFlowControl) {
+                final long echoedAckTimestamp = currentPacket.readLong();
+                if (echoedAckTimestamp != 0) {
+                    recordRttSample(receivedPacket.receivedAtNanos - echoedAckTimestamp,
+                            receivedPacket.receivedAtNanos);
                 }
-                totalItems += itemCount;
-                totalBytes += received.position();
-                received.close();
-                tracker.madeProgress();
             }
-            lazyAdd(bytesInCounter, totalBytes);
-            lazyAdd(itemsInCounter, totalItems);
-        } catch (IOException e) {
-            throw rethrow(e);
+            itemsLeftInPacket = currentPacket.readInt();
+            if (itemsLeftInPacket < 0) {
+                itemsLeftInPacket = -itemsLeftInPacket;
+                decompressCurrentPacket();
+            }
+            lazyAdd(itemsInCounter, itemsLeftInPacket);
+            tracker.madeProgress();
         }
+        final int mark = currentPacket.position();
+        final Object item = currentPacket.readObject();
+        pendingMemoryFootprint = estimatedMemoryFootprint(currentPacket.position() - mark);
+        pendingPartitionId = currentPacket.readInt();
+        itemsLeftInPacket--;
+        return item;
     }
 
-    private static class ObjWithPtionIdAndSize extends ObjectWithPartitionId {
-        final long estimatedMemoryFootprint;
+    /**
+     * Decompresses the items of the current packet, whose item count was
+     * just read, and switches {@link #currentPacket} to read them from
+     * {@link #decompressedBuffer}. See {@link SenderTasklet} for the format.
+     */
+    private void decompressCurrentPacket() throws IOException {
+        final int uncompressedLength = currentPacket.readInt();
+        final int compressedLength = currentPacket.readInt();
+        if (compressedBuffer.length < compressedLength) {
+            compressedBuffer = new byte[compressedLength];
+        }
+        if (decompressedBuffer.length < uncompressedLength) {
+            decompressedBuffer = new byte[uncompressedLength];
+        }
+        currentPacket.readFully(compressedBuffer, 0, compressedLength);
+        // the packet without the two length fields would have carried the uncompressed items
+        lazyAdd(bytesInCounter, currentPacket.position());
+        lazyAdd(uncompressedBytesInCounter,
+                currentPacket.position() - 2 * Bits.INT_SIZE_IN_BYTES - compressedLength + uncompressedLength);
+        Lz4BlockCodec.decompress(compressedBuffer, 0, compressedLength, decompressedBuffer, 0, uncompressedLength);
+        currentPacket.init(decompressedBuffer, 0);
+        currentPacketDecompressed = true;
+    }
 
-        ObjWithPtionIdAndSize(Object item, int partitionId, int itemBlobSize) {
-            super(item, partitionId);
-            this.estimatedMemoryFootprint = estimatedMemoryFootprint(itemBlobSize);
+    private void releaseCurrentPacket() throws IOException {
+        if (currentPacket != null) {
+            if (!currentPacketDecompressed) {
+                lazyAdd(bytesInCounter, currentPacket.position());
+                lazyAdd(uncompressedBytesInCounter, currentPacket.position());
+            }
+            currentPacketDecompressed = false;
+            currentPacket.close();
+            currentPacket = null;
         }
     }
 
@@ -290,4 +489,38 @@ public class ReceiverTasklet implements Tasklet {
     public AtomicLong getBytesInCounter() {
         return bytesInCounter;
     }
+
+    public AtomicLong getUncompressedBytesInCounter() {
+        return uncompressedBytesInCounter;
+    }
+
+    public AtomicLong getReceiveWindowBytes() {
+        return receiveWindowBytes;
+    }
+
+    public AtomicLong getMinRttNanos() {
+        return minRttNanos;
+    }
+
+    /**
+     * Returns the packet size limit the sender should use, sent to it in the
+     * flow-control packets.
+     */
+    public int getPacketSizeLimit() {
+        return (int) packetSizeLimit.get();
+    }
+
+    public AtomicLong getPacketSizeLimitCounter() {
+        return packetSizeLimit;
+    }
+
+    private static final class ReceivedPacket {
+        final BufferObjectDataInput input;
+        final long receivedAtNanos;
+
+        ReceivedPacket(BufferObjectDataInput input, long receivedAtNanos) {
+            this.input = input;
+            this.receivedAtNanos = receivedAtNanos;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.RestartableException;
+import com.hazelcast.jet.impl.util.Lz4BlockCodec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -30,7 +31,9 @@ import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -52,9 +55,16 @@ public class SenderTasklet implements Tasklet {
     private final InboundEdgeStream inboundEdgeStream;
     private final BufferObjectDataOutput outputBuffer;
     private final int bufPosPastHeader;
-    private final int packetSizeLimit;
+    // position of the echoed ack timestamp, -1 without adaptive flow control
+    private final int ackTimestampPos;
     private final AtomicLong itemsOutCounter = new AtomicLong();
     private final AtomicLong bytesOutCounter = new AtomicLong();
+    private final AtomicLong uncompressedBytesOutCounter = new AtomicLong();
+
+    // null if compression is disabled
+    private final Lz4BlockCodec codec;
+    private final int compressionThreshold;
+    private byte[] compressionBuffer = new byte[0];
 
     private boolean instreamExhausted;
     // read and written by Jet thread
@@ -62,17 +72,29 @@ public class SenderTasklet implements Tasklet {
 
     // Written by HZ networking thread, read by Jet thread
     private volatile int sendSeqLimitCompressed;
+    private volatile int packetSizeLimit;
+    private volatile long ackTimestamp;
     private Predicate<Object> addToInboxFunction = inbox::add;
 
     public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
-                         long executionId, int destinationVertexId, int packetSizeLimit) {
+                         long executionId, int destinationVertexId, int packetSizeLimit,
+                         boolean adaptiveFlowControl, boolean compressionEnabled, int compressionThreshold) {
         this.inboundEdgeStream = inboundEdgeStream;
         this.packetSizeLimit = packetSizeLimit;
+        this.codec = compressionEnabled ? new Lz4BlockCodec() : null;
+        this.compressionThreshold = compressionThreshold;
         // we use Connection directly because we rely on packets not being transparently skipped or reordered
         this.connection = getMemberConnection(nodeEngine, destinationAddress);
         this.outputBuffer = createObjectDataOutput(nodeEngine);
         uncheckRun(() -> outputBuffer.write(createStreamPacketHeader(
                 nodeEngine, executionId, destinationVertexId, inboundEdgeStream.ordinal())));
+        if (adaptiveFlowControl) {
+            // the receiver measures the round-trip time from the ack timestamp we echo in each packet
+            ackTimestampPos = outputBuffer.position();
+            uncheckRun(() -> outputBuffer.writeLong(0));
+        } else {
+            ackTimestampPos = -1;
+        }
         bufPosPastHeader = outputBuffer.position();
     }
 
@@ -85,7 +107,13 @@ public class SenderTasklet implements Tasklet {
         }
         if (tryFillOutputBuffer()) {
             progTracker.madeProgress();
-            if (!connection.write(new Packet(outputBuffer.toByteArray()).setPacketType(Packet.Type.JET))) {
+            byte[] packetBytes = outputBuffer.toByteArray();
+            lazyAdd(uncompressedBytesOutCounter, packetBytes.length);
+            if (codec != null) {
+                packetBytes = tryCompress(packetBytes);
+            }
+            lazyAdd(bytesOutCounter, packetBytes.length);
+            if (!connection.write(new Packet(packetBytes).setPacketType(Packet.Type.JET))) {
                 throw new RestartableException("Connection write failed in " + toString());
             }
         }
@@ -113,6 +141,7 @@ public class SenderTasklet implements Tasklet {
         try {
             // header size + slot for writtenCount
             outputBuffer.position(bufPosPastHeader + Bits.INT_SIZE_IN_BYTES);
+            final int packetSizeLimit = this.packetSizeLimit;
             int writtenCount = 0;
             for (Object item;
                  outputBuffer.position() < packetSizeLimit
@@ -120,15 +149,22 @@ public class SenderTasklet implements Tasklet {
                          && (item = inbox.poll()) != null;
                  writtenCount++
             ) {
-                ObjectWithPartitionId itemWithPId = item instanceof ObjectWithPartitionId ?
-                        (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, - 1);
+                // unwrap without allocating a wrapper for the items that don't have one
+                Object payload = item;
+                int partitionId = -1;
+                if (item instanceof ObjectWithPartitionId) {
+                    payload = ((ObjectWithPartitionId) item).getItem();
+                    partitionId = ((ObjectWithPartitionId) item).getPartitionId();
+                }
                 final int mark = outputBuffer.position();
-                outputBuffer.writeObject(itemWithPId.getItem());
+                outputBuffer.writeObject(payload);
                 sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
-                outputBuffer.writeInt(itemWithPId.getPartitionId());
+                outputBuffer.writeInt(partitionId);
             }
             outputBuffer.writeInt(bufPosPastHeader, writtenCount);
-            lazyAdd(bytesOutCounter, outputBuffer.position());
+            if (ackTimestampPos >= 0) {
+                outputBuffer.writeLong(ackTimestampPos, ackTimestamp);
+            }
             lazyAdd(itemsOutCounter, writtenCount);
             return writtenCount > 0;
         } catch (IOException e) {
@@ -136,6 +172,43 @@ public class SenderTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Compresses the items in the given packet if they are at least {@link
+     * #compressionThreshold} bytes long. Returns the original packet if the
+     * items are shorter or if they don't compress well enough to pay for the
+     * additional length fields.
+     * <p>
+     * The compressed packet negates the item count and follows it with the
+     * lengths of the uncompressed and compressed items:
+     * <pre>
+     *     [header][-itemCount][uncompressedLength][compressedLength][compressed items]
+     * </pre>
+     */
+    private byte[] tryCompress(byte[] packet) {
+        final int itemsOffset = bufPosPastHeader + Bits.INT_SIZE_IN_BYTES;
+        final int itemsLength = packet.length - itemsOffset;
+        if (itemsLength < compressionThreshold) {
+            return packet;
+        }
+        final int compressedOffset = itemsOffset + 2 * Bits.INT_SIZE_IN_BYTES;
+        final int requiredLength = compressedOffset + Lz4BlockCodec.maxCompressedLength(itemsLength);
+        if (compressionBuffer.length < requiredLength) {
+            compressionBuffer = new byte[requiredLength];
+        }
+        final int compressedLength =
+                codec.compress(packet, itemsOffset, itemsLength, compressionBuffer, compressedOffset);
+        if (compressedOffset + compressedLength >= packet.length) {
+            return packet;
+        }
+        final boolean bigEndian = outputBuffer.getByteOrder() == ByteOrder.BIG_ENDIAN;
+        final int itemCount = Bits.readInt(packet, bufPosPastHeader, bigEndian);
+        System.arraycopy(packet, 0, compressionBuffer, 0, bufPosPastHeader);
+        Bits.writeInt(compressionBuffer, bufPosPastHeader, -itemCount, bigEndian);
+        Bits.writeInt(compressionBuffer, itemsOffset, itemsLength, bigEndian);
+        Bits.writeInt(compressionBuffer, itemsOffset + Bits.INT_SIZE_IN_BYTES, compressedLength, bigEndian);
+        return Arrays.copyOf(compressionBuffer, compressedOffset + compressedLength);
+    }
+
     /**
      * Updates the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
      *
@@ -148,6 +221,17 @@ public class SenderTasklet implements Tasklet {
         this.sendSeqLimitCompressed = sendSeqLimitCompressed;
     }
 
+    /**
+     * Updates the packet size limit decided by the receiver and the timestamp
+     * of the flow-control packet it came in, which this tasklet echoes back
+     * in the data packets if the edge uses adaptive flow control.
+     */
+    // Called from HZ networking thread
+    public void setPacketSizeLimit(int packetSizeLimit, long ackTimestamp) {
+        this.packetSizeLimit = packetSizeLimit;
+        this.ackTimestamp = ackTimestamp;
+    }
+
     @Override
     public String toString() {
         return "SenderTasklet " + connection.getEndPoint();
@@ -170,4 +254,8 @@ public class SenderTasklet implements Tasklet {
     public AtomicLong getBytesOutCounter() {
         return bytesOutCounter;
     }
+
+    public AtomicLong getUncompressedBytesOutCounter() {
+        return uncompressedBytesOutCounter;
+    }
 }
@@ -17,12 +17,15 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.impl.JobExecutionRecord.VertexSnapshotStats;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
 import com.hazelcast.logging.ILogger;
 
+import java.util.HashMap;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -41,6 +44,13 @@ public class SnapshotContext {
      */
     private volatile boolean isTerminal;
 
+    /**
+     * If true, the processors supporting it should save only the state
+     * changed since the previous snapshot, see {@link
+     * com.hazelcast.jet.impl.processor.IncrementalSnapshotProcessor}.
+     */
+    private volatile boolean isIncremental;
+
     /**
      * Current number of {@link StoreSnapshotTasklet}s in the job. It's
      * decremented as the tasklets complete (this is when they receive
@@ -100,6 +110,7 @@ public class SnapshotContext {
     private final AtomicLong totalBytes = new AtomicLong();
     private final AtomicLong totalKeys = new AtomicLong();
     private final AtomicLong totalChunks = new AtomicLong();
+    private final ConcurrentHashMap<String, VertexSnapshotStats> vertexStats = new ConcurrentHashMap<>();
     private boolean isCancelled;
 
     public SnapshotContext(ILogger logger, String jobNameAndExecutionId, long activeSnapshotId,
@@ -134,6 +145,10 @@ public class SnapshotContext {
         return isTerminal;
     }
 
+    boolean isIncrementalSnapshot() {
+        return isIncremental;
+    }
+
     ProcessingGuarantee processingGuarantee() {
         return guarantee;
     }
@@ -153,8 +168,17 @@ public class SnapshotContext {
      * This method is called when the member received {@link
      * SnapshotOperation}.
      */
-    synchronized CompletableFuture<SnapshotOperationResult> startNewSnapshot(
+    CompletableFuture<SnapshotOperationResult> startNewSnapshot(
             long snapshotId, String mapName, boolean isTerminal) {
+        return startNewSnapshot(snapshotId, mapName, isTerminal, false);
+    }
+
+    /**
+     * This method is called when the member received {@link
+     * SnapshotOperation}.
+     */
+    synchronized CompletableFuture<SnapshotOperationResult> startNewSnapshot(
+            long snapshotId, String mapName, boolean isTerminal, boolean isIncremental) {
         if (snapshotId == currentSnapshotId) {
             // This is possible when a SnapshotOperation is retried. We will throw because we
             // don't know the result of the previous snapshot (it may have failed) and this is rare
@@ -171,6 +195,7 @@ public class SnapshotContext {
             throw new CancellationException("execution cancelled");
         }
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
 
         boolean success = numRemainingTasklets.compareAndSet(0, numTasklets);
         assert success : "numRemainingTasklets wasn't 0, but " + numRemainingTasklets.get();
@@ -235,6 +260,21 @@ public class SnapshotContext {
      * (it received barriers from all its processors and all async flush
      * operations are done).
      */
+    void snapshotDoneForTasklet(String vertexName, VertexSnapshotStats stats) {
+        if (stats.numChunks() > 0) {
+            vertexStats.merge(vertexName, stats, (s1, s2) -> {
+                s1.merge(s2);
+                return s1;
+            });
+        }
+        snapshotDoneForTasklet(stats.numBytes(), stats.numKeys(), stats.numChunks());
+    }
+
+    /**
+     * Variant of {@link #snapshotDoneForTasklet(String, VertexSnapshotStats)}
+     * without the per-vertex stats, used for tasklets that completed before
+     * the snapshot started.
+     */
     void snapshotDoneForTasklet(long numBytes, long numKeys, long numChunks) {
         totalBytes.addAndGet(numBytes);
         totalKeys.addAndGet(numKeys);
@@ -265,13 +305,15 @@ public class SnapshotContext {
             return;
         }
         future.complete(
-                new SnapshotOperationResult(totalBytes.get(), totalKeys.get(), totalChunks.get(), snapshotError.get()));
+                new SnapshotOperationResult(totalBytes.get(), totalKeys.get(), totalChunks.get(),
+                        new HashMap<>(vertexStats), snapshotError.get()));
 
         future = null;
         snapshotError.set(null);
         totalBytes.set(0);
         totalKeys.set(0);
         totalChunks.set(0);
+        vertexStats.clear();
         currentMapName = null;
     }
 
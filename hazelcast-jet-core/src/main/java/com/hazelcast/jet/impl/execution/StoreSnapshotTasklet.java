@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.JobExecutionRecord.VertexSnapshotStats;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriter;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -47,6 +48,7 @@ public class StoreSnapshotTasklet implements Tasklet {
     private State state = DRAIN;
     private boolean hasReachedBarrier;
     private Entry<Data, Data> pendingEntry;
+    private long snapshotStartNanos = -1;
     private Predicate<Object> addToInboxFunction;
 
     public StoreSnapshotTasklet(
@@ -120,9 +122,12 @@ public class StoreSnapshotTasklet implements Tasklet {
                     snapshotContext.reportError(error);
                 }
                 progTracker.madeProgress();
-                snapshotContext.snapshotDoneForTasklet(ssWriter.getTotalPayloadBytes(), ssWriter.getTotalKeys(),
-                        ssWriter.getTotalChunks());
+                long writeTimeNanos = snapshotStartNanos < 0 ? 0 : System.nanoTime() - snapshotStartNanos;
+                snapshotContext.snapshotDoneForTasklet(vertexName, new VertexSnapshotStats(
+                        ssWriter.getTotalPayloadBytes(), ssWriter.getTotalKeys(), ssWriter.getTotalChunks(),
+                        writeTimeNanos, ssWriter.getPutLatencyNanos(), ssWriter.getStallTimeNanos()));
                 ssWriter.resetStats();
+                snapshotStartNanos = -1;
                 pendingSnapshotId++;
                 hasReachedBarrier = false;
                 state = DRAIN;
@@ -136,6 +141,9 @@ public class StoreSnapshotTasklet implements Tasklet {
     }
 
     private boolean addToInbox(Object o) {
+        if (snapshotStartNanos < 0) {
+            snapshotStartNanos = System.nanoTime();
+        }
         if (o instanceof SnapshotBarrier) {
             SnapshotBarrier barrier = (SnapshotBarrier) o;
             assert pendingSnapshotId == barrier.snapshotId() : "Unexpected barrier, expected was " +
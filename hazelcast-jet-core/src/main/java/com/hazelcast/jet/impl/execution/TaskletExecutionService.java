@@ -18,10 +18,12 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.core.metrics.MetricTags;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.jet.impl.util.ThreadAffinity;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.impl.NodeEngineImpl;
@@ -47,7 +49,12 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_REBALANCE_PERIOD_MILLIS;
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_THREAD_CPU_AFFINITY;
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS;
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_WORK_STEALING_ENABLED;
 import static com.hazelcast.jet.core.JetProperties.JET_IDLE_COOPERATIVE_MAX_MICROSECONDS;
 import static com.hazelcast.jet.core.JetProperties.JET_IDLE_COOPERATIVE_MIN_MICROSECONDS;
 import static com.hazelcast.jet.core.JetProperties.JET_IDLE_NONCOOPERATIVE_MAX_MICROSECONDS;
@@ -55,6 +62,7 @@ import static com.hazelcast.jet.core.JetProperties.JET_IDLE_NONCOOPERATIVE_MIN_M
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 import static java.lang.Thread.currentThread;
@@ -67,6 +75,9 @@ import static java.util.stream.Collectors.toList;
 
 public class TaskletExecutionService {
 
+    // the rebalancer stops moving tasklets when the load difference is within this percentage
+    private static final int REBALANCE_TOLERANCE_PERCENT = 20;
+
     private final ExecutorService blockingTaskletExecutor = newCachedThreadPool(new BlockingTaskThreadFactory());
     private final CooperativeWorker[] cooperativeWorkers;
     private final Thread[] cooperativeThreadPool;
@@ -77,8 +88,17 @@ public class TaskletExecutionService {
     private final AtomicInteger blockingWorkerCount = new AtomicInteger();
     private volatile boolean isShutdown;
     private final Object lock = new Object();
-    private volatile IdleStrategy idlerCooperative;
-    private volatile IdleStrategy idlerNonCooperative;
+    // idle strategies indexed by IdleStrategyType.ordinal()
+    private final IdleStrategy[] idlersCooperative;
+    private final IdleStrategy[] idlersNonCooperative;
+    private final ThreadAffinity threadAffinity;
+    private final boolean workStealingEnabled;
+    private final long workStealingCooldownNanos;
+    private final long rebalancePeriodNanos;
+    private final boolean taskletMovingEnabled;
+    // number of tasklets moved by the periodic rebalancing
+    @Probe
+    private final AtomicLong rebalanceMoveCount = new AtomicLong();
 
     public TaskletExecutionService(NodeEngineImpl nodeEngine, int threadCount, HazelcastProperties properties) {
         this.hzInstanceName = nodeEngine.getHazelcastInstance().getName();
@@ -86,18 +106,34 @@ public class TaskletExecutionService {
         this.cooperativeThreadPool = new Thread[threadCount];
         this.logger = nodeEngine.getLoggingService().getLogger(TaskletExecutionService.class);
 
-        idlerCooperative = createIdler(
+        idlersCooperative = createIdlers(
             properties, JET_IDLE_COOPERATIVE_MIN_MICROSECONDS, JET_IDLE_COOPERATIVE_MAX_MICROSECONDS
         );
-        idlerNonCooperative = createIdler(
+        idlersNonCooperative = createIdlers(
             properties, JET_IDLE_NONCOOPERATIVE_MIN_MICROSECONDS, JET_IDLE_NONCOOPERATIVE_MAX_MICROSECONDS
         );
+        threadAffinity = new ThreadAffinity(properties.getString(JET_COOPERATIVE_THREAD_CPU_AFFINITY), logger);
+        if (threadAffinity.isEnabled()) {
+            logger.info("Cooperative threads will be pinned to CPUs "
+                    + properties.getString(JET_COOPERATIVE_THREAD_CPU_AFFINITY));
+        }
+        workStealingEnabled = properties.getBoolean(JET_COOPERATIVE_WORK_STEALING_ENABLED);
+        workStealingCooldownNanos = properties.getNanos(JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS);
+        rebalancePeriodNanos = threadCount > 1 ? properties.getNanos(JET_COOPERATIVE_REBALANCE_PERIOD_MILLIS) : 0;
+        taskletMovingEnabled = workStealingEnabled || rebalancePeriodNanos > 0;
+        if (workStealingEnabled) {
+            logger.info("Work stealing between cooperative threads enabled");
+        }
+        if (rebalancePeriodNanos > 0) {
+            logger.info("Cost-based rebalancing of cooperative tasklets enabled, period="
+                    + NANOSECONDS.toMillis(rebalancePeriodNanos) + "ms");
+        }
 
         nodeEngine.getMetricsRegistry().newProbeBuilder()
                        .withTag(MetricTags.MODULE, "jet")
                        .scanAndRegister(this);
 
-        Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker());
+        Arrays.setAll(cooperativeWorkers, CooperativeWorker::new);
         Arrays.setAll(cooperativeThreadPool, i -> new Thread(cooperativeWorkers[i],
                 String.format("hz.%s.jet.cooperative.thread-%d", hzInstanceName, i)));
         Arrays.stream(cooperativeThreadPool).forEach(Thread::start);
@@ -126,13 +162,28 @@ public class TaskletExecutionService {
             @Nonnull List<? extends Tasklet> tasklets,
             @Nonnull CompletableFuture<Void> cancellationFuture,
             @Nonnull ClassLoader jobClassLoader
+    ) {
+        return beginExecute(tasklets, cancellationFuture, jobClassLoader, t -> null);
+    }
+
+    /**
+     * Like {@link #beginExecute(List, CompletableFuture, ClassLoader)}, but
+     * the threads running the tasklets use the idle strategy returned by
+     * {@code idleStrategyFn}. The function returns {@code null} for the
+     * default, {@link IdleStrategyType#BACKOFF}.
+     */
+    CompletableFuture<Void> beginExecute(
+            @Nonnull List<? extends Tasklet> tasklets,
+            @Nonnull CompletableFuture<Void> cancellationFuture,
+            @Nonnull ClassLoader jobClassLoader,
+            @Nonnull Function<? super Tasklet, IdleStrategyType> idleStrategyFn
     ) {
         final ExecutionTracker executionTracker = new ExecutionTracker(tasklets.size(), cancellationFuture);
         try {
             final Map<Boolean, List<Tasklet>> byCooperation =
                     tasklets.stream().collect(partitioningBy(Tasklet::isCooperative));
-            submitCooperativeTasklets(executionTracker, jobClassLoader, byCooperation.get(true));
-            submitBlockingTasklets(executionTracker, jobClassLoader, byCooperation.get(false));
+            submitCooperativeTasklets(executionTracker, jobClassLoader, idleStrategyFn, byCooperation.get(true));
+            submitBlockingTasklets(executionTracker, jobClassLoader, idleStrategyFn, byCooperation.get(false));
         } catch (Throwable t) {
             executionTracker.future.internalCompleteExceptionally(t);
         }
@@ -145,11 +196,13 @@ public class TaskletExecutionService {
     }
 
     private void submitBlockingTasklets(ExecutionTracker executionTracker, ClassLoader jobClassLoader,
+                                        Function<? super Tasklet, IdleStrategyType> idleStrategyFn,
                                         List<Tasklet> tasklets) {
         CountDownLatch startedLatch = new CountDownLatch(tasklets.size());
         executionTracker.blockingFutures = tasklets
                 .stream()
-                .map(t -> new BlockingWorker(new TaskletTracker(t, executionTracker, jobClassLoader), startedLatch))
+                .map(t -> new BlockingWorker(new TaskletTracker(t, executionTracker, jobClassLoader,
+                        idleStrategyFn.apply(t)), startedLatch))
                 .map(blockingTaskletExecutor::submit)
                 .collect(toList());
 
@@ -161,7 +214,8 @@ public class TaskletExecutionService {
     }
 
     private void submitCooperativeTasklets(
-            ExecutionTracker executionTracker, ClassLoader jobClassLoader, List<Tasklet> tasklets
+            ExecutionTracker executionTracker, ClassLoader jobClassLoader,
+            Function<? super Tasklet, IdleStrategyType> idleStrategyFn, List<Tasklet> tasklets
     ) {
         @SuppressWarnings("unchecked")
         final List<TaskletTracker>[] trackersByThread = new List[cooperativeWorkers.length];
@@ -175,12 +229,14 @@ public class TaskletExecutionService {
         // some worker might have no tasklet.
         synchronized (lock) {
             for (Tasklet t : tasklets) {
-                trackersByThread[cooperativeThreadIndex].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+                trackersByThread[cooperativeThreadIndex].add(
+                        new TaskletTracker(t, executionTracker, jobClassLoader, idleStrategyFn.apply(t)));
                 cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
             }
         }
         for (int i = 0; i < trackersByThread.length; i++) {
             cooperativeWorkers[i].trackers.addAll(trackersByThread[i]);
+            cooperativeWorkers[i].idlerOutdated = true;
         }
         Arrays.stream(cooperativeThreadPool).forEach(LockSupport::unpark);
     }
@@ -211,7 +267,7 @@ public class TaskletExecutionService {
         }
     }
 
-    private BackoffIdleStrategy createIdler(
+    private IdleStrategy[] createIdlers(
         HazelcastProperties props, HazelcastProperty minProp, HazelcastProperty maxProp
     ) {
         int min = props.getInteger(minProp);
@@ -228,9 +284,38 @@ public class TaskletExecutionService {
         }
 
         logger.info(String.format("Creating idler with %s=%dµs,%s=%dµs", minName, min, maxName, max));
-        return new BackoffIdleStrategy(0, 0,
-            minProp.getTimeUnit().toNanos(min), maxProp.getTimeUnit().toNanos(max)
-        );
+        long minParkNanos = minProp.getTimeUnit().toNanos(min);
+        long maxParkNanos = maxProp.getTimeUnit().toNanos(max);
+        IdleStrategy[] idlers = new IdleStrategy[IdleStrategyType.values().length];
+        for (IdleStrategyType type : IdleStrategyType.values()) {
+            idlers[type.ordinal()] = createIdler(type, minParkNanos, maxParkNanos);
+        }
+        return idlers;
+    }
+
+    static IdleStrategy createIdler(IdleStrategyType type, long minParkNanos, long maxParkNanos) {
+        switch (type) {
+            case BUSY_SPIN:
+                return n -> false;
+            case YIELD:
+                return n -> {
+                    Thread.yield();
+                    return false;
+                };
+            case BACKOFF:
+                return new BackoffIdleStrategy(0, 0, minParkNanos, maxParkNanos);
+            case PARK:
+                return n -> {
+                    LockSupport.parkNanos(maxParkNanos);
+                    return true;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown idle strategy: " + type);
+        }
+    }
+
+    private IdleStrategy idler(IdleStrategy[] idlers, IdleStrategyType type) {
+        return idlers[(type != null ? type : IdleStrategyType.BACKOFF).ordinal()];
     }
 
     private final class BlockingWorker implements Runnable {
@@ -247,7 +332,7 @@ public class TaskletExecutionService {
             final ClassLoader clBackup = currentThread().getContextClassLoader();
             final Tasklet t = tracker.tasklet;
             currentThread().setContextClassLoader(tracker.jobClassLoader);
-            IdleStrategy idlerLocal = idlerNonCooperative;
+            IdleStrategy idlerLocal = idler(idlersNonCooperative, tracker.idleStrategy);
 
             try {
                 blockingWorkerCount.incrementAndGet();
@@ -278,38 +363,77 @@ public class TaskletExecutionService {
 
     private final class CooperativeWorker implements Runnable {
         private static final int COOPERATIVE_LOGGING_THRESHOLD = 5;
+        // number of consecutive iterations without progress before the worker tries to steal
+        private static final int STEAL_AFTER_IDLE_ITERATIONS = 16;
 
         @Probe(name = "taskletCount")
         private final CopyOnWriteArrayList<TaskletTracker> trackers;
         @Probe
         private final AtomicLong iterationCount = new AtomicLong();
+        // number of tasklets this worker took over from other workers
+        @Probe
+        private final AtomicLong stealCount = new AtomicLong();
+        // number of tasklets that made progress in the last iteration, the
+        // measure of the worker's load used for work stealing
+        @Probe(name = "runnableTaskletCount")
+        private final AtomicInteger runnableCount = new AtomicInteger();
+        // time spent in Tasklet.call() during the last rebalancing period
+        @Probe
+        private final AtomicLong lastPeriodCostNanos = new AtomicLong();
 
         private final ProgressTracker progressTracker = new ProgressTracker();
         // prevent lambda allocation on each iteration
         private final Consumer<TaskletTracker> runTasklet = this::runTasklet;
+        private final MoveRequest stealRequest = new MoveRequest(this, true);
+        private final MoveRequest rebalanceRequest = new MoveRequest(this, false);
+        private final int index;
 
         private boolean finestLogEnabled;
         private Thread myThread;
-
-        CooperativeWorker() {
+        private int iterationRunnableCount;
+        // true from the moment this worker requested a tasklet until it's handed over
+        private volatile boolean stealPending;
+        private long stealRequestedAtNanos;
+        private long nextRebalanceNanos;
+        // set when the trackers change, the worker then picks the idle strategy again
+        private volatile boolean idlerOutdated;
+
+        CooperativeWorker(int index) {
+            this.index = index;
             this.trackers = new CopyOnWriteArrayList<>();
         }
 
         @Override
         public void run() {
             myThread = currentThread();
-            IdleStrategy idlerLocal = idlerCooperative;
+            threadAffinity.pinCurrentThread(index);
+            IdleStrategy idlerLocal = idler(idlersCooperative, null);
             long idleCount = 0;
+            boolean isRebalancer = rebalancePeriodNanos > 0 && this == cooperativeWorkers[0];
+            nextRebalanceNanos = System.nanoTime() + rebalancePeriodNanos;
 
             while (!isShutdown) {
                 finestLogEnabled = logger.isFinestEnabled();
                 progressTracker.reset();
+                iterationRunnableCount = 0;
                 // garbage-free iteration -- relies on implementation in COWArrayList that doesn't use an Iterator
                 trackers.forEach(runTasklet);
+                runnableCount.lazySet(iterationRunnableCount);
                 lazyIncrement(iterationCount);
+                if (isRebalancer && System.nanoTime() - nextRebalanceNanos >= 0) {
+                    rebalance();
+                    nextRebalanceNanos = System.nanoTime() + rebalancePeriodNanos;
+                }
                 if (progressTracker.isMadeProgress()) {
                     idleCount = 0;
                 } else {
+                    if (workStealingEnabled && idleCount >= STEAL_AFTER_IDLE_ITERATIONS && canRequestSteal()) {
+                        requestSteal();
+                    }
+                    if (idlerOutdated) {
+                        idlerOutdated = false;
+                        idlerLocal = selectIdler();
+                    }
                     idlerLocal.idle(++idleCount);
                 }
             }
@@ -319,14 +443,25 @@ public class TaskletExecutionService {
 
         private void runTasklet(TaskletTracker t) {
             long start = 0;
-            if (finestLogEnabled) {
+            if (finestLogEnabled || rebalancePeriodNanos > 0) {
                 start = System.nanoTime();
             }
             try {
                 myThread.setContextClassLoader(t.jobClassLoader);
                 final ProgressState result = t.tasklet.call();
+                if (result.isMadeProgress()) {
+                    iterationRunnableCount++;
+                }
+                if (rebalancePeriodNanos > 0) {
+                    lazyAdd(t.costNanos, System.nanoTime() - start);
+                    if (result.isMadeProgress()) {
+                        lazyIncrement(t.progressCount);
+                    }
+                }
                 if (result.isDone()) {
                     dismissTasklet(t);
+                } else if (workStealingEnabled) {
+                    t.madeProgress = result.isMadeProgress();
                 }
                 progressTracker.mergeWith(result);
             } catch (Throwable e) {
@@ -335,6 +470,9 @@ public class TaskletExecutionService {
             }
             if (t.executionTracker.executionCompletedExceptionally()) {
                 dismissTasklet(t);
+            } else if (taskletMovingEnabled && t.moveRequest.get() != null) {
+                // dismissTasklet() cleared the request if the tasklet is done
+                handOver(t);
             }
 
             if (finestLogEnabled) {
@@ -346,10 +484,180 @@ public class TaskletExecutionService {
             }
         }
 
+        /**
+         * Returns the idle strategy for the current trackers: the one using
+         * the most CPU among their strategies, so that each tasklet gets at
+         * least the responsiveness it asked for.
+         */
+        private IdleStrategy selectIdler() {
+            IdleStrategyType selected = IdleStrategyType.BACKOFF;
+            boolean first = true;
+            for (TaskletTracker t : trackers) {
+                IdleStrategyType type = t.idleStrategy != null ? t.idleStrategy : IdleStrategyType.BACKOFF;
+                if (first || type.ordinal() < selected.ordinal()) {
+                    selected = type;
+                    first = false;
+                }
+            }
+            return idler(idlersCooperative, selected);
+        }
+
         private void dismissTasklet(TaskletTracker t) {
             logFinest(logger, "Tasklet %s is done", t.tasklet);
             t.executionTracker.taskletDone();
             trackers.remove(t);
+            idlerOutdated = true;
+            MoveRequest request = t.moveRequest.getAndSet(null);
+            if (request != null && request.isSteal) {
+                request.target.stealPending = false;
+            }
+        }
+
+        private boolean canRequestSteal() {
+            // The requested tasklet can complete just before the request is
+            // placed, in which case it's never handed over. Such a request is
+            // abandoned after the cooldown.
+            return !stealPending || System.nanoTime() - stealRequestedAtNanos >= workStealingCooldownNanos;
+        }
+
+        /**
+         * Called on an idle worker. Finds the worker with the most runnable
+         * tasklets and marks one of them to be handed over to this worker.
+         * The owner hands the tasklet over after its next call, see {@link
+         * #handOver}. A worker with a single runnable tasklet isn't a victim,
+         * moving its tasklet would only move the hot spot.
+         */
+        private void requestSteal() {
+            CooperativeWorker victim = null;
+            int victimLoad = 1;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                int load = w.runnableCount.get();
+                if (w != this && load > victimLoad) {
+                    victim = w;
+                    victimLoad = load;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            // set before the request is visible to the victim, which resets it after the hand-over
+            stealRequestedAtNanos = now;
+            stealPending = true;
+            for (TaskletTracker t : victim.trackers) {
+                if (t.madeProgress
+                        && now - t.movableAfterNanos >= 0
+                        && t.moveRequest.compareAndSet(null, stealRequest)) {
+                    return;
+                }
+            }
+            stealPending = false;
+        }
+
+        /**
+         * Called periodically on the first worker if rebalancing is enabled.
+         * Computes how much time each worker spent calling its tasklets since
+         * the previous call and then repeatedly requests to move a tasklet
+         * from the most loaded worker to the least loaded one. The moved
+         * tasklet is the one whose cost is the closest to half the difference
+         * between the two workers' loads, so that each move reduces the
+         * imbalance. Stops when the difference falls below
+         * REBALANCE_TOLERANCE_PERCENT of the highest load.
+         */
+        private void rebalance() {
+            int workerCount = cooperativeWorkers.length;
+            long[] loads = new long[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                for (TaskletTracker t : cooperativeWorkers[i].trackers) {
+                    t.takePeriodSample();
+                    loads[i] += t.periodCostNanos;
+                }
+                cooperativeWorkers[i].lastPeriodCostNanos.lazySet(loads[i]);
+            }
+            long now = System.nanoTime();
+            for (int moveCount = 0; moveCount < workerCount; moveCount++) {
+                int maxIndex = 0;
+                int minIndex = 0;
+                for (int i = 1; i < workerCount; i++) {
+                    maxIndex = loads[i] > loads[maxIndex] ? i : maxIndex;
+                    minIndex = loads[i] < loads[minIndex] ? i : minIndex;
+                }
+                long gap = loads[maxIndex] - loads[minIndex];
+                if (gap * 100 <= loads[maxIndex] * REBALANCE_TOLERANCE_PERCENT) {
+                    return;
+                }
+                TaskletTracker best = null;
+                long bestDistance = Long.MAX_VALUE;
+                for (TaskletTracker t : cooperativeWorkers[maxIndex].trackers) {
+                    long distance = Math.abs(t.periodCostNanos - gap / 2);
+                    // a tasklet that made no progress only costs the call overhead, moving it won't help
+                    if (t.periodProgressCount > 0
+                            && t.periodCostNanos < gap
+                            && distance < bestDistance
+                            && now - t.movableAfterNanos >= 0
+                            && t.moveRequest.get() == null) {
+                        best = t;
+                        bestDistance = distance;
+                    }
+                }
+                if (best == null || !best.moveRequest.compareAndSet(null, cooperativeWorkers[minIndex].rebalanceRequest)) {
+                    return;
+                }
+                loads[maxIndex] -= best.periodCostNanos;
+                loads[minIndex] += best.periodCostNanos;
+                rebalanceMoveCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Moves the tasklet to the worker that requested it. Called by the
+         * owning worker between two calls to the tasklet.
+         */
+        private void handOver(TaskletTracker t) {
+            MoveRequest request = t.moveRequest.get();
+            CooperativeWorker target = request.target;
+            trackers.remove(t);
+            idlerOutdated = true;
+            t.movableAfterNanos = System.nanoTime() + workStealingCooldownNanos;
+            t.moveRequest.set(null);
+            logFinest(logger, "Tasklet %s moved to another worker", t.tasklet);
+            target.trackers.add(t);
+            target.idlerOutdated = true;
+            if (request.isSteal) {
+                target.stealCount.incrementAndGet();
+                target.stealPending = false;
+            }
+            LockSupport.unpark(target.myThread);
+        }
+
+        /**
+         * The difference between the runnable tasklet count of this worker
+         * and the average of all workers, in percent of the average.
+         */
+        @Probe(name = "loadImbalancePercent")
+        private long loadImbalancePercent() {
+            long total = 0;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                total += w.runnableCount.get();
+            }
+            if (total == 0) {
+                return 0;
+            }
+            return ((long) runnableCount.get() * cooperativeWorkers.length - total) * 100 / total;
+        }
+    }
+
+    /**
+     * A request to move a tasklet to the {@code target} worker, placed
+     * either by the target itself when stealing or by the rebalancer.
+     */
+    private static final class MoveRequest {
+        final CooperativeWorker target;
+        final boolean isSteal;
+
+        MoveRequest(CooperativeWorker target, boolean isSteal) {
+            this.target = target;
+            this.isSteal = isSteal;
         }
     }
 
@@ -357,11 +665,43 @@ public class TaskletExecutionService {
         final Tasklet tasklet;
         final ExecutionTracker executionTracker;
         final ClassLoader jobClassLoader;
-
-        TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader) {
+        // null for the default
+        final IdleStrategyType idleStrategy;
+
+        // The fields below are only used by cooperative workers when work
+        // stealing or rebalancing is enabled.
+        final AtomicReference<MoveRequest> moveRequest = new AtomicReference<>();
+        // Written by the owning worker, read racily by other workers. It's
+        // only a hint, a stale value results at worst in a suboptimal choice.
+        boolean madeProgress;
+        volatile long movableAfterNanos = System.nanoTime();
+        // written by the owning worker
+        final AtomicLong costNanos = new AtomicLong();
+        final AtomicLong progressCount = new AtomicLong();
+        // only accessed by the rebalancing worker
+        long periodCostNanos;
+        long periodProgressCount;
+        private long lastCostNanos;
+        private long lastProgressCount;
+
+        TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader,
+                       IdleStrategyType idleStrategy) {
             this.tasklet = tasklet;
             this.executionTracker = executionTracker;
             this.jobClassLoader = jobClassLoader;
+            this.idleStrategy = idleStrategy;
+        }
+
+        /**
+         * Computes the cost and progress count since the previous call.
+         */
+        void takePeriodSample() {
+            long cost = costNanos.get();
+            long progress = progressCount.get();
+            periodCostNanos = cost - lastCostNanos;
+            periodProgressCount = progress - lastProgressCount;
+            lastCostNanos = cost;
+            lastProgressCount = progress;
         }
 
         @Override
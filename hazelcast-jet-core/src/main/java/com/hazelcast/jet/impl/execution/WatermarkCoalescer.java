@@ -44,6 +44,13 @@ public abstract class WatermarkCoalescer {
 
     static final long NO_NEW_WM = Long.MIN_VALUE;
 
+    /**
+     * The minimum number of queues for which the {@link TournamentTreeImpl}
+     * is used. Below it, scanning all queues is faster, see
+     * {@code WatermarkCoalescerBenchmark}.
+     */
+    static final int TOURNAMENT_TREE_MIN_QUEUE_COUNT = 64;
+
     private WatermarkCoalescer() { }
 
     /**
@@ -105,7 +112,9 @@ public abstract class WatermarkCoalescer {
             case 1:
                 return new SingleInputImpl();
             default:
-                return new StandardImpl(queueCount);
+                return queueCount < TOURNAMENT_TREE_MIN_QUEUE_COUNT
+                        ? new StandardImpl(queueCount)
+                        : new TournamentTreeImpl(queueCount);
         }
     }
 
@@ -194,27 +203,43 @@ public abstract class WatermarkCoalescer {
     }
 
     /**
-     * Standard implementation for 1..n inputs.
+     * Common part of the implementations for 2..n inputs. The subclasses
+     * differ in how they find the minimum watermark of the active queues.
      */
-    static final class StandardImpl extends WatermarkCoalescer {
+    abstract static class MultiInputImpl extends WatermarkCoalescer {
 
-        private final long[] queueWms;
-        private final boolean[] isIdle;
-        private AtomicLong lastEmittedWm = new AtomicLong(Long.MIN_VALUE);
-        private AtomicLong topObservedWm = new AtomicLong(Long.MIN_VALUE);
+        final long[] queueWms;
+        final boolean[] isIdle;
+        private final AtomicLong lastEmittedWm = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong topObservedWm = new AtomicLong(Long.MIN_VALUE);
+        private int notDoneInputCount;
         private boolean allInputsAreIdle;
         private boolean idleMessagePending;
 
-        StandardImpl(int queueCount) {
+        MultiInputImpl(int queueCount) {
             isIdle = new boolean[queueCount];
             queueWms = new long[queueCount];
             Arrays.fill(queueWms, Long.MIN_VALUE);
+            notDoneInputCount = queueCount;
         }
 
+        /**
+         * Returns the lowest watermark of the queues that are neither idle
+         * nor done, or {@code Long.MAX_VALUE} if there's no such queue.
+         */
+        abstract long minActiveWm();
+
+        /**
+         * Called after the watermark or the idle flag of the queue changed.
+         */
+        abstract void queueChanged(int queueIndex);
+
         @Override
         public long queueDone(int queueIndex) {
             assert queueWms[queueIndex] < Long.MAX_VALUE : "Duplicate DONE call";
             queueWms[queueIndex] = Long.MAX_VALUE;
+            notDoneInputCount--;
+            queueChanged(queueIndex);
             return checkObservedWms();
         }
 
@@ -223,6 +248,7 @@ public abstract class WatermarkCoalescer {
             if (isIdle[queueIndex]) {
                 isIdle[queueIndex] = false;
                 allInputsAreIdle = false;
+                queueChanged(queueIndex);
             }
         }
 
@@ -235,7 +261,6 @@ public abstract class WatermarkCoalescer {
 
             if (wmValue == IDLE_MESSAGE.timestamp()) {
                 isIdle[queueIndex] = true;
-                return checkObservedWms();
             } else {
                 isIdle[queueIndex] = false;
                 allInputsAreIdle = false;
@@ -243,8 +268,9 @@ public abstract class WatermarkCoalescer {
                 if (wmValue > topObservedWm.get()) {
                     topObservedWm.lazySet(wmValue);
                 }
-                return checkObservedWms();
             }
+            queueChanged(queueIndex);
+            return checkObservedWms();
         }
 
         private long checkObservedWms() {
@@ -253,17 +279,7 @@ public abstract class WatermarkCoalescer {
                 return NO_NEW_WM;
             }
 
-            // find lowest observed wm
-            long min = Long.MAX_VALUE;
-            int notDoneInputCount = 0;
-            for (int i = 0; i < queueWms.length; i++) {
-                if (queueWms[i] < Long.MAX_VALUE) {
-                    notDoneInputCount++;
-                }
-                if (!isIdle[i] && queueWms[i] < min) {
-                    min = queueWms[i];
-                }
-            }
+            long min = minActiveWm();
 
             // if the lowest observed wm is MAX_VALUE that means that all inputs are idle or done
             if (min == Long.MAX_VALUE) {
@@ -315,4 +331,78 @@ public abstract class WatermarkCoalescer {
             return topObservedWm.get();
         }
     }
+
+    /**
+     * Implementation for a small number of inputs, it scans all queues on
+     * each change.
+     */
+    static final class StandardImpl extends MultiInputImpl {
+
+        StandardImpl(int queueCount) {
+            super(queueCount);
+        }
+
+        @Override
+        long minActiveWm() {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < queueWms.length; i++) {
+                if (!isIdle[i] && queueWms[i] < min) {
+                    min = queueWms[i];
+                }
+            }
+            return min;
+        }
+
+        @Override
+        void queueChanged(int queueIndex) {
+        }
+    }
+
+    /**
+     * Implementation for a large number of inputs. It keeps the minimum
+     * watermarks in a tournament tree: the leaves are the watermarks of the
+     * queues ({@code Long.MAX_VALUE} for idle and done queues) and each inner
+     * node is the minimum of its children. A change of a queue updates only
+     * the path to the root, and stops early when an inner node doesn't
+     * change. The root is the minimum of all active queues.
+     * <p>
+     * The tree is stored in an array: the root is at index 1, the children of
+     * node {@code i} are at {@code 2i} and {@code 2i + 1} and the leaves start
+     * at {@link #leafOffset}, which is the queue count rounded up to a power
+     * of two. The unused leaves are {@code Long.MAX_VALUE}.
+     */
+    static final class TournamentTreeImpl extends MultiInputImpl {
+
+        private final int leafOffset;
+        private final long[] tree;
+
+        TournamentTreeImpl(int queueCount) {
+            super(queueCount);
+            leafOffset = Integer.highestOneBit(Math.max(1, queueCount - 1)) << 1;
+            tree = new long[2 * leafOffset];
+            Arrays.fill(tree, Long.MAX_VALUE);
+            System.arraycopy(queueWms, 0, tree, leafOffset, queueCount);
+            for (int i = leafOffset - 1; i > 0; i--) {
+                tree[i] = Math.min(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        @Override
+        long minActiveWm() {
+            return tree[1];
+        }
+
+        @Override
+        void queueChanged(int queueIndex) {
+            int i = leafOffset + queueIndex;
+            tree[i] = isIdle[queueIndex] ? Long.MAX_VALUE : queueWms[queueIndex];
+            for (i >>= 1; i > 0; i >>= 1) {
+                long min = Math.min(tree[2 * i], tree[2 * i + 1]);
+                if (tree[i] == min) {
+                    break;
+                }
+                tree[i] = min;
+            }
+        }
+    }
 }
@@ -16,15 +16,22 @@
 
 package com.hazelcast.jet.impl.execution.init;
 
+import com.hazelcast.internal.metrics.LongProbeFunction;
+import com.hazelcast.internal.metrics.ProbeBuilder;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
 import com.hazelcast.jet.JetInstance;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.impl.execution.OffHeapStateMemory;
 import com.hazelcast.logging.ILogger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.LongSupplier;
 
 public final class Contexts {
 
@@ -134,16 +141,20 @@ public final class Contexts {
 
         private final int localProcessorIndex;
         private final int globalProcessorIndex;
+        private final OffHeapStateMemory offHeapStateMemory;
+        private ProbeBuilder probeBuilder;
+        private Object metricsSource;
 
         @SuppressWarnings("checkstyle:ParameterNumber")
         public ProcCtx(JetInstance instance, long jobId, long executionId, JobConfig jobConfig,
                        ILogger logger, String vertexName, int localProcessorIndex,
                        int globalProcessorIndex, ProcessingGuarantee processingGuarantee, int localParallelism,
-                       int memberIndex, int memberCount) {
+                       int memberIndex, int memberCount, @Nullable OffHeapStateMemory offHeapStateMemory) {
             super(instance, jobId, executionId, jobConfig, logger, vertexName, localParallelism,
                     memberCount * localParallelism, memberIndex, memberCount, processingGuarantee);
             this.localProcessorIndex = localProcessorIndex;
             this.globalProcessorIndex = globalProcessorIndex;
+            this.offHeapStateMemory = offHeapStateMemory;
         }
 
         @Override
@@ -155,5 +166,33 @@ public final class Contexts {
         public int globalProcessorIndex() {
             return globalProcessorIndex;
         }
+
+        /**
+         * Returns the memory for the keyed state of the processors, {@code
+         * null} if the state should be kept on the heap.
+         */
+        @Nullable
+        public OffHeapStateMemory offHeapStateMemory() {
+            return offHeapStateMemory;
+        }
+
+        @Override
+        public void registerMetric(
+                @Nonnull String tagName, @Nonnull String tagValue, @Nonnull String name,
+                @Nonnull LongSupplier valueFn
+        ) {
+            if (probeBuilder == null) {
+                // the metrics are disabled for the job
+                return;
+            }
+            probeBuilder.withTag(tagName, tagValue)
+                        .register(metricsSource, name, ProbeLevel.INFO, ProbeUnit.COUNT,
+                                (LongProbeFunction<Object>) source -> valueFn.getAsLong());
+        }
+
+        void setProbeBuilder(@Nonnull ProbeBuilder probeBuilder, @Nonnull Object metricsSource) {
+            this.probeBuilder = probeBuilder;
+            this.metricsSource = metricsSource;
+        }
     }
 }
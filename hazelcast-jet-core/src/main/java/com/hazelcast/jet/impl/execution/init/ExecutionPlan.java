@@ -25,10 +25,12 @@ import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Edge.RoutingPolicy;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.core.metrics.MetricTags;
@@ -37,6 +39,7 @@ import com.hazelcast.jet.impl.execution.ConcurrentInboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ConveyorCollector;
 import com.hazelcast.jet.impl.execution.ConveyorCollectorWithPartition;
 import com.hazelcast.jet.impl.execution.InboundEdgeStream;
+import com.hazelcast.jet.impl.execution.OffHeapStateMemory;
 import com.hazelcast.jet.impl.execution.OutboundCollector;
 import com.hazelcast.jet.impl.execution.OutboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ProcessorTasklet;
@@ -47,6 +50,7 @@ import com.hazelcast.jet.impl.execution.StoreSnapshotTasklet;
 import com.hazelcast.jet.impl.execution.Tasklet;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcSupplierCtx;
+import com.hazelcast.jet.impl.processor.IncrementalSnapshotProcessor;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
@@ -64,14 +68,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
 import static com.hazelcast.jet.Util.idToString;
@@ -80,6 +88,11 @@ import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_BYTES_IN;
 import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_BYTES_OUT;
 import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_ITEMS_IN;
 import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_ITEMS_OUT;
+import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_MIN_RTT_MICROS;
+import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_PACKET_SIZE_LIMIT;
+import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_RECEIVE_WINDOW;
+import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_UNCOMPRESSED_BYTES_IN;
+import static com.hazelcast.jet.core.metrics.MetricNames.DISTRIBUTED_UNCOMPRESSED_BYTES_OUT;
 import static com.hazelcast.jet.impl.execution.OutboundCollector.compositeCollector;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.Util.getJetInstance;
@@ -87,6 +100,7 @@ import static com.hazelcast.jet.impl.util.Util.memoize;
 import static com.hazelcast.jet.impl.util.Util.readList;
 import static com.hazelcast.jet.impl.util.Util.sanitizeLoggerNamePart;
 import static com.hazelcast.jet.impl.util.Util.writeList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -95,8 +109,11 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     // use same size as DEFAULT_QUEUE_SIZE from Edges. In the future we might
     // want to make this configurable
     private static final int SNAPSHOT_QUEUE_SIZE = DEFAULT_QUEUE_SIZE;
+    private static final long NANOS_PER_MICRO = MICROSECONDS.toNanos(1);
 
     private final List<Tasklet> tasklets = new ArrayList<>();
+    /** tasklet --> idle strategy of its vertex, only for vertices overriding the job's one */
+    private final Map<Tasklet, IdleStrategyType> vertexIdleStrategies = new IdentityHashMap<>();
     /** dest vertex id --> dest ordinal --> sender addr -> receiver tasklet */
     private final Map<Integer, Map<Integer, Map<Address, ReceiverTasklet>>> receiverMap = new HashMap<>();
     /** dest vertex id --> dest ordinal --> dest addr --> sender tasklet */
@@ -120,6 +137,7 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private NodeEngineImpl nodeEngine;
     private long executionId;
     private long lastSnapshotId;
+    private OffHeapStateMemory offHeapStateMemory;
 
     // list of unique remote members
     private final Supplier<Set<Address>> remoteMembers = memoize(() ->
@@ -150,6 +168,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
         this.ptionArrgmt = new PartitionArrangement(partitionOwners, nodeEngine.getThisAddress());
         JetInstance instance = getJetInstance(nodeEngine);
+        offHeapStateMemory = jobConfig.getOffHeapStateMemoryLimit() > 0
+                ? new OffHeapStateMemory(jobConfig.getOffHeapStateMemoryLimit(),
+                        "job " + idToString(jobId) + ", execution " + idToString(executionId))
+                : null;
         for (VertexDef vertex : vertices) {
             Collection<? extends Processor> processors = createProcessors(vertex, vertex.localParallelism());
 
@@ -157,14 +179,20 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             QueuedPipe<Object>[] snapshotQueues = new QueuedPipe[vertex.localParallelism()];
             Arrays.setAll(snapshotQueues, i -> new OneToOneConcurrentArrayQueue<>(SNAPSHOT_QUEUE_SIZE));
             ConcurrentConveyor<Object> ssConveyor = ConcurrentConveyor.concurrentConveyor(null, snapshotQueues);
+            boolean incrementalVertex = !processors.isEmpty() && processors.stream()
+                    .allMatch(p -> IncrementalSnapshotProcessor.unwrap(p) != null);
             StoreSnapshotTasklet ssTasklet = new StoreSnapshotTasklet(snapshotContext,
                     new ConcurrentInboundEdgeStream(ssConveyor, 0, 0, true,
                             "ssFrom:" + vertex.name()),
-                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount),
+                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount,
+                            incrementalVertex),
                     nodeEngine.getLogger(StoreSnapshotTasklet.class.getName() + "."
                             + sanitizeLoggerNamePart(vertex.name())),
                     vertex.name(), vertex.isHigherPrioritySource());
             tasklets.add(ssTasklet);
+            if (vertex.idleStrategy() != null) {
+                vertexIdleStrategies.put(ssTasklet, vertex.idleStrategy());
+            }
 
             int localProcessorIdx = 0;
             for (Processor processor : processors) {
@@ -187,7 +215,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         jobConfig.getProcessingGuarantee(),
                         vertex.localParallelism(),
                         memberIndex,
-                        memberCount
+                        memberCount,
+                        offHeapStateMemory
                 );
 
 
@@ -213,6 +242,7 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     processorProbeBuilder
                         .withTag(MetricTags.PROCESSOR_TYPE, processor.getClass().getSimpleName())
                         .scanAndRegister(processor);
+                    context.setProbeBuilder(processorProbeBuilder, processor);
                 }
 
                 // createOutboundEdgeStreams() populates localConveyorMap and edgeSenderConveyorMap.
@@ -230,6 +260,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         processor, inboundStreams, outboundStreams, snapshotContext, snapshotCollector,
                         processorProbeBuilder);
                 tasklets.add(processorTasklet);
+                if (vertex.idleStrategy() != null) {
+                    vertexIdleStrategies.put(processorTasklet, vertex.idleStrategy());
+                }
                 this.processors.add(processor);
                 localProcessorIdx++;
             }
@@ -273,6 +306,17 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         return jobConfig;
     }
 
+    /**
+     * Returns the idle strategy for the thread running the given tasklet:
+     * the one set on its vertex, or on the job if the vertex doesn't set it.
+     * Returns {@code null} for the default.
+     */
+    @Nullable
+    public IdleStrategyType getIdleStrategy(Tasklet tasklet) {
+        IdleStrategyType vertexStrategy = vertexIdleStrategies.get(tasklet);
+        return vertexStrategy != null ? vertexStrategy : jobConfig.getIdleStrategy();
+    }
+
     void addVertex(VertexDef vertex) {
         vertices.add(vertex);
     }
@@ -352,9 +396,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             v.outboundEdges().forEach(e -> e.initTransientFields(vMap, v, true));
         }
         final IPartitionService partitionService = nodeEngine.getPartitionService();
+        // the partitioners of the inbound edges are used to route the in-flight items of unaligned snapshots
         vertices.stream()
-                .map(VertexDef::outboundEdges)
-                .flatMap(List::stream)
+                .flatMap(v -> Stream.concat(v.inboundEdges().stream(), v.outboundEdges().stream()))
                 .map(EdgeDef::partitioner)
                 .filter(Objects::nonNull)
                 .forEach(p -> p.init(partitionService::getPartitionId));
@@ -404,6 +448,7 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         return edgeSenderConveyorMap.computeIfAbsent(edge.edgeId(), x -> {
             final Map<Address, ConcurrentConveyor<Object>> addrToConveyor = new HashMap<>();
             List<AtomicLong> bytesCounters = new ArrayList<>();
+            List<AtomicLong> uncompressedBytesCounters = new ArrayList<>();
             List<AtomicLong> itemsCounters = new ArrayList<>();
             Tasklet firstTasklet = null;
             for (Address destAddr : remoteMembers.get()) {
@@ -414,11 +459,14 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                 + destAddr.toString().replace('.', '-'));
                 final int destVertexId = edge.destVertex().vertexId();
                 final SenderTasklet t = new SenderTasklet(inboundEdgeStream, nodeEngine,
-                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit());
+                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit(),
+                        edge.getConfig().isAdaptiveFlowControlEnabled(), edge.getConfig().isCompressionEnabled(),
+                        edge.getConfig().getCompressionThreshold());
                 if (firstTasklet == null) {
                     firstTasklet = t;
                 }
                 bytesCounters.add(t.getBytesOutCounter());
+                uncompressedBytesCounters.add(t.getUncompressedBytesOutCounter());
                 itemsCounters.add(t.getItemsOutCounter());
                 senderMap.computeIfAbsent(destVertexId, xx -> new HashMap<>())
                          .computeIfAbsent(edge.destOrdinal(), xx -> new HashMap<>())
@@ -433,6 +481,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             if (probeBuilder != null && firstTasklet != null) {
                 probeBuilder.register(firstTasklet, DISTRIBUTED_BYTES_OUT, ProbeLevel.INFO, ProbeUnit.BYTES,
                         addCountersProbeFunction(bytesCounters));
+                probeBuilder.register(firstTasklet, DISTRIBUTED_UNCOMPRESSED_BYTES_OUT, ProbeLevel.INFO, ProbeUnit.BYTES,
+                        addCountersProbeFunction(uncompressedBytesCounters));
                 probeBuilder.register(firstTasklet, DISTRIBUTED_ITEMS_OUT, ProbeLevel.INFO, ProbeUnit.BYTES,
                         addCountersProbeFunction(itemsCounters));
             }
@@ -451,6 +501,17 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         };
     }
 
+    private static <T> LongProbeFunction<T> maxCountersProbeFunction(List<AtomicLong> counters, long divisor) {
+        AtomicLong[] countersArray = counters.toArray(new AtomicLong[0]);
+        return source -> {
+            long max = 0;
+            for (AtomicLong counter : countersArray) {
+                max = Math.max(max, counter.get());
+            }
+            return max / divisor;
+        };
+    }
+
     @SuppressWarnings("unchecked")
     private static ConcurrentConveyor<Object>[] createConveyorArray(int count, int queueCount, int queueSize) {
         ConcurrentConveyor<Object>[] concurrentConveyors = new ConcurrentConveyor[count];
@@ -562,6 +623,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                        int offset = 0;
                        List<AtomicLong> itemCounters = new ArrayList<>();
                        List<AtomicLong> bytesCounters = new ArrayList<>();
+                       List<AtomicLong> uncompressedBytesCounters = new ArrayList<>();
+                       List<AtomicLong> receiveWindowCounters = new ArrayList<>();
+                       List<AtomicLong> packetSizeLimitCounters = new ArrayList<>();
+                       List<AtomicLong> minRttCounters = new ArrayList<>();
                        Tasklet firstTasklet = null;
                        for (Address addr : ptionArrgmt.remotePartitionAssignment.get().keySet()) {
                            final OutboundCollector[] collectors = new OutboundCollector[ptionsPerProcessor.length];
@@ -573,6 +638,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            final OutboundCollector collector = compositeCollector(collectors, edge, totalPtionCount);
                            ReceiverTasklet receiverTasklet = new ReceiverTasklet(
                                    collector, edge.getConfig().getReceiveWindowMultiplier(),
+                                   edge.getConfig().getPacketSizeLimit(),
+                                   edge.getConfig().isAdaptiveFlowControlEnabled(),
                                    getConfig().getInstanceConfig().getFlowControlPeriodMs(),
                                    nodeEngine.getLoggingService(),
                                    "receiverFor:" + edge.destVertex().name() + "#" + edge.destOrdinal());
@@ -582,6 +649,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            }
                            itemCounters.add(receiverTasklet.getItemsInCounter());
                            bytesCounters.add(receiverTasklet.getBytesInCounter());
+                           uncompressedBytesCounters.add(receiverTasklet.getUncompressedBytesInCounter());
+                           receiveWindowCounters.add(receiverTasklet.getReceiveWindowBytes());
+                           packetSizeLimitCounters.add(receiverTasklet.getPacketSizeLimitCounter());
+                           minRttCounters.add(receiverTasklet.getMinRttNanos());
                        }
                        if (probeBuilder != null && firstTasklet != null) {
                            // We register the metrics to the first tasklet. The metrics itself aggregate counters from
@@ -591,6 +662,14 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                    addCountersProbeFunction(itemCounters));
                            probeBuilder.register(firstTasklet, DISTRIBUTED_BYTES_IN, ProbeLevel.INFO, ProbeUnit.COUNT,
                                    addCountersProbeFunction(bytesCounters));
+                           probeBuilder.register(firstTasklet, DISTRIBUTED_UNCOMPRESSED_BYTES_IN, ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, addCountersProbeFunction(uncompressedBytesCounters));
+                           probeBuilder.register(firstTasklet, DISTRIBUTED_RECEIVE_WINDOW, ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, addCountersProbeFunction(receiveWindowCounters));
+                           probeBuilder.register(firstTasklet, DISTRIBUTED_PACKET_SIZE_LIMIT, ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, maxCountersProbeFunction(packetSizeLimitCounters, 1));
+                           probeBuilder.register(firstTasklet, DISTRIBUTED_MIN_RTT_MICROS, ProbeLevel.INFO,
+                                   ProbeUnit.COUNT, maxCountersProbeFunction(minRttCounters, NANOS_PER_MICRO));
                        }
                        return addrToTasklet;
                    });
@@ -604,26 +683,75 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private List<InboundEdgeStream> createInboundEdgeStreams(VertexDef srcVertex, int localProcessorIdx,
                                                              int globalProcessorIdx) {
         final List<InboundEdgeStream> inboundStreams = new ArrayList<>();
+        // Unaligned snapshots are used only if the in-flight items of all inputs can be restored.
+        // The snapshot restore edge doesn't deliver barriers while the other edges are drained.
+        final boolean unalignedSnapshots = jobConfig.isUnalignedSnapshots()
+                && srcVertex.inboundEdges().stream()
+                            .filter(e -> !e.isSnapshotRestoreEdge())
+                            .allMatch(ExecutionPlan::supportsInFlightItems);
         for (EdgeDef inEdge : srcVertex.inboundEdges()) {
             // each tasklet has one input conveyor per edge
             final ConcurrentConveyor<Object> conveyor = localConveyorMap.get(inEdge.edgeId())[localProcessorIdx];
             inboundStreams.add(newEdgeStream(inEdge, conveyor,
+                    unalignedSnapshots && !inEdge.isSnapshotRestoreEdge() ? inFlightItemPartitionKeyFn(inEdge) : null,
                     "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx));
         }
         return inboundStreams;
     }
 
+    /**
+     * Returns true, if the in-flight items of the edge can be saved to an
+     * unaligned snapshot: the restored items must be routed to the processor
+     * that would receive them from the edge.
+     */
+    private static boolean supportsInFlightItems(EdgeDef edge) {
+        return !edge.sourceVertex().isSnapshotVertex() && !edge.destVertex().isSnapshotVertex()
+                && (edge.routingPolicy() == RoutingPolicy.PARTITIONED || edge.routingPolicy() == RoutingPolicy.UNICAST);
+    }
+
+    /**
+     * Returns a function that maps an in-flight item of the edge to a key of
+     * the partition the edge routes it to. The items of a unicast edge can be
+     * restored to any processor, they are spread over all partitions.
+     */
+    @SuppressWarnings("unchecked")
+    private ToIntFunction<Object> inFlightItemPartitionKeyFn(EdgeDef edge) {
+        final int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+        final int[] partitionKeys = ((JetService) nodeEngine.getService(JetService.SERVICE_NAME))
+                .getSharedPartitionKeys();
+        if (edge.routingPolicy() == RoutingPolicy.UNICAST) {
+            return item -> partitionKeys[ThreadLocalRandom.current().nextInt(partitionCount)];
+        }
+        final Partitioner<Object> partitioner = edge.partitioner();
+        return item -> partitionKeys[partitioner.getPartition(item, partitionCount)];
+    }
+
     private ConcurrentInboundEdgeStream newEdgeStream(EdgeDef inEdge, ConcurrentConveyor<Object> conveyor,
                                                       String debugName) {
+        return newEdgeStream(inEdge, conveyor, null, debugName);
+    }
+
+    private ConcurrentInboundEdgeStream newEdgeStream(EdgeDef inEdge, ConcurrentConveyor<Object> conveyor,
+                                                      @Nullable ToIntFunction<Object> inFlightItemPartitionKeyFn,
+                                                      String debugName) {
         return new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(), inEdge.priority(),
                 jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE,
-                debugName);
+                inFlightItemPartitionKeyFn, debugName);
     }
 
     public List<Processor> getProcessors() {
         return processors;
     }
 
+    /**
+     * Returns the off-heap state memory of this execution or {@code null}
+     * if it's not configured.
+     */
+    @Nullable
+    public OffHeapStateMemory getOffHeapStateMemory() {
+        return offHeapStateMemory;
+    }
+
     public long lastSnapshotId() {
         return lastSnapshotId;
     }
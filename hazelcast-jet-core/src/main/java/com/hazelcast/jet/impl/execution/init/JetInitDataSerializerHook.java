@@ -21,6 +21,7 @@ import com.hazelcast.internal.serialization.impl.FactoryIdHelper;
 import com.hazelcast.jet.impl.ClusterMetadata;
 import com.hazelcast.jet.impl.JobExecutionRecord;
 import com.hazelcast.jet.impl.JobExecutionRecord.SnapshotStats;
+import com.hazelcast.jet.impl.JobExecutionRecord.VertexSnapshotStats;
 import com.hazelcast.jet.impl.JobRecord;
 import com.hazelcast.jet.impl.JobRepository.FilterJobResultByNamePredicate;
 import com.hazelcast.jet.impl.JobRepository.UpdateJobExecutionRecordEntryProcessor;
@@ -28,6 +29,7 @@ import com.hazelcast.jet.impl.JobResult;
 import com.hazelcast.jet.impl.JobSummary;
 import com.hazelcast.jet.impl.SnapshotValidationRecord;
 import com.hazelcast.jet.impl.aggregate.AggregateOpAggregator;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
 import com.hazelcast.jet.impl.operation.GetClusterMetadataOperation;
 import com.hazelcast.jet.impl.operation.GetJobConfigOperation;
@@ -38,10 +40,12 @@ import com.hazelcast.jet.impl.operation.GetJobStatusOperation;
 import com.hazelcast.jet.impl.operation.GetJobSubmissionTimeOperation;
 import com.hazelcast.jet.impl.operation.GetJobSummaryListOperation;
 import com.hazelcast.jet.impl.operation.GetLocalJobMetricsOperation;
+import com.hazelcast.jet.impl.operation.GetLocalSnapshotChunkCountOperation;
 import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.JoinSubmittedJobOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.operation.PrepareForPassiveClusterOperation;
+import com.hazelcast.jet.impl.operation.ReplicateSnapshotChunkOperation;
 import com.hazelcast.jet.impl.operation.ResumeJobOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
@@ -99,6 +103,10 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
     public static final int AGGREGATE_OP_AGGREGATOR = 38;
     public static final int GET_JOB_METRICS_OP = 39;
     public static final int GET_LOCAL_JOB_METRICS_OP = 40;
+    public static final int REPLICATE_SNAPSHOT_CHUNK_OP = 41;
+    public static final int GET_LOCAL_SNAPSHOT_CHUNK_COUNT_OP = 42;
+    public static final int IN_FLIGHT_ITEM_KEY = 43;
+    public static final int VERTEX_SNAPSHOT_STATS = 44;
 
     public static final int FACTORY_ID = FactoryIdHelper.getFactoryId(JET_IMPL_DS_FACTORY, JET_IMPL_DS_FACTORY_ID);
 
@@ -193,6 +201,14 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new GetJobMetricsOperation();
                 case GET_LOCAL_JOB_METRICS_OP:
                     return new GetLocalJobMetricsOperation();
+                case REPLICATE_SNAPSHOT_CHUNK_OP:
+                    return new ReplicateSnapshotChunkOperation();
+                case GET_LOCAL_SNAPSHOT_CHUNK_COUNT_OP:
+                    return new GetLocalSnapshotChunkCountOperation();
+                case IN_FLIGHT_ITEM_KEY:
+                    return new InFlightItemKey();
+                case VERTEX_SNAPSHOT_STATS:
+                    return new VertexSnapshotStats();
                 default:
                     throw new IllegalArgumentException("Unknown type id " + typeId);
             }
@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.execution.init;
 
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.impl.MasterJobContext;
 import com.hazelcast.nio.ObjectDataInput;
@@ -39,15 +40,22 @@ public class VertexDef implements IdentifiedDataSerializable {
     private String name;
     private ProcessorSupplier processorSupplier;
     private int localParallelism;
+    private IdleStrategyType idleStrategy;
 
     VertexDef() {
     }
 
     VertexDef(int id, String name, ProcessorSupplier processorSupplier, int localParallelism) {
+        this(id, name, processorSupplier, localParallelism, null);
+    }
+
+    VertexDef(int id, String name, ProcessorSupplier processorSupplier, int localParallelism,
+              IdleStrategyType idleStrategy) {
         this.id = id;
         this.name = name;
         this.processorSupplier = processorSupplier;
         this.localParallelism = localParallelism;
+        this.idleStrategy = idleStrategy;
     }
 
     String name() {
@@ -58,6 +66,10 @@ public class VertexDef implements IdentifiedDataSerializable {
         return localParallelism;
     }
 
+    IdleStrategyType idleStrategy() {
+        return idleStrategy;
+    }
+
     int vertexId() {
         return id;
     }
@@ -142,6 +154,7 @@ public class VertexDef implements IdentifiedDataSerializable {
         writeList(out, outboundEdges);
         CustomClassLoadedObject.write(out, processorSupplier);
         out.writeInt(localParallelism);
+        out.writeObject(idleStrategy);
     }
 
     @Override
@@ -152,5 +165,6 @@ public class VertexDef implements IdentifiedDataSerializable {
         outboundEdges = readList(in);
         processorSupplier = CustomClassLoadedObject.read(in);
         localParallelism = in.readInt();
+        idleStrategy = in.readObject();
     }
 }
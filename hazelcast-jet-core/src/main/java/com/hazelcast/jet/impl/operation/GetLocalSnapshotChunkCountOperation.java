@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.ExceptionAction;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.ReadonlyOperation;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An operation sent from the master to all members to count the chunks of
+ * a snapshot in their {@link LocalDiskSnapshotStore}, see {@link
+ * LocalDiskSnapshotStore#localChunkCount}.
+ */
+public class GetLocalSnapshotChunkCountOperation extends Operation implements
+        IdentifiedDataSerializable,
+        ReadonlyOperation {
+
+    private String mapName;
+    private long[] snapshotIds;
+    private Set<String> memberUuids;
+    private long response;
+
+    public GetLocalSnapshotChunkCountOperation() {
+    }
+
+    public GetLocalSnapshotChunkCountOperation(String mapName, long[] snapshotIds, Set<String> memberUuids) {
+        this.mapName = mapName;
+        this.snapshotIds = snapshotIds;
+        this.memberUuids = memberUuids;
+    }
+
+    @Override
+    public void run() {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = service.getLocalDiskSnapshotStore();
+        response = store == null ? 0 : store.localChunkCount(mapName, snapshotIds, memberUuids);
+    }
+
+    @Override
+    public Object getResponse() {
+        return response;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.GET_LOCAL_SNAPSHOT_CHUNK_COUNT_OP;
+    }
+
+    @Override
+    public ExceptionAction onInvocationException(Throwable throwable) {
+        // workaround for imdg problem that it retries invokeOnTarget if TargetNotMemberException is thrown
+        return throwable instanceof TargetNotMemberException
+                ? ExceptionAction.THROW_EXCEPTION
+                : super.onInvocationException(throwable);
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(mapName);
+        out.writeLongArray(snapshotIds);
+        out.writeInt(memberUuids.size());
+        for (String uuid : memberUuids) {
+            out.writeUTF(uuid);
+        }
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        mapName = in.readUTF();
+        snapshotIds = in.readLongArray();
+        int size = in.readInt();
+        memberUuids = new HashSet<>(size);
+        for (int i = 0; i < size; i++) {
+            memberUuids.add(in.readUTF());
+        }
+    }
+}
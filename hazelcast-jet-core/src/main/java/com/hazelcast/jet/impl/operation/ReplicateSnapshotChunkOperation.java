@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Operation sent from a member to its peer to write a copy of a snapshot
+ * chunk the member wrote to its {@link LocalDiskSnapshotStore}.
+ */
+public class ReplicateSnapshotChunkOperation extends AsyncOperation {
+
+    private String mapName;
+    private String ownerUuid;
+    private long snapshotId;
+    private byte[] keyBytes;
+    private byte[] chunkBytes;
+
+    public ReplicateSnapshotChunkOperation() {
+    }
+
+    public ReplicateSnapshotChunkOperation(String mapName, String ownerUuid, long snapshotId, byte[] keyBytes,
+                                           byte[] chunkBytes) {
+        this.mapName = mapName;
+        this.ownerUuid = ownerUuid;
+        this.snapshotId = snapshotId;
+        this.keyBytes = keyBytes;
+        this.chunkBytes = chunkBytes;
+    }
+
+    @Override
+    protected CompletableFuture<Void> doRun() {
+        LocalDiskSnapshotStore store = getJetService().getLocalDiskSnapshotStore();
+        if (store == null) {
+            throw new JetException("Local-disk snapshot store isn't enabled on " + getNodeEngine().getThisAddress());
+        }
+        return store.putReplica(mapName, ownerUuid, snapshotId, keyBytes, chunkBytes);
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.REPLICATE_SNAPSHOT_CHUNK_OP;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(mapName);
+        out.writeUTF(ownerUuid);
+        out.writeLong(snapshotId);
+        out.writeByteArray(keyBytes);
+        out.writeByteArray(chunkBytes);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        mapName = in.readUTF();
+        ownerUuid = in.readUTF();
+        snapshotId = in.readLong();
+        keyBytes = in.readByteArray();
+        chunkBytes = in.readByteArray();
+    }
+}
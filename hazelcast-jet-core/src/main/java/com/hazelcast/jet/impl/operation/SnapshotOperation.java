@@ -17,16 +17,22 @@
 package com.hazelcast.jet.impl.operation;
 
 import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.JobExecutionRecord.VertexSnapshotStats;
 import com.hazelcast.jet.impl.execution.ExecutionContext;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.jet.impl.JobExecutionRecord.readVertexStats;
+import static com.hazelcast.jet.impl.JobExecutionRecord.writeVertexStats;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static java.util.Objects.requireNonNull;
 
@@ -41,17 +47,20 @@ public class SnapshotOperation extends AsyncJobOperation {
     private long snapshotId;
     private String mapName;
     private boolean isTerminal;
+    private boolean isIncremental;
 
     // for deserialization
     public SnapshotOperation() {
     }
 
-    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal) {
+    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal,
+                             boolean isIncremental) {
         super(jobId);
         this.executionId = executionId;
         this.snapshotId = snapshotId;
         this.mapName = mapName;
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
     }
 
     @Override
@@ -60,7 +69,12 @@ public class SnapshotOperation extends AsyncJobOperation {
         ExecutionContext ctx = service.getJobExecutionService().assertExecutionContext(
                 getCallerAddress(), jobId(), executionId, getClass().getSimpleName()
         );
-        CompletableFuture<SnapshotOperationResult> future = ctx.beginSnapshot(snapshotId, mapName, isTerminal)
+        if (!isIncremental) {
+            // the master clears the snapshot IMap, the other stores delete the local data here
+            service.getSnapshotStore(mapName).clearOlderSnapshots(mapName, snapshotId);
+        }
+        CompletableFuture<SnapshotOperationResult> future = ctx
+                .beginSnapshot(snapshotId, mapName, isTerminal, isIncremental)
                 .exceptionally(exc -> new SnapshotOperationResult(0, 0, 0, exc))
                 .thenApply(result -> {
                     if (result.getError() == null) {
@@ -107,6 +121,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         out.writeLong(snapshotId);
         out.writeUTF(mapName);
         out.writeBoolean(isTerminal);
+        out.writeBoolean(isIncremental);
     }
 
     @Override
@@ -116,6 +131,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         snapshotId = in.readLong();
         mapName = in.readUTF();
         isTerminal = in.readBoolean();
+        isIncremental = in.readBoolean();
     }
 
     /**
@@ -125,15 +141,22 @@ public class SnapshotOperation extends AsyncJobOperation {
         private long numBytes;
         private long numKeys;
         private long numChunks;
+        private Map<String, VertexSnapshotStats> vertexStats = new HashMap<>();
         private String error;
 
         public SnapshotOperationResult() {
         }
 
         public SnapshotOperationResult(long numBytes, long numKeys, long numChunks, Throwable error) {
+            this(numBytes, numKeys, numChunks, new HashMap<>(), error);
+        }
+
+        public SnapshotOperationResult(long numBytes, long numKeys, long numChunks,
+                                       @Nonnull Map<String, VertexSnapshotStats> vertexStats, Throwable error) {
             this.numBytes = numBytes;
             this.numKeys = numKeys;
             this.numChunks = numChunks;
+            this.vertexStats = vertexStats;
             this.error = error == null ? null : requireNonNull(error.toString());
         }
 
@@ -149,6 +172,11 @@ public class SnapshotOperation extends AsyncJobOperation {
             return numChunks;
         }
 
+        @Nonnull
+        public Map<String, VertexSnapshotStats> getVertexStats() {
+            return vertexStats;
+        }
+
         public String getError() {
             return error;
         }
@@ -162,6 +190,12 @@ public class SnapshotOperation extends AsyncJobOperation {
             numBytes += other.numBytes;
             numKeys += other.numKeys;
             numChunks += other.numChunks;
+            other.vertexStats.forEach((vertexName, stats) -> vertexStats.merge(vertexName, stats, (s1, s2) -> {
+                VertexSnapshotStats res = new VertexSnapshotStats();
+                res.merge(s1);
+                res.merge(s2);
+                return res;
+            }));
             if (error == null) {
                 error = other.error;
             }
@@ -173,6 +207,7 @@ public class SnapshotOperation extends AsyncJobOperation {
                     "numBytes=" + numBytes +
                     ", numKeys=" + numKeys +
                     ", numChunks=" + numChunks +
+                    ", vertexStats=" + vertexStats +
                     ", error=" + error +
                     '}';
         }
@@ -192,6 +227,7 @@ public class SnapshotOperation extends AsyncJobOperation {
             out.writeLong(numBytes);
             out.writeLong(numKeys);
             out.writeLong(numChunks);
+            writeVertexStats(out, vertexStats);
             out.writeUTF(error);
         }
 
@@ -200,6 +236,7 @@ public class SnapshotOperation extends AsyncJobOperation {
             numBytes = in.readLong();
             numKeys = in.readLong();
             numChunks = in.readLong();
+            vertexStats = new HashMap<>(readVertexStats(in));
             error = in.readUTF();
         }
     }
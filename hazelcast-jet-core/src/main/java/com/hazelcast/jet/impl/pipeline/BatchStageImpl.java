@@ -37,6 +37,7 @@ import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.jet.pipeline.JoinClause;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static com.hazelcast.jet.Traversers.singleton;
@@ -122,6 +123,16 @@ public class BatchStageImpl<T> extends ComputeStageImplBase<T> implements BatchS
                 (c, t) -> mapAsyncFn.apply(c, t).thenApply(Traversers::singleton));
     }
 
+    @Nonnull @Override
+    public <C, R> BatchStage<R> mapUsingContextAsyncBatched(
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyMicros,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    ) {
+        return attachMapUsingContextAsyncBatched(contextFactory, maxBatchSize, maxBatchLatencyMicros, mapAsyncFn);
+    }
+
     @Nonnull @Override
     public <C> BatchStage<T> filterUsingContext(
             @Nonnull ContextFactory<C> contextFactory,
@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.pipeline;
 
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.function.BiFunctionEx;
 import com.hazelcast.jet.function.BiPredicateEx;
@@ -27,6 +28,7 @@ import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.FlatMapStatefulTransform;
+import com.hazelcast.jet.impl.pipeline.transform.FlatMapUsingContextAsyncBatchedTransform;
 import com.hazelcast.jet.impl.pipeline.transform.FlatMapTransform;
 import com.hazelcast.jet.impl.pipeline.transform.GlobalFlatMapStatefulTransform;
 import com.hazelcast.jet.impl.pipeline.transform.GlobalMapStatefulTransform;
@@ -47,6 +49,7 @@ import com.hazelcast.jet.pipeline.SinkStage;
 import com.hazelcast.jet.pipeline.StreamStage;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 
@@ -66,10 +69,13 @@ import static com.hazelcast.jet.impl.pipeline.transform.ProcessorTransform.flatM
 import static com.hazelcast.jet.impl.pipeline.transform.ProcessorTransform.flatMapUsingContextTransform;
 import static com.hazelcast.jet.impl.pipeline.transform.ProcessorTransform.mapUsingContextTransform;
 import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkPositive;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
 public abstract class ComputeStageImplBase<T> extends AbstractStage {
 
@@ -213,6 +219,29 @@ public abstract class ComputeStageImplBase<T> extends AbstractStage {
         return (RET) attach(transform, fnAdapter);
     }
 
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    <K, RET> RET attachStreamingDistinct(long ttl, @Nonnull FunctionEx<? super T, ? extends K> keyFn) {
+        checkSerializable(keyFn, "keyFn");
+        ensureJetEvents(this, "This pipeline stage");
+        // the state of a key only marks it as seen, the stateful transform expires it after the ttl
+        MapStatefulTransform<T, K, LongAccumulator, T, T> transform = new MapStatefulTransform(
+                this.transform,
+                ttl,
+                fnAdapter.adaptKeyFn(keyFn),
+                fnAdapter.adaptTimestampFn(),
+                LongAccumulator::new,
+                fnAdapter.adaptStatefulMapFn((LongAccumulator seen, T t) -> {
+                    if (seen.get() != 0) {
+                        return null;
+                    }
+                    seen.set(1);
+                    return t;
+                }),
+                fnAdapter.adaptStatefulOutputFn((e, k, t) -> t));
+        return (RET) attach(transform, fnAdapter);
+    }
+
     @Nonnull
     @SuppressWarnings("unchecked")
     <C, R, RET> RET attachMapUsingContext(
@@ -266,6 +295,24 @@ public abstract class ComputeStageImplBase<T> extends AbstractStage {
                 fnAdapter);
     }
 
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    <C, R, RET> RET attachMapUsingContextAsyncBatched(
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyMicros,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    ) {
+        checkPositive(maxBatchSize, "maxBatchSize must be positive");
+        checkNotNegative(maxBatchLatencyMicros, "maxBatchLatencyMicros must not be negative");
+        checkSerializable(mapAsyncFn, "mapAsyncFn");
+        BiFunctionEx adaptedMapFn = fnAdapter.adaptMapUsingContextAsyncBatchedFn(mapAsyncFn);
+        return (RET) attach(
+                new FlatMapUsingContextAsyncBatchedTransform(transform, "map", contextFactory,
+                        maxBatchSize, MICROSECONDS.toNanos(maxBatchLatencyMicros), adaptedMapFn),
+                fnAdapter);
+    }
+
     @Nonnull
     @SuppressWarnings("unchecked")
     <C, K, R, RET> RET attachMapUsingPartitionedContext(
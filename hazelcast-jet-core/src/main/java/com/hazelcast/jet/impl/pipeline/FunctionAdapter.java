@@ -16,7 +16,9 @@
 
 package com.hazelcast.jet.impl.pipeline;
 
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.aggregate.AggregateOperation2;
@@ -37,10 +39,15 @@ import com.hazelcast.jet.impl.util.WrappingProcessorMetaSupplier;
 import com.hazelcast.jet.pipeline.JoinClause;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.impl.JetEvent.jetEvent;
 
 
@@ -125,6 +132,45 @@ public class FunctionAdapter {
         return (BiFunctionEx) flatMapAsyncFn;
     }
 
+    @Nonnull
+    <C, T, R> BiFunctionEx<? super C, ?, ? extends CompletableFuture<Traverser<?>>>
+    adaptMapUsingContextAsyncBatchedFn(
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    ) {
+        return (C context, List<T> items) -> {
+            CompletableFuture<List<R>> future = mapAsyncFn.apply(context, items);
+            if (future == null) {
+                return null;
+            }
+            return future.thenApply(results -> traverseBatchResults(items, results, (item, r) -> r));
+        };
+    }
+
+    /**
+     * Returns a traverser over the non-null results of a batch, each mapped
+     * with the item it was computed for.
+     */
+    static <T, R, OUT> Traverser<OUT> traverseBatchResults(
+            @Nonnull List<T> items,
+            @Nullable List<R> results,
+            @Nonnull BiFunction<? super T, ? super R, ? extends OUT> outputFn
+    ) {
+        if (results == null) {
+            return Traversers.empty();
+        }
+        if (results.size() != items.size()) {
+            throw new JetException("The batch of " + items.size() + " items got " + results.size() + " results");
+        }
+        List<OUT> output = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            R r = results.get(i);
+            if (r != null) {
+                output.add(outputFn.apply(items.get(i), r));
+            }
+        }
+        return traverseIterable(output);
+    }
+
     @Nonnull
     <T, R extends CharSequence> FunctionEx<?, ? extends R> adaptToStringFn(
             @Nonnull FunctionEx<? super T, ? extends R> toStringFn
@@ -310,6 +356,25 @@ class JetEventFunctionAdapter extends FunctionAdapter {
                 flatMapAsyncFn.apply(context, e.payload()).thenApply(trav -> trav.map(re -> jetEvent(e.timestamp(), re)));
     }
 
+    @Nonnull @Override
+    <C, T, R> BiFunctionEx<? super C, ?, ? extends CompletableFuture<Traverser<?>>>
+    adaptMapUsingContextAsyncBatchedFn(
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    ) {
+        return (C context, List<JetEvent<T>> events) -> {
+            List<T> payloads = new ArrayList<>(events.size());
+            for (JetEvent<T> e : events) {
+                payloads.add(e.payload());
+            }
+            CompletableFuture<List<R>> future = mapAsyncFn.apply(context, payloads);
+            if (future == null) {
+                return null;
+            }
+            return future.thenApply(results ->
+                    traverseBatchResults(events, results, (e, r) -> jetEvent(e.timestamp(), r)));
+        };
+    }
+
     @Nonnull @Override
     <T, STR extends CharSequence> FunctionEx<? super JetEvent<T>, ? extends STR> adaptToStringFn(
             @Nonnull FunctionEx<? super T, ? extends STR> toStringFn
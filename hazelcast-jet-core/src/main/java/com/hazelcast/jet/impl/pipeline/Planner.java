@@ -24,17 +24,23 @@ import com.hazelcast.jet.core.EventTimePolicy;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.ResettableSingletonTraverser;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.SupplierEx;
 import com.hazelcast.jet.impl.pipeline.transform.FlatMapTransform;
 import com.hazelcast.jet.impl.pipeline.transform.MapTransform;
+import com.hazelcast.jet.impl.pipeline.transform.PeekTransform;
+import com.hazelcast.jet.impl.pipeline.transform.ProcessorTransform;
 import com.hazelcast.jet.impl.pipeline.transform.SinkTransform;
 import com.hazelcast.jet.impl.pipeline.transform.StreamSourceTransform;
 import com.hazelcast.jet.impl.pipeline.transform.TimestampTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.processor.FusedFlatMapP;
+import com.hazelcast.jet.impl.processor.FusedInputFlatMapP;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.impl.util.Util;
+import com.hazelcast.jet.impl.util.WrappingProcessorMetaSupplier;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 
@@ -111,6 +117,7 @@ public class Planner {
 
         // fuse subsequent map/filter/flatMap transforms into one
         Map<Transform, List<Transform>> originalParents = new HashMap<>();
+        Map<Transform, List<Transform>> downstreamMap = new HashMap<>(adjacencyMap);
         List<Transform> transforms = new ArrayList<>(adjacencyMap.keySet());
         for (int i = 0; i < transforms.size(); i++) {
             Transform transform = transforms.get(i);
@@ -123,14 +130,25 @@ public class Planner {
             Transform fused = fuseFlatMapTransforms(chain);
             transforms.set(i, fused);
             Transform lastInChain = chain.get(chain.size() - 1);
+            downstreamMap.put(fused, adjacencyMap.get(lastInChain));
             for (Transform downstream : adjacencyMap.get(lastInChain)) {
                 originalParents.put(downstream, new ArrayList<>(downstream.upstream()));
                 downstream.upstream().replaceAll(p -> p == lastInChain ? fused : p);
             }
         }
 
+        Map<Transform, FunctionEx<Processor, Processor>> inputWrapFns = new HashMap<>();
         for (Transform transform : transforms) {
+            if (fuseIntoUpstreamVertex(transform, adjacencyMap)
+                    || fuseIntoDownstreamVertex(transform, downstreamMap, inputWrapFns, originalParents)) {
+                continue;
+            }
             transform.addToDag(this);
+            FunctionEx<Processor, Processor> inputWrapFn = inputWrapFns.remove(transform);
+            if (inputWrapFn != null) {
+                xform2vertex.get(transform).v.updateMetaSupplier(
+                        sup -> new WrappingProcessorMetaSupplier(sup, inputWrapFn));
+            }
         }
 
         // restore original parents
@@ -198,6 +216,115 @@ public class Planner {
         }
     }
 
+    /**
+     * Fuses a map/flatMap transform into the vertex of its upstream
+     * transform, if the transform is the only consumer of that vertex and it
+     * would have the same local parallelism. Instead of a new vertex, the
+     * processors of the upstream vertex are wrapped with a {@link
+     * FusedFlatMapP}, which passes their output through the function by a
+     * direct call. Returns {@code true} if the transform was fused.
+     */
+    private boolean fuseIntoUpstreamVertex(Transform transform, Map<Transform, List<Transform>> adjacencyMap) {
+        if (!(transform instanceof MapTransform || transform instanceof FlatMapTransform)
+                || transform.upstream().size() != 1) {
+            return false;
+        }
+        Transform upstream = transform.upstream().get(0);
+        // a peeked vertex can have other consumers than the peek transform. The
+        // transforms fused above aren't in the adjacency map, we don't fuse them.
+        List<Transform> upstreamDownstreams = adjacencyMap.get(upstream);
+        if (upstream instanceof PeekTransform || upstreamDownstreams == null || upstreamDownstreams.size() != 1) {
+            return false;
+        }
+        PlannerVertex upstreamPv = xform2vertex.get(upstream);
+        int upstreamLocalParallelism = upstreamPv.v.getLocalParallelism() != -1
+                ? upstreamPv.v.getLocalParallelism()
+                : upstreamPv.v.getMetaSupplier().preferredLocalParallelism();
+        if (upstreamPv.hasOutboundEdges() || upstreamLocalParallelism != transform.localParallelism()) {
+            return false;
+        }
+        FunctionEx<Processor, Processor> wrapFn = transform instanceof MapTransform
+                ? fusedMapP(((MapTransform) transform).mapFn())
+                : fusedFlatMapP(((FlatMapTransform) transform).flatMapFn());
+        upstreamPv.v.updateMetaSupplier(sup -> new WrappingProcessorMetaSupplier(sup, wrapFn));
+        xform2vertex.put(transform, upstreamPv);
+        return true;
+    }
+
+    /**
+     * Fuses a map/flatMap transform into the vertex of its downstream
+     * transform, if that is the only consumer of the transform, it would be
+     * connected by a plain local edge and it would have the same local
+     * parallelism. This applies to {@code mapUsingContext}, {@code
+     * filterUsingContext}, {@code flatMapUsingContext} and custom
+     * transforms. The downstream transform is connected directly to the
+     * upstream of the fused transform and its processors will be wrapped with
+     * a {@link FusedInputFlatMapP} after it's added to the DAG. Returns
+     * {@code true} if the transform was fused.
+     * <p>
+     * Transforms with a distributed or partitioned input edge, such as
+     * {@code mapStateful} or a group-by, are never fused with their
+     * upstream: the map function must run before the items are routed by
+     * the edge.
+     */
+    private static boolean fuseIntoDownstreamVertex(
+            Transform transform,
+            Map<Transform, List<Transform>> downstreamMap,
+            Map<Transform, FunctionEx<Processor, Processor>> inputWrapFns,
+            Map<Transform, List<Transform>> originalParents
+    ) {
+        if (!(transform instanceof MapTransform || transform instanceof FlatMapTransform)
+                || transform.upstream().size() != 1) {
+            return false;
+        }
+        List<Transform> downstreams = downstreamMap.get(transform);
+        if (downstreams == null || downstreams.size() != 1) {
+            return false;
+        }
+        Transform downstream = downstreams.get(0);
+        // subclasses of ProcessorTransform use partitioned edges
+        if (downstream.getClass() != ProcessorTransform.class
+                || downstream.upstream().size() != 1
+                || downstream.localParallelism() != transform.localParallelism()
+                || inputWrapFns.containsKey(downstream)) {
+            return false;
+        }
+        inputWrapFns.put(downstream, transform instanceof MapTransform
+                ? fusedInputMapP(((MapTransform) transform).mapFn())
+                : fusedInputFlatMapP(((FlatMapTransform) transform).flatMapFn()));
+        originalParents.putIfAbsent(downstream, new ArrayList<>(downstream.upstream()));
+        downstream.upstream().set(0, transform.upstream().get(0));
+        return true;
+    }
+
+    private static FunctionEx<Processor, Processor> fusedMapP(FunctionEx<Object, Object> mapFn) {
+        return p -> {
+            ResettableSingletonTraverser<Object> trav = new ResettableSingletonTraverser<>();
+            return new FusedFlatMapP(p, item -> {
+                trav.accept(mapFn.apply(item));
+                return trav;
+            });
+        };
+    }
+
+    private static FunctionEx<Processor, Processor> fusedFlatMapP(FunctionEx<Object, Traverser> flatMapFn) {
+        return p -> new FusedFlatMapP(p, flatMapFn);
+    }
+
+    private static FunctionEx<Processor, Processor> fusedInputMapP(FunctionEx<Object, Object> mapFn) {
+        return p -> {
+            ResettableSingletonTraverser<Object> trav = new ResettableSingletonTraverser<>();
+            return new FusedInputFlatMapP(p, item -> {
+                trav.accept(mapFn.apply(item));
+                return trav;
+            });
+        };
+    }
+
+    private static FunctionEx<Processor, Processor> fusedInputFlatMapP(FunctionEx<Object, Traverser> flatMapFn) {
+        return p -> new FusedInputFlatMapP(p, flatMapFn);
+    }
+
     private static FunctionEx mergeMapFunctions(List<Transform> chain) {
         if (chain.isEmpty()) {
             return null;
@@ -270,7 +397,8 @@ public class Planner {
             EventTimePolicy<T> original, long watermarkThrottlingFrameSize
     ) {
         return eventTimePolicy(original.timestampFn(), original.wrapFn(), original.newWmPolicyFn(),
-                watermarkThrottlingFrameSize, 0, original.idleTimeoutMillis());
+                watermarkThrottlingFrameSize, 0, original.idleTimeoutMillis())
+                .withMaxSkew(original.maxSkew());
     }
 
     public static <E> List<E> tailList(List<E> list) {
@@ -294,5 +422,9 @@ public class Planner {
         public int nextAvailableOrdinal() {
             return availableOrdinal++;
         }
+
+        boolean hasOutboundEdges() {
+            return availableOrdinal > 0;
+        }
     }
 }
@@ -46,6 +46,11 @@ public class StreamSourceStageImpl<T> implements StreamSourceStage<T> {
 
     @Override
     public StreamStage<T> withNativeTimestamps(long allowedLag) {
+        return withNativeTimestamps(allowedLag, 0);
+    }
+
+    @Override
+    public StreamStage<T> withNativeTimestamps(long allowedLag, long maxSkew) {
         checkTrue(transform.supportsNativeTimestamps(), "The source doesn't support native timestamps");
         transform.setEventTimePolicy(eventTimePolicy(
                 null,
@@ -54,12 +59,19 @@ public class StreamSourceStageImpl<T> implements StreamSourceStage<T> {
                 0,
                 0,
                 transform.partitionIdleTimeout()
-        ));
+        ).withMaxSkew(maxSkew));
         return new StreamStageImpl<>(transform, ADAPT_TO_JET_EVENT, pipeline);
     }
 
     @Override
     public StreamStage<T> withTimestamps(@Nonnull ToLongFunctionEx<? super T> timestampFn, long allowedLag) {
+        return withTimestamps(timestampFn, allowedLag, 0);
+    }
+
+    @Override
+    public StreamStage<T> withTimestamps(
+            @Nonnull ToLongFunctionEx<? super T> timestampFn, long allowedLag, long maxSkew
+    ) {
         checkSerializable(timestampFn, "timestampFn");
         transform.setEventTimePolicy(eventTimePolicy(
                 timestampFn,
@@ -68,7 +80,7 @@ public class StreamSourceStageImpl<T> implements StreamSourceStage<T> {
                 0,
                 0,
                 transform.partitionIdleTimeout()
-        ));
+        ).withMaxSkew(maxSkew));
         return new StreamStageImpl<>(transform, ADAPT_TO_JET_EVENT, pipeline);
     }
 
@@ -36,6 +36,7 @@ import com.hazelcast.jet.pipeline.StreamStageWithKey;
 import com.hazelcast.jet.pipeline.WindowDefinition;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static com.hazelcast.jet.Traversers.singleton;
@@ -120,6 +121,16 @@ public class StreamStageImpl<T> extends ComputeStageImplBase<T> implements Strea
                 (c, t) -> mapAsyncFn.apply(c, t).thenApply(Traversers::singleton));
     }
 
+    @Nonnull @Override
+    public <C, R> StreamStage<R> mapUsingContextAsyncBatched(
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyMicros,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    ) {
+        return attachMapUsingContextAsyncBatched(contextFactory, maxBatchSize, maxBatchLatencyMicros, mapAsyncFn);
+    }
+
     @Nonnull @Override
     public <C> StreamStage<T> filterUsingContext(
             @Nonnull ContextFactory<C> contextFactory,
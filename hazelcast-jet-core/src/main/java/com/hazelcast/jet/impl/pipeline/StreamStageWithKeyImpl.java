@@ -25,6 +25,8 @@ import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.SupplierEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.function.TriPredicate;
+import com.hazelcast.jet.impl.pipeline.transform.StreamStreamJoinTransform;
+import com.hazelcast.jet.impl.processor.ApproximateDistinctP;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.jet.pipeline.StreamStageWithKey;
@@ -34,6 +36,13 @@ import javax.annotation.Nonnull;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 
+import static com.hazelcast.jet.impl.pipeline.ComputeStageImplBase.ADAPT_TO_JET_EVENT;
+import static com.hazelcast.jet.impl.pipeline.ComputeStageImplBase.ensureJetEvents;
+import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.util.Arrays.asList;
+
 public class StreamStageWithKeyImpl<T, K> extends StageWithGroupingBase<T, K> implements StreamStageWithKey<T, K> {
 
     StreamStageWithKeyImpl(
@@ -48,6 +57,47 @@ public class StreamStageWithKeyImpl<T, K> extends StageWithGroupingBase<T, K> im
         return new StageWithKeyAndWindowImpl<>((StreamStageImpl<T>) computeStage, keyFn(), wDef);
     }
 
+    @Nonnull @Override
+    public <T1, R> StreamStage<R> joinStream(
+            @Nonnull StreamStageWithKey<T1, ? extends K> stage1,
+            long lowerBound,
+            long upperBound,
+            @Nonnull BiFunctionEx<? super T, ? super T1, ? extends R> mapToOutputFn
+    ) {
+        checkTrue(lowerBound <= upperBound, "lowerBound must not be greater than upperBound");
+        checkSerializable(mapToOutputFn, "mapToOutputFn");
+        ensureJetEvents(computeStage, "This pipeline stage");
+        ensureJetEvents(((StageWithGroupingBase) stage1).computeStage, "stage1");
+        JetEventFunctionAdapter fnAdapter = ADAPT_TO_JET_EVENT;
+        return computeStage.attach(new StreamStreamJoinTransform<K, T, T1, R>(
+                        asList(computeStage.transform, transformOf(stage1)),
+                        asList(fnAdapter.adaptKeyFn(keyFn()), fnAdapter.adaptKeyFn(stage1.keyFn())),
+                        lowerBound,
+                        upperBound,
+                        mapToOutputFn),
+                fnAdapter);
+    }
+
+    @Nonnull @Override
+    public StreamStage<T> distinct(long ttl) {
+        checkPositive(ttl, "ttl must be positive");
+        return computeStage.attachStreamingDistinct(ttl, keyFn());
+    }
+
+    @Nonnull @Override
+    public StreamStage<T> approximateDistinct(long ttl, long expectedKeys, double falsePositiveProbability) {
+        checkPositive(ttl, "ttl must be positive");
+        checkPositive(expectedKeys, "expectedKeys must be positive");
+        checkTrue(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+                "falsePositiveProbability must be between 0 and 1, exclusive");
+        ensureJetEvents(computeStage, "This pipeline stage");
+        FunctionEx<?, ? extends K> adaptedKeyFn = ADAPT_TO_JET_EVENT.adaptKeyFn(keyFn());
+        return computeStage.attachPartitionedCustomTransform("approximate-distinct",
+                ProcessorMetaSupplier.of(() ->
+                        new ApproximateDistinctP<>(adaptedKeyFn, ttl, expectedKeys, falsePositiveProbability)),
+                keyFn());
+    }
+
     @Nonnull @Override
     public <S, R> StreamStage<Entry<K, R>> mapStateful(
             long ttl,
@@ -19,11 +19,16 @@ package com.hazelcast.jet.impl.pipeline.transform;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.SupplierEx;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.pipeline.ContextFactory;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.Partitioner.HASH_CODE;
@@ -31,6 +36,17 @@ import static com.hazelcast.jet.core.processor.Processors.filterUsingContextP;
 import static com.hazelcast.jet.impl.pipeline.transform.AggregateTransform.FIRST_STAGE_VERTEX_NAME_SUFFIX;
 
 public class DistinctTransform<T, K> extends AbstractTransform {
+    /**
+     * The maximum number of keys the first stage remembers. The second stage
+     * is exact, so the first stage only has to catch the duplicates of the
+     * recently seen keys; when it's full, it forgets the least recently seen
+     * key.
+     */
+    private static final int FIRST_STAGE_MAX_KEYS = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
     private final FunctionEx<? super T, ? extends K> keyFn;
 
     public DistinctTransform(Transform upstream, FunctionEx<? super T, ? extends K> keyFn) {
@@ -41,16 +57,28 @@ public class DistinctTransform<T, K> extends AbstractTransform {
     @Override
     public void addToDag(Planner p) {
         String vertexName = name();
-        Vertex v1 = p.dag.newVertex(vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX, distinctP(keyFn))
-                         .localParallelism(localParallelism());
-        PlannerVertex pv2 = p.addVertex(this, vertexName, localParallelism(), distinctP(keyFn));
+        Vertex v1 = p.dag.newVertex(vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX,
+                distinctP(keyFn, () -> lruSet(FIRST_STAGE_MAX_KEYS))).localParallelism(localParallelism());
+        PlannerVertex pv2 = p.addVertex(this, vertexName, localParallelism(), distinctP(keyFn, HashSet::new));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFn, HASH_CODE));
         p.dag.edge(between(v1, pv2.v).distributed().partitioned(keyFn));
     }
 
     @SuppressWarnings("unchecked")
-    private static <T, K> ProcessorSupplier distinctP(FunctionEx<? super T, ? extends K> keyFn) {
-        return filterUsingContextP(ContextFactory.withCreateFn(jet -> new HashSet<>()),
+    private static <T, K> ProcessorSupplier distinctP(
+            FunctionEx<? super T, ? extends K> keyFn,
+            SupplierEx<Set<Object>> createSetFn
+    ) {
+        return filterUsingContextP(ContextFactory.withCreateFn(jet -> createSetFn.get()),
                 (seenItems, item) -> seenItems.add(keyFn.apply((T) item)));
     }
+
+    private static Set<Object> lruSet(int maxSize) {
+        return Collections.newSetFromMap(new LinkedHashMap<Object, Boolean>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
 }
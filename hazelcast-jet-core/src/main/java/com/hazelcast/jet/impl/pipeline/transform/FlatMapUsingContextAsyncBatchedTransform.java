@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.BiFunctionEx;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.BatchItemsP;
+import com.hazelcast.jet.pipeline.ContextFactory;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.processor.Processors.flatMapUsingContextAsyncP;
+
+/**
+ * Applies an async function to batches of items. The first vertex collects
+ * the items into lists and passes them over an isolated edge to the second
+ * vertex, which calls the function on each list the same way as {@link
+ * ProcessorTransform#flatMapUsingContextAsyncTransform} calls it on each
+ * item. The isolated edge keeps the order of the items, so the ordering and
+ * watermark guarantees of the async processors apply.
+ */
+public class FlatMapUsingContextAsyncBatchedTransform<C, T, R> extends AbstractTransform {
+
+    private final ContextFactory<C> contextFactory;
+    private final int maxBatchSize;
+    private final long maxBatchLatencyNanos;
+    private final BiFunctionEx<? super C, ? super List<T>, CompletableFuture<Traverser<R>>> flatMapBatchAsyncFn;
+
+    public FlatMapUsingContextAsyncBatchedTransform(
+            @Nonnull Transform upstream,
+            @Nonnull String operationName,
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyNanos,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, CompletableFuture<Traverser<R>>> flatMapBatchAsyncFn
+    ) {
+        super(operationName + "UsingContextAsyncBatched", upstream);
+        this.contextFactory = contextFactory;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchLatencyNanos = maxBatchLatencyNanos;
+        this.flatMapBatchAsyncFn = flatMapBatchAsyncFn;
+    }
+
+    @Override
+    public void addToDag(Planner p) {
+        String vertexName = name();
+        int batchSize = maxBatchSize;
+        long batchLatencyNanos = maxBatchLatencyNanos;
+        Vertex batchV = p.dag.newVertex(vertexName + "-batch", () -> new BatchItemsP<>(batchSize, batchLatencyNanos))
+                             .localParallelism(localParallelism());
+        PlannerVertex pv = p.addVertex(this, vertexName, localParallelism(),
+                flatMapUsingContextAsyncP(contextFactory, Object::hashCode, flatMapBatchAsyncFn));
+        p.addEdges(this, batchV);
+        p.dag.edge(between(batchV, pv.v).isolated());
+    }
+}
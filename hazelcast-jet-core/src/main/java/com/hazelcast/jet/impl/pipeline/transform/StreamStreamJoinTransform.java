@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.function.BiFunctionEx;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.jet.impl.JetEvent;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.StreamStreamJoinP;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.JetEvent.jetEvent;
+import static java.lang.Math.max;
+import static java.util.Collections.nCopies;
+
+public class StreamStreamJoinTransform<K, T0, T1, R> extends AbstractTransform {
+
+    @Nonnull
+    private final List<FunctionEx<?, ? extends K>> keyFns;
+    private final long lowerBound;
+    private final long upperBound;
+    @Nonnull
+    private final BiFunctionEx<? super T0, ? super T1, ? extends R> mapToOutputFn;
+
+    public StreamStreamJoinTransform(
+            @Nonnull List<Transform> upstream,
+            @Nonnull List<FunctionEx<?, ? extends K>> keyFns,
+            long lowerBound,
+            long upperBound,
+            @Nonnull BiFunctionEx<? super T0, ? super T1, ? extends R> mapToOutputFn
+    ) {
+        super("stream-stream-join", upstream);
+        this.keyFns = keyFns;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.mapToOutputFn = mapToOutputFn;
+    }
+
+    //               ---------       ---------
+    //              | stream0 |     | stream1 |
+    //               ---------       ---------
+    //                   |              |
+    //              distributed    distributed
+    //              partitioned    partitioned
+    //                   \              /
+    //                    ---\    /-----
+    //                        v  v
+    //                -------------------
+    //               | StreamStreamJoinP |
+    //                -------------------
+    @Override
+    public void addToDag(Planner p) {
+        List<FunctionEx<?, ? extends K>> keyFns = this.keyFns;
+        long lowerBound = this.lowerBound;
+        long upperBound = this.upperBound;
+        BiFunctionEx<JetEvent<T0>, JetEvent<T1>, JetEvent<R>> outputFn = jetEventOutputFn(mapToOutputFn);
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
+                () -> new StreamStreamJoinP<>(
+                        keyFns,
+                        nCopies(2, (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
+                        lowerBound,
+                        upperBound,
+                        outputFn));
+        p.addEdges(this, pv.v, (e, ord) -> e.distributed().partitioned(keyFns.get(ord)));
+    }
+
+    private static <T0, T1, R> BiFunctionEx<JetEvent<T0>, JetEvent<T1>, JetEvent<R>> jetEventOutputFn(
+            BiFunctionEx<? super T0, ? super T1, ? extends R> mapToOutputFn
+    ) {
+        return (e0, e1) -> {
+            R result = mapToOutputFn.apply(e0.payload(), e1.payload());
+            return result != null ? jetEvent(max(e0.timestamp(), e1.timestamp()), result) : null;
+        };
+    }
+}
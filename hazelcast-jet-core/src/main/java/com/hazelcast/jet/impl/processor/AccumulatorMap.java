@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.core.Processor;
+
+import javax.annotation.Nonnull;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+
+/**
+ * A map from grouping key to accumulator, used by the aggregating
+ * processors. The accumulators are either kept on the heap ({@link
+ * HeapAccumulatorMap}) or serialized in off-heap memory ({@link
+ * OffHeapAccumulatorMap}), depending on {@link
+ * com.hazelcast.jet.config.JobConfig#setOffHeapStateMemoryLimit}.
+ *
+ * @param <K> type of the grouping key
+ * @param <A> type of the accumulator
+ */
+public interface AccumulatorMap<K, A> {
+
+    /**
+     * Creates an off-heap map if the job has off-heap state memory
+     * configured, otherwise a heap map.
+     */
+    @Nonnull
+    static <K, A> AccumulatorMap<K, A> create(
+            @Nonnull Processor.Context context,
+            @Nonnull AggregateOperation<A, ?> aggrOp,
+            @Nonnull A emptyAcc
+    ) {
+        OffHeapStateStore<K, A> store = OffHeapStateStore.forContext(context);
+        return store != null
+                ? new OffHeapAccumulatorMap<>(store, aggrOp)
+                : new HeapAccumulatorMap<>(aggrOp, emptyAcc);
+    }
+
+    /**
+     * Applies the accumulate function to the accumulator for the given key,
+     * creating it if it doesn't exist.
+     *
+     * @return {@code true}, if a new accumulator was created
+     */
+    <T> boolean accumulate(K key, T item, @Nonnull BiConsumer<? super A, ? super T> accumulateFn);
+
+    /**
+     * Stores the accumulator for the key, if there isn't one already.
+     *
+     * @return {@code true}, if the accumulator was stored
+     */
+    boolean putIfAbsent(K key, @Nonnull A acc);
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * Calls the action for each key and accumulator. The accumulator may be
+     * a reused instance, the action must not retain or modify it.
+     */
+    void forEach(@Nonnull BiConsumer<? super K, ? super A> action);
+
+    /**
+     * Returns a traverser over the entries. The map must not be modified
+     * while traversing.
+     */
+    @Nonnull
+    Traverser<Entry<K, A>> traverser();
+
+    /**
+     * Returns a traverser over the entries which empties the map when it's
+     * exhausted. The map must not be accessed until then.
+     */
+    @Nonnull
+    Traverser<Entry<K, A>> drainingTraverser();
+
+    /**
+     * Returns a traverser over the entries to save to the snapshot. The
+     * accumulators can be in serialized form, which the snapshot writer
+     * stores as is.
+     */
+    @Nonnull
+    Traverser<Entry<K, Object>> snapshotTraverser();
+
+    /**
+     * Removes all the entries and releases the memory held by the map.
+     */
+    void clear();
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.datamodel.Tuple3;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
+import static com.hazelcast.jet.impl.util.Util.hash64;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static java.lang.Math.min;
+
+/**
+ * Emits the items whose key it hasn't seen recently, approximately. The
+ * keys are remembered in two Bloom filters: the current one, which every
+ * key is added to, and the previous one. When the watermark advances by
+ * {@code ttl} since the current filter was created, the current filter
+ * becomes the previous one and the previous one is discarded. Therefore a
+ * key is remembered for at least {@code ttl} and at most {@code 2 * ttl} of
+ * event time after its last occurrence, and the memory used doesn't depend
+ * on the number of keys.
+ * <p>
+ * A false positive of the filter causes an item with a new key to be
+ * dropped; a key is never emitted twice within the {@code ttl}.
+ * <p>
+ * Each filter is sized for {@code expectedKeys}, the number of distinct
+ * keys of all processors in one {@code ttl}: on restore every processor
+ * merges the filters saved by all processors, so that it doesn't depend on
+ * how the keys are partitioned.
+ *
+ * @param <K> type of the key
+ */
+public class ApproximateDistinctP<K> extends AbstractProcessor {
+
+    @Probe
+    private final AtomicLong duplicatesDropped = new AtomicLong();
+
+    private final Function<Object, ? extends K> keyFn;
+    private final long ttl;
+    private final long expectedKeys;
+    private final double falsePositiveProbability;
+
+    private BloomFilter currentFilter;
+    private BloomFilter previousFilter;
+    private long currentFilterWm = Long.MIN_VALUE;
+    private long minRestoredFilterWm = Long.MAX_VALUE;
+    private Object pendingItem;
+
+    @SuppressWarnings("unchecked")
+    public ApproximateDistinctP(
+            @Nonnull Function<?, ? extends K> keyFn,
+            long ttl,
+            long expectedKeys,
+            double falsePositiveProbability
+    ) {
+        checkPositive(ttl, "ttl must be positive");
+        this.keyFn = (Function<Object, ? extends K>) keyFn;
+        this.ttl = ttl;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.currentFilter = new BloomFilter(expectedKeys, falsePositiveProbability);
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (pendingItem == null) {
+            long hash = hash64(keyFn.apply(item));
+            // add to the current filter even if seen in the previous one, to keep the key alive
+            boolean isNew = currentFilter.add(hash);
+            if (!isNew || (previousFilter != null && previousFilter.mightContain(hash))) {
+                lazyIncrement(duplicatesDropped);
+                return true;
+            }
+            pendingItem = item;
+        }
+        if (!tryEmit(pendingItem)) {
+            return false;
+        }
+        pendingItem = null;
+        return true;
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark wm) {
+        long wmTs = wm.timestamp();
+        if (currentFilterWm == Long.MIN_VALUE) {
+            currentFilterWm = wmTs;
+        } else if (wmTs - currentFilterWm >= ttl) {
+            // After a jump by 2 * ttl or more the keys of both filters
+            // expired. Written this way to avoid overflowing 2 * ttl.
+            boolean bothExpired = wmTs - currentFilterWm - ttl >= ttl;
+            previousFilter = bothExpired ? null : currentFilter;
+            currentFilter = new BloomFilter(expectedKeys, falsePositiveProbability);
+            currentFilterWm = wmTs;
+        }
+        return tryEmit(wm);
+    }
+
+    private enum SnapshotKeys {
+        FILTERS
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        return tryEmitToSnapshot(broadcastKey(SnapshotKeys.FILTERS), tuple3(currentFilterWm,
+                currentFilter.words(), previousFilter != null ? previousFilter.words() : null));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+        assert ((BroadcastKey) key).key() == SnapshotKeys.FILTERS : "Unexpected " + key;
+        Tuple3<Long, long[], long[]> filters = (Tuple3<Long, long[], long[]>) value;
+        minRestoredFilterWm = min(minRestoredFilterWm, filters.f0());
+        currentFilter.merge(filters.f1());
+        if (filters.f2() != null) {
+            if (previousFilter == null) {
+                previousFilter = new BloomFilter(expectedKeys, falsePositiveProbability);
+            }
+            previousFilter.merge(filters.f2());
+        }
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        if (minRestoredFilterWm != Long.MAX_VALUE) {
+            currentFilterWm = minRestoredFilterWm;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Watermark;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * Collects the received items into lists and emits each list when it has
+ * {@code maxBatchSize} items or when its first item has waited for {@code
+ * maxBatchLatencyNanos}. A watermark, a snapshot or the completion first
+ * emits the pending list. Therefore the items are emitted in the order they
+ * were received and the processor has no state to save.
+ *
+ * @param <T> type of the received items
+ */
+public class BatchItemsP<T> extends AbstractProcessor {
+
+    private final int maxBatchSize;
+    private final long maxBatchLatencyNanos;
+
+    private List<T> batch = new ArrayList<>();
+    private long batchStartNanos;
+
+    public BatchItemsP(int maxBatchSize, long maxBatchLatencyNanos) {
+        checkPositive(maxBatchSize, "maxBatchSize must be positive");
+        checkNotNegative(maxBatchLatencyNanos, "maxBatchLatencyNanos must not be negative");
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchLatencyNanos = maxBatchLatencyNanos;
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        // emit the full or due batch before adding the item, the outbox
+        // must not be offered to again after it refused an item
+        if (isBatchDue() && !tryEmitBatch()) {
+            return false;
+        }
+        if (batch.isEmpty()) {
+            batchStartNanos = System.nanoTime();
+        }
+        @SuppressWarnings("unchecked")
+        T castedItem = (T) item;
+        batch.add(castedItem);
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        return !isBatchDue() || tryEmitBatch();
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        return tryEmitBatch() && tryEmit(watermark);
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        return tryEmitBatch();
+    }
+
+    @Override
+    public boolean complete() {
+        return tryEmitBatch();
+    }
+
+    private boolean isBatchDue() {
+        return batch.size() == maxBatchSize
+                || !batch.isEmpty() && System.nanoTime() - batchStartNanos >= maxBatchLatencyNanos;
+    }
+
+    private boolean tryEmitBatch() {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        if (!tryEmit(batch)) {
+            return false;
+        }
+        batch = new ArrayList<>();
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import javax.annotation.Nonnull;
+
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * A Bloom filter of 64-bit item hashes, see {@link
+ * com.hazelcast.jet.impl.util.Util#hash64(Object)}. It never reports an
+ * added hash as absent and reports an absent one as present with the
+ * configured probability, as long as it doesn't hold more than the
+ * expected number of hashes.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final int numHashes;
+    private final long numBits;
+    private final long[] words;
+
+    BloomFilter(long expectedItems, double falsePositiveProbability) {
+        checkPositive(expectedItems, "expectedItems must be positive");
+        checkTrue(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+                "falsePositiveProbability must be between 0 and 1, exclusive");
+        double optimalBits = -expectedItems * Math.log(falsePositiveProbability) / (LN2 * LN2);
+        double numWords = Math.ceil(optimalBits / Long.SIZE);
+        checkTrue(numWords <= Integer.MAX_VALUE, "Bloom filter for " + expectedItems + " items and false positive" +
+                " probability " + falsePositiveProbability + " is too large");
+        words = new long[Math.max(1, (int) numWords)];
+        numBits = (long) words.length * Long.SIZE;
+        numHashes = Math.max(1, (int) Math.round((double) numBits / expectedItems * LN2));
+    }
+
+    /**
+     * Adds the hash to this filter.
+     *
+     * @return {@code true} if the filter certainly didn't contain the hash
+     *      before
+     */
+    boolean add(long hash) {
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(hash, i);
+            int word = (int) (bit / Long.SIZE);
+            long mask = 1L << bit;
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns {@code false} if the filter certainly doesn't contain the hash.
+     */
+    boolean mightContain(long hash) {
+        for (int i = 0; i < numHashes; i++) {
+            long bit = bitIndex(hash, i);
+            if ((words[(int) (bit / Long.SIZE)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the hashes contained in the given words, previously obtained from
+     * {@link #words()} of a filter with the same configuration.
+     */
+    void merge(@Nonnull long[] otherWords) {
+        checkTrue(otherWords.length == words.length, "Bloom filter size mismatch: expected " + words.length
+                + " words, got " + otherWords.length);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= otherWords[i];
+        }
+    }
+
+    /**
+     * Returns the bits of this filter. The returned array is not a copy.
+     */
+    @Nonnull
+    long[] words() {
+        return words;
+    }
+
+    private long bitIndex(long hash, int i) {
+        long combined = hash + i * (hash >>> Integer.SIZE);
+        return (combined & Long.MAX_VALUE) % numBits;
+    }
+}
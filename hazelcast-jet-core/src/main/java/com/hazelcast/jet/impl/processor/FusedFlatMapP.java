@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Outbox;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.function.FunctionEx;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A processor that applies a flat-mapping function to the output of the
+ * wrapped processor. It does the same as a {@link TransformP} vertex
+ * connected to the wrapped processor's vertex, but the items are passed by
+ * a direct call instead of through a queue and the watermarks aren't
+ * coalesced again.
+ * <p>
+ * The wrapped processor must have a single output ordinal. If the output
+ * of the function doesn't fit into the outbox, the wrapper rejects the
+ * item and continues with the rest of the output when the wrapped
+ * processor offers the same item again, as required by the {@link Outbox}
+ * contract.
+ */
+public final class FusedFlatMapP extends ProcessorWrapper {
+
+    private final FunctionEx<Object, ? extends Traverser<?>> flatMapFn;
+
+    public FusedFlatMapP(@Nonnull Processor wrapped, @Nonnull FunctionEx<Object, ? extends Traverser<?>> flatMapFn) {
+        super(wrapped);
+        this.flatMapFn = flatMapFn;
+    }
+
+    @Override
+    public void init(@Nonnull Outbox outbox, @Nonnull Context context) throws Exception {
+        super.init(new FlatMappingOutbox(outbox), context);
+    }
+
+    private final class FlatMappingOutbox implements Outbox {
+        private final Outbox wrappedOutbox;
+        private Object pendingInput;
+        private Traverser<?> pendingTraverser;
+        private Object pendingOutput;
+
+        private FlatMappingOutbox(Outbox wrappedOutbox) {
+            this.wrappedOutbox = wrappedOutbox;
+        }
+
+        @Override
+        public int bucketCount() {
+            return 1;
+        }
+
+        @Override
+        public boolean offer(int ordinal, @Nonnull Object item) {
+            if (item instanceof Watermark) {
+                return wrappedOutbox.offer(-1, item);
+            }
+            if (pendingInput == null) {
+                pendingInput = item;
+                pendingTraverser = flatMapFn.apply(item);
+            } else {
+                assert pendingInput == item : "a different item offered after the outbox rejected " + pendingInput;
+            }
+            for (;;) {
+                if (pendingOutput == null && (pendingOutput = pendingTraverser.next()) == null) {
+                    break;
+                }
+                if (!wrappedOutbox.offer(-1, pendingOutput)) {
+                    return false;
+                }
+                pendingOutput = null;
+            }
+            pendingInput = null;
+            pendingTraverser = null;
+            return true;
+        }
+
+        @Override
+        public boolean offer(@Nonnull int[] ordinals, @Nonnull Object item) {
+            return offer(-1, item);
+        }
+
+        @Override
+        public boolean offerToSnapshot(@Nonnull Object key, @Nonnull Object value) {
+            return wrappedOutbox.offerToSnapshot(key, value);
+        }
+
+        @Override
+        public boolean hasUnfinishedItem() {
+            return pendingInput != null || wrappedOutbox.hasUnfinishedItem();
+        }
+    }
+}
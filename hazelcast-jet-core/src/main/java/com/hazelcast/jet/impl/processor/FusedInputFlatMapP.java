@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.util.ArrayDequeInbox;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A processor that applies a flat-mapping function to the input of the
+ * wrapped processor. It does the same as a {@link TransformP} vertex
+ * connected to the wrapped processor's vertex with a local edge, but the
+ * items are passed by a direct call instead of through a queue and the
+ * watermarks aren't coalesced again.
+ * <p>
+ * The wrapped processor must have a single input ordinal. The last input
+ * item is removed from the inbox only after the wrapped processor took all
+ * its output, so that the caller doesn't see an empty inbox and proceed
+ * with a watermark, a snapshot barrier or {@code completeEdge()} while
+ * there are still mapped items pending. While it's held, the outer inbox
+ * doesn't change, therefore the mapped items are taken from an inbox that
+ * reports to the same progress tracker as the outer inbox, otherwise the
+ * tasklet would see no progress while the wrapped processor drains them.
+ */
+public final class FusedInputFlatMapP extends ProcessorWrapper {
+
+    private final FunctionEx<Object, ? extends Traverser<?>> flatMapFn;
+    private ArrayDequeInbox mappedInbox;
+    private boolean holdingLastItem;
+
+    public FusedInputFlatMapP(
+            @Nonnull Processor wrapped, @Nonnull FunctionEx<Object, ? extends Traverser<?>> flatMapFn
+    ) {
+        super(wrapped);
+        this.flatMapFn = flatMapFn;
+    }
+
+    @Override
+    public void process(int ordinal, @Nonnull Inbox inbox) {
+        if (mappedInbox == null) {
+            mappedInbox = new ArrayDequeInbox(inbox instanceof ArrayDequeInbox
+                    ? ((ArrayDequeInbox) inbox).progressTracker()
+                    : new ProgressTracker());
+        }
+        for (;;) {
+            if (mappedInbox.isEmpty()) {
+                if (holdingLastItem) {
+                    inbox.remove();
+                    holdingLastItem = false;
+                }
+                if (inbox.isEmpty()) {
+                    return;
+                }
+                while (inbox.size() > 1) {
+                    addMapped(inbox.poll());
+                }
+                addMapped(inbox.peek());
+                holdingLastItem = true;
+                if (mappedInbox.isEmpty()) {
+                    continue;
+                }
+            }
+            super.process(ordinal, mappedInbox);
+            if (!mappedInbox.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void addMapped(Object item) {
+        Traverser<?> traverser = flatMapFn.apply(item);
+        for (Object mapped; (mapped = traverser.next()) != null; ) {
+            mappedInbox.queue().add(mapped);
+        }
+    }
+}
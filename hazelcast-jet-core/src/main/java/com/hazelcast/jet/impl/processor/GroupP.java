@@ -16,21 +16,27 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.function.FunctionEx;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
+import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Collections.singletonList;
 
@@ -39,15 +45,40 @@ import static java.util.Collections.singletonList;
  * aggregate operation on each group. The items may originate from one or
  * more inbound edges. The supplied aggregate operation must have as many
  * accumulation functions as there are inbound edges.
+ * <p>
+ * If the job has a {@linkplain JobConfig#setSpillMemoryLimit spill memory
+ * limit} and the aggregate operation has a combine function, the processor
+ * writes the accumulators to disk whenever their estimated size exceeds
+ * the limit. In {@link #complete()} it then loads the spilled accumulators
+ * one partition at a time, combines the ones with the same key and emits
+ * the results. A partition larger than the limit is first split into a
+ * child spill, recursively up to {@link HashPartitionedSpill#MAX_LEVEL}.
+ * Beyond that level the partition is combined in memory regardless of its
+ * size.
  */
 public class GroupP<K, A, R, OUT> extends AbstractProcessor {
+    // how often, in items, to check the size of the accumulators
+    private static final int SPILL_CHECK_INTERVAL = 1024;
+    private static final int SPILL_SAMPLE_SIZE = 16;
+
     @Nonnull private final List<FunctionEx<?, ? extends K>> groupKeyFns;
     @Nonnull private final AggregateOperation<A, R> aggrOp;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
+    @Probe
+    private final AtomicLong spilledBytes = new AtomicLong();
+    @Probe
+    private final AtomicLong spillCount = new AtomicLong();
+
+    private AccumulatorMap<K, A> keyToAcc;
     private Traverser<OUT> resultTraverser;
     private final BiFunction<? super K, ? super R, OUT> mapToOutputFn;
 
+    private long spillMemoryLimit;
+    private Context context;
+    private HashPartitionedSpill spill;
+    private final List<HashPartitionedSpill> childSpills = new ArrayList<>();
+    private int itemsUntilSpillCheck = SPILL_CHECK_INTERVAL;
+
     public GroupP(
             @Nonnull List<FunctionEx<?, ? extends K>> groupKeyFns,
             @Nonnull AggregateOperation<A, R> aggrOp,
@@ -68,39 +99,99 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
         this(singletonList(groupKeyFn), aggrOp, mapToOutputFn);
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        this.context = context;
+        keyToAcc = AccumulatorMap.create(context, aggrOp, aggrOp.createFn().get());
+        spillMemoryLimit = context.jobConfig().getSpillMemoryLimit();
+        if (spillMemoryLimit > 0 && aggrOp.combineFn() == null) {
+            getLogger().warning("Spill memory limit is set, but the aggregate operation has no combine function,"
+                    + " the accumulators will be kept in memory");
+            spillMemoryLimit = 0;
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
         Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
         K key = keyFn.apply(item);
-        A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
-        aggrOp.accumulateFn(ordinal).accept(acc, item);
+        keyToAcc.accumulate(key, item, aggrOp.accumulateFn(ordinal));
+        if (spillMemoryLimit > 0 && --itemsUntilSpillCheck == 0) {
+            itemsUntilSpillCheck = SPILL_CHECK_INTERVAL;
+            spillIfNeeded();
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
         if (resultTraverser == null) {
-            resultTraverser = new ResultTraverser()
-                    // reuse null filtering done by map()
-                    .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+            if (spill == null || spill.isEmpty()) {
+                resultTraverser = keyToAcc.drainingTraverser()
+                        // reuse null filtering done by map()
+                        .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+            } else {
+                spillAll();
+                resultTraverser = combinePartitions(spill);
+            }
         }
         return emitFromTraverser(resultTraverser);
     }
 
-    private class ResultTraverser implements Traverser<Entry<K, A>> {
-        private final Iterator<Entry<K, A>> iter = keyToAcc.entrySet().iterator();
+    @Override
+    public void close() {
+        if (spill != null) {
+            spill.close();
+        }
+        for (HashPartitionedSpill childSpill : childSpills) {
+            childSpill.close();
+        }
+    }
+
+    private void spillIfNeeded() {
+        if (spill == null) {
+            spill = HashPartitionedSpill.forContext(context);
+        }
+        long estimatedSize = keyToAcc.size() * spill.averageEntrySize(keyToAcc.traverser(), SPILL_SAMPLE_SIZE);
+        if (estimatedSize > spillMemoryLimit) {
+            spillAll();
+        }
+    }
 
-        @Override
-        public Entry<K, A> next() {
-            if (!iter.hasNext()) {
-                return null;
-            }
-            try {
-                return iter.next();
-            } finally {
-                iter.remove();
-            }
+    private void spillAll() {
+        long bytesBefore = spill.spilledBytes();
+        Traverser<Entry<K, Object>> entries = keyToAcc.snapshotTraverser();
+        for (Entry<K, Object> e; (e = entries.next()) != null; ) {
+            spill.write(e.getKey(), e.getValue());
+        }
+        keyToAcc.clear();
+        lazyAdd(spilledBytes, spill.spilledBytes() - bytesBefore);
+        lazyIncrement(spillCount);
+    }
+
+    private Traverser<OUT> combinePartitions(HashPartitionedSpill fromSpill) {
+        return traverseStream(IntStream.range(0, fromSpill.partitionCount()).boxed())
+                .flatMap(partitionId -> combinePartition(fromSpill, partitionId))
+                .onFirstNull(() -> {
+                    fromSpill.close();
+                    childSpills.remove(fromSpill);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Traverser<OUT> combinePartition(HashPartitionedSpill fromSpill, int partitionId) {
+        if (fromSpill.partitionBytes(partitionId) > spillMemoryLimit && fromSpill.canRepartition()) {
+            HashPartitionedSpill childSpill = fromSpill.repartition(partitionId);
+            childSpills.add(childSpill);
+            return combinePartitions(childSpill);
+        }
+        BiConsumer<? super A, ? super A> combineFn = aggrOp.combineFn();
+        Traverser<Entry<Object, Object>> entries = fromSpill.entries(partitionId);
+        for (Entry<Object, Object> e; (e = entries.next()) != null; ) {
+            keyToAcc.accumulate((K) e.getKey(), (A) e.getValue(), combineFn);
         }
+        return keyToAcc.drainingTraverser()
+                .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
     }
 }
@@ -16,22 +16,51 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.processor.HashPartitionedSpill.Partition;
+import com.hazelcast.nio.serialization.Data;
 
 import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+
 /**
  * Implements the "collector" stage in a hash join transformation. This
  * stage collects the entire joined stream into a hashtable and then
  * broadcasts it to all local second-stage processors.
+ * <p>
+ * If the job has a {@linkplain JobConfig#setSpillMemoryLimit spill memory
+ * limit}, the processor writes the collected items to disk whenever their
+ * estimated size exceeds the limit. If it spilled, it broadcasts a
+ * read-only {@link SpilledLookupTable} instead, which looks the items up
+ * in the memory-mapped spill files.
  */
 public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
 
+    // how often, in items, to check the size of the lookup table
+    private static final int SPILL_CHECK_INTERVAL = 1024;
+    private static final int SPILL_SAMPLE_SIZE = 16;
+
     private static final BiFunction<Object, Object, Object> MERGE_FN = (o, n) -> {
         if (o instanceof HashJoinArrayList) {
             ((HashJoinArrayList) o).add(n);
@@ -50,11 +79,28 @@ public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
     @Nonnull private final Function<T, K> keyFn;
     @Nonnull private final Function<T, V> projectFn;
 
+    @Probe
+    private final AtomicLong spilledBytes = new AtomicLong();
+    @Probe
+    private final AtomicLong spillCount = new AtomicLong();
+
+    private Context context;
+    private long spillMemoryLimit;
+    private long itemsInMemory;
+    private HashPartitionedSpill spill;
+    private SpilledLookupTable spilledLookupTable;
+
     public HashJoinCollectP(@Nonnull Function<T, K> keyFn, @Nonnull Function<T, V> projectFn) {
         this.keyFn = keyFn;
         this.projectFn = projectFn;
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        this.context = context;
+        spillMemoryLimit = context.jobConfig().getSpillMemoryLimit();
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess0(@Nonnull Object item) {
@@ -62,12 +108,266 @@ public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
         K key = keyFn.apply(t);
         V value = projectFn.apply(t);
         lookupTable.merge(key, value, MERGE_FN);
+        if (spillMemoryLimit > 0 && ++itemsInMemory % SPILL_CHECK_INTERVAL == 0) {
+            spillIfNeeded();
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
-        return tryEmit(lookupTable);
+        if (spill == null || spill.isEmpty()) {
+            return tryEmit(lookupTable);
+        }
+        if (spilledLookupTable == null) {
+            spillAll();
+            spilledLookupTable = new SpilledLookupTable(spill);
+        }
+        return tryEmit(spilledLookupTable);
+    }
+
+    @Override
+    public void close() {
+        // the joining processors can still read the mapped files, see HashPartitionedSpill.close()
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private void spillIfNeeded() {
+        if (spill == null) {
+            spill = HashPartitionedSpill.forContext(context);
+        }
+        long estimatedSize = itemsInMemory * spill.averageEntrySize(items(), SPILL_SAMPLE_SIZE);
+        if (estimatedSize > spillMemoryLimit) {
+            spillAll();
+        }
+    }
+
+    private void spillAll() {
+        long bytesBefore = spill.spilledBytes();
+        Traverser<Entry<K, Object>> items = items();
+        for (Entry<K, Object> e; (e = items.next()) != null; ) {
+            spill.write(e.getKey(), e.getValue());
+        }
+        lookupTable.clear();
+        itemsInMemory = 0;
+        lazyAdd(spilledBytes, spill.spilledBytes() - bytesBefore);
+        lazyIncrement(spillCount);
+    }
+
+    /**
+     * Returns a traverser over the items in the lookup table, one entry per
+     * item.
+     */
+    private Traverser<Entry<K, Object>> items() {
+        return traverseIterable(lookupTable.entrySet())
+                .flatMap(e -> e.getValue() instanceof HashJoinArrayList
+                        ? traverseIterable((HashJoinArrayList) e.getValue()).map(v -> entry(e.getKey(), v))
+                        : Traversers.<Entry<K, Object>>singleton(e));
+    }
+
+    /**
+     * A read-only lookup table over the items in the memory-mapped files of a
+     * {@link HashPartitionedSpill}. It supports lookup by key and iteration,
+     * which can be done concurrently. The values of a key are merged the same
+     * way as in the in-memory lookup table.
+     * <p>
+     * The keys are compared in the serialized form. For each partition of the
+     * spill it keeps the key hashes of the records, sorted, and the record
+     * addresses in the same order. The records themselves are never loaded as
+     * a whole: the table takes 12 bytes of heap per item regardless of the
+     * size of the partitions, a lookup deserializes only the values of the
+     * looked-up key. Therefore a partition larger than the memory limit needs
+     * no further partitioning.
+     */
+    static final class SpilledLookupTable extends AbstractMap<Object, Object> {
+        private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+        private final HashPartitionedSpill spill;
+        private final Partition[] partitions;
+        private final int[][] hashes;
+        private final long[][] addresses;
+        private final int size;
+        private final Set<Entry<Object, Object>> entrySet = new EntrySet();
+
+        SpilledLookupTable(HashPartitionedSpill spill) {
+            this.spill = spill;
+            int partitionCount = spill.partitionCount();
+            partitions = new Partition[partitionCount];
+            hashes = new int[partitionCount][];
+            addresses = new long[partitionCount][];
+            int keyCount = 0;
+            for (int p = 0; p < partitionCount; p++) {
+                partitions[p] = spill.partition(p);
+                indexPartition(p);
+                for (int i = 0; i < addresses[p].length; i++) {
+                    if (isFirstOfKey(p, i)) {
+                        keyCount++;
+                    }
+                }
+            }
+            size = keyCount;
+        }
+
+        private void indexPartition(int p) {
+            long[] recordAddresses = new long[INITIAL_INDEX_CAPACITY];
+            int count = 0;
+            Traverser<Long> traverser = partitions[p].addresses();
+            for (Long address; (address = traverser.next()) != null; count++) {
+                if (count == recordAddresses.length) {
+                    recordAddresses = Arrays.copyOf(recordAddresses, 2 * count);
+                }
+                recordAddresses[count] = address;
+            }
+            // sort the record indices by the key hash, packed in a long
+            long[] hashAndIndex = new long[count];
+            for (int i = 0; i < count; i++) {
+                int hash = partitions[p].key(recordAddresses[i]).hashCode();
+                hashAndIndex[i] = (long) hash << Integer.SIZE | i;
+            }
+            Arrays.sort(hashAndIndex);
+            hashes[p] = new int[count];
+            addresses[p] = new long[count];
+            for (int i = 0; i < count; i++) {
+                hashes[p][i] = (int) (hashAndIndex[i] >> Integer.SIZE);
+                addresses[p][i] = recordAddresses[(int) hashAndIndex[i]];
+            }
+        }
+
+        @Override
+        public Object get(Object key) {
+            Data keyData = spill.toData(key);
+            int p = spill.partitionId(keyData);
+            int hash = keyData.hashCode();
+            int i = lowerBound(hashes[p], hash);
+            return i < hashes[p].length ? mergedValue(p, i, keyData.toByteArray(), hash) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        /**
+         * Returns the number of distinct keys.
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Nonnull @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public String toString() {
+            return "SpilledLookupTable{size=" + size + ", spill=" + spill + '}';
+        }
+
+        /**
+         * Returns the merged values of the given key, looking at the records
+         * from index {@code i} of the partition, or {@code null} if there's
+         * no such key.
+         */
+        private Object mergedValue(int p, int i, byte[] keyBytes, int hash) {
+            int[] partitionHashes = hashes[p];
+            Object result = null;
+            for (; i < partitionHashes.length && partitionHashes[i] == hash; i++) {
+                long address = addresses[p][i];
+                if (partitions[p].keyEquals(address, keyBytes)) {
+                    Object value = spill.toObject(partitions[p].value(address));
+                    result = result == null ? value : MERGE_FN.apply(result, value);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Tells whether the record at index {@code i} of the partition is the
+         * first one with its key, the other records with the same key are
+         * skipped when iterating.
+         */
+        private boolean isFirstOfKey(int p, int i) {
+            int hash = hashes[p][i];
+            byte[] keyBytes = null;
+            for (int j = i - 1; j >= 0 && hashes[p][j] == hash; j--) {
+                if (keyBytes == null) {
+                    keyBytes = partitions[p].key(addresses[p][i]).toByteArray();
+                }
+                if (partitions[p].keyEquals(addresses[p][j], keyBytes)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private final class EntrySet extends AbstractSet<Entry<Object, Object>> {
+            @Nonnull @Override
+            public Iterator<Entry<Object, Object>> iterator() {
+                return new Iterator<Entry<Object, Object>>() {
+                    private int partition;
+                    private int index = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return advance();
+                    }
+
+                    @Override
+                    public Entry<Object, Object> next() {
+                        if (!advance()) {
+                            throw new NoSuchElementException();
+                        }
+                        Data keyData = partitions[partition].key(addresses[partition][index]);
+                        Object value = mergedValue(partition, index, keyData.toByteArray(), hashes[partition][index]);
+                        // the next call to advance() moves past the returned record
+                        index = -index - 2;
+                        return entry(spill.toObject(keyData), value);
+                    }
+
+                    // positions the iterator at the next record that is the first one
+                    // with its key. A negative index means the record at (-index - 2)
+                    // was returned, -1 means the start of the partition.
+                    private boolean advance() {
+                        if (index >= 0) {
+                            return true;
+                        }
+                        int i = -index - 1;
+                        for (; partition < partitions.length; partition++, i = 0) {
+                            for (; i < addresses[partition].length; i++) {
+                                if (isFirstOfKey(partition, i)) {
+                                    index = i;
+                                    return true;
+                                }
+                            }
+                        }
+                        return false;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        private static int lowerBound(int[] sorted, int value) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
     }
 
     // We need a custom ArrayList subclass because the user's V type could be
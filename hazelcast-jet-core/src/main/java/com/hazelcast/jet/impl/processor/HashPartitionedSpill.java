@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.JetProperties;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.properties.HazelcastProperties;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.JetProperties.JET_SPILL_DIRECTORY;
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
+
+/**
+ * Serialized key-value entries written to local disk by a processor whose
+ * state exceeds its memory limit. The entries are hash-partitioned by key
+ * to a fixed number of files, so that the processor can later load the
+ * state one partition at a time. All the entries with the same key end up
+ * in the same partition, but a key can occur in it multiple times.
+ * <p>
+ * The files are read through memory-mapped buffers. A partition is mapped
+ * in segments of at most {@link #MAX_SEGMENT_SIZE} bytes, each holding
+ * whole records; a record is addressed by the segment index in the upper
+ * 32 bits and the offset in the segment in the lower 32 bits.
+ * <p>
+ * Each record is the key length, the key bytes, the value length and the
+ * value bytes.
+ * <p>
+ * A partition that is still too large can be {@linkplain #repartition
+ * split} into a child spill, which uses a different hash function to
+ * assign the partitions.
+ */
+public class HashPartitionedSpill implements Closeable {
+
+    /**
+     * The default number of partitions.
+     */
+    public static final int DEFAULT_PARTITION_COUNT = 16;
+
+    /**
+     * The maximum nesting level of a {@linkplain #repartition child spill}.
+     * If all the keys of a partition have the same hash, splitting it
+     * doesn't help.
+     */
+    public static final int MAX_LEVEL = 3;
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path parentDirectory;
+    private final String name;
+    private final InternalSerializationService serializationService;
+    private final DataOutputStream[] outputs;
+    private final File[] files;
+    private final Partition[] partitions;
+    private final long[] partitionBytes;
+    private final int level;
+
+    private Path directory;
+    private long spilledBytes;
+
+    public HashPartitionedSpill(
+            @Nonnull Path parentDirectory,
+            @Nonnull String name,
+            int partitionCount,
+            @Nonnull InternalSerializationService serializationService
+    ) {
+        this(parentDirectory, name, partitionCount, serializationService, 0);
+    }
+
+    private HashPartitionedSpill(
+            @Nonnull Path parentDirectory,
+            @Nonnull String name,
+            int partitionCount,
+            @Nonnull InternalSerializationService serializationService,
+            int level
+    ) {
+        this.parentDirectory = parentDirectory;
+        // the name is a part of the directory name
+        this.name = name.replaceAll("[^\\w.-]", "_");
+        this.serializationService = serializationService;
+        this.outputs = new DataOutputStream[partitionCount];
+        this.files = new File[partitionCount];
+        this.partitions = new Partition[partitionCount];
+        this.partitionBytes = new long[partitionCount];
+        this.level = level;
+    }
+
+    /**
+     * Creates a spill in the directory configured for the member by {@link
+     * JetProperties#JET_SPILL_DIRECTORY}.
+     */
+    @Nonnull
+    static HashPartitionedSpill forContext(@Nonnull Processor.Context context) {
+        HazelcastProperties properties = new HazelcastProperties(context.jetInstance().getConfig().getProperties());
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        String name = context.vertexName() + '-' + context.globalProcessorIndex();
+        return new HashPartitionedSpill(Paths.get(properties.getString(JET_SPILL_DIRECTORY)), name,
+                DEFAULT_PARTITION_COUNT, instance.getSerializationService());
+    }
+
+    /**
+     * Returns the average serialized size of the first {@code sampleSize}
+     * entries returned by the traverser, or 0 if it's empty.
+     */
+    public long averageEntrySize(@Nonnull Traverser<? extends Entry<?, ?>> entries, int sampleSize) {
+        long totalSize = 0;
+        int count = 0;
+        for (Entry<?, ?> e; count < sampleSize && (e = entries.next()) != null; count++) {
+            totalSize += serializationService.toData(e.getKey()).totalSize()
+                    + serializationService.toData(e.getValue()).totalSize();
+        }
+        return count == 0 ? 0 : totalSize / count;
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Returns the total number of bytes written.
+     */
+    public long spilledBytes() {
+        return spilledBytes;
+    }
+
+    public boolean isEmpty() {
+        return spilledBytes == 0;
+    }
+
+    /**
+     * Returns the number of bytes written to the partition.
+     */
+    public long partitionBytes(int partitionId) {
+        return partitionBytes[partitionId];
+    }
+
+    /**
+     * Tells whether the partitions can be {@linkplain #repartition split}
+     * further, see {@link #MAX_LEVEL}.
+     */
+    public boolean canRepartition() {
+        return level < MAX_LEVEL;
+    }
+
+    /**
+     * Writes the entries of the partition to a new child spill, whose
+     * partitions are assigned by a different hash function. The caller is
+     * responsible for closing the child spill.
+     */
+    @Nonnull
+    public HashPartitionedSpill repartition(int partitionId) {
+        if (!canRepartition()) {
+            throw new IllegalStateException("Maximum spill level reached: " + level);
+        }
+        HashPartitionedSpill child = new HashPartitionedSpill(parentDirectory, name + '-' + partitionId,
+                partitions.length, serializationService, level + 1);
+        Traverser<Entry<Data, Data>> entries = partition(partitionId).entries();
+        for (Entry<Data, Data> e; (e = entries.next()) != null; ) {
+            child.write(e.getKey(), e.getValue());
+        }
+        return child;
+    }
+
+    /**
+     * Writes an entry. The key and the value are serialized, unless they
+     * already are {@link Data}. Must not be called after a partition was
+     * {@linkplain #partition read}.
+     */
+    public void write(@Nonnull Object key, @Nonnull Object value) {
+        Data keyData = serializationService.toData(key);
+        byte[] keyBytes = keyData.toByteArray();
+        byte[] valueBytes = serializationService.toData(value).toByteArray();
+        int partitionId = partitionId(keyData);
+        try {
+            DataOutputStream out = output(partitionId);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        } catch (IOException e) {
+            throw new JetException("Failed to write to spill file " + files[partitionId] + ": " + e, e);
+        }
+        int recordBytes = 2 * Integer.BYTES + keyBytes.length + valueBytes.length;
+        spilledBytes += recordBytes;
+        partitionBytes[partitionId] += recordBytes;
+    }
+
+    /**
+     * Returns the partition for the given serialized key.
+     */
+    public int partitionId(@Nonnull Data key) {
+        int hash = key.hashCode();
+        if (level > 0) {
+            // all keys of a child spill come from one parent partition, remix them
+            hash = MurmurHash3_fmix(hash + level);
+        }
+        return Math.floorMod(hash, partitions.length);
+    }
+
+    /**
+     * Finishes writing of the partition and maps its file to memory.
+     */
+    @Nonnull
+    public Partition partition(int partitionId) {
+        if (partitions[partitionId] == null) {
+            try {
+                partitions[partitionId] = mapPartition(partitionId);
+            } catch (IOException e) {
+                throw new JetException("Failed to read spill file " + files[partitionId] + ": " + e, e);
+            }
+        }
+        return partitions[partitionId];
+    }
+
+    @Nonnull
+    Data toData(@Nonnull Object o) {
+        return serializationService.toData(o);
+    }
+
+    <T> T toObject(@Nonnull Data data) {
+        return serializationService.toObject(data);
+    }
+
+    /**
+     * Returns a traverser over the deserialized entries of the partition.
+     */
+    @Nonnull
+    public Traverser<Entry<Object, Object>> entries(int partitionId) {
+        return partition(partitionId).entries().map(e -> entry(
+                serializationService.toObject(e.getKey()), serializationService.toObject(e.getValue())));
+    }
+
+    /**
+     * Deletes the files. The already mapped partitions remain readable until
+     * they are garbage-collected on operating systems that allow deleting
+     * a mapped file, otherwise the files are deleted when the JVM exits.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < outputs.length; i++) {
+            if (outputs[i] != null) {
+                try {
+                    outputs[i].close();
+                } catch (IOException ignored) {
+                }
+                outputs[i] = null;
+            }
+            if (files[i] != null && !files[i].delete()) {
+                files[i].deleteOnExit();
+            }
+            files[i] = null;
+        }
+        if (directory != null && !directory.toFile().delete()) {
+            directory.toFile().deleteOnExit();
+        }
+        directory = null;
+    }
+
+    @Override
+    public String toString() {
+        return "HashPartitionedSpill{directory=" + directory + ", spilledBytes=" + spilledBytes + '}';
+    }
+
+    private DataOutputStream output(int partitionId) throws IOException {
+        if (outputs[partitionId] == null) {
+            assert partitions[partitionId] == null : "partition already read";
+            if (directory == null) {
+                Files.createDirectories(parentDirectory);
+                directory = Files.createTempDirectory(parentDirectory, "jet-spill-" + name + '-');
+            }
+            files[partitionId] = directory.resolve("partition-" + partitionId).toFile();
+            outputs[partitionId] = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(files[partitionId]), WRITE_BUFFER_SIZE));
+        }
+        return outputs[partitionId];
+    }
+
+    private Partition mapPartition(int partitionId) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        if (outputs[partitionId] == null) {
+            return new Partition(segments);
+        }
+        outputs[partitionId].close();
+        outputs[partitionId] = null;
+        try (RandomAccessFile file = new RandomAccessFile(files[partitionId], "r");
+             FileChannel channel = file.getChannel()
+        ) {
+            long fileSize = channel.size();
+            long segmentStart = 0;
+            while (segmentStart < fileSize) {
+                long mappedSize = Math.min(fileSize - segmentStart, MAX_SEGMENT_SIZE);
+                MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, segmentStart, mappedSize);
+                // the segment ends after the last whole record in the mapped region
+                int segmentSize = 0;
+                while (segmentSize + Integer.BYTES <= mappedSize) {
+                    int valueLengthPos = segmentSize + Integer.BYTES + buffer.getInt(segmentSize);
+                    if (valueLengthPos + Integer.BYTES > mappedSize) {
+                        break;
+                    }
+                    int recordEnd = valueLengthPos + Integer.BYTES + buffer.getInt(valueLengthPos);
+                    if (recordEnd > mappedSize) {
+                        break;
+                    }
+                    segmentSize = recordEnd;
+                }
+                if (segmentSize == 0) {
+                    throw new JetException("Record too large or corrupted in " + files[partitionId]);
+                }
+                buffer.limit(segmentSize);
+                segments.add(buffer.slice());
+                segmentStart += segmentSize;
+            }
+        }
+        return new Partition(segments);
+    }
+
+    /**
+     * A memory-mapped partition. The reading methods are safe to call from
+     * multiple threads.
+     */
+    public static final class Partition {
+        private final List<ByteBuffer> segments;
+
+        Partition(List<ByteBuffer> segments) {
+            this.segments = segments;
+        }
+
+        /**
+         * Returns a traverser over the addresses of the records.
+         */
+        @Nonnull
+        public Traverser<Long> addresses() {
+            return new Traverser<Long>() {
+                private int segment;
+                private int offset;
+
+                @Override
+                public Long next() {
+                    while (segment < segments.size() && offset == segments.get(segment).limit()) {
+                        segment++;
+                        offset = 0;
+                    }
+                    if (segment == segments.size()) {
+                        return null;
+                    }
+                    long address = (long) segment << Integer.SIZE | offset;
+                    ByteBuffer buffer = segments.get(segment);
+                    int valueLengthPos = offset + Integer.BYTES + buffer.getInt(offset);
+                    offset = valueLengthPos + Integer.BYTES + buffer.getInt(valueLengthPos);
+                    return address;
+                }
+            };
+        }
+
+        /**
+         * Returns a traverser over the records.
+         */
+        @Nonnull
+        public Traverser<Entry<Data, Data>> entries() {
+            return addresses().map(address -> entry(key(address), value(address)));
+        }
+
+        @Nonnull
+        public Data key(long address) {
+            ByteBuffer buffer = segments.get((int) (address >>> Integer.SIZE));
+            int offset = (int) address;
+            return new HeapData(bytesAt(buffer, offset + Integer.BYTES, buffer.getInt(offset)));
+        }
+
+        @Nonnull
+        public Data value(long address) {
+            ByteBuffer buffer = segments.get((int) (address >>> Integer.SIZE));
+            int valueLengthPos = (int) address + Integer.BYTES + buffer.getInt((int) address);
+            return new HeapData(bytesAt(buffer, valueLengthPos + Integer.BYTES, buffer.getInt(valueLengthPos)));
+        }
+
+        /**
+         * Tells whether the key of the record equals the given serialized
+         * key, without copying the key of the record.
+         */
+        public boolean keyEquals(long address, @Nonnull byte[] keyBytes) {
+            ByteBuffer buffer = segments.get((int) (address >>> Integer.SIZE));
+            int offset = (int) address;
+            if (buffer.getInt(offset) != keyBytes.length) {
+                return false;
+            }
+            offset += Integer.BYTES;
+            for (int i = 0; i < keyBytes.length; i++) {
+                if (buffer.get(offset + i) != keyBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static byte[] bytesAt(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            // the buffer is shared, read through a duplicate so that its position isn't changed
+            ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(offset);
+            duplicate.get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.function.SupplierEx;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * {@link AccumulatorMap} that keeps the accumulators on the heap. It's an
+ * open-addressing map used instead of a {@code HashMap}. It doesn't create
+ * an entry object per key, the keys and accumulators are stored in dense
+ * arrays in insertion order and the hash table only holds indexes into
+ * them.
+ * <p>
+ * The key storage is chosen by the first inserted key: {@code Long} and
+ * {@code Integer} keys are stored unboxed in a primitive array, other keys
+ * (including {@code String}) are stored along with their hash code so
+ * that {@code equals()} is only called on a hash match. When a key of a
+ * different type is inserted later, the map switches to the generic
+ * storage.
+ * <p>
+ * If the accumulator is exactly a {@link LongAccumulator} or {@link
+ * LongLongAccumulator}, its value is stored inline in a {@code long[]}
+ * and the accumulate function is applied to a reused instance. The
+ * accumulators passed to {@link #forEach} may also be reused instances,
+ * the ones returned by the traversers are always new instances. This
+ * assumes the functions of the aggregate operation don't retain the
+ * accumulator they were given, which holds for all the built-in ones.
+ *
+ * @param <K> type of the grouping key
+ * @param <A> type of the accumulator
+ */
+public final class HeapAccumulatorMap<K, A> implements AccumulatorMap<K, A> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+    private static final int UNSUPPORTED = -1;
+
+    private final Values<A> values;
+    private Keys keys;
+
+    public HeapAccumulatorMap(@Nonnull AggregateOperation<A, ?> aggrOp, @Nonnull A emptyAcc) {
+        this.values = newValues(aggrOp.createFn(), emptyAcc);
+    }
+
+    @Override
+    public <T> boolean accumulate(K key, T item, @Nonnull BiConsumer<? super A, ? super T> accumulateFn) {
+        int oldSize = size();
+        int slot = slotOf(key);
+        boolean added = size() > oldSize;
+        if (added) {
+            values.init(slot, size());
+        }
+        values.accumulate(slot, item, accumulateFn);
+        return added;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, @Nonnull A acc) {
+        int oldSize = size();
+        int slot = slotOf(key);
+        if (size() == oldSize) {
+            return false;
+        }
+        values.put(slot, size(), acc);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return keys == null ? 0 : keys.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(@Nonnull BiConsumer<? super K, ? super A> action) {
+        for (int slot = 0; slot < size(); slot++) {
+            action.accept((K) keys.keyAt(slot), values.view(slot));
+        }
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> traverser() {
+        return traverser(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removes the references to the traversed keys and accumulators so that
+     * they can be garbage-collected as the traversal progresses.
+     */
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> drainingTraverser() {
+        return traverser(true);
+    }
+
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<K, Object>> snapshotTraverser() {
+        return (Traverser) traverser(false);
+    }
+
+    @Override
+    public void clear() {
+        keys = null;
+        values.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "HeapAccumulatorMap{size=" + size() + '}';
+    }
+
+    @SuppressWarnings("unchecked")
+    private Traverser<Entry<K, A>> traverser(boolean release) {
+        return new Traverser<Entry<K, A>>() {
+            private int slot;
+
+            @Override
+            public Entry<K, A> next() {
+                if (slot == size()) {
+                    if (release) {
+                        clear();
+                    }
+                    return null;
+                }
+                Entry<K, A> e = entry((K) keys.keyAt(slot), values.get(slot));
+                if (release) {
+                    keys.release(slot);
+                    values.release(slot);
+                }
+                slot++;
+                return e;
+            }
+        };
+    }
+
+    private int slotOf(Object key) {
+        if (keys == null) {
+            keys = key instanceof Long ? new LongKeys()
+                    : key instanceof Integer ? new IntKeys()
+                    : new ObjectKeys();
+        }
+        int slot = keys.find(key);
+        if (slot == UNSUPPORTED) {
+            keys = new ObjectKeys(keys);
+            slot = keys.find(key);
+        }
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> Values<A> newValues(SupplierEx<A> createFn, A emptyAcc) {
+        if (emptyAcc.getClass() == LongAccumulator.class) {
+            return (Values<A>) new LongValues((LongAccumulator) emptyAcc);
+        }
+        if (emptyAcc.getClass() == LongLongAccumulator.class) {
+            return (Values<A>) new LongLongValues((LongLongAccumulator) emptyAcc);
+        }
+        return new ObjectValues<>(createFn);
+    }
+
+    private static int newCapacity(int capacity, int required) {
+        return Math.max(required, capacity + (capacity >> 1) + 1);
+    }
+
+    /**
+     * Maps keys to slots, which are consecutive indexes assigned in
+     * insertion order. The hash table holds {@code slot + 1}, zero marks an
+     * empty bucket. Collisions are resolved by linear probing, the load
+     * factor is at most 0.5.
+     */
+    private abstract static class Keys {
+        int size;
+        int[] table = new int[INITIAL_CAPACITY * 2];
+        int mask = table.length - 1;
+
+        /**
+         * Returns the slot of the key, inserting the key if absent. Returns
+         * {@link #UNSUPPORTED} if the key type can't be stored.
+         */
+        abstract int find(Object key);
+
+        abstract Object keyAt(int slot);
+
+        abstract int hashAt(int slot);
+
+        void release(int slot) {
+        }
+
+        /**
+         * Adds a slot for a key whose probing ended at an empty bucket at
+         * {@code index}. The caller must store the key at {@code size}
+         * before calling this.
+         */
+        final int addSlot(int index, int hash) {
+            if ((size + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+                index = freeIndex(hash);
+            }
+            table[index] = size + 1;
+            return size++;
+        }
+
+        final void rehash(int tableLength) {
+            table = new int[tableLength];
+            mask = tableLength - 1;
+            for (int slot = 0; slot < size; slot++) {
+                table[freeIndex(hashAt(slot))] = slot + 1;
+            }
+        }
+
+        private int freeIndex(int hash) {
+            int index = hash & mask;
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+
+    private static final class LongKeys extends Keys {
+        private long[] keys = new long[INITIAL_CAPACITY];
+
+        @Override
+        int find(Object key) {
+            if (!(key instanceof Long)) {
+                return UNSUPPORTED;
+            }
+            long k = (Long) key;
+            int hash = hash(k);
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                int slot = table[index] - 1;
+                if (slot < 0) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, newCapacity(keys.length, size + 1));
+                    }
+                    keys[size] = k;
+                    return addSlot(index, hash);
+                }
+                if (keys[slot] == k) {
+                    return slot;
+                }
+            }
+        }
+
+        @Override
+        Object keyAt(int slot) {
+            return keys[slot];
+        }
+
+        @Override
+        int hashAt(int slot) {
+            return hash(keys[slot]);
+        }
+
+        private static int hash(long key) {
+            long h = key * LONG_PHI;
+            return (int) (h ^ (h >>> Integer.SIZE));
+        }
+    }
+
+    private static final class IntKeys extends Keys {
+        private int[] keys = new int[INITIAL_CAPACITY];
+
+        @Override
+        int find(Object key) {
+            if (!(key instanceof Integer)) {
+                return UNSUPPORTED;
+            }
+            int k = (Integer) key;
+            int hash = hash(k);
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                int slot = table[index] - 1;
+                if (slot < 0) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, newCapacity(keys.length, size + 1));
+                    }
+                    keys[size] = k;
+                    return addSlot(index, hash);
+                }
+                if (keys[slot] == k) {
+                    return slot;
+                }
+            }
+        }
+
+        @Override
+        Object keyAt(int slot) {
+            return keys[slot];
+        }
+
+        @Override
+        int hashAt(int slot) {
+            return hash(keys[slot]);
+        }
+
+        private static int hash(int key) {
+            int h = key * INT_PHI;
+            return h ^ (h >>> (Integer.SIZE / 2));
+        }
+    }
+
+    /**
+     * Stores any keys, including {@code null}. The hash codes are kept so
+     * that rehashing doesn't call {@code hashCode()} and probing only calls
+     * {@code equals()} on a hash match, which makes it suitable for {@code
+     * String} keys.
+     */
+    private static final class ObjectKeys extends Keys {
+        private Object[] keys;
+        private int[] hashes;
+
+        ObjectKeys() {
+            keys = new Object[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Creates a copy of the given keys, keeping their slots.
+         */
+        ObjectKeys(Keys other) {
+            int capacity = Math.max(INITIAL_CAPACITY, other.size);
+            keys = new Object[capacity];
+            hashes = new int[capacity];
+            for (int slot = 0; slot < other.size; slot++) {
+                keys[slot] = other.keyAt(slot);
+                hashes[slot] = hash(keys[slot]);
+            }
+            size = other.size;
+            rehash(other.table.length);
+        }
+
+        @Override
+        int find(Object key) {
+            int hash = hash(key);
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                int slot = table[index] - 1;
+                if (slot < 0) {
+                    if (size == keys.length) {
+                        int capacity = newCapacity(keys.length, size + 1);
+                        keys = Arrays.copyOf(keys, capacity);
+                        hashes = Arrays.copyOf(hashes, capacity);
+                    }
+                    keys[size] = key;
+                    hashes[size] = hash;
+                    return addSlot(index, hash);
+                }
+                if (hashes[slot] == hash && Objects.equals(keys[slot], key)) {
+                    return slot;
+                }
+            }
+        }
+
+        @Override
+        Object keyAt(int slot) {
+            return keys[slot];
+        }
+
+        @Override
+        int hashAt(int slot) {
+            return hashes[slot];
+        }
+
+        @Override
+        void release(int slot) {
+            keys[slot] = null;
+        }
+
+        private static int hash(Object key) {
+            int h = Objects.hashCode(key) * INT_PHI;
+            return h ^ (h >>> (Integer.SIZE / 2));
+        }
+    }
+
+    /**
+     * Stores the accumulators by slot.
+     */
+    private abstract static class Values<A> {
+
+        /**
+         * Stores a new accumulator at the slot, growing the storage to
+         * {@code size} if needed.
+         */
+        abstract void init(int slot, int size);
+
+        abstract void put(int slot, int size, A acc);
+
+        abstract <T> void accumulate(int slot, T item, BiConsumer<? super A, ? super T> accumulateFn);
+
+        /**
+         * Returns the accumulator at the slot, a new instance if it's stored
+         * inline.
+         */
+        abstract A get(int slot);
+
+        /**
+         * Returns the accumulator at the slot, possibly a reused instance.
+         */
+        abstract A view(int slot);
+
+        abstract void release(int slot);
+
+        abstract void clear();
+    }
+
+    private static final class ObjectValues<A> extends Values<A> {
+        private final SupplierEx<A> createFn;
+        private Object[] accs = new Object[INITIAL_CAPACITY];
+
+        ObjectValues(SupplierEx<A> createFn) {
+            this.createFn = createFn;
+        }
+
+        @Override
+        void init(int slot, int size) {
+            put(slot, size, createFn.get());
+        }
+
+        @Override
+        void put(int slot, int size, A acc) {
+            if (size > accs.length) {
+                accs = Arrays.copyOf(accs, newCapacity(accs.length, size));
+            }
+            accs[slot] = acc;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <T> void accumulate(int slot, T item, BiConsumer<? super A, ? super T> accumulateFn) {
+            accumulateFn.accept((A) accs[slot], item);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        A get(int slot) {
+            return (A) accs[slot];
+        }
+
+        @Override
+        A view(int slot) {
+            return get(slot);
+        }
+
+        @Override
+        void release(int slot) {
+            accs[slot] = null;
+        }
+
+        @Override
+        void clear() {
+            accs = new Object[INITIAL_CAPACITY];
+        }
+    }
+
+    private static final class LongValues extends Values<LongAccumulator> {
+        private final long initialValue;
+        private final LongAccumulator scratch = new LongAccumulator();
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongValues(LongAccumulator emptyAcc) {
+            this.initialValue = emptyAcc.get();
+        }
+
+        @Override
+        void init(int slot, int size) {
+            ensureCapacity(size);
+            values[slot] = initialValue;
+        }
+
+        @Override
+        void put(int slot, int size, LongAccumulator acc) {
+            ensureCapacity(size);
+            values[slot] = acc.get();
+        }
+
+        @Override
+        <T> void accumulate(int slot, T item, BiConsumer<? super LongAccumulator, ? super T> accumulateFn) {
+            scratch.set(values[slot]);
+            accumulateFn.accept(scratch, item);
+            values[slot] = scratch.get();
+        }
+
+        @Override
+        LongAccumulator get(int slot) {
+            return new LongAccumulator(values[slot]);
+        }
+
+        @Override
+        LongAccumulator view(int slot) {
+            return scratch.set(values[slot]);
+        }
+
+        @Override
+        void release(int slot) {
+        }
+
+        @Override
+        void clear() {
+            values = new long[INITIAL_CAPACITY];
+        }
+
+        private void ensureCapacity(int size) {
+            if (size > values.length) {
+                values = Arrays.copyOf(values, newCapacity(values.length, size));
+            }
+        }
+    }
+
+    /**
+     * Stores both values of the accumulator next to each other.
+     */
+    private static final class LongLongValues extends Values<LongLongAccumulator> {
+        private final long initialValue1;
+        private final long initialValue2;
+        private final LongLongAccumulator scratch = new LongLongAccumulator();
+        private long[] values = new long[INITIAL_CAPACITY * 2];
+
+        LongLongValues(LongLongAccumulator emptyAcc) {
+            this.initialValue1 = emptyAcc.get1();
+            this.initialValue2 = emptyAcc.get2();
+        }
+
+        @Override
+        void init(int slot, int size) {
+            ensureCapacity(size);
+            values[2 * slot] = initialValue1;
+            values[2 * slot + 1] = initialValue2;
+        }
+
+        @Override
+        void put(int slot, int size, LongLongAccumulator acc) {
+            ensureCapacity(size);
+            values[2 * slot] = acc.get1();
+            values[2 * slot + 1] = acc.get2();
+        }
+
+        @Override
+        <T> void accumulate(int slot, T item, BiConsumer<? super LongLongAccumulator, ? super T> accumulateFn) {
+            view(slot);
+            accumulateFn.accept(scratch, item);
+            values[2 * slot] = scratch.get1();
+            values[2 * slot + 1] = scratch.get2();
+        }
+
+        @Override
+        LongLongAccumulator get(int slot) {
+            return new LongLongAccumulator(values[2 * slot], values[2 * slot + 1]);
+        }
+
+        @Override
+        LongLongAccumulator view(int slot) {
+            scratch.set1(values[2 * slot]);
+            scratch.set2(values[2 * slot + 1]);
+            return scratch;
+        }
+
+        @Override
+        void release(int slot) {
+        }
+
+        @Override
+        void clear() {
+            values = new long[INITIAL_CAPACITY * 2];
+        }
+
+        private void ensureCapacity(int size) {
+            if (2 * size > values.length) {
+                values = Arrays.copyOf(values, newCapacity(values.length, 2 * size));
+            }
+        }
+    }
+}
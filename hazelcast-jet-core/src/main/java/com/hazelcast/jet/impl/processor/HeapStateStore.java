@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+
+/**
+ * {@link KeyedStateStore} that keeps the entries in a map on the heap.
+ */
+public class HeapStateStore<K, V> implements KeyedStateStore<K, V> {
+
+    private final Map<K, V> map;
+
+    public HeapStateStore(@Nonnull Map<K, V> map) {
+        this.map = map;
+    }
+
+    @Override
+    public V get(@Nonnull K key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(@Nonnull K key) {
+        return map.containsKey(key);
+    }
+
+    @Nonnull @Override
+    public V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn) {
+        return map.computeIfAbsent(key, createFn);
+    }
+
+    @Override
+    public void put(@Nonnull K key, @Nonnull V value) {
+        map.put(key, value);
+    }
+
+    @Override
+    public void update(@Nonnull K key, @Nonnull V value) {
+        // the map holds the modified instance
+    }
+
+    @Override
+    public void remove(@Nonnull K key) {
+        map.remove(key);
+    }
+
+    @Override
+    public void evict(@Nonnull Predicate<? super V> isEvictable, int maxCount) {
+        int count = 0;
+        for (Iterator<V> it = map.values().iterator(); it.hasNext() && count < maxCount; count++) {
+            if (!isEvictable.test(it.next())) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, V>> traverser() {
+        return traverseIterable(map.entrySet());
+    }
+
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<Object, Object>> snapshotTraverser() {
+        return (Traverser) traverser();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
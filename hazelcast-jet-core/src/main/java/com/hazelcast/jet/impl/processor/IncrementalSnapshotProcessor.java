@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by processors able to save only the part of their state
+ * changed since the previous snapshot, see {@link
+ * com.hazelcast.jet.config.JobConfig#setMaxIncrementalSnapshots}.
+ * <p>
+ * When restoring, the entries of an incremental snapshot replace the
+ * entries with equal keys of the previous snapshots, therefore the
+ * processor must:<ul>
+ *     <li>save each changed key with its complete current value
+ *     <li>not save the same key from multiple processor instances, except
+ *         for broadcast keys
+ *     <li>save all its broadcast keys in every snapshot
+ * </ul>
+ * A key removed from the state is not saved: the processor must be able to
+ * discard a restored entry it would have removed, for example because it's
+ * behind the restored watermark.
+ */
+public interface IncrementalSnapshotProcessor {
+
+    /**
+     * Called before {@link Processor#saveToSnapshot()} to tell whether the
+     * snapshot is incremental. If it's not, the processor saves its full
+     * state. In both cases the processor starts tracking its changes anew
+     * after the snapshot is saved.
+     */
+    void setSnapshotIncremental(boolean incremental);
+
+    /**
+     * Returns the given processor or the processor wrapped in it, if it
+     * supports incremental snapshots, {@code null} otherwise.
+     */
+    @Nullable
+    static IncrementalSnapshotProcessor unwrap(Processor processor) {
+        while (processor instanceof ProcessorWrapper) {
+            processor = ((ProcessorWrapper) processor).getWrapped();
+        }
+        return processor instanceof IncrementalSnapshotProcessor ? (IncrementalSnapshotProcessor) processor : null;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Storage of the keyed state of a processor. The state is either kept on
+ * the heap ({@link HeapStateStore}) or serialized in off-heap memory
+ * ({@link OffHeapStateStore}), depending on {@link
+ * com.hazelcast.jet.config.JobConfig#setOffHeapStateMemoryLimit}.
+ * <p>
+ * The off-heap store returns a new copy of the value on each access, so a
+ * processor that modifies a value must call {@link #update} afterwards.
+ * The heap store returns the stored instance.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public interface KeyedStateStore<K, V> {
+
+    /**
+     * Creates an off-heap store if the job has off-heap state memory
+     * configured, otherwise a heap store backed by the given map.
+     */
+    @Nonnull
+    static <K, V> KeyedStateStore<K, V> create(
+            @Nonnull Processor.Context context,
+            @Nonnull Supplier<? extends Map<K, V>> createHeapMapFn
+    ) {
+        OffHeapStateStore<K, V> store = OffHeapStateStore.forContext(context);
+        return store != null ? store : new HeapStateStore<>(createHeapMapFn.get());
+    }
+
+    @Nullable
+    V get(@Nonnull K key);
+
+    boolean containsKey(@Nonnull K key);
+
+    /**
+     * Returns the value for the key, creating and storing a new one if it's
+     * absent.
+     */
+    @Nonnull
+    V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn);
+
+    void put(@Nonnull K key, @Nonnull V value);
+
+    /**
+     * Stores a value obtained from this store after it was modified.
+     */
+    void update(@Nonnull K key, @Nonnull V value);
+
+    void remove(@Nonnull K key);
+
+    /**
+     * Removes at most {@code maxCount} entries whose value matches the
+     * predicate. The store may stop before visiting all the entries: the
+     * heap store visits the entries in the iteration order of its map and
+     * stops at the first entry that doesn't match, the off-heap store
+     * visits a limited number of entries after the ones visited in the
+     * previous call.
+     */
+    void evict(@Nonnull Predicate<? super V> isEvictable, int maxCount);
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * Returns a traverser over the entries. The store must not be modified
+     * until the traverser is exhausted.
+     */
+    @Nonnull
+    Traverser<Entry<K, V>> traverser();
+
+    /**
+     * Returns a traverser over the entries to save to the snapshot. The keys
+     * and values can be in serialized form, which the snapshot writer stores
+     * as is.
+     */
+    @Nonnull
+    Traverser<Entry<Object, Object>> snapshotTraverser();
+
+    /**
+     * Removes all the entries and releases the memory held by the store.
+     */
+    void clear();
+}
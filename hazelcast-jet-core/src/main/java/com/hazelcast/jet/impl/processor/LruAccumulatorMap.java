@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.function.SupplierEx;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * {@link AccumulatorMap} on the heap that tracks the order in which the
+ * keys were last accessed, so that the least recently used accumulator can
+ * be removed with {@link #removeEldest()}. Used by the first stage of a
+ * two-stage aggregation to bound the number of keys it keeps, see {@link
+ * com.hazelcast.jet.config.JobConfig#setPreAggregationMaxKeys(int)}.
+ *
+ * @param <K> type of the grouping key
+ * @param <A> type of the accumulator
+ */
+public final class LruAccumulatorMap<K, A> implements AccumulatorMap<K, A> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final SupplierEx<A> createFn;
+    private final LinkedHashMap<K, A> map = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    public LruAccumulatorMap(@Nonnull SupplierEx<A> createFn) {
+        this.createFn = createFn;
+    }
+
+    @Override
+    public <T> boolean accumulate(K key, T item, @Nonnull BiConsumer<? super A, ? super T> accumulateFn) {
+        A acc = map.get(key);
+        boolean added = acc == null;
+        if (added) {
+            acc = createFn.get();
+            map.put(key, acc);
+        }
+        accumulateFn.accept(acc, item);
+        return added;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, @Nonnull A acc) {
+        return map.putIfAbsent(key, acc) == null;
+    }
+
+    /**
+     * Removes and returns the least recently used entry, {@code null} if the
+     * map is empty.
+     */
+    public Entry<K, A> removeEldest() {
+        Iterator<Entry<K, A>> it = map.entrySet().iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Entry<K, A> eldest = it.next();
+        it.remove();
+        return entry(eldest.getKey(), eldest.getValue());
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void forEach(@Nonnull BiConsumer<? super K, ? super A> action) {
+        map.forEach(action);
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> traverser() {
+        return traverseIterable(map.entrySet());
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> drainingTraverser() {
+        return traverseIterable(map.entrySet()).onFirstNull(map::clear);
+    }
+
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<K, Object>> snapshotTraverser() {
+        return (Traverser) traverser();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "LruAccumulatorMap{size=" + size() + '}';
+    }
+}
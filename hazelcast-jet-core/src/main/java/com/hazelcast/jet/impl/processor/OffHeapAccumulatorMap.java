@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.function.SupplierEx;
+
+import javax.annotation.Nonnull;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link AccumulatorMap} that keeps the accumulators serialized in an
+ * {@link OffHeapStateStore}. Each accumulation deserializes the
+ * accumulator and serializes it back.
+ */
+public class OffHeapAccumulatorMap<K, A> implements AccumulatorMap<K, A> {
+
+    private final OffHeapStateStore<K, A> store;
+    private final SupplierEx<A> createFn;
+
+    public OffHeapAccumulatorMap(@Nonnull OffHeapStateStore<K, A> store, @Nonnull AggregateOperation<A, ?> aggrOp) {
+        this.store = store;
+        this.createFn = aggrOp.createFn();
+    }
+
+    @Override
+    public <T> boolean accumulate(K key, T item, @Nonnull BiConsumer<? super A, ? super T> accumulateFn) {
+        A acc = store.get(key);
+        boolean added = acc == null;
+        if (added) {
+            acc = createFn.get();
+        }
+        accumulateFn.accept(acc, item);
+        store.put(key, acc);
+        return added;
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, @Nonnull A acc) {
+        if (store.containsKey(key)) {
+            return false;
+        }
+        store.put(key, acc);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return store.isEmpty();
+    }
+
+    @Override
+    public void forEach(@Nonnull BiConsumer<? super K, ? super A> action) {
+        Traverser<Entry<K, A>> traverser = store.traverser();
+        for (Entry<K, A> e; (e = traverser.next()) != null; ) {
+            action.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> traverser() {
+        return store.traverser();
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, A>> drainingTraverser() {
+        return store.traverser().onFirstNull(store::clear);
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<K, Object>> snapshotTraverser() {
+        return store.traverserWithSerializedValues();
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public String toString() {
+        return store.toString();
+    }
+}
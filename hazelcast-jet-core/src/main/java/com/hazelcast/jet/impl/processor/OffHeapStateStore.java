@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.impl.execution.OffHeapStateMemory;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.execution.OffHeapStateMemory.BLOCK_SIZE;
+
+/**
+ * {@link KeyedStateStore} that keeps the serialized keys and values in
+ * off-heap blocks allocated from {@link OffHeapStateMemory}. The only
+ * per-entry data on the heap are the hash index arrays, which the GC
+ * doesn't have to trace.
+ * <p>
+ * Each entry is a record in a block: the key length, the value length,
+ * the key bytes and the value bytes. A value whose serialized length
+ * doesn't change is overwritten in place, otherwise a new record is
+ * appended. A block is released when it contains no live records, and
+ * the live records are copied to new blocks when more than half of the
+ * held memory is garbage.
+ * <p>
+ * The keys are compared in the serialized form, so equal keys must have
+ * equal serialized form. This holds for the keys of an {@code IMap} too.
+ * <p>
+ * The snapshot traverser returns the stored bytes as {@link Data}, which
+ * saves serializing the entries again.
+ */
+public class OffHeapStateStore<K, V> implements KeyedStateStore<K, V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    // how many entries evict() visits per entry it can remove
+    private static final int EVICT_SCAN_FACTOR = 4;
+
+    private final OffHeapStateMemory memory;
+    private final InternalSerializationService serializationService;
+
+    // The index. The hash table holds slot + 1, zero marks an empty bucket.
+    // The slots are dense, a removed slot is replaced with the last one.
+    private int size;
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    private int mask = table.length - 1;
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    // block index in the upper 32 bits, offset in the lower 32 bits
+    private long[] addresses = new long[INITIAL_CAPACITY];
+
+    // The blocks. A null element is a released block.
+    private ByteBuffer[] blocks = new ByteBuffer[INITIAL_CAPACITY];
+    private int[] blockLiveBytes = new int[INITIAL_CAPACITY];
+    private int blockCount;
+    private int currentBlock = -1;
+    private int currentBlockTop;
+    private long heldBytes;
+    private long liveBytes;
+
+    private int evictCursor;
+
+    public OffHeapStateStore(
+            @Nonnull OffHeapStateMemory memory,
+            @Nonnull InternalSerializationService serializationService
+    ) {
+        this.memory = memory;
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Returns a new store if the job has off-heap state memory configured,
+     * {@code null} otherwise.
+     */
+    @Nullable
+    static <K, V> OffHeapStateStore<K, V> forContext(@Nonnull Processor.Context context) {
+        if (!(context instanceof ProcCtx)) {
+            return null;
+        }
+        OffHeapStateMemory memory = ((ProcCtx) context).offHeapStateMemory();
+        if (memory == null) {
+            return null;
+        }
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        return new OffHeapStateStore<>(memory, instance.getSerializationService());
+    }
+
+    @Override
+    public V get(@Nonnull K key) {
+        byte[] keyBytes = toBytes(key);
+        int slot = find(keyBytes, hash(keyBytes));
+        return slot < 0 ? null : serializationService.toObject(new HeapData(readValue(addresses[slot])));
+    }
+
+    @Override
+    public boolean containsKey(@Nonnull K key) {
+        byte[] keyBytes = toBytes(key);
+        return find(keyBytes, hash(keyBytes)) >= 0;
+    }
+
+    @Nonnull @Override
+    public V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn) {
+        V value = get(key);
+        if (value == null) {
+            value = createFn.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@Nonnull K key, @Nonnull V value) {
+        byte[] keyBytes = toBytes(key);
+        byte[] valueBytes = toBytes(value);
+        int hash = hash(keyBytes);
+        int slot = find(keyBytes, hash);
+        if (slot < 0) {
+            addSlot(-slot - 1, hash, writeRecord(keyBytes, valueBytes));
+            return;
+        }
+        long address = addresses[slot];
+        ByteBuffer block = blockOf(address);
+        int offset = offsetOf(address);
+        if (block.getInt(offset + Integer.BYTES) == valueBytes.length) {
+            block.position(offset + RECORD_HEADER_SIZE + keyBytes.length);
+            block.put(valueBytes);
+            return;
+        }
+        freeRecord(address);
+        addresses[slot] = writeRecord(keyBytes, valueBytes);
+        compactIfNeeded();
+    }
+
+    @Override
+    public void update(@Nonnull K key, @Nonnull V value) {
+        put(key, value);
+    }
+
+    @Override
+    public void remove(@Nonnull K key) {
+        byte[] keyBytes = toBytes(key);
+        int slot = find(keyBytes, hash(keyBytes));
+        if (slot >= 0) {
+            removeSlot(slot);
+            compactIfNeeded();
+        }
+    }
+
+    @Override
+    public void evict(@Nonnull Predicate<? super V> isEvictable, int maxCount) {
+        int evicted = 0;
+        for (int visited = 0; visited < maxCount * EVICT_SCAN_FACTOR && evicted < maxCount && size > 0; visited++) {
+            if (evictCursor >= size) {
+                evictCursor = 0;
+            }
+            V value = serializationService.toObject(new HeapData(readValue(addresses[evictCursor])));
+            if (isEvictable.test(value)) {
+                // the last slot moves to the cursor, visit it next
+                removeSlot(evictCursor);
+                evicted++;
+            } else {
+                evictCursor++;
+            }
+        }
+        if (evicted > 0) {
+            compactIfNeeded();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<K, V>> traverser() {
+        return (Traverser) traverser(true, true);
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<Object, Object>> snapshotTraverser() {
+        return traverser(false, false);
+    }
+
+    /**
+     * Returns a traverser over the entries with deserialized keys and
+     * serialized values.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<K, Object>> traverserWithSerializedValues() {
+        return (Traverser) traverser(true, false);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] != null) {
+                memory.release(blocks[i]);
+                blocks[i] = null;
+            }
+        }
+        blockCount = 0;
+        currentBlock = -1;
+        heldBytes = 0;
+        liveBytes = 0;
+        size = 0;
+        evictCursor = 0;
+        Arrays.fill(table, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStateStore{size=" + size + ", liveBytes=" + liveBytes + ", heldBytes=" + heldBytes + '}';
+    }
+
+    private Traverser<Entry<Object, Object>> traverser(boolean deserializeKeys, boolean deserializeValues) {
+        return new Traverser<Entry<Object, Object>>() {
+            private int slot;
+
+            @Override
+            public Entry<Object, Object> next() {
+                if (slot == size) {
+                    return null;
+                }
+                long address = addresses[slot++];
+                Data key = new HeapData(readKey(address));
+                Data value = new HeapData(readValue(address));
+                return entry(
+                        deserializeKeys ? serializationService.toObject(key) : key,
+                        deserializeValues ? serializationService.toObject(value) : value);
+            }
+        };
+    }
+
+    private byte[] toBytes(Object o) {
+        return serializationService.toData(o).toByteArray();
+    }
+
+    // region index
+
+    private static int hash(byte[] bytes) {
+        int h = Arrays.hashCode(bytes);
+        return h ^ (h >>> (Integer.SIZE / 2));
+    }
+
+    /**
+     * Returns the slot of the key or {@code -index - 1}, where {@code index}
+     * is the bucket where the key should be inserted.
+     */
+    private int find(byte[] keyBytes, int hash) {
+        for (int index = hash & mask; ; index = (index + 1) & mask) {
+            int slot = table[index] - 1;
+            if (slot < 0) {
+                return -index - 1;
+            }
+            if (hashes[slot] == hash && keyEquals(addresses[slot], keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    private void addSlot(int index, int hash, long address) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, 2 * size);
+            addresses = Arrays.copyOf(addresses, 2 * size);
+        }
+        hashes[size] = hash;
+        addresses[size] = address;
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+            index = freeIndex(hash);
+        }
+        table[index] = size + 1;
+        size++;
+    }
+
+    private void removeSlot(int slot) {
+        freeRecord(addresses[slot]);
+        deleteIndex(indexOf(slot));
+        int last = size - 1;
+        if (slot != last) {
+            table[indexOf(last)] = slot + 1;
+            hashes[slot] = hashes[last];
+            addresses[slot] = addresses[last];
+        }
+        size--;
+    }
+
+    private int indexOf(int slot) {
+        int index = hashes[slot] & mask;
+        while (table[index] != slot + 1) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Empties the bucket and moves the following entries of the same probe
+     * sequence back, so that no lookup stops at the emptied bucket.
+     */
+    private void deleteIndex(int index) {
+        int gap = index;
+        for (int i = (gap + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int home = hashes[table[i] - 1] & mask;
+            // the entry can move to the gap if its home bucket isn't cyclically in (gap, i]
+            boolean homeInRange = gap <= i ? gap < home && home <= i : gap < home || home <= i;
+            if (!homeInRange) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private void rehash(int tableLength) {
+        table = new int[tableLength];
+        mask = tableLength - 1;
+        for (int slot = 0; slot < size; slot++) {
+            table[freeIndex(hashes[slot])] = slot + 1;
+        }
+    }
+
+    private int freeIndex(int hash) {
+        int index = hash & mask;
+        while (table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    // endregion
+
+    // region records
+
+    private ByteBuffer blockOf(long address) {
+        return blocks[(int) (address >>> Integer.SIZE)];
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private boolean keyEquals(long address, byte[] keyBytes) {
+        ByteBuffer block = blockOf(address);
+        int offset = offsetOf(address);
+        if (block.getInt(offset) != keyBytes.length) {
+            return false;
+        }
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (block.get(offset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] readKey(long address) {
+        ByteBuffer block = blockOf(address);
+        int offset = offsetOf(address);
+        byte[] bytes = new byte[block.getInt(offset)];
+        block.position(offset + RECORD_HEADER_SIZE);
+        block.get(bytes);
+        return bytes;
+    }
+
+    private byte[] readValue(long address) {
+        ByteBuffer block = blockOf(address);
+        int offset = offsetOf(address);
+        int keyLength = block.getInt(offset);
+        byte[] bytes = new byte[block.getInt(offset + Integer.BYTES)];
+        block.position(offset + RECORD_HEADER_SIZE + keyLength);
+        block.get(bytes);
+        return bytes;
+    }
+
+    private int recordSize(long address) {
+        ByteBuffer block = blockOf(address);
+        int offset = offsetOf(address);
+        return RECORD_HEADER_SIZE + block.getInt(offset) + block.getInt(offset + Integer.BYTES);
+    }
+
+    private long writeRecord(byte[] keyBytes, byte[] valueBytes) {
+        int recordSize = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        if (currentBlock < 0 || currentBlockTop + recordSize > blocks[currentBlock].capacity()) {
+            int previousBlock = currentBlock;
+            currentBlock = allocateBlock(recordSize);
+            currentBlockTop = 0;
+            if (previousBlock >= 0 && blockLiveBytes[previousBlock] == 0) {
+                releaseBlock(previousBlock);
+            }
+        }
+        ByteBuffer block = blocks[currentBlock];
+        int offset = currentBlockTop;
+        block.putInt(offset, keyBytes.length);
+        block.putInt(offset + Integer.BYTES, valueBytes.length);
+        block.position(offset + RECORD_HEADER_SIZE);
+        block.put(keyBytes);
+        block.put(valueBytes);
+        currentBlockTop += recordSize;
+        blockLiveBytes[currentBlock] += recordSize;
+        liveBytes += recordSize;
+        return (long) currentBlock << Integer.SIZE | offset;
+    }
+
+    private void freeRecord(long address) {
+        int blockIndex = (int) (address >>> Integer.SIZE);
+        int recordSize = recordSize(address);
+        blockLiveBytes[blockIndex] -= recordSize;
+        liveBytes -= recordSize;
+        if (blockLiveBytes[blockIndex] == 0 && blockIndex != currentBlock) {
+            releaseBlock(blockIndex);
+        }
+    }
+
+    private int allocateBlock(int minSize) {
+        ByteBuffer block = memory.allocate(minSize);
+        int index = 0;
+        while (index < blockCount && blocks[index] != null) {
+            index++;
+        }
+        if (index == blocks.length) {
+            blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+            blockLiveBytes = Arrays.copyOf(blockLiveBytes, 2 * blockLiveBytes.length);
+        }
+        blocks[index] = block;
+        blockLiveBytes[index] = 0;
+        blockCount = Math.max(blockCount, index + 1);
+        heldBytes += block.capacity();
+        return index;
+    }
+
+    private void releaseBlock(int index) {
+        heldBytes -= blocks[index].capacity();
+        memory.release(blocks[index]);
+        blocks[index] = null;
+    }
+
+    /**
+     * Copies the live records to new blocks if more than half of the held
+     * memory is garbage. The old blocks are released after the copying, so
+     * the memory use temporarily grows by the size of the live records.
+     */
+    private void compactIfNeeded() {
+        if (heldBytes - liveBytes <= liveBytes || heldBytes <= 2L * BLOCK_SIZE) {
+            return;
+        }
+        ByteBuffer[] oldBlocks = blocks;
+        int oldBlockCount = blockCount;
+        long[] oldAddresses = addresses;
+        blocks = new ByteBuffer[oldBlocks.length];
+        blockLiveBytes = new int[oldBlocks.length];
+        addresses = new long[oldAddresses.length];
+        blockCount = 0;
+        currentBlock = -1;
+        heldBytes = 0;
+        liveBytes = 0;
+        for (int slot = 0; slot < size; slot++) {
+            long address = oldAddresses[slot];
+            ByteBuffer oldBlock = oldBlocks[(int) (address >>> Integer.SIZE)];
+            int offset = offsetOf(address);
+            byte[] keyBytes = new byte[oldBlock.getInt(offset)];
+            byte[] valueBytes = new byte[oldBlock.getInt(offset + Integer.BYTES)];
+            oldBlock.position(offset + RECORD_HEADER_SIZE);
+            oldBlock.get(keyBytes);
+            oldBlock.get(valueBytes);
+            addresses[slot] = writeRecord(keyBytes, valueBytes);
+        }
+        for (int i = 0; i < oldBlockCount; i++) {
+            if (oldBlocks[i] != null) {
+                memory.release(oldBlocks[i]);
+            }
+        }
+    }
+
+    // endregion
+}
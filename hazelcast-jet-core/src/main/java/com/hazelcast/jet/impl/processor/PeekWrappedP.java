@@ -88,7 +88,7 @@ public final class PeekWrappedP<T> extends ProcessorWrapper {
             );
             context = new ProcCtx(c.jetInstance(), c.jobId(), c.executionId(), c.jobConfig(),
                     newLogger, c.vertexName(), c.localProcessorIndex(), c.globalProcessorIndex(), c.processingGuarantee(),
-                    c.localParallelism(), c.memberIndex(), c.memberCount());
+                    c.localParallelism(), c.memberIndex(), c.memberCount(), c.offHeapStateMemory());
         }
         super.init(outbox, context);
     }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotStore;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Reads the chunks of a snapshot from the {@link LocalDiskSnapshotStore}
+ * of the local member and emits them as {@code Entry<SnapshotDataKey,
+ * byte[]>}. The segments are memory-mapped and split among the local
+ * processors.
+ */
+public class ReadLocalSnapshotP extends AbstractProcessor {
+
+    private final String mapName;
+    private final long minSnapshotId;
+    private final long maxSnapshotId;
+
+    private InternalSerializationService serializationService;
+    private Traverser<Entry<SnapshotDataKey, byte[]>> traverser;
+
+    public ReadLocalSnapshotP(@Nonnull String mapName, long minSnapshotId, long maxSnapshotId) {
+        this.mapName = mapName;
+        this.minSnapshotId = minSnapshotId;
+        this.maxSnapshotId = maxSnapshotId;
+    }
+
+    @Override
+    public boolean isCooperative() {
+        return false;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = instance.getSerializationService();
+        JetService jetService = instance.node.nodeEngine.getService(JetService.SERVICE_NAME);
+        LocalDiskSnapshotStore store = jetService.getLocalDiskSnapshotStore();
+        if (store == null) {
+            throw new JetException("Local-disk snapshot store isn't enabled on " + instance.node.getThisAddress()
+                    + ", unable to restore from '" + mapName + '\'');
+        }
+        Set<String> memberUuids = instance.getCluster().getMembers().stream().map(Member::getUuid).collect(toSet());
+        List<Path> segments = store.segmentsToRestore(mapName, minSnapshotId, maxSnapshotId, memberUuids);
+        int index = context.localProcessorIndex();
+        int parallelism = context.localParallelism();
+        List<Path> ownSegments = IntStream.range(0, segments.size())
+                                          .filter(i -> i % parallelism == index)
+                                          .mapToObj(segments::get)
+                                          .collect(toList());
+        traverser = traverseIterable(ownSegments).flatMap(this::readSegment);
+        getLogger().fine("Restoring from " + segments.size() + " local segments of '" + mapName + '\'');
+    }
+
+    @Override
+    public boolean complete() {
+        return emitFromTraverser(traverser);
+    }
+
+    private Traverser<Entry<SnapshotDataKey, byte[]>> readSegment(Path segment) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new JetException("Failed to read snapshot segment " + segment + ": " + e, e);
+        }
+        return () -> {
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            SnapshotDataKey key = serializationService.toObject(new HeapData(readBytes(buffer)));
+            byte[] chunk = serializationService.toObject(new HeapData(readBytes(buffer)));
+            return entry(key, chunk);
+        };
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
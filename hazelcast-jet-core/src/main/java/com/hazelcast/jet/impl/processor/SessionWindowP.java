@@ -19,7 +19,7 @@ package com.hazelcast.jet.impl.processor;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
-import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.Util;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
@@ -39,7 +39,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
@@ -51,9 +50,7 @@ import java.util.function.Function;
 import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
-import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Traversers.traverseStream;
-import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
@@ -81,7 +78,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     private static final Watermark COMPLETING_WM = new Watermark(Long.MAX_VALUE);
 
     // exposed for testing, to check for memory leaks
-    final Map<K, Windows<A>> keyToWindows = new HashMap<>();
+    KeyedStateStore<K, Windows<A>> keyToWindows;
     final SortedMap<Long, Set<K>> deadlineToKeys = new TreeMap<>();
     long currentWatermark = Long.MIN_VALUE;
 
@@ -145,6 +142,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     @Override
     protected void init(@Nonnull Context context) {
+        keyToWindows = KeyedStateStore.create(context, HashMap::new);
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
     }
@@ -162,7 +160,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         lastTimeEarlyResultsEmitted = now;
-        earlyWinTraverser = traverseIterable(keyToWindows.entrySet())
+        earlyWinTraverser = keyToWindows.traverser()
                 .flatMap(e -> earlyWindows(e.getKey(), e.getValue()))
                 .onFirstNull(() -> earlyWinTraverser = null);
         return emitFromTraverser(earlyWinTraverser);
@@ -177,9 +175,9 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         K key = keyFns.get(ordinal).apply(item);
-        addItem(ordinal,
-                keyToWindows.computeIfAbsent(key, newWindowsFunction),
-                key, timestamp, item);
+        Windows<A> w = keyToWindows.computeIfAbsent(key, newWindowsFunction);
+        addItem(ordinal, w, key, timestamp, item);
+        keyToWindows.update(key, w);
         return true;
     }
 
@@ -241,8 +239,8 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return complete();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = Traversers.<Object>traverseIterable(keyToWindows.entrySet())
-                    .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+            snapshotTraverser = keyToWindows.snapshotTraverser()
+                    .append(Util.<Object, Object>entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
                     .onFirstNull(() -> snapshotTraverser = null);
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
@@ -266,18 +264,21 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return;
         }
 
-        if (keyToWindows.put((K) key, (Windows) value) != null) {
+        if (keyToWindows.containsKey((K) key)) {
             throw new JetException("Duplicate key in snapshot: " + key);
         }
+        keyToWindows.put((K) key, (Windows<A>) value);
     }
 
     @Override
     public boolean finishSnapshotRestore() {
         assert deadlineToKeys.isEmpty();
         // populate deadlineToKeys
-        for (Entry<K, Windows<A>> entry : keyToWindows.entrySet()) {
-            for (long end : entry.getValue().ends) {
-                addToDeadlines(entry.getKey(), end);
+        Traverser<Entry<K, Windows<A>>> traverser = keyToWindows.traverser();
+        for (Entry<K, Windows<A>> entry; (entry = traverser.next()) != null; ) {
+            Windows<A> w = entry.getValue();
+            for (int i = 0; i < w.size; i++) {
+                addToDeadlines(entry.getKey(), w.ends[i]);
             }
         }
         currentWatermark = minRestoredCurrentWatermark;
@@ -323,6 +324,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         }
         if (i != w.size) {
             w.removeHead(i);
+            keyToWindows.update(key, w);
         } else {
             keyToWindows.remove(key);
             totalKeys.set(keyToWindows.size());
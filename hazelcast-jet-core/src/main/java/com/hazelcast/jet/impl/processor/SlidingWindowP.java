@@ -40,10 +40,12 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -55,6 +57,7 @@ import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.config.ProcessingGuarantee.NONE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
 import static com.hazelcast.jet.function.ComparatorEx.naturalOrder;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
@@ -65,7 +68,6 @@ import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
-import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
@@ -76,10 +78,10 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
  * @param <A> type of the frame accumulator object
  * @param <R> type of the finished result
  */
-public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
+public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor implements IncrementalSnapshotProcessor {
 
     // package-visible for testing
-    final Long2ObjectHashMap<Map<K, A>> tsToKeyToAcc = new Long2ObjectHashMap<>();
+    final Long2ObjectHashMap<AccumulatorMap<K, A>> tsToKeyToAcc = new Long2ObjectHashMap<>();
     Map<K, A> slidingWindow;
     // Holds the sliding window while emitting early window results. We reuse the
     // slidingWindow field for early results so the code can be simpler.
@@ -103,11 +105,15 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private final boolean isLastStage;
     @Nonnull
     private final FlatMapper<Watermark, ?> wmFlatMapper;
+    // Frames of the current sliding window if the aggregate operation has no
+    // deductFn, null otherwise
+    @Nullable
+    private final TwoStacksSlidingWindow<K, A> twoStacksWindow;
     private ProcessingGuarantee processingGuarantee;
+    private Context context;
 
     // extracted lambdas to reduce GC litter
-    private final LongFunction<Map<K, A>> createMapPerTsFunction;
-    private final Function<K, A> createAccFunction;
+    private final LongFunction<AccumulatorMap<K, A>> createMapPerTsFunction;
 
     @Probe
     private final AtomicLong lateEventsDropped = new AtomicLong();
@@ -115,6 +121,14 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private final AtomicLong totalFrames = new AtomicLong();
     @Probe
     private final AtomicLong totalKeysInFrames = new AtomicLong();
+    @Probe
+    private final AtomicLong preAggregationEvictions = new AtomicLong();
+
+    // The maximum number of keys in all frames of the first stage, 0 if not
+    // bounded. Above it, the least recently used partial accumulator of the
+    // oldest frame is emitted to the second stage early.
+    private int preAggregationMaxKeys;
+    private Object pendingEvictedItem;
 
     // Fields for early results emission
     private final long earlyResultsPeriod;
@@ -128,6 +142,14 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     // optimization that avoids a full scan over the entire keyset.
     private long topTs = Long.MIN_VALUE;
 
+    // Timestamps of the frames changed since the last snapshot, null if the
+    // job doesn't take incremental snapshots. An incremental snapshot saves
+    // the changed frames whole.
+    private Set<Long> dirtyFrames;
+    // The last timestamp added to dirtyFrames, avoids boxing for each item
+    private long lastDirtyFrameTs = Long.MIN_VALUE;
+    private boolean snapshotIncremental;
+
     // values used temporarily during snapshot restore
     private long minRestoredNextWinToEmit = Long.MAX_VALUE;
     private long minRestoredFrameTs = Long.MAX_VALUE;
@@ -163,24 +185,35 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                         .onFirstNull(() -> nextWinToEmit = winPolicy.higherFrameTs(wm.timestamp()))
         );
         this.emptyAcc = aggrOp.createFn().get();
+        this.twoStacksWindow = !winPolicy.isTumbling() && aggrOp.deductFn() == null
+                ? new TwoStacksSlidingWindow<>(aggrOp)
+                : null;
         this.createMapPerTsFunction = x -> {
             lazyIncrement(totalFrames);
-            return new HashMap<>();
-        };
-        this.createAccFunction = k -> {
-            lazyIncrement(totalKeysInFrames);
-            return aggrOp.createFn().get();
+            return preAggregationMaxKeys > 0
+                    ? new LruAccumulatorMap<>(aggrOp.createFn())
+                    : AccumulatorMap.create(context, aggrOp, emptyAcc);
         };
     }
 
     @Override
     protected void init(@Nonnull Context context) {
+        this.context = context;
         processingGuarantee = context.processingGuarantee();
+        if (isLastStage && processingGuarantee != NONE && context.jobConfig().getMaxIncrementalSnapshots() > 0) {
+            dirtyFrames = new HashSet<>();
+        }
+        if (!isLastStage && combineFn != null) {
+            preAggregationMaxKeys = context.jobConfig().getPreAggregationMaxKeys();
+        }
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
     }
 
     @Override
     public boolean tryProcess() {
+        if (!emitPendingEvictedItem()) {
+            return false;
+        }
         if (earlyResultsPeriod == 0 || topTs == Long.MIN_VALUE) {
             return true;
         }
@@ -205,7 +238,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 winPolicy.frameSize())
             .boxed();
         earlyWinTraverser = traverseStream(earlyWinRange)
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
+                .flatMap(winEnd -> computeWindow(winEnd, true)
                         .map(e -> mapToOutputFn.apply(
                                 winEnd - winPolicy.windowSize(),
                                 winEnd,
@@ -223,6 +256,9 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     @Override
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (!emitPendingEvictedItem()) {
+            return false;
+        }
         final long frameTs = frameTimestampFns.get(ordinal).applyAsLong(item);
         assert frameTs == winPolicy.floorFrameTs(frameTs) : "getFrameTsFn returned an invalid frame timestamp";
 
@@ -237,43 +273,69 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         final K key = keyFns.get(ordinal).apply(item);
-        A acc = tsToKeyToAcc
+        boolean added = tsToKeyToAcc
                 .computeIfAbsent(frameTs, createMapPerTsFunction)
-                .computeIfAbsent(key, createAccFunction);
-        aggrOp.accumulateFn(ordinal).accept(acc, item);
+                .accumulate(key, item, aggrOp.accumulateFn(ordinal));
+        if (added) {
+            lazyIncrement(totalKeysInFrames);
+            if (preAggregationMaxKeys > 0 && totalKeysInFrames.get() > preAggregationMaxKeys) {
+                evictFromOldestFrame();
+            }
+        }
+        if (dirtyFrames != null && frameTs != lastDirtyFrameTs) {
+            dirtyFrames.add(frameTs);
+            lastDirtyFrameTs = frameTs;
+        }
         topTs = max(topTs, frameTs);
         return true;
     }
 
     @Override
     public boolean tryProcessWatermark(@Nonnull Watermark wm) {
-        return wmFlatMapper.tryProcess(wm);
+        return emitPendingEvictedItem() && wmFlatMapper.tryProcess(wm);
     }
 
     @Override
     public boolean complete() {
-        return flushBuffers();
+        return emitPendingEvictedItem() && flushBuffers();
     }
 
     @Override
     public boolean saveToSnapshot() {
         if (!isLastStage || flushTraverser != null) {
-            return flushBuffers();
+            return emitPendingEvictedItem() && flushBuffers();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(tsToKeyToAcc.entrySet())
-                    .<Entry>flatMap(e -> traverseIterable(e.getValue().entrySet())
+            // frames evicted after they were changed are skipped, they are also
+            // evicted after restoring because they are behind nextWinToEmit
+            Traverser<Entry<Long, AccumulatorMap<K, A>>> frames = snapshotIncremental
+                    ? traverseIterable(dirtyFrames).map(ts -> {
+                            AccumulatorMap<K, A> frame = tsToKeyToAcc.get(ts);
+                            return frame != null ? entry(ts, frame) : null;
+                        })
+                    : traverseIterable(tsToKeyToAcc.entrySet());
+            snapshotTraverser = frames
+                    .<Entry>flatMap(e -> e.getValue().snapshotTraverser()
                             .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue()))
                     )
                     .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), nextWinToEmit))
                     .onFirstNull(() -> {
                         logFine(getLogger(), "Saved nextWinToEmit: %s", nextWinToEmit);
                         snapshotTraverser = null;
+                        if (dirtyFrames != null) {
+                            dirtyFrames.clear();
+                            lastDirtyFrameTs = Long.MIN_VALUE;
+                        }
                     });
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Override
+    public void setSnapshotIncremental(boolean incremental) {
+        snapshotIncremental = incremental && dirtyFrames != null;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
@@ -304,20 +366,18 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             }
         }
         minRestoredFrameTs = Math.min(higherFrameTs, minRestoredFrameTs);
-        tsToKeyToAcc
-                .computeIfAbsent(higherFrameTs, createMapPerTsFunction)
-                .merge((K) k.key, (A) value, (o, n) -> {
-                    if (!badFrameRestored) {
-                        throw new JetException("Duplicate key in snapshot: " + k);
-                    }
-                    if (combineFn == null) {
-                        throw new JetException("AggregateOperation.combineFn required for merging restored frames");
-                    }
-                    combineFn.accept(o, n);
-                    lazyAdd(totalKeysInFrames, -1);
-                    return o;
-                });
-        lazyIncrement(totalKeysInFrames);
+        AccumulatorMap<K, A> frame = tsToKeyToAcc.computeIfAbsent(higherFrameTs, createMapPerTsFunction);
+        if (!frame.putIfAbsent((K) k.key, (A) value)) {
+            if (!badFrameRestored) {
+                throw new JetException("Duplicate key in snapshot: " + k);
+            }
+            if (combineFn == null) {
+                throw new JetException("AggregateOperation.combineFn required for merging restored frames");
+            }
+            frame.accumulate((K) k.key, (A) value, combineFn);
+        } else {
+            lazyIncrement(totalKeysInFrames);
+        }
         topTs = max(topTs, higherFrameTs);
     }
 
@@ -338,10 +398,11 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             if (nextWinToEmit > Long.MIN_VALUE + winPolicy.windowSize()) {
                 for (long ts = minRestoredFrameTs; ts <= nextWinToEmit - winPolicy.windowSize();
                         ts += winPolicy.frameSize()) {
-                    Map<K, A> removed = tsToKeyToAcc.remove(ts);
+                    AccumulatorMap<K, A> removed = tsToKeyToAcc.remove(ts);
                     if (removed != null) {
                         lazyAdd(totalFrames, -1);
                         lazyAdd(totalKeysInFrames, -removed.size());
+                        removed.clear();
                     }
                 }
             }
@@ -357,7 +418,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return Traversers.empty();
         }
         return traverseStream(range(rangeStart, wm, winPolicy.frameSize()).boxed())
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
+                .flatMap(winEnd -> computeWindow(winEnd, false)
                         .map(e -> mapToOutputFn.apply(
                                 winEnd - winPolicy.windowSize(), winEnd,
                                 e.getKey(), aggrOp.finishFn().apply(e.getValue()),
@@ -386,12 +447,29 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         return min(bottomTs, winPolicy.floorFrameTs(wm));
     }
 
-    private Map<K, A> computeWindow(long frameTs) {
+    private Traverser<Entry<K, A>> computeWindow(long frameTs, boolean isEarly) {
         if (winPolicy.isTumbling()) {
-            return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
+            AccumulatorMap<K, A> frame = tsToKeyToAcc.get(frameTs);
+            return frame != null ? frame.traverser() : Traversers.empty();
         }
         if (aggrOp.deductFn() == null) {
-            return recomputeWindow(frameTs);
+            // the frames of early windows can still change, we can't add them
+            // to the two-stacks window
+            if (isEarly) {
+                return traverseIterable(recomputeWindow(frameTs).entrySet());
+            }
+            if (twoStacksWindow.size() == 0) {
+                for (long ts = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
+                     ts <= frameTs;
+                     ts += winPolicy.frameSize()
+                ) {
+                    twoStacksWindow.addLast(tsToKeyToAcc.get(ts));
+                }
+            } else {
+                // add leading-edge frame
+                twoStacksWindow.addLast(tsToKeyToAcc.get(frameTs));
+            }
+            return traverseIterable(twoStacksWindow.window().entrySet());
         }
         if (slidingWindow == null) {
             slidingWindow = recomputeWindow(frameTs);
@@ -399,7 +477,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             // add leading-edge frame
             patchSlidingWindow(aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
         }
-        return slidingWindow;
+        return traverseIterable(slidingWindow.entrySet());
     }
 
     private Map<K, A> recomputeWindow(long frameTs) {
@@ -409,31 +487,34 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
              ts += winPolicy.frameSize()
         ) {
             assert combineFn != null : "combineFn == null";
-            for (Entry<K, A> entry : tsToKeyToAcc.getOrDefault(ts, emptyMap()).entrySet()) {
-                combineFn.accept(
-                        window.computeIfAbsent(entry.getKey(), k -> aggrOp.createFn().get()),
-                        entry.getValue());
+            AccumulatorMap<K, A> frame = tsToKeyToAcc.get(ts);
+            if (frame != null) {
+                frame.forEach((key, acc) ->
+                        combineFn.accept(window.computeIfAbsent(key, k -> aggrOp.createFn().get()), acc));
             }
         }
         return window;
     }
 
-    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
+    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, AccumulatorMap<K, A> patchingFrame) {
         if (patchingFrame == null) {
             return;
         }
-        for (Entry<K, A> e : patchingFrame.entrySet()) {
-            slidingWindow.compute(e.getKey(), (k, acc) -> {
+        patchingFrame.forEach((key, frameAcc) ->
+            slidingWindow.compute(key, (k, acc) -> {
                 A result = acc != null ? acc : aggrOp.createFn().get();
-                patchOp.accept(result, e.getValue());
+                patchOp.accept(result, frameAcc);
                 return result.equals(emptyAcc) ? null : result;
-            });
-        }
+            }));
     }
 
     private void completeWindow(long frameTs) {
+        if (twoStacksWindow != null) {
+            // remove trailing-edge frame, before it's cleared below
+            twoStacksWindow.removeFirst();
+        }
         long tsOfFrameToEvict = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
-        Map<K, A> evictedFrame = tsToKeyToAcc.remove(tsOfFrameToEvict);
+        AccumulatorMap<K, A> evictedFrame = tsToKeyToAcc.remove(tsOfFrameToEvict);
         if (evictedFrame != null) {
             lazyAdd(totalKeysInFrames, -evictedFrame.size());
             lazyAdd(totalFrames, -1);
@@ -441,9 +522,11 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 // deduct trailing-edge frame
                 patchSlidingWindow(aggrOp.deductFn(), evictedFrame);
             }
+            evictedFrame.clear();
         }
-        assert tsToKeyToAcc.values().stream().mapToInt(Map::size).sum() == totalKeysInFrames.get()
-                : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.values().stream().mapToInt(Map::size).sum()
+        assert tsToKeyToAcc.values().stream().mapToInt(AccumulatorMap::size).sum() == totalKeysInFrames.get()
+                : "totalKeysInFrames mismatch, expected="
+                + tsToKeyToAcc.values().stream().mapToInt(AccumulatorMap::size).sum()
                 + ", actual=" + totalKeysInFrames.get();
     }
 
@@ -451,12 +534,47 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         if (winPolicy.isTumbling() || aggrOp.deductFn() == null) {
             return;
         }
-        Map<K, A> frameToDeduct = tsToKeyToAcc.get(frameTs - winPolicy.windowSize() + winPolicy.frameSize());
+        AccumulatorMap<K, A> frameToDeduct = tsToKeyToAcc.get(frameTs - winPolicy.windowSize() + winPolicy.frameSize());
         if (frameToDeduct != null) {
             patchSlidingWindow(aggrOp.deductFn(), frameToDeduct);
         }
     }
 
+    /**
+     * Removes the least recently used accumulator from the oldest frame and
+     * keeps it as the pending evicted item. The next call emits it before
+     * doing anything else. The second stage combines it with the rest of
+     * the frame emitted later.
+     */
+    @SuppressWarnings("unchecked")
+    private void evictFromOldestFrame() {
+        long oldestTs = Long.MAX_VALUE;
+        for (Long ts : tsToKeyToAcc.keySet()) {
+            oldestTs = min(oldestTs, ts);
+        }
+        LruAccumulatorMap<K, A> frame = (LruAccumulatorMap<K, A>) tsToKeyToAcc.get(oldestTs);
+        Entry<K, A> evicted = frame.removeEldest();
+        if (frame.isEmpty()) {
+            tsToKeyToAcc.remove(oldestTs);
+            lazyAdd(totalFrames, -1);
+        }
+        lazyAdd(totalKeysInFrames, -1);
+        lazyIncrement(preAggregationEvictions);
+        pendingEvictedItem = mapToOutputFn.apply(oldestTs - winPolicy.windowSize(), oldestTs,
+                evicted.getKey(), aggrOp.finishFn().apply(evicted.getValue()), false);
+    }
+
+    private boolean emitPendingEvictedItem() {
+        if (pendingEvictedItem == null) {
+            return true;
+        }
+        if (!tryEmit(pendingEvictedItem)) {
+            return false;
+        }
+        pendingEvictedItem = null;
+        return true;
+    }
+
     private boolean flushBuffers() {
         if (flushTraverser == null) {
             if (tsToKeyToAcc.isEmpty()) {
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.datamodel.TimestampedItem;
+import com.hazelcast.jet.datamodel.Tuple2;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.impl.util.Util.addClamped;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.jet.impl.util.Util.logLateEvent;
+import static com.hazelcast.jet.impl.util.Util.subtractClamped;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.lang.Math.min;
+
+/**
+ * Joins two keyed streams on the key and on the event time. An item {@code
+ * t0} received on ordinal 0 and an item {@code t1} received on ordinal 1
+ * are joined if they have an equal key and if {@code
+ * timestamp(t1) - timestamp(t0)} is in the range {@code [lowerBound,
+ * upperBound]}.
+ * <p>
+ * The processor buffers the items of both inputs, indexed by the key and
+ * timestamp. Each received item is joined with the buffered items of the
+ * other input, so each pair is emitted once, when the later of them
+ * arrives. The watermark evicts the items which can't be joined with any
+ * future item. Items behind the watermark are dropped as late.
+ *
+ * @param <K> type of the join key
+ * @param <OUT> type of the output
+ */
+public class StreamStreamJoinP<K, OUT> extends AbstractProcessor {
+
+    @Probe
+    private final AtomicLong lateEventsDropped = new AtomicLong();
+    @Probe
+    private final AtomicLong bufferedItems = new AtomicLong();
+
+    private final List<Function<Object, ? extends K>> keyFns;
+    private final List<ToLongFunction<Object>> timestampFns;
+    private final long lowerBound;
+    private final long upperBound;
+    private final BiFunction<Object, Object, ? extends OUT> mapToOutputFn;
+    private final List<TimestampedBuffer<K>> buffers = new ArrayList<>();
+
+    private long currentWm = Long.MIN_VALUE;
+    private long minRestoredWm = Long.MAX_VALUE;
+    private Traverser<OUT> outputTraverser;
+    private Traverser<? extends Entry<?, ?>> snapshotTraverser;
+
+    @SuppressWarnings("unchecked")
+    public StreamStreamJoinP(
+            @Nonnull List<? extends Function<?, ? extends K>> keyFns,
+            @Nonnull List<? extends ToLongFunction<?>> timestampFns,
+            long lowerBound,
+            long upperBound,
+            @Nonnull BiFunction<?, ?, ? extends OUT> mapToOutputFn
+    ) {
+        checkTrue(keyFns.size() == 2, "two key functions required");
+        checkTrue(timestampFns.size() == 2, "two timestamp functions required");
+        checkTrue(lowerBound <= upperBound, "lowerBound must not be greater than upperBound");
+        this.keyFns = (List<Function<Object, ? extends K>>) keyFns;
+        this.timestampFns = (List<ToLongFunction<Object>>) timestampFns;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.mapToOutputFn = (BiFunction<Object, Object, ? extends OUT>) mapToOutputFn;
+        buffers.add(new TimestampedBuffer<>());
+        buffers.add(new TimestampedBuffer<>());
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (outputTraverser == null) {
+            long ts = timestampFns.get(ordinal).applyAsLong(item);
+            if (ts < currentWm) {
+                logLateEvent(getLogger(), currentWm, item);
+                lazyIncrement(lateEventsDropped);
+                return true;
+            }
+            K key = keyFns.get(ordinal).apply(item);
+            List<Object> matches = ordinal == 0
+                    ? buffers.get(1).find(key, addClamped(ts, lowerBound), addClamped(ts, upperBound))
+                    : buffers.get(0).find(key, subtractClamped(ts, upperBound), subtractClamped(ts, lowerBound));
+            buffers.get(ordinal).add(key, ts, item);
+            lazyIncrement(bufferedItems);
+            outputTraverser = traverseIterable(matches)
+                    .map(match -> ordinal == 0
+                            ? mapToOutputFn.apply(item, match)
+                            : mapToOutputFn.apply(match, item))
+                    .onFirstNull(() -> outputTraverser = null);
+        }
+        return emitFromTraverser(outputTraverser);
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark wm) {
+        currentWm = wm.timestamp();
+        // an item on ordinal 0 can join future items with timestamp up to
+        // ts + upperBound, an item on ordinal 1 those with ts - lowerBound
+        int evicted = buffers.get(0).evictBefore(subtractClamped(currentWm, upperBound))
+                + buffers.get(1).evictBefore(addClamped(currentWm, lowerBound));
+        lazyAdd(bufferedItems, -evicted);
+        return tryEmit(wm);
+    }
+
+    private enum SnapshotKeys {
+        WATERMARK
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        if (snapshotTraverser == null) {
+            Set<K> keys = new HashSet<>(buffers.get(0).itemsByKey.keySet());
+            keys.addAll(buffers.get(1).itemsByKey.keySet());
+            snapshotTraverser = traverseIterable(keys)
+                    .map(key -> Util.<Object, Object>entry(key,
+                            tuple2(buffers.get(0).itemsOf(key), buffers.get(1).itemsOf(key))))
+                    .append(Util.<Object, Object>entry(broadcastKey(SnapshotKeys.WATERMARK), currentWm))
+                    .onFirstNull(() -> snapshotTraverser = null);
+        }
+        return emitFromTraverserToSnapshot(snapshotTraverser);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+        if (key instanceof BroadcastKey) {
+            assert ((BroadcastKey) key).key() == SnapshotKeys.WATERMARK : "Unexpected " + key;
+            minRestoredWm = min(minRestoredWm, (long) value);
+            return;
+        }
+        Tuple2<List<TimestampedItem<Object>>, List<TimestampedItem<Object>>> items =
+                (Tuple2<List<TimestampedItem<Object>>, List<TimestampedItem<Object>>>) value;
+        for (TimestampedItem<Object> item : items.f0()) {
+            buffers.get(0).add((K) key, item.timestamp(), item.item());
+        }
+        for (TimestampedItem<Object> item : items.f1()) {
+            buffers.get(1).add((K) key, item.timestamp(), item.item());
+        }
+        lazyAdd(bufferedItems, items.f0().size() + items.f1().size());
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        if (minRestoredWm != Long.MAX_VALUE) {
+            currentWm = minRestoredWm;
+        }
+        return true;
+    }
+
+    /**
+     * Items of one input, indexed by the key for joining and by the timestamp
+     * for eviction.
+     */
+    private static final class TimestampedBuffer<K> {
+        private final Map<K, TreeMap<Long, List<Object>>> itemsByKey = new HashMap<>();
+        private final TreeMap<Long, Set<K>> keysByTs = new TreeMap<>();
+
+        void add(K key, long ts, Object item) {
+            itemsByKey.computeIfAbsent(key, k -> new TreeMap<>())
+                      .computeIfAbsent(ts, x -> new ArrayList<>())
+                      .add(item);
+            keysByTs.computeIfAbsent(ts, x -> new HashSet<>()).add(key);
+        }
+
+        /**
+         * Returns the items for the key with the timestamp in the range
+         * {@code [fromTs, toTs]}.
+         */
+        List<Object> find(K key, long fromTs, long toTs) {
+            TreeMap<Long, List<Object>> keyItems = itemsByKey.get(key);
+            if (keyItems == null) {
+                return Collections.emptyList();
+            }
+            List<Object> result = new ArrayList<>();
+            for (List<Object> items : keyItems.subMap(fromTs, true, toTs, true).values()) {
+                result.addAll(items);
+            }
+            return result;
+        }
+
+        /**
+         * Removes the items with the timestamp less than {@code ts}.
+         *
+         * @return the number of removed items
+         */
+        int evictBefore(long ts) {
+            int count = 0;
+            NavigableMap<Long, Set<K>> head = keysByTs.headMap(ts, false);
+            for (Iterator<Entry<Long, Set<K>>> it = head.entrySet().iterator(); it.hasNext(); ) {
+                Entry<Long, Set<K>> e = it.next();
+                for (K key : e.getValue()) {
+                    TreeMap<Long, List<Object>> keyItems = itemsByKey.get(key);
+                    count += keyItems.remove(e.getKey()).size();
+                    if (keyItems.isEmpty()) {
+                        itemsByKey.remove(key);
+                    }
+                }
+                it.remove();
+            }
+            return count;
+        }
+
+        List<TimestampedItem<Object>> itemsOf(K key) {
+            TreeMap<Long, List<Object>> keyItems = itemsByKey.get(key);
+            List<TimestampedItem<Object>> result = new ArrayList<>();
+            if (keyItems != null) {
+                for (Entry<Long, List<Object>> e : keyItems.entrySet()) {
+                    for (Object item : e.getValue()) {
+                        result.add(new TimestampedItem<>(e.getKey(), item));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
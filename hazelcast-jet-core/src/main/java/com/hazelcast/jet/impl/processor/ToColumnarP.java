@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.datamodel.ColumnarBatch;
+import com.hazelcast.jet.function.ToDoubleFunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * Processor which collects the received items into {@link ColumnarBatch}es
+ * and emits the batches. A batch is emitted when it's full, when the inbox
+ * is drained, before a watermark and before a snapshot, so it doesn't add
+ * latency, it only uses the items that are already there.
+ *
+ * @param <T> received item type
+ */
+public class ToColumnarP<T> extends AbstractProcessor {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final int maxBatchSize;
+    private final ToLongFunctionEx<? super T>[] longFns;
+    private final ToDoubleFunctionEx<? super T>[] doubleFns;
+
+    private long[][] longColumns;
+    private double[][] doubleColumns;
+    private int size;
+    private int capacity;
+    private int lastBatchSize = MIN_CAPACITY;
+    private ColumnarBatch pendingBatch;
+
+    /**
+     * Constructs a processor with the given batch size and column
+     * extractors.
+     */
+    @SuppressWarnings("unchecked")
+    public ToColumnarP(
+            int maxBatchSize,
+            @Nonnull List<? extends ToLongFunctionEx<? super T>> longFns,
+            @Nonnull List<? extends ToDoubleFunctionEx<? super T>> doubleFns
+    ) {
+        checkPositive(maxBatchSize, "maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        this.longFns = longFns.toArray(new ToLongFunctionEx[0]);
+        this.doubleFns = doubleFns.toArray(new ToDoubleFunctionEx[0]);
+        this.longColumns = new long[this.longFns.length][];
+        this.doubleColumns = new double[this.doubleFns.length][];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (size == maxBatchSize && !flush()) {
+            return false;
+        }
+        if (size == capacity) {
+            grow();
+        }
+        T t = (T) item;
+        for (int c = 0; c < longFns.length; c++) {
+            longColumns[c][size] = longFns[c].applyAsLong(t);
+        }
+        for (int c = 0; c < doubleFns.length; c++) {
+            doubleColumns[c][size] = doubleFns[c].applyAsDouble(t);
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        return flush();
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        return flush() && super.tryProcessWatermark(watermark);
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        return flush();
+    }
+
+    @Override
+    public boolean complete() {
+        return flush();
+    }
+
+    private boolean flush() {
+        if (size == 0) {
+            return true;
+        }
+        if (pendingBatch == null) {
+            pendingBatch = columnarBatch(size, longColumns.clone(), doubleColumns.clone());
+        }
+        if (!tryEmit(pendingBatch)) {
+            return false;
+        }
+        pendingBatch = null;
+        // The emitted batch owns the arrays now, the next batch allocates new
+        // ones when its first item arrives. They are sized after this batch,
+        // so that a processor that keeps receiving small inbox chunks doesn't
+        // allocate maxBatchSize arrays for each of them.
+        lastBatchSize = size;
+        size = 0;
+        capacity = 0;
+        return true;
+    }
+
+    private void grow() {
+        int newCapacity = capacity == 0 ? Math.max(MIN_CAPACITY, lastBatchSize)
+                : capacity <= maxBatchSize / 2 ? capacity * 2
+                : maxBatchSize;
+        newCapacity = Math.min(newCapacity, maxBatchSize);
+        for (int c = 0; c < longColumns.length; c++) {
+            longColumns[c] = capacity == 0 ? new long[newCapacity] : Arrays.copyOf(longColumns[c], newCapacity);
+        }
+        for (int c = 0; c < doubleColumns.length; c++) {
+            doubleColumns[c] = capacity == 0 ? new double[newCapacity] : Arrays.copyOf(doubleColumns[c], newCapacity);
+        }
+        capacity = newCapacity;
+    }
+}
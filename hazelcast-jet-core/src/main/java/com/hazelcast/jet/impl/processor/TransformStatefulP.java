@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.processor;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.Util;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
 import com.hazelcast.jet.core.ResettableSingletonTraverser;
@@ -28,23 +29,24 @@ import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 
 import javax.annotation.Nonnull;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
 
-import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.config.ProcessingGuarantee.NONE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.logLateEvent;
 import static java.lang.Math.min;
 
-public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
+public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor implements IncrementalSnapshotProcessor {
     private static final int HASH_MAP_INITIAL_CAPACITY = 16;
     private static final float HASH_MAP_LOAD_FACTOR = 0.75f;
     private static final int MAX_ITEMS_TO_EVICT = 100;
@@ -60,9 +62,13 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
     private final TriFunction<? super T, ? super K, ? super R, ? extends OUT> mapToOutputFn;
     private final FlatMapper<T, OUT> flatMapper = flatMapper(this::flatMapEvent);
 
-    private final Map<K, TimestampedItem<S>> keyToState = new LruHashMap();
+    private KeyedStateStore<K, TimestampedItem<S>> keyToState;
     private long currentWm = Long.MIN_VALUE;
     private Traverser<? extends Entry<?, ?>> snapshotTraverser;
+    // Keys whose state changed since the last snapshot, null if the job
+    // doesn't take incremental snapshots
+    private Set<K> dirtyKeys;
+    private boolean snapshotIncremental;
 
     @SuppressWarnings("unchecked")
     public TransformStatefulP(
@@ -81,6 +87,14 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
         this.mapToOutputFn = mapToOutputFn;
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        keyToState = KeyedStateStore.create(context, LruHashMap::new);
+        if (context.processingGuarantee() != NONE && context.jobConfig().getMaxIncrementalSnapshots() > 0) {
+            dirtyKeys = new HashSet<>();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
@@ -96,12 +110,17 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
             return Traversers.empty();
         }
         K key = keyFn.apply(event);
-        S state = resolveState(key, timestamp);
-        return applyOutputFnOptimized(event, key, statefulFlatMapFn.apply(state, event));
+        TimestampedItem<S> tsAndState = resolveState(key, timestamp);
+        Traverser<R> result = statefulFlatMapFn.apply(tsAndState.item(), event);
+        keyToState.update(key, tsAndState);
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
+        return applyOutputFnOptimized(event, key, result);
     }
 
     @Nonnull
-    private S resolveState(K key, long timestamp) {
+    private TimestampedItem<S> resolveState(K key, long timestamp) {
         TimestampedItem<S> tsAndState = keyToState.get(key);
         if (tsAndState != null) {
             long lastTouched = tsAndState.timestamp();
@@ -115,7 +134,7 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
             tsAndState = new TimestampedItem<>(timestamp, createFn.get());
             keyToState.put(key, tsAndState);
         }
-        return tsAndState.item();
+        return tsAndState;
     }
 
     @Nonnull
@@ -136,17 +155,7 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
     @Override
     public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
         currentWm = watermark.timestamp();
-        long countEvicted = 0;
-        for (Iterator<Entry<K, TimestampedItem<S>>> iter = keyToState.entrySet().iterator(); iter.hasNext();) {
-            long timestamp = iter.next().getValue().timestamp();
-            if (timestamp >= currentWm - ttl) {
-                break;
-            }
-            iter.remove();
-            if (++countEvicted == MAX_ITEMS_TO_EVICT) {
-                break;
-            }
-        }
+        keyToState.evict(tsAndState -> tsAndState.timestamp() < currentWm - ttl, MAX_ITEMS_TO_EVICT);
         return super.tryProcessWatermark(watermark);
     }
 
@@ -157,13 +166,31 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
     @Override
     public boolean saveToSnapshot() {
         if (snapshotTraverser == null) {
-            snapshotTraverser = Traversers.<Entry<?, ?>>traverseIterable(keyToState.entrySet())
-                    .append(entry(broadcastKey(SnapshotKeys.WATERMARK), currentWm))
-                    .onFirstNull(() -> snapshotTraverser = null);
+            // keys evicted after they were changed are skipped, their restored
+            // state is expired and treated as absent
+            Traverser<Entry<Object, Object>> stateTraverser = snapshotIncremental
+                    ? traverseIterable(dirtyKeys).map(key -> {
+                            TimestampedItem<S> tsAndState = keyToState.get(key);
+                            return tsAndState != null ? Util.<Object, Object>entry(key, tsAndState) : null;
+                        })
+                    : keyToState.snapshotTraverser();
+            snapshotTraverser = stateTraverser
+                    .append(Util.<Object, Object>entry(broadcastKey(SnapshotKeys.WATERMARK), currentWm))
+                    .onFirstNull(() -> {
+                        snapshotTraverser = null;
+                        if (dirtyKeys != null) {
+                            dirtyKeys.clear();
+                        }
+                    });
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Override
+    public void setSnapshotIncremental(boolean incremental) {
+        snapshotIncremental = incremental && dirtyKeys != null;
+    }
+
     @Override
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
         if (key instanceof BroadcastKey) {
@@ -172,8 +199,11 @@ public class TransformStatefulP<T, K, S, R, OUT> extends AbstractProcessor {
             currentWm = (currentWm == Long.MIN_VALUE) ? wm : min(currentWm, wm);
         } else {
             @SuppressWarnings("unchecked")
-            TimestampedItem<S> old = keyToState.put((K) key, (TimestampedItem<S>) value);
-            assert old == null : "Duplicate key '" + key + '\'';
+            K k = (K) key;
+            assert !keyToState.containsKey(k) : "Duplicate key '" + key + '\'';
+            @SuppressWarnings("unchecked")
+            TimestampedItem<S> tsAndState = (TimestampedItem<S>) value;
+            keyToState.put(k, tsAndState);
         }
     }
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.aggregate.AggregateOperation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Maintains the per-key aggregate of a sliding window for aggregate
+ * operations without a {@code deductFn}, using the "two stacks" algorithm
+ * for each key. The accumulators of a key in the window are split into a
+ * front part, for which we keep the aggregate of each suffix, and a back
+ * part, for which we keep the running aggregate. The window is then
+ * combined from one suffix and the running aggregate. When the front part
+ * runs out, the back part is turned into it. This way each accumulator is
+ * combined a constant number of times, regardless of the number of frames
+ * in a window.
+ * <p>
+ * A key only has entries for the frames it occurs in, so in addition to
+ * the frames themselves this keeps at most one suffix aggregate for each
+ * key in each frame and one running aggregate for each key.
+ * <p>
+ * The frames added must not change until they are removed.
+ *
+ * @param <K> type of the grouping key
+ * @param <A> type of the accumulator
+ */
+final class TwoStacksSlidingWindow<K, A> {
+
+    private final Supplier<A> createFn;
+    private final BiConsumer<? super A, ? super A> combineFn;
+
+    // the frames in the window, can contain nulls for frames without data
+    private final ArrayDeque<AccumulatorMap<K, A>> frames = new ArrayDeque<>();
+    private final Map<K, KeyWindow> keyWindows = new HashMap<>();
+
+    TwoStacksSlidingWindow(@Nonnull AggregateOperation<A, ?> aggrOp) {
+        assert aggrOp.combineFn() != null : "combineFn == null";
+        this.createFn = aggrOp.createFn();
+        this.combineFn = aggrOp.combineFn();
+    }
+
+    /**
+     * Adds the frame following the current newest frame.
+     */
+    void addLast(@Nullable AccumulatorMap<K, A> frame) {
+        frames.addLast(frame);
+        if (frame != null) {
+            frame.forEach((key, acc) -> keyWindows.computeIfAbsent(key, k -> new KeyWindow()).addLast(acc));
+        }
+    }
+
+    /**
+     * Removes the oldest frame. Must be called before the frame is cleared.
+     */
+    void removeFirst() {
+        AccumulatorMap<K, A> frame = frames.removeFirst();
+        if (frame == null) {
+            return;
+        }
+        frame.forEach((key, acc) -> {
+            KeyWindow keyWindow = keyWindows.get(key);
+            keyWindow.removeFirst();
+            if (keyWindow.isEmpty()) {
+                keyWindows.remove(key);
+            }
+        });
+    }
+
+    int size() {
+        return frames.size();
+    }
+
+    /**
+     * Returns a new map with the aggregate of all frames in the window.
+     */
+    @Nonnull
+    Map<K, A> window() {
+        Map<K, A> window = new HashMap<>();
+        keyWindows.forEach((key, keyWindow) -> window.put(key, keyWindow.aggregate()));
+        return window;
+    }
+
+    /**
+     * The two stacks of a single key.
+     */
+    private final class KeyWindow {
+        // suffix aggregates of the front accumulators, the first one is the
+        // aggregate of all of them
+        private final ArrayDeque<A> front = new ArrayDeque<>();
+        // the accumulators of the back part, owned by the frames
+        private final List<A> back = new ArrayList<>();
+        // null if the back part is empty
+        private A backAggregate;
+
+        void addLast(A acc) {
+            back.add(acc);
+            if (backAggregate == null) {
+                backAggregate = createFn.get();
+            }
+            combineFn.accept(backAggregate, acc);
+        }
+
+        void removeFirst() {
+            if (front.isEmpty()) {
+                flip();
+            }
+            front.removeFirst();
+        }
+
+        boolean isEmpty() {
+            return front.isEmpty() && back.isEmpty();
+        }
+
+        A aggregate() {
+            A result = createFn.get();
+            if (!front.isEmpty()) {
+                combineFn.accept(result, front.peekFirst());
+            }
+            if (backAggregate != null) {
+                combineFn.accept(result, backAggregate);
+            }
+            return result;
+        }
+
+        private void flip() {
+            A suffix = null;
+            for (int i = back.size() - 1; i >= 0; i--) {
+                A newSuffix = createFn.get();
+                if (suffix != null) {
+                    combineFn.accept(newSuffix, suffix);
+                }
+                combineFn.accept(newSuffix, back.get(i));
+                front.addFirst(newSuffix);
+                suffix = newSuffix;
+            }
+            back.clear();
+            backAggregate = null;
+        }
+    }
+}
@@ -54,6 +54,10 @@ public final class SerializerHookConstants {
     public static final int JET_EVENT = -324;
     public static final int TIMESTAMPED_ITEM = -325;
     public static final int PRIORITY_QUEUE = -326;
+    public static final int COLUMNAR_BATCH = -327;
+    public static final int HYPER_LOG_LOG_ACC = -328;
+    public static final int COUNT_MIN_SKETCH_ACC = -329;
+    public static final int KLL_SKETCH_ACC = -330;
 
 
     // reserved for hadoop module: -380 to -390
@@ -59,6 +59,13 @@ public final class ArrayDequeInbox implements Inbox {
         progTracker.madeProgress();
     }
 
+    /**
+     * Returns the progress tracker this inbox reports to.
+     */
+    public ProgressTracker progressTracker() {
+        return progTracker;
+    }
+
     /**
      * Retrieves the queue backing this inbox.
      */
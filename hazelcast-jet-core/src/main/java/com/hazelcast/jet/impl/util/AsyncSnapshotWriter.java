@@ -43,4 +43,19 @@ public interface AsyncSnapshotWriter {
     long getTotalPayloadBytes();
     long getTotalKeys();
     long getTotalChunks();
+
+    /**
+     * Returns the put latency summed over the written chunks: the time from
+     * issuing the asynchronous put of a chunk to the snapshot store until
+     * its completion. The chunks aren't queued in the writer, a chunk that
+     * can't be put right away stalls the writer instead, see {@link
+     * #getStallTimeNanos()}.
+     */
+    long getPutLatencyNanos();
+
+    /**
+     * Returns the total time the writer refused to accept more data because
+     * of the write budget or of the limit of parallel writes.
+     */
+    long getStallTimeNanos();
 }
@@ -18,8 +18,6 @@ package com.hazelcast.jet.impl.util;
 
 import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
-import com.hazelcast.core.ICompletableFuture;
-import com.hazelcast.core.IMap;
 import com.hazelcast.core.PartitionAware;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.serialization.impl.SerializationConstants;
@@ -44,30 +42,40 @@ import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
 
     public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+    static final int MIN_CHUNK_SIZE = 16 * 1024;
 
-    final int usableChunkSize; // this includes the serialization header for byte[], but not the terminator
+    // this includes the serialization header for byte[], but not the terminator
+    int usableChunkSize;
     final byte[] serializedByteArrayHeader = new byte[3 * Bits.INT_SIZE_IN_BYTES];
     final byte[] valueTerminator;
     final AtomicInteger numConcurrentAsyncOps;
 
     private final IPartitionService partitionService;
+    private final SnapshotWriteThrottle throttle;
+    private final int minUsableChunkSize;
+    private final int maxUsableChunkSize;
 
     private final CustomByteArrayOutputStream[] buffers;
     private final int[] partitionKeys;
     private int partitionSequence;
     private final ILogger logger;
-    private final NodeEngine nodeEngine;
     private final boolean useBigEndian;
     private final SnapshotContext snapshotContext;
     private final String vertexName;
     private final int memberCount;
-    private IMap currentMap;
+    private final boolean incrementalVertex;
+    private final JetService jetService;
+    private String currentMapName;
+    private SnapshotStore currentStore;
     private long currentSnapshotId;
     private final AtomicReference<Throwable> firstError = new AtomicReference<>();
     private final AtomicInteger numActiveFlushes = new AtomicInteger();
@@ -76,38 +84,37 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private long totalKeys;
     private long totalChunks;
     private long totalPayloadBytes;
+    private final AtomicLong putLatencyNanos = new AtomicLong();
+    private long stallTimeNanos;
+    private long stallStartNanos = -1;
+    private boolean throttledInSnapshot;
 
-    private final ExecutionCallback<Object> callback = new ExecutionCallback<Object>() {
-        @Override
-        public void onResponse(Object response) {
-            assert response == null : "put operation overwrote a previous value: " + response;
-            numActiveFlushes.decrementAndGet();
-            numConcurrentAsyncOps.decrementAndGet();
-        }
-
-        @Override
-        public void onFailure(Throwable t) {
-            logger.severe("Error writing to snapshot map", t);
-            firstError.compareAndSet(null, t);
-            numActiveFlushes.decrementAndGet();
-            numConcurrentAsyncOps.decrementAndGet();
-        }
-    };
-
+    /**
+     * @param incrementalVertex true, if all processors of the vertex support
+     *     incremental snapshots. The chunks are marked so that their entries
+     *     are merged with the entries of the incremental snapshots when
+     *     restoring
+     */
     public AsyncSnapshotWriterImpl(NodeEngine nodeEngine, SnapshotContext snapshotContext, String vertexName,
-                                   int memberIndex, int memberCount) {
-        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount);
+                                   int memberIndex, int memberCount, boolean incrementalVertex) {
+        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount,
+                incrementalVertex);
     }
 
     // for test
     AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
                             String vertexName, int memberIndex, int memberCount) {
-        this.nodeEngine = nodeEngine;
+        this(chunkSize, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, false);
+    }
+
+    private AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
+                                    String vertexName, int memberIndex, int memberCount, boolean incrementalVertex) {
         this.partitionService = nodeEngine.getPartitionService();
         this.logger = nodeEngine.getLogger(getClass());
         this.snapshotContext = snapshotContext;
         this.vertexName = vertexName;
         this.memberCount = memberCount;
+        this.incrementalVertex = incrementalVertex;
         currentSnapshotId = snapshotContext.currentSnapshotId();
 
         useBigEndian = !nodeEngine.getHazelcastInstance().getConfig().getSerializationConfig().isUseNativeByteOrder()
@@ -122,17 +129,19 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             buffers[i].write(serializedByteArrayHeader, 0, serializedByteArrayHeader.length);
         }
 
-        JetService jetService = nodeEngine.getService(JetService.SERVICE_NAME);
+        jetService = nodeEngine.getService(JetService.SERVICE_NAME);
         this.partitionKeys = jetService.getSharedPartitionKeys();
         this.partitionSequence = memberIndex;
 
-        this.numConcurrentAsyncOps = jetService.numConcurrentAsyncOps();
+        this.numConcurrentAsyncOps = jetService.numConcurrentSnapshotAsyncOps();
+        this.throttle = jetService.snapshotWriteThrottle();
 
         byte[] valueTerminatorWithHeader = nodeEngine.getSerializationService().toData(
                 SnapshotDataValueTerminator.INSTANCE).toByteArray();
         valueTerminator = Arrays.copyOfRange(valueTerminatorWithHeader, HeapData.TYPE_OFFSET,
                 valueTerminatorWithHeader.length);
-        usableChunkSize = chunkSize - valueTerminator.length;
+        usableChunkSize = maxUsableChunkSize = chunkSize - valueTerminator.length;
+        minUsableChunkSize = Math.min(MIN_CHUNK_SIZE, chunkSize) - valueTerminator.length;
     }
 
     @Override
@@ -144,7 +153,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         // if single entry is larger than usableChunkSize, send it alone. We avoid adding it to the ByteArrayOutputStream,
         // since it will grow beyond maximum capacity and never shrink again.
         if (length > usableChunkSize) {
-            return putAsyncToMap(partitionId, () -> {
+            return putAsyncToMap(partitionId, serializedByteArrayHeader.length + length + valueTerminator.length, () -> {
                 byte[] data = new byte[serializedByteArrayHeader.length + length + valueTerminator.length];
                 totalKeys++;
                 int offset = 0;
@@ -195,7 +204,8 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     @CheckReturnValue
     private boolean flushPartition(int partitionId) {
         return containsOnlyHeader(buffers[partitionId])
-                || putAsyncToMap(partitionId, () -> getBufferContentsAndClear(buffers[partitionId]));
+                || putAsyncToMap(partitionId, buffers[partitionId].size() + valueTerminator.length,
+                        () -> getBufferContentsAndClear(buffers[partitionId]));
     }
 
     private boolean containsOnlyHeader(CustomByteArrayOutputStream buffer) {
@@ -218,24 +228,31 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     }
 
     @CheckReturnValue
-    private boolean putAsyncToMap(int partitionId, Supplier<Data> dataSupplier) {
+    private boolean putAsyncToMap(int partitionId, int size, Supplier<Data> dataSupplier) {
         if (!initCurrentMap()) {
             return false;
         }
 
         if (!Util.tryIncrement(numConcurrentAsyncOps, 1, JetService.MAX_PARALLEL_ASYNC_OPS)) {
+            stalled();
+            return false;
+        }
+        if (!throttle.tryAcquire(size)) {
+            numConcurrentAsyncOps.decrementAndGet();
+            throttledInSnapshot = true;
+            stalled();
             return false;
         }
+        unstalled();
         try {
-            // we put a Data instance to the map directly to avoid the serialization of the byte array
             Data data = dataSupplier.get();
             totalPayloadBytes += data.dataSize();
             totalChunks++;
-            ICompletableFuture<Object> future = currentMap.putAsync(
-                    new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence),
-                    data);
+            currentStore.put(currentMapName,
+                    new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence,
+                            incrementalVertex),
+                    data, callback(System.nanoTime()));
             partitionSequence += memberCount;
-            future.andThen(callback);
             numActiveFlushes.incrementAndGet();
         } catch (HazelcastInstanceNotActiveException ignored) {
             return false;
@@ -243,13 +260,62 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return true;
     }
 
+    private ExecutionCallback<Object> callback(long startNanos) {
+        return new ExecutionCallback<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                assert response == null : "put operation overwrote a previous value: " + response;
+                putLatencyNanos.addAndGet(System.nanoTime() - startNanos);
+                numActiveFlushes.decrementAndGet();
+                numConcurrentAsyncOps.decrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                logger.severe("Error writing to snapshot store", t);
+                firstError.compareAndSet(null, t);
+                putLatencyNanos.addAndGet(System.nanoTime() - startNanos);
+                numActiveFlushes.decrementAndGet();
+                numConcurrentAsyncOps.decrementAndGet();
+            }
+        };
+    }
+
+    private void stalled() {
+        if (stallStartNanos < 0) {
+            stallStartNanos = System.nanoTime();
+        }
+    }
+
+    private void unstalled() {
+        if (stallStartNanos >= 0) {
+            stallTimeNanos += System.nanoTime() - stallStartNanos;
+            stallStartNanos = -1;
+        }
+    }
+
+    /**
+     * Halves the chunk size after a snapshot in which the writes were
+     * throttled and doubles it back after one in which they weren't. A
+     * chunk takes its whole size from the member-wide budget at once, with
+     * smaller chunks the writers of all vertices take turns more often and
+     * the processors are blocked for a shorter time.
+     */
+    private void adaptChunkSize() {
+        usableChunkSize = throttledInSnapshot
+                ? Math.max(minUsableChunkSize, usableChunkSize / 2)
+                : Math.min(maxUsableChunkSize, usableChunkSize * 2);
+        throttledInSnapshot = false;
+    }
+
     private boolean initCurrentMap() {
-        if (currentMap == null) {
+        if (currentMapName == null) {
             String mapName = snapshotContext.currentMapName();
             if (mapName == null) {
                 return false;
             }
-            currentMap = nodeEngine.getHazelcastInstance().getMap(mapName);
+            currentMapName = mapName;
+            currentStore = jetService.getSnapshotStore(mapName);
             this.currentSnapshotId = snapshotContext.currentSnapshotId();
         }
         return true;
@@ -276,17 +342,21 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
 
         // we're done
-        currentMap = null;
+        currentMapName = null;
+        currentStore = null;
+        adaptChunkSize();
         if (logger.isFineEnabled()) {
-            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d",
-                    vertexName, totalKeys, totalChunks, totalPayloadBytes));
+            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d, stalled=%,dms, chunkSize=%,d",
+                    vertexName, totalKeys, totalChunks, totalPayloadBytes, NANOSECONDS.toMillis(stallTimeNanos),
+                    usableChunkSize));
         }
         return true;
     }
 
     @Override
     public void resetStats() {
-        totalKeys = totalChunks = totalPayloadBytes = 0;
+        totalKeys = totalChunks = totalPayloadBytes = stallTimeNanos = 0;
+        putLatencyNanos.set(0);
     }
 
     @Override
@@ -313,16 +383,23 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         private long snapshotId;
         private String vertexName;
         private int sequence;
+        private boolean incremental;
 
         // for deserialization
         public SnapshotDataKey() {
         }
 
         public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence) {
+            this(partitionKey, snapshotId, vertexName, sequence, false);
+        }
+
+        public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence,
+                               boolean incremental) {
             this.partitionKey = partitionKey;
             this.snapshotId = snapshotId;
             this.vertexName = vertexName;
             this.sequence = sequence;
+            this.incremental = incremental;
         }
 
         @Override
@@ -338,6 +415,16 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return vertexName;
         }
 
+        /**
+         * Returns true, if the chunk was written by a vertex whose processors
+         * support incremental snapshots. Its entries are then replaced by
+         * the entries with equal keys in the newer snapshots of the same
+         * vertex when restoring.
+         */
+        public boolean isIncremental() {
+            return incremental;
+        }
+
         @Override
         public String toString() {
             return "SnapshotDataKey{" +
@@ -345,6 +432,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
                     ", snapshotId=" + snapshotId +
                     ", vertexName='" + vertexName + '\'' +
                     ", sequence=" + sequence +
+                    ", incremental=" + incremental +
                     '}';
         }
 
@@ -364,6 +452,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             out.writeLong(snapshotId);
             out.writeUTF(vertexName);
             out.writeInt(sequence);
+            out.writeBoolean(incremental);
         }
 
         @Override
@@ -372,6 +461,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             snapshotId = in.readLong();
             vertexName = in.readUTF();
             sequence = in.readInt();
+            incremental = in.readBoolean();
         }
 
         @Override
@@ -386,12 +476,13 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return partitionKey == that.partitionKey &&
                     snapshotId == that.snapshotId &&
                     sequence == that.sequence &&
+                    incremental == that.incremental &&
                     Objects.equals(vertexName, that.vertexName);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(partitionKey, snapshotId, vertexName, sequence);
+            return Objects.hash(partitionKey, snapshotId, vertexName, sequence, incremental);
         }
     }
 
@@ -495,4 +586,14 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return totalChunks;
     }
+
+    @Override
+    public long getPutLatencyNanos() {
+        return putLatencyNanos.get();
+    }
+
+    @Override
+    public long getStallTimeNanos() {
+        return stallTimeNanos;
+    }
 }
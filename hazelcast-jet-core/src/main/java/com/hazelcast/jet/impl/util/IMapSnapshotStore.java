@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+
+import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
+
+/**
+ * The default {@link SnapshotStore}: the chunks are entries of the snapshot
+ * map, replicated to its backups.
+ */
+public class IMapSnapshotStore implements SnapshotStore {
+
+    private final HazelcastInstance instance;
+
+    public IMapSnapshotStore(@Nonnull HazelcastInstance instance) {
+        this.instance = instance;
+    }
+
+    @Override
+    public void put(@Nonnull String mapName, @Nonnull SnapshotDataKey key, @Nonnull Data chunk,
+                    @Nonnull ExecutionCallback<Object> callback) {
+        // we put a Data instance to the map directly to avoid the serialization of the byte array
+        instance.getMap(mapName).putAsync(key, chunk).andThen(callback);
+    }
+
+    @Override
+    public void clearOlderSnapshots(@Nonnull String mapName, long snapshotId) {
+        // the master clears the map
+    }
+
+    @Override
+    public long countChunks(@Nonnull String mapName, @Nonnull long[] snapshotIds) {
+        IMap<Object, Object> snapshotMap = instance.getMap(mapName);
+        return snapshotMap.aggregate(
+                Aggregators.count(),
+                e -> e.getKey() instanceof SnapshotDataKey
+                        && containsSnapshotId(snapshotIds, ((SnapshotDataKey) e.getKey()).snapshotId()));
+    }
+
+    @Nonnull
+    @Override
+    public ProcessorMetaSupplier readP(@Nonnull String mapName, long minSnapshotId, long maxSnapshotId) {
+        return readMapP(mapName,
+                e -> e.getKey() instanceof SnapshotDataKey
+                        && ((SnapshotDataKey) e.getKey()).snapshotId() >= minSnapshotId
+                        && ((SnapshotDataKey) e.getKey()).snapshotId() <= maxSnapshotId,
+                FunctionEx.identity());
+    }
+
+    static boolean containsSnapshotId(long[] snapshotIds, long snapshotId) {
+        for (long id : snapshotIds) {
+            if (id == snapshotId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
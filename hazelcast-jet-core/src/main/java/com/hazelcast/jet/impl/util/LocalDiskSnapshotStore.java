@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.Member;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.operation.GetLocalSnapshotChunkCountOperation;
+import com.hazelcast.jet.impl.operation.ReplicateSnapshotChunkOperation;
+import com.hazelcast.jet.impl.processor.ReadLocalSnapshotP;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.impl.util.IMapSnapshotStore.containsSnapshotId;
+import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A {@link SnapshotStore} that appends the chunks to segment files on the
+ * local disk of the member that wrote them, instead of the snapshot IMap
+ * and its backups. Optionally, each chunk is also written to the disk of
+ * one peer member, the next one in the member list, so that the snapshot
+ * survives the loss of a single member.
+ * <p>
+ * Each member writes to its own subdirectory named by its UUID, which is
+ * deleted when the member shuts down: the files only have to live as long
+ * as the member. The chunks of one snapshot written by one member are in
+ * a sequence of segments of at most {@link #MAX_SEGMENT_SIZE} bytes, so
+ * that each segment can be mapped to memory as a whole when restoring.
+ * Each record is the length and the bytes of the serialized {@link
+ * SnapshotDataKey}, followed by the length and the bytes of the chunk.
+ * <p>
+ * A member restores the chunks it wrote and the replicated chunks of the
+ * members that are no longer in the cluster. Exported snapshots are never
+ * written to this store, they are kept in their IMaps.
+ */
+public class LocalDiskSnapshotStore implements SnapshotStore, Closeable {
+
+    /**
+     * The name of the executor the files are written on.
+     */
+    public static final String EXECUTOR_NAME = "jet:snapshot-store";
+
+    static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final NodeEngine nodeEngine;
+    private final ILogger logger;
+    private final Path directory;
+    private final String localUuid;
+    private final boolean replicate;
+
+    // map name -> file name prefix -> chunk file
+    private final ConcurrentMap<String, ConcurrentMap<String, ChunkFile>> maps = new ConcurrentHashMap<>();
+
+    public LocalDiskSnapshotStore(@Nonnull NodeEngine nodeEngine, @Nonnull Path parentDirectory, boolean replicate) {
+        this.nodeEngine = nodeEngine;
+        this.logger = nodeEngine.getLogger(getClass());
+        this.localUuid = nodeEngine.getLocalMember().getUuid();
+        this.directory = parentDirectory.resolve("jet-snapshots-" + localUuid);
+        this.replicate = replicate;
+    }
+
+    @Override
+    public void put(@Nonnull String mapName, @Nonnull SnapshotDataKey key, @Nonnull Data chunk,
+                    @Nonnull ExecutionCallback<Object> callback) {
+        byte[] keyBytes = nodeEngine.toData(key).toByteArray();
+        byte[] chunkBytes = chunk.toByteArray();
+        Address replicaAddress = replicate ? replicaAddress() : null;
+        nodeEngine.getExecutionService().execute(EXECUTOR_NAME, () -> {
+            try {
+                chunkFile(mapName, key.snapshotId(), localUuid).append(keyBytes, chunkBytes);
+            } catch (Throwable e) {
+                callback.onFailure(e);
+                return;
+            }
+            if (replicaAddress == null) {
+                callback.onResponse(null);
+                return;
+            }
+            nodeEngine.getOperationService()
+                      .invokeOnTarget(JetService.SERVICE_NAME, new ReplicateSnapshotChunkOperation(
+                              mapName, localUuid, key.snapshotId(), keyBytes, chunkBytes), replicaAddress)
+                      .andThen(callback);
+        });
+    }
+
+    /**
+     * Writes a chunk replicated from the member with the given UUID.
+     */
+    @Nonnull
+    public CompletableFuture<Void> putReplica(
+            @Nonnull String mapName, @Nonnull String ownerUuid, long snapshotId,
+            @Nonnull byte[] keyBytes, @Nonnull byte[] chunkBytes
+    ) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        nodeEngine.getExecutionService().execute(EXECUTOR_NAME, () -> {
+            try {
+                chunkFile(mapName, snapshotId, ownerUuid).append(keyBytes, chunkBytes);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void clearOlderSnapshots(@Nonnull String mapName, long snapshotId) {
+        ConcurrentMap<String, ChunkFile> files = maps.get(mapName);
+        if (files == null) {
+            return;
+        }
+        nodeEngine.getExecutionService().execute(EXECUTOR_NAME, () -> {
+            for (Iterator<ChunkFile> it = files.values().iterator(); it.hasNext(); ) {
+                ChunkFile file = it.next();
+                if (file.snapshotId < snapshotId) {
+                    it.remove();
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes all the chunks of the given map on this member.
+     */
+    public void clearMap(@Nonnull String mapName) {
+        ConcurrentMap<String, ChunkFile> files = maps.remove(mapName);
+        if (files != null) {
+            logFine(logger, "Deleting local snapshot data of '%s' because job already finished", mapName);
+            files.values().forEach(ChunkFile::delete);
+        }
+    }
+
+    /**
+     * Returns the names of the maps with chunks on this member.
+     */
+    @Nonnull
+    public Set<String> mapNames() {
+        return maps.keySet();
+    }
+
+    /**
+     * Counts the chunks in the whole cluster by asking each member for the
+     * number of the chunks it would restore.
+     */
+    @Override
+    public long countChunks(@Nonnull String mapName, @Nonnull long[] snapshotIds) {
+        Collection<Member> members = nodeEngine.getClusterService().getMembers();
+        Set<String> memberUuids = members.stream().map(Member::getUuid).collect(toSet());
+        List<Future<Long>> futures = members.stream()
+                .map(m -> nodeEngine.getOperationService().<Long>invokeOnTarget(JetService.SERVICE_NAME,
+                        new GetLocalSnapshotChunkCountOperation(mapName, snapshotIds, memberUuids), m.getAddress()))
+                .collect(toList());
+        long count = 0;
+        for (Future<Long> future : futures) {
+            try {
+                count += future.get();
+            } catch (Exception e) {
+                throw new JetException("Failed to count the chunks of '" + mapName + "': " + e, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of the chunks of the given snapshots this member
+     * would restore, if the members with the given UUIDs are in the cluster.
+     */
+    public long localChunkCount(@Nonnull String mapName, @Nonnull long[] snapshotIds,
+                                @Nonnull Set<String> memberUuids) {
+        return filesToRestore(mapName, memberUuids)
+                .filter(file -> containsSnapshotId(snapshotIds, file.snapshotId))
+                .mapToLong(ChunkFile::chunkCount)
+                .sum();
+    }
+
+    /**
+     * Returns the segments with the chunks of the snapshots with IDs in the
+     * given closed range this member restores, if the members with the given
+     * UUIDs are in the cluster. The list is sorted, so that the local
+     * processors can split it.
+     */
+    @Nonnull
+    public List<Path> segmentsToRestore(@Nonnull String mapName, long minSnapshotId, long maxSnapshotId,
+                                        @Nonnull Set<String> memberUuids) {
+        return filesToRestore(mapName, memberUuids)
+                .filter(file -> file.snapshotId >= minSnapshotId && file.snapshotId <= maxSnapshotId)
+                .flatMap(file -> file.segments().stream())
+                .sorted()
+                .collect(toList());
+    }
+
+    private Stream<ChunkFile> filesToRestore(String mapName, Set<String> memberUuids) {
+        Map<String, ChunkFile> files = maps.get(mapName);
+        if (files == null) {
+            return Stream.empty();
+        }
+        return files.values().stream()
+                    .filter(file -> file.ownerUuid.equals(localUuid) || !memberUuids.contains(file.ownerUuid));
+    }
+
+    @Nonnull
+    @Override
+    public ProcessorMetaSupplier readP(@Nonnull String mapName, long minSnapshotId, long maxSnapshotId) {
+        return ProcessorMetaSupplier.of(() -> new ReadLocalSnapshotP(mapName, minSnapshotId, maxSnapshotId));
+    }
+
+    /**
+     * Deletes all the files of this member.
+     */
+    @Override
+    public void close() {
+        maps.keySet().forEach(this::clearMap);
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.warning("Failed to delete " + directory + ": " + e, e);
+        }
+    }
+
+    @Nullable
+    private Address replicaAddress() {
+        List<Member> members = new ArrayList<>(nodeEngine.getClusterService().getMembers());
+        if (members.size() < 2) {
+            return null;
+        }
+        int localIndex = members.indexOf(nodeEngine.getLocalMember());
+        return members.get((localIndex + 1) % members.size()).getAddress();
+    }
+
+    private ChunkFile chunkFile(String mapName, long snapshotId, String ownerUuid) {
+        return maps.computeIfAbsent(mapName, x -> new ConcurrentHashMap<>())
+                   .computeIfAbsent(snapshotId + "-" + ownerUuid,
+                           prefix -> new ChunkFile(mapDirectory(mapName), prefix, snapshotId, ownerUuid));
+    }
+
+    private Path mapDirectory(String mapName) {
+        return directory.resolve(mapName.replaceAll("[^\\w.-]", "_"));
+    }
+
+    /**
+     * The segments with the chunks of one snapshot written by one member.
+     */
+    private final class ChunkFile {
+        final long snapshotId;
+        final String ownerUuid;
+
+        private final Path mapDirectory;
+        private final String prefix;
+        private final List<Path> segments = new ArrayList<>();
+        private final ByteBuffer keyLength = ByteBuffer.allocate(Integer.BYTES);
+        private final ByteBuffer chunkLength = ByteBuffer.allocate(Integer.BYTES);
+        private FileChannel channel;
+        private long segmentSize;
+        private long chunkCount;
+        private boolean deleted;
+
+        ChunkFile(Path mapDirectory, String prefix, long snapshotId, String ownerUuid) {
+            this.mapDirectory = mapDirectory;
+            this.prefix = prefix;
+            this.snapshotId = snapshotId;
+            this.ownerUuid = ownerUuid;
+        }
+
+        synchronized void append(byte[] keyBytes, byte[] chunkBytes) throws IOException {
+            if (deleted) {
+                throw new JetException("Snapshot " + snapshotId + " in " + mapDirectory + " was already deleted");
+            }
+            long recordSize = 2 * Integer.BYTES + keyBytes.length + chunkBytes.length;
+            if (channel == null || segmentSize > 0 && segmentSize + recordSize > MAX_SEGMENT_SIZE) {
+                nextSegment();
+            }
+            keyLength.clear();
+            keyLength.putInt(keyBytes.length).flip();
+            chunkLength.clear();
+            chunkLength.putInt(chunkBytes.length).flip();
+            ByteBuffer[] record = {keyLength, ByteBuffer.wrap(keyBytes), chunkLength, ByteBuffer.wrap(chunkBytes)};
+            for (long written = 0; written < recordSize; ) {
+                written += channel.write(record);
+            }
+            segmentSize += recordSize;
+            chunkCount++;
+        }
+
+        private void nextSegment() throws IOException {
+            closeChannel();
+            Files.createDirectories(mapDirectory);
+            Path segment = mapDirectory.resolve(prefix + '-' + segments.size() + SEGMENT_SUFFIX);
+            channel = FileChannel.open(segment, CREATE_NEW, APPEND);
+            segments.add(segment);
+            segmentSize = 0;
+        }
+
+        synchronized List<Path> segments() {
+            return new ArrayList<>(segments);
+        }
+
+        synchronized long chunkCount() {
+            return chunkCount;
+        }
+
+        synchronized void delete() {
+            deleted = true;
+            closeChannel();
+            for (Path segment : segments) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    logger.warning("Failed to delete " + segment + ": " + e, e);
+                }
+            }
+            try {
+                // succeeds after the last snapshot of the map is deleted
+                Files.deleteIfExists(mapDirectory);
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close " + segments.get(segments.size() - 1) + ": " + e, e);
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.util.Arrays;
+
+/**
+ * A compressor producing the LZ4 block format: a sequence of literal runs
+ * and back-references into the last 64 kB of the uncompressed data. It
+ * favors speed over compression ratio: it only finds matches through a
+ * single-entry hash table of 4-byte sequences.
+ * <p>
+ * An instance keeps the hash table between calls to avoid allocating it
+ * and must not be used by multiple threads concurrently. The {@link
+ * #decompress} method is static and thread-safe.
+ */
+public final class Lz4BlockCodec {
+
+    private static final int MIN_MATCH = 4;
+    // the last match must start at least this many bytes before the end of the input
+    private static final int MATCH_FIND_LIMIT = 12;
+    // the last this many bytes of the input are always literals
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int RUN_MASK = 0xF;
+    private static final int TOKEN_SHIFT = 4;
+    private static final int MAX_LENGTH_BYTE = 0xFF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int HASH_LOG = 12;
+    private static final int HASH_MULTIPLIER = -1640531535;
+    private static final int MAX_COMPRESSED_OVERHEAD = 16;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Returns the maximum length of the compressed form of data of the given
+     * length.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / MAX_LENGTH_BYTE + MAX_COMPRESSED_OVERHEAD;
+    }
+
+    /**
+     * Compresses {@code src[srcOff, srcOff + srcLen)} to {@code dst} starting
+     * at {@code dstOff}. The destination must have at least {@link
+     * #maxCompressedLength(int) maxCompressedLength(srcLen)} bytes available.
+     *
+     * @return the length of the compressed data
+     */
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        final int srcEnd = srcOff + srcLen;
+        final int matchFindLimit = srcEnd - MATCH_FIND_LIMIT;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        int anchor = srcOff;
+        int op = dstOff;
+        if (srcLen > MATCH_FIND_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            for (int ip = srcOff; ip < matchFindLimit; ) {
+                int sequence = readInt(src, ip);
+                int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+                // extend the match backwards into the pending literals
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+        return writeLastLiterals(src, anchor, srcEnd - anchor, dst, op) - dstOff;
+    }
+
+    /**
+     * Decompresses {@code src[srcOff, srcOff + srcLen)} to {@code dst}
+     * starting at {@code dstOff}. The decompressed data must have exactly
+     * {@code dstLen} bytes.
+     *
+     * @throws IllegalArgumentException if the compressed data is malformed
+     */
+    public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        final int srcEnd = srcOff + srcLen;
+        final int dstEnd = dstOff + dstLen;
+        int ip = srcOff;
+        int op = dstOff;
+        try {
+            while (true) {
+                int token = src[ip++] & BYTE_MASK;
+                int literalLength = token >>> TOKEN_SHIFT;
+                if (literalLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[ip++] & BYTE_MASK;
+                        literalLength += b;
+                    } while (b == MAX_LENGTH_BYTE);
+                }
+                if (op + literalLength > dstEnd || ip + literalLength > srcEnd) {
+                    throw new IllegalArgumentException("Malformed compressed data: literals out of bounds");
+                }
+                System.arraycopy(src, ip, dst, op, literalLength);
+                ip += literalLength;
+                op += literalLength;
+                if (ip == srcEnd) {
+                    // the last sequence has no match
+                    break;
+                }
+                int offset = (src[ip++] & BYTE_MASK) | (src[ip++] & BYTE_MASK) << Byte.SIZE;
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[ip++] & BYTE_MASK;
+                        matchLength += b;
+                    } while (b == MAX_LENGTH_BYTE);
+                }
+                matchLength += MIN_MATCH;
+                int ref = op - offset;
+                if (offset == 0 || ref < dstOff || op + matchLength > dstEnd) {
+                    throw new IllegalArgumentException("Malformed compressed data: match out of bounds");
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, ref, dst, op, matchLength);
+                    op += matchLength;
+                } else {
+                    // overlapping match repeats the last offset bytes, copy byte by byte
+                    for (int end = op + matchLength; op < end; ) {
+                        dst[op++] = dst[ref++];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed compressed data: truncated", e);
+        }
+        if (op != dstEnd) {
+            throw new IllegalArgumentException("Malformed compressed data: expected " + dstLen
+                    + " bytes, but decompressed " + (op - dstOff));
+        }
+    }
+
+    private static int writeSequence(
+            byte[] src, int literalStart, int literalLength, int offset, int matchLength, byte[] dst, int op
+    ) {
+        int tokenPos = op++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << TOKEN_SHIFT;
+            op = writeLength(literalLength - RUN_MASK, dst, op);
+        } else {
+            token = literalLength << TOKEN_SHIFT;
+        }
+        System.arraycopy(src, literalStart, dst, op, literalLength);
+        op += literalLength;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> Byte.SIZE);
+        int matchLengthCode = matchLength - MIN_MATCH;
+        if (matchLengthCode >= RUN_MASK) {
+            token |= RUN_MASK;
+            op = writeLength(matchLengthCode - RUN_MASK, dst, op);
+        } else {
+            token |= matchLengthCode;
+        }
+        dst[tokenPos] = (byte) token;
+        return op;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literalLength, byte[] dst, int op) {
+        if (literalLength >= RUN_MASK) {
+            dst[op++] = (byte) (RUN_MASK << TOKEN_SHIFT);
+            op = writeLength(literalLength - RUN_MASK, dst, op);
+        } else {
+            dst[op++] = (byte) (literalLength << TOKEN_SHIFT);
+        }
+        System.arraycopy(src, literalStart, dst, op, literalLength);
+        return op + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int op) {
+        for (; length >= MAX_LENGTH_BYTE; length -= MAX_LENGTH_BYTE) {
+            dst[op++] = (byte) MAX_LENGTH_BYTE;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] buf, int pos) {
+        int result = 0;
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            result = result << Byte.SIZE | buf[pos + i] & BYTE_MASK;
+        }
+        return result;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * HASH_MULTIPLIER) >>> (Integer.SIZE - HASH_LOG);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Storage of the chunks written by {@link AsyncSnapshotWriterImpl}. The
+ * chunks of a snapshot are identified by the name of the snapshot map and
+ * by their {@link SnapshotDataKey}. The {@link
+ * com.hazelcast.jet.impl.SnapshotValidationRecord validation record} is
+ * always stored in the snapshot map itself, regardless of the store.
+ * <p>
+ * The methods are called on each member, except for {@link
+ * #countChunks} and {@link #readP}, which are called on the master.
+ */
+public interface SnapshotStore {
+
+    /**
+     * Stores a chunk asynchronously. The callback receives a {@code null}
+     * response when the chunk is stored or the failure.
+     */
+    void put(@Nonnull String mapName, @Nonnull SnapshotDataKey key, @Nonnull Data chunk,
+             @Nonnull ExecutionCallback<Object> callback);
+
+    /**
+     * Deletes the chunks of the snapshots with IDs lower than the given ID.
+     * Called on each member when a full (not incremental) snapshot begins.
+     */
+    void clearOlderSnapshots(@Nonnull String mapName, long snapshotId);
+
+    /**
+     * Returns the number of stored chunks of the given snapshots.
+     */
+    long countChunks(@Nonnull String mapName, @Nonnull long[] snapshotIds);
+
+    /**
+     * Returns a supplier of the processors that emit the chunks of the
+     * snapshots with IDs in the given closed range as {@code
+     * Entry<SnapshotDataKey, byte[]>}.
+     */
+    @Nonnull
+    ProcessorMetaSupplier readP(@Nonnull String mapName, long minSnapshotId, long maxSnapshotId);
+}
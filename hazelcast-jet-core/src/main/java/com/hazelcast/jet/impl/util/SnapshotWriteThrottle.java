@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Limits the rate at which the snapshot writers of all jobs on a member
+ * write their chunks, see {@link
+ * com.hazelcast.jet.core.JetProperties#JET_SNAPSHOT_WRITE_BYTES_PER_SECOND}.
+ * <p>
+ * It keeps the time when the budget written so far will have been paid
+ * off. A chunk can be written if that time is not in the future, which
+ * means that a single chunk larger than the per-second budget is still
+ * written, but the following ones have to wait longer. An idle throttle
+ * accumulates the budget for at most {@link #MAX_BURST_MILLIS}.
+ * <p>
+ * The class is thread-safe.
+ */
+public class SnapshotWriteThrottle {
+
+    static final long MAX_BURST_MILLIS = 100;
+
+    private final long bytesPerSecond;
+    private final LongSupplier nanoClock;
+    private final AtomicLong paidOffTime;
+
+    /**
+     * @param bytesPerSecond the budget, zero or negative for unlimited
+     */
+    public SnapshotWriteThrottle(long bytesPerSecond) {
+        this(bytesPerSecond, System::nanoTime);
+    }
+
+    // for test
+    SnapshotWriteThrottle(long bytesPerSecond, LongSupplier nanoClock) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.nanoClock = nanoClock;
+        this.paidOffTime = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    public boolean isUnlimited() {
+        return bytesPerSecond <= 0;
+    }
+
+    /**
+     * Takes the given number of bytes from the budget, if it's available.
+     *
+     * @return true, if the chunk can be written now, false if the caller
+     *      should retry later
+     */
+    public boolean tryAcquire(long numBytes) {
+        if (isUnlimited()) {
+            return true;
+        }
+        long now = nanoClock.getAsLong();
+        long prev;
+        long next;
+        do {
+            prev = paidOffTime.get();
+            if (prev - now > 0) {
+                return false;
+            }
+            long start = Math.max(prev, now - MILLISECONDS.toNanos(MAX_BURST_MILLIS));
+            next = start + costNanos(numBytes);
+        } while (!paidOffTime.compareAndSet(prev, next));
+        return true;
+    }
+
+    private long costNanos(long numBytes) {
+        return (long) ((double) numBytes * SECONDS.toNanos(1) / bytesPerSecond);
+    }
+}
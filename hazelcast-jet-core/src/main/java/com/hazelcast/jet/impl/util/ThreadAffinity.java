@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.logging.ILogger;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Pins threads to CPUs using the OpenHFT Java Thread Affinity library,
+ * accessed reflectively so that it's an optional dependency.
+ */
+public final class ThreadAffinity {
+
+    private static final String AFFINITY_CLASS_NAME = "net.openhft.affinity.Affinity";
+
+    private final int[] cpus;
+    private final Method setAffinityMethod;
+    private final ILogger logger;
+
+    /**
+     * @param cpuList comma-separated CPU numbers and ranges, see {@link
+     *                #parseCpuList(String)}
+     */
+    public ThreadAffinity(String cpuList, ILogger logger) {
+        this.logger = logger;
+        this.cpus = parseCpuList(cpuList);
+        this.setAffinityMethod = cpus.length == 0 ? null : findSetAffinityMethod(logger);
+    }
+
+    /**
+     * Returns whether the threads will be pinned: a CPU list was given and
+     * the affinity library is on the classpath.
+     */
+    public boolean isEnabled() {
+        return setAffinityMethod != null;
+    }
+
+    /**
+     * Pins the current thread to the CPU at position {@code threadIndex
+     * % cpuCount} in the CPU list. Does nothing if not {@link #isEnabled()
+     * enabled}.
+     */
+    public void pinCurrentThread(int threadIndex) {
+        if (setAffinityMethod == null) {
+            return;
+        }
+        int cpu = cpus[threadIndex % cpus.length];
+        try {
+            setAffinityMethod.invoke(null, cpu);
+            logger.fine("Thread " + Thread.currentThread().getName() + " pinned to CPU " + cpu);
+        } catch (Exception e) {
+            logger.warning("Failed to pin thread " + Thread.currentThread().getName() + " to CPU " + cpu, e);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of CPU numbers and ranges, such as
+     * {@code "2-5,8"}, to an array of CPU numbers. An empty or blank
+     * string gives an empty array.
+     *
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    public static int[] parseCpuList(String cpuList) {
+        if (cpuList == null || cpuList.trim().isEmpty()) {
+            return new int[0];
+        }
+        try {
+            return Arrays.stream(cpuList.split(","))
+                         .map(String::trim)
+                         .flatMapToInt(range -> {
+                             // a leading dash is a sign, not a range separator
+                             int dash = range.indexOf('-', 1);
+                             if (dash < 0) {
+                                 return IntStream.of(Integer.parseInt(range));
+                             }
+                             int from = Integer.parseInt(range.substring(0, dash).trim());
+                             int to = Integer.parseInt(range.substring(dash + 1).trim());
+                             if (from > to) {
+                                 throw new IllegalArgumentException("Invalid CPU range: " + range);
+                             }
+                             return IntStream.rangeClosed(from, to);
+                         })
+                         .peek(cpu -> {
+                             if (cpu < 0) {
+                                 throw new IllegalArgumentException("Negative CPU number: " + cpu);
+                             }
+                         })
+                         .toArray();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CPU list: '" + cpuList + "'", e);
+        }
+    }
+
+    private static Method findSetAffinityMethod(ILogger logger) {
+        try {
+            return Class.forName(AFFINITY_CLASS_NAME).getMethod("setAffinity", int.class);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            logger.warning("CPU affinity is configured, but " + AFFINITY_CLASS_NAME + " isn't on the classpath, "
+                    + "the threads won't be pinned");
+            return null;
+        }
+    }
+}
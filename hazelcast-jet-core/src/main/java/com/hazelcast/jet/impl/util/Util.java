@@ -101,6 +101,11 @@ public final class Util {
     private static final int BUFFER_SIZE = 1 << 15;
     private static final DateTimeFormatter LOCAL_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
     private static final Pattern TRAILING_NUMBER_PATTERN = Pattern.compile("(.*)-([0-9]+)");
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
 
     private Util() {
     }
@@ -269,6 +274,58 @@ public final class Util {
         return list;
     }
 
+    /**
+     * Returns a 64-bit hash of the item. Used by the sketches and filters
+     * that derive several hash values from one item.
+     * <p>
+     * Integral numbers, {@code Double}, {@code Float}, {@code Character}, {@code
+     * String} and enums are hashed to the full 64 bits. Other items are
+     * hashed by spreading the bits of their {@code hashCode()}, so they have
+     * at most 2^32 distinct hash values.
+     */
+    public static long hash64(Object item) {
+        long h;
+        if (item == null) {
+            h = 0;
+        } else if (item instanceof Long || item instanceof Integer || item instanceof Short
+                || item instanceof Byte) {
+            h = ((Number) item).longValue();
+        } else if (item instanceof Double || item instanceof Float) {
+            h = Double.doubleToLongBits(((Number) item).doubleValue());
+        } else if (item instanceof Character) {
+            h = (Character) item;
+        } else if (item instanceof String) {
+            h = hash64((String) item);
+        } else if (item instanceof Enum) {
+            // the hashCode() of an enum differs between JVMs
+            h = hash64(((Enum) item).name());
+        } else {
+            h = item.hashCode();
+        }
+        return mix64(h);
+    }
+
+    // FNV-1a over the characters
+    private static long hash64(String s) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix64(long hash) {
+        long h = hash;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_2;
+        h ^= h >>> MIX_SHIFT;
+        return h;
+    }
+
     public static long addClamped(long a, long b) {
         long sum = a + b;
         return sumHadOverflow(a, b, sum)
@@ -37,6 +37,7 @@ import com.hazelcast.jet.function.TriFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static com.hazelcast.jet.aggregate.AggregateOperations.aggregateOperation2;
@@ -102,6 +103,14 @@ public interface BatchStage<T> extends GeneralStage<T> {
             @Nonnull BiFunctionEx<? super C, ? super T, ? extends CompletableFuture<R>> mapAsyncFn
     );
 
+    @Nonnull @Override
+    <C, R> BatchStage<R> mapUsingContextAsyncBatched(
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyMicros,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    );
+
     @Nonnull @Override
     <C> BatchStage<T> filterUsingContext(
             @Nonnull ContextFactory<C> contextFactory,
@@ -32,6 +32,7 @@ import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -294,6 +295,54 @@ public interface GeneralStage<T> extends Stage {
             @Nonnull BiFunctionEx<? super C, ? super T, ? extends CompletableFuture<R>> mapAsyncFn
     );
 
+    /**
+     * A variant of {@link #mapUsingContextAsync} that calls the mapping
+     * function with a batch of items, for services that are more efficient
+     * with multi-get calls. Jet collects up to {@code maxBatchSize} items,
+     * or fewer if the first of them has waited for {@code
+     * maxBatchLatencyMicros}, and passes them to {@code mapAsyncFn}. The
+     * function returns a future of a list with one result for each item, in
+     * the same order. A {@code null} result filters out its item, a {@code
+     * null} future or list filters out the whole batch.
+     * <p>
+     * The batches keep the order of the items, so the stage keeps the
+     * ordering of {@link #mapUsingContextAsync}, see {@link
+     * ContextFactory#withUnorderedAsyncResponses()}, and it emits a
+     * watermark only after the results of all the items received before it.
+     * {@link ContextFactory#maxPendingCallsPerProcessor()} limits the number
+     * of batches in flight.
+     * <p>
+     * This sample looks up the details of the stock items in batches of up
+     * to 100 items, waiting no more than a millisecond to fill a batch:
+     * <pre>{@code
+     * stage.mapUsingContextAsyncBatched(
+     *     ContextFactory.withCreateFn(jet -> new ItemDetailRegistry(jet)),
+     *     100, 1000,
+     *     (reg, items) -> reg.fetchDetailsAsync(items)
+     * )
+     * }</pre>
+     *
+     * @param contextFactory        the context factory
+     * @param maxBatchSize          the maximum number of items in a batch
+     * @param maxBatchLatencyMicros the maximum time the first item of a
+     *                              batch waits for the batch to fill, in
+     *                              microseconds
+     * @param mapAsyncFn            a stateless function that maps a batch of
+     *                              items to a list of results
+     * @param <C> type of context object
+     * @param <R> type of the results
+     * @return the newly attached stage
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    <C, R> GeneralStage<R> mapUsingContextAsyncBatched(
+            @Nonnull ContextFactory<C> contextFactory,
+            int maxBatchSize,
+            long maxBatchLatencyMicros,
+            @Nonnull BiFunctionEx<? super C, ? super List<T>, ? extends CompletableFuture<List<R>>> mapAsyncFn
+    );
+
     /**
      * Attaches a filtering stage which applies the provided predicate function
      * to each input item to decide whether to pass the item to the output or
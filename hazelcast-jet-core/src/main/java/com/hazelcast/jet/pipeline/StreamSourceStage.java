@@ -81,6 +81,23 @@ public interface StreamSourceStage<T> {
      */
     StreamStage<T> withNativeTimestamps(long allowedLag);
 
+    /**
+     * Like {@link #withNativeTimestamps(long)}, but also limits the skew
+     * between the source partitions: a partition whose watermark gets ahead
+     * of the slowest partition by more than {@code maxSkew} isn't read until
+     * the slow partition catches up. See {@link
+     * com.hazelcast.jet.core.EventTimePolicy#withMaxSkew(long)
+     * EventTimePolicy.withMaxSkew()} for details. Sources that don't read
+     * partitions individually ignore the limit.
+     *
+     * @param allowedLag the allowed lag of a given event's timestamp behind the top
+     *                   timestamp value observed so far
+     * @param maxSkew the maximum skew between the partitions, 0 to disable the limit
+     *
+     * @since 3.2
+     */
+    StreamStage<T> withNativeTimestamps(long allowedLag, long maxSkew);
+
     /**
      * Declares that the source will extract timestamps from the stream items.
      *
@@ -91,4 +108,23 @@ public interface StreamSourceStage<T> {
      *                   the same as the unit used by {@code timestampFn}
      */
     StreamStage<T> withTimestamps(@Nonnull ToLongFunctionEx<? super T> timestampFn, long allowedLag);
+
+    /**
+     * Like {@link #withTimestamps(ToLongFunctionEx, long)}, but also limits
+     * the skew between the source partitions, see {@link
+     * #withNativeTimestamps(long, long)}.
+     *
+     * @param timestampFn a function that returns the timestamp for each item, typically in
+     *                    milliseconds
+     * @param allowedLag the allowed lag of a given event's timestamp behind the top
+     *                   timestamp value observed so far. The time unit is
+     *                   the same as the unit used by {@code timestampFn}
+     * @param maxSkew the maximum skew between the partitions, 0 to disable the
+     *                limit. The time unit is the same as the unit used by
+     *                {@code timestampFn}
+     *
+     * @since 3.2
+     */
+    StreamStage<T> withTimestamps(
+            @Nonnull ToLongFunctionEx<? super T> timestampFn, long allowedLag, long maxSkew);
 }
@@ -54,6 +54,95 @@ public interface StreamStageWithKey<T, K> extends GeneralStageWithKey<T, K> {
     @Nonnull
     StageWithKeyAndWindow<T, K> window(@Nonnull WindowDefinition wDef);
 
+    /**
+     * Attaches a stage that joins this stage with the given stream stage on
+     * the grouping key and the event time. An item {@code t} from this stage
+     * and an item {@code t1} from {@code stage1} are joined if they have the
+     * same key and if {@code timestamp(t1) - timestamp(t)} is between {@code
+     * lowerBound} and {@code upperBound}, inclusive. For example, with bounds
+     * {@code 0} and {@code 60_000} a payment is joined with an order with the
+     * same ID if it came in the minute after the order.
+     * <p>
+     * Jet emits each joined pair once, as soon as the later of the two items
+     * arrives, with the greater of the two timestamps. If {@code
+     * mapToOutputFn} returns {@code null}, the pair is skipped. Jet buffers
+     * the items of both stages until the watermark shows they can't be joined
+     * with any future item. Items behind the watermark are dropped as late.
+     * The buffered items are saved to the state snapshot, so they must be
+     * serializable.
+     * <p>
+     * Both stages must have timestamps.
+     *
+     * @param stage1        the stage to join with
+     * @param lowerBound    the lower bound of {@code timestamp(t1) - timestamp(t)}
+     * @param upperBound    the upper bound of {@code timestamp(t1) - timestamp(t)}
+     * @param mapToOutputFn the function that creates the output item from the
+     *                      joined items
+     * @param <T1>          type of the items in {@code stage1}
+     * @param <R>           type of the output items
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    <T1, R> StreamStage<R> joinStream(
+            @Nonnull StreamStageWithKey<T1, ? extends K> stage1,
+            long lowerBound,
+            long upperBound,
+            @Nonnull BiFunctionEx<? super T, ? super T1, ? extends R> mapToOutputFn
+    );
+
+    /**
+     * Attaches a stage that emits just the items that are distinct according
+     * to the grouping key within the given time-to-live. An item is emitted
+     * only if no item with the same key was seen in the {@code ttl} of event
+     * time before it; if there are several items with the same key close
+     * together, only the first one is emitted. Jet keeps the key of each item
+     * until the watermark shows that the {@code ttl} after the last item with
+     * that key has passed, so the memory is bounded by the number of distinct
+     * keys that occur within the {@code ttl}.
+     * <p>
+     * This stage must have timestamps.
+     *
+     * @param ttl the time-to-live of a seen key, in event time units
+     * @return the newly attached stage
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    StreamStage<T> distinct(long ttl);
+
+    /**
+     * Attaches a stage that emits the items that are distinct according to
+     * the grouping key within the given time-to-live, like {@link
+     * #distinct(long)}, but it remembers the keys approximately, in Bloom
+     * filters. Each processor uses two filters of a fixed size, so the memory
+     * doesn't grow with the number of keys. A key is remembered for at least
+     * {@code ttl} and at most {@code 2 * ttl} of event time after its last
+     * occurrence.
+     * <p>
+     * A duplicate within the {@code ttl} is never emitted, but with the
+     * probability {@code falsePositiveProbability} an item with a key not seen
+     * before is dropped. The probability holds as long as there are no more
+     * than {@code expectedKeys} distinct keys in one {@code ttl}. Each
+     * processor allocates filters for all the expected keys, which take about
+     * {@code -1.44 * log2(falsePositiveProbability) * expectedKeys} bits
+     * each.
+     * <p>
+     * This stage must have timestamps.
+     *
+     * @param ttl                      the time-to-live of a seen key, in event
+     *                                 time units
+     * @param expectedKeys             the expected number of distinct keys in
+     *                                 one {@code ttl}
+     * @param falsePositiveProbability the probability of dropping an item with
+     *                                 a new key, between 0 and 1, exclusive
+     * @return the newly attached stage
+     *
+     * @since 3.2
+     */
+    @Nonnull
+    StreamStage<T> approximateDistinct(long ttl, long expectedKeys, double falsePositiveProbability);
+
     /**
      * Attaches a stage that performs a stateful mapping operation. {@code
      * createFn} returns the object that holds the state. Jet passes this
@@ -54,7 +54,10 @@ public class AccumulatorSerializerHooksTest {
                 new LinTrendAccumulator(7,
                         BigInteger.valueOf(9), BigInteger.valueOf(11), BigInteger.valueOf(13), BigInteger.valueOf(15)),
                 new LongLongAccumulator(2, 3),
-                new LongDoubleAccumulator(3, 4.5)
+                new LongDoubleAccumulator(3, 4.5),
+                new HyperLogLogAccumulator(4).add("a").add("b"),
+                new CountMinSketchAccumulator(2, 8).add("a", 3).add("b", 1),
+                new KllSketchAccumulator(8).add(1.5).add(-2)
         );
     }
 
@@ -19,7 +19,10 @@ package com.hazelcast.jet.aggregate;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.accumulator.CountMinSketchAccumulator;
 import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.HyperLogLogAccumulator;
+import com.hazelcast.jet.accumulator.KllSketchAccumulator;
 import com.hazelcast.jet.accumulator.LinTrendAccumulator;
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.accumulator.LongDoubleAccumulator;
@@ -49,10 +52,12 @@ import java.util.stream.IntStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.aggregate.AggregateOperations.allOf;
 import static com.hazelcast.jet.aggregate.AggregateOperations.allOfBuilder;
+import static com.hazelcast.jet.aggregate.AggregateOperations.approximateCountDistinct;
 import static com.hazelcast.jet.aggregate.AggregateOperations.averagingDouble;
 import static com.hazelcast.jet.aggregate.AggregateOperations.averagingLong;
 import static com.hazelcast.jet.aggregate.AggregateOperations.bottomN;
 import static com.hazelcast.jet.aggregate.AggregateOperations.concatenating;
+import static com.hazelcast.jet.aggregate.AggregateOperations.countMinSketch;
 import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.aggregate.AggregateOperations.filtering;
 import static com.hazelcast.jet.aggregate.AggregateOperations.flatMapping;
@@ -62,6 +67,7 @@ import static com.hazelcast.jet.aggregate.AggregateOperations.mapping;
 import static com.hazelcast.jet.aggregate.AggregateOperations.maxBy;
 import static com.hazelcast.jet.aggregate.AggregateOperations.minBy;
 import static com.hazelcast.jet.aggregate.AggregateOperations.pickAny;
+import static com.hazelcast.jet.aggregate.AggregateOperations.quantilesSketch;
 import static com.hazelcast.jet.aggregate.AggregateOperations.reducing;
 import static com.hazelcast.jet.aggregate.AggregateOperations.sorting;
 import static com.hazelcast.jet.aggregate.AggregateOperations.summingDouble;
@@ -75,6 +81,7 @@ import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.function.ComparatorEx.naturalOrder;
 import static com.hazelcast.jet.function.Functions.entryKey;
 import static com.hazelcast.jet.function.Functions.entryValue;
+import static com.hazelcast.jet.function.Functions.wholeItem;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
@@ -249,6 +256,57 @@ public class AggregateOperationsTest {
         assertNull(composite.combineFn());
     }
 
+    @Test
+    public void when_approximateCountDistinct() {
+        validateOpWithoutDeduct(approximateCountDistinct(14, wholeItem()), HyperLogLogAccumulator::estimate,
+                "a", "b", 1L, 2L, 2L);
+    }
+
+    @Test
+    public void when_approximateCountDistinct_manyKeys_then_withinError() {
+        AggregateOperation1<Integer, HyperLogLogAccumulator, Long> op = approximateCountDistinct(14, wholeItem());
+        HyperLogLogAccumulator acc1 = op.createFn().get();
+        HyperLogLogAccumulator acc2 = op.createFn().get();
+        for (int i = 0; i < 100_000; i++) {
+            op.accumulateFn().accept(acc1, i);
+            // half of the keys are in both accumulators
+            op.accumulateFn().accept(acc2, i + 50_000);
+        }
+        op.combineFn().accept(acc1, acc2);
+
+        assertEquals(150_000, op.finishFn().apply(acc1), 150_000 * 0.03);
+    }
+
+    @Test
+    public void when_countMinSketch() {
+        validateOp(countMinSketch(4, 1000, wholeItem()), acc -> acc.estimateCount("a"),
+                "a", "a", 1L, 2L, new CountMinSketchAccumulator(4, 1000).add("a", 2));
+    }
+
+    @Test
+    public void when_quantilesSketch() {
+        validateOpWithoutDeduct(quantilesSketch(8, Double::doubleValue), acc -> acc.quantile(0.5),
+                1.0, 3.0, 1.0, 1.0, new KllSketchAccumulator(8).add(1.0).add(3.0));
+    }
+
+    @Test
+    public void when_quantilesSketch_manyValues_then_withinError() {
+        AggregateOperation1<Double, KllSketchAccumulator, KllSketchAccumulator> op =
+                quantilesSketch(200, Double::doubleValue);
+        KllSketchAccumulator acc1 = op.createFn().get();
+        KllSketchAccumulator acc2 = op.createFn().get();
+        for (int i = 0; i < 100_000; i++) {
+            op.accumulateFn().accept(i % 2 == 0 ? acc1 : acc2, (double) i);
+        }
+        op.combineFn().accept(acc1, acc2);
+        KllSketchAccumulator sketch = op.finishFn().apply(acc1);
+
+        assertEquals(100_000, sketch.count());
+        assertEquals(50_000, sketch.quantile(0.5), 100_000 * 0.02);
+        assertEquals(99_000, sketch.quantile(0.99), 100_000 * 0.02);
+        assertEquals(0, sketch.quantile(0), 100_000 * 0.02);
+    }
+
     @Test
     public void when_linearTrend() {
         // Given
@@ -88,7 +88,10 @@ public class JetConfigXmlGeneratorTest {
         EdgeConfig defaultEdgeConfig = jetConfig.getDefaultEdgeConfig();
         defaultEdgeConfig.setQueueSize(randomInt())
                          .setPacketSizeLimit(randomInt())
-                         .setReceiveWindowMultiplier(randomInt());
+                         .setReceiveWindowMultiplier(randomInt())
+                         .setAdaptiveFlowControlEnabled(true)
+                         .setCompressionEnabled(true)
+                         .setCompressionThreshold(randomInt());
         String xml = generate(jetConfig);
 
         // Then
@@ -130,6 +133,9 @@ public class JetConfigXmlGeneratorTest {
         assertEquals(expected.getQueueSize(), actual.getQueueSize());
         assertEquals(expected.getPacketSizeLimit(), actual.getPacketSizeLimit());
         assertEquals(expected.getReceiveWindowMultiplier(), actual.getReceiveWindowMultiplier());
+        assertEquals(expected.isAdaptiveFlowControlEnabled(), actual.isAdaptiveFlowControlEnabled());
+        assertEquals(expected.isCompressionEnabled(), actual.isCompressionEnabled());
+        assertEquals(expected.getCompressionThreshold(), actual.getCompressionThreshold());
     }
 
     private static void assertInstanceConfig(InstanceConfig expected, InstanceConfig actual) {
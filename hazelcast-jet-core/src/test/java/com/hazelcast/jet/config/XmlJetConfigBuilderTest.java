@@ -111,6 +111,9 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 "       <queue-size>111</queue-size>\n" +
                 "       <packet-size-limit>222</packet-size-limit>\n" +
                 "       <receive-window-multiplier>333</receive-window-multiplier>\n" +
+                "       <adaptive-flow-control-enabled>true</adaptive-flow-control-enabled>\n" +
+                "       <compression-enabled>true</compression-enabled>\n" +
+                "       <compression-threshold>444</compression-threshold>\n" +
                 "    </edge-defaults>\n" +
                 JET_END_TAG;
 
@@ -122,6 +125,9 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("queueSize", 111, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 222, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 333, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("adaptiveFlowControlEnabled", edgeConfig.isAdaptiveFlowControlEnabled());
+        assertTrue("compressionEnabled", edgeConfig.isCompressionEnabled());
+        assertEquals("compressionThreshold", 444, edgeConfig.getCompressionThreshold());
     }
 
     @Test
@@ -119,7 +119,10 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 + "  edge-defaults:\n"
                 + "    queue-size: 999\n"
                 + "    packet-size-limit: 997\n"
-                + "    receive-window-multiplier: 996\n";
+                + "    receive-window-multiplier: 996\n"
+                + "    adaptive-flow-control-enabled: true\n"
+                + "    compression-enabled: true\n"
+                + "    compression-threshold: 995\n";
 
         //When
         JetConfig jetConfig = buildConfig(yaml);
@@ -129,6 +132,9 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("queueSize", 999, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 997, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 996, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("adaptiveFlowControlEnabled", edgeConfig.isAdaptiveFlowControlEnabled());
+        assertTrue("compressionEnabled", edgeConfig.isCompressionEnabled());
+        assertEquals("compressionThreshold", 995, edgeConfig.getCompressionThreshold());
     }
 
 
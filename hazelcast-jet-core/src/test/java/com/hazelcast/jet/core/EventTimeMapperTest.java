@@ -17,6 +17,7 @@
 package com.hazelcast.jet.core;
 
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.test.TestProcessorContext;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -24,11 +25,16 @@ import org.junit.rules.ExpectedException;
 import static com.hazelcast.jet.core.EventTimePolicy.eventTimePolicy;
 import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.core.WatermarkPolicy.limitingLag;
+import static com.hazelcast.jet.core.metrics.MetricNames.SOURCE_PARTITION_LAG;
+import static com.hazelcast.jet.core.metrics.MetricNames.SOURCE_PARTITION_SKEW;
+import static com.hazelcast.jet.core.metrics.MetricTags.SOURCE_PARTITION;
 import static com.hazelcast.jet.core.EventTimeMapper.NO_NATIVE_TIME;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class EventTimeMapperTest {
 
@@ -218,6 +224,90 @@ public class EventTimeMapperTest {
         assertTraverser(eventTimeMapper.removePartition(ns(5), 1), wm(12));
     }
 
+    @Test
+    public void when_metricsRegistered_then_addedPartitionsIncluded() {
+        EventTimePolicy<Long> eventTimePolicy = eventTimePolicy(Long::longValue, limitingLag(0), 1, 0, 0)
+                .withMaxSkew(5);
+        EventTimeMapper<Long> eventTimeMapper = new EventTimeMapper<>(eventTimePolicy);
+        eventTimeMapper.addPartitions(1);
+        TestProcessorContext context = new TestProcessorContext();
+
+        // When
+        eventTimeMapper.registerMetrics(context);
+        eventTimeMapper.addPartitions(1);
+        assertTraverser(eventTimeMapper.flatMapEvent(20L, 0, NO_NATIVE_TIME), 20L);
+        assertTraverser(eventTimeMapper.flatMapEvent(10L, 1, NO_NATIVE_TIME), wm(10), 10L);
+
+        // Then
+        assertEquals(10, context.metric(SOURCE_PARTITION, "0", SOURCE_PARTITION_SKEW).getAsLong());
+        assertEquals(10, context.metric(SOURCE_PARTITION, "1", SOURCE_PARTITION_LAG).getAsLong());
+        assertNull(context.metric(SOURCE_PARTITION, "2", SOURCE_PARTITION_LAG));
+    }
+
+    @Test
+    public void when_partitionAheadByMoreThanMaxSkew_then_throttled() {
+        EventTimePolicy<Long> eventTimePolicy = eventTimePolicy(Long::longValue, limitingLag(0), 1, 0, 0)
+                .withMaxSkew(5);
+        EventTimeMapper<Long> eventTimeMapper = new EventTimeMapper<>(eventTimePolicy);
+        eventTimeMapper.addPartitions(2);
+
+        // partition1 has no watermark yet, it doesn't hold back partition0
+        assertTraverser(eventTimeMapper.flatMapEvent(10L, 0, NO_NATIVE_TIME), 10L);
+        assertFalse(eventTimeMapper.isPartitionThrottled(0));
+        assertTraverser(eventTimeMapper.flatMapEvent(10L, 1, NO_NATIVE_TIME), wm(10), 10L);
+
+        // When
+        assertTraverser(eventTimeMapper.flatMapEvent(20L, 0, NO_NATIVE_TIME), 20L);
+
+        // Then
+        assertTrue(eventTimeMapper.isPartitionThrottled(0));
+        assertFalse(eventTimeMapper.isPartitionThrottled(1));
+        assertEquals(10, eventTimeMapper.partitionSkew(0));
+        assertEquals(0, eventTimeMapper.partitionSkew(1));
+        assertEquals(0, eventTimeMapper.partitionLag(0));
+        assertEquals(10, eventTimeMapper.partitionLag(1));
+
+        // When - the slow partition catches up
+        assertTraverser(eventTimeMapper.flatMapEvent(16L, 1, NO_NATIVE_TIME), wm(16), 16L);
+
+        // Then
+        assertFalse(eventTimeMapper.isPartitionThrottled(0));
+    }
+
+    @Test
+    public void when_maxSkewNotSet_then_notThrottled() {
+        EventTimeMapper<Long> eventTimeMapper = new EventTimeMapper<>(
+                eventTimePolicy(Long::longValue, limitingLag(0), 1, 0, 0)
+        );
+        eventTimeMapper.addPartitions(2);
+
+        assertTraverser(eventTimeMapper.flatMapEvent(10L, 1, NO_NATIVE_TIME), 10L);
+        assertTraverser(eventTimeMapper.flatMapEvent(1000L, 0, NO_NATIVE_TIME), wm(10), 1000L);
+
+        assertFalse(eventTimeMapper.isPartitionThrottled(0));
+    }
+
+    @Test
+    public void when_partitionThrottled_then_notMarkedIdle() {
+        EventTimePolicy<Long> eventTimePolicy = eventTimePolicy(Long::longValue, limitingLag(0), 1, 0, 10)
+                .withMaxSkew(5);
+        EventTimeMapper<Long> eventTimeMapper = new EventTimeMapper<>(eventTimePolicy);
+        eventTimeMapper.addPartitions(0L, 2);
+
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(0), 10L, 0, NO_NATIVE_TIME), 10L);
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(0), 10L, 1, NO_NATIVE_TIME), wm(10), 10L);
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(1), 20L, 0, NO_NATIVE_TIME), 20L);
+
+        // When - there are no more events from partition0 because it's throttled
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(8), 10L, 1, NO_NATIVE_TIME), 10L);
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(16), 10L, 1, NO_NATIVE_TIME), 10L);
+        assertTraverser(eventTimeMapper.flatMapEvent(ns(24), 10L, 1, NO_NATIVE_TIME), 10L);
+
+        // Then - partition0 is still active, no idle message after removing partition1
+        assertTrue(eventTimeMapper.isPartitionThrottled(0));
+        assertTraverser(eventTimeMapper.removePartition(ns(30), 1), wm(20));
+    }
+
     private <T> void assertTraverser(Traverser<T> actual, T ... expected) {
         for (T element : expected) {
             assertEquals(element, actual.next());
@@ -96,16 +96,32 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_singleStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(false);
+        when_nodeDown_then_jobRestartsFromSnapshot(false, false, false);
     }
 
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_twoStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(true);
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false, false);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromIncrementalSnapshot_singleStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(false, true, false);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromIncrementalSnapshot_twoStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(true, true, false);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromUnalignedSnapshot_twoStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false, true);
     }
 
     @SuppressWarnings("unchecked")
-    private void when_nodeDown_then_jobRestartsFromSnapshot(boolean twoStage) throws Exception {
+    private void when_nodeDown_then_jobRestartsFromSnapshot(boolean twoStage, boolean incremental, boolean unaligned)
+            throws Exception {
         /*
         Design of this test:
 
@@ -196,6 +212,11 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
         JobConfig config = new JobConfig();
         config.setProcessingGuarantee(EXACTLY_ONCE);
         config.setSnapshotIntervalMillis(1200);
+        if (incremental) {
+            // the second snapshot is incremental, the job restores from both
+            config.setMaxIncrementalSnapshots(3);
+        }
+        config.setUnalignedSnapshots(unaligned);
         Job job = instance1.newJob(dag, config);
 
         JobRepository jobRepository = new JobRepository(instance1);
@@ -21,6 +21,7 @@ import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.jet.datamodel.ColumnarBatch;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.test.HazelcastParallelClassRunner;
@@ -44,10 +45,12 @@ import static com.hazelcast.jet.core.processor.Processors.filterUsingContextAsyn
 import static com.hazelcast.jet.core.processor.Processors.filterUsingContextP;
 import static com.hazelcast.jet.core.processor.Processors.flatMapP;
 import static com.hazelcast.jet.core.processor.Processors.flatMapUsingContextP;
+import static com.hazelcast.jet.core.processor.Processors.fromColumnarP;
 import static com.hazelcast.jet.core.processor.Processors.mapP;
 import static com.hazelcast.jet.core.processor.Processors.mapUsingContextAsyncP;
 import static com.hazelcast.jet.core.processor.Processors.mapUsingContextP;
 import static com.hazelcast.jet.core.processor.Processors.noopP;
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
 import static com.hazelcast.test.HazelcastTestSupport.sleepMillis;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -67,6 +70,17 @@ public class ProcessorsTest {
                 .expectOutput(singletonList("1"));
     }
 
+    @Test
+    public void fromColumnar() {
+        TestSupport
+                .verifyProcessor(fromColumnarP((ColumnarBatch batch, Integer row) ->
+                        batch.getLong(0, row) > 1 ? batch.getLong(0, row) + ":" + batch.getDouble(0, row) : null))
+                .input(asList(
+                        columnarBatch(2, new long[][] {{1, 2}}, new double[][] {{0.5, 1.5}}),
+                        columnarBatch(1, new long[][] {{3}}, new double[][] {{2.5}})))
+                .expectOutput(asList("2:1.5", "3:2.5"));
+    }
+
     @Test
     public void mapUsingContext() {
         TestSupport
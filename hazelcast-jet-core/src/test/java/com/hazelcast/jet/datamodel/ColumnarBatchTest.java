@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.datamodel;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class ColumnarBatchTest {
+
+    private final ColumnarBatch batch = columnarBatch(4,
+            new long[][] {{1, 2, 3, 4, 99}},
+            new double[][] {{0.5, 1.5, 2.5, 3.5, 99}});
+
+    @Test
+    public void when_mapLongs_then_onlyMappedColumnChanged() {
+        ColumnarBatch mapped = batch.mapLongs(0, x -> x * 10);
+
+        assertEquals(columnarBatch(4, new long[][] {{10, 20, 30, 40}}, new double[][] {{0.5, 1.5, 2.5, 3.5}}), mapped);
+        // the original batch is not changed
+        assertEquals(1, batch.getLong(0, 0));
+    }
+
+    @Test
+    public void when_mapDoubles_then_onlyMappedColumnChanged() {
+        ColumnarBatch mapped = batch.mapDoubles(0, x -> x * 2);
+
+        assertEquals(columnarBatch(4, new long[][] {{1, 2, 3, 4}}, new double[][] {{1, 3, 5, 7}}), mapped);
+        assertEquals(0.5, batch.getDouble(0, 0), 0);
+    }
+
+    @Test
+    public void when_filterLongs_then_allColumnsFiltered() {
+        ColumnarBatch filtered = batch.filterLongs(0, x -> x % 2 == 0);
+
+        assertEquals(columnarBatch(2, new long[][] {{2, 4}}, new double[][] {{1.5, 3.5}}), filtered);
+    }
+
+    @Test
+    public void when_filterDoubles_then_allColumnsFiltered() {
+        ColumnarBatch filtered = batch.filterDoubles(0, x -> x > 2);
+
+        assertEquals(columnarBatch(2, new long[][] {{3, 4}}, new double[][] {{2.5, 3.5}}), filtered);
+    }
+
+    @Test
+    public void when_allPassFilter_then_sameBatch() {
+        assertSame(batch, batch.filterLongs(0, x -> true));
+    }
+
+    @Test
+    public void when_sum_then_elementsAfterSizeIgnored() {
+        assertEquals(10, batch.sumLongs(0));
+        assertEquals(8, batch.sumDoubles(0), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void when_getAfterSize_then_fail() {
+        batch.getLong(0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_columnShorterThanSize_then_fail() {
+        columnarBatch(3, new long[][] {{1, 2}}, null);
+    }
+}
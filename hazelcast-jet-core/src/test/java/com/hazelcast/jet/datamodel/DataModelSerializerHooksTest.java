@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
 
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
 import static com.hazelcast.jet.datamodel.ItemsByTag.itemsByTag;
 import static com.hazelcast.jet.datamodel.Tag.tag;
 import static com.hazelcast.jet.datamodel.Tag.tag0;
@@ -68,7 +69,8 @@ public class DataModelSerializerHooksTest {
                 tag(3),
                 itemsByTag(tag0(), "val0",
                         tag1(), "val1",
-                        tag2(), null)
+                        tag2(), null),
+                columnarBatch(2, new long[][] {{1, 2, 3}}, new double[][] {{0.5, 1.5, 2.5}, {3, 4, 5}})
         );
     }
 
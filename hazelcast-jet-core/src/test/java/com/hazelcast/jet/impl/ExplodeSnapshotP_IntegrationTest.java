@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.PartitionService;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.JobStatus.RUNNING;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ExplodeSnapshotP_IntegrationTest extends JetTestSupport {
+
+    private static final int PARALLELISM = 4;
+    private static final int KEY_COUNT = 1000;
+
+    private static final Set<Object> restoredKeys = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger restoredCount = new AtomicInteger();
+    private static final Queue<String> misroutedKeys = new ConcurrentLinkedQueue<>();
+
+    @Before
+    public void before() {
+        restoredKeys.clear();
+        restoredCount.set(0);
+        misroutedKeys.clear();
+    }
+
+    @Test
+    public void when_restoredWithParallelExplode_then_eachKeyReachesOwningProcessor() {
+        // the explode vertex gets the default local parallelism
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setCooperativeThreadCount(PARALLELISM);
+        JetInstance instance = createJetMember(config);
+        DAG dag = new DAG();
+        dag.newVertex("stateful", KeyOwnershipP::new).localParallelism(PARALLELISM);
+        Job job = instance.newJob(dag, new JobConfig()
+                .setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE)
+                .setSnapshotIntervalMillis(DAYS.toMillis(1)));
+
+        assertJobStatusEventually(job, RUNNING);
+        job.restart();
+        assertJobStatusEventually(job, RUNNING);
+
+        assertTrueEventually(() -> assertEquals(KEY_COUNT, restoredCount.get()));
+        assertEquals("a key was restored more than once", KEY_COUNT, restoredKeys.size());
+        assertTrue("keys restored to a processor not owning them: " + misroutedKeys, misroutedKeys.isEmpty());
+    }
+
+    /**
+     * Processor that saves the keys {@code i, i + localParallelism, ...},
+     * where {@code i} is its index, regardless of their partition. On restore
+     * it records the keys that don't belong to its partitions.
+     */
+    private static final class KeyOwnershipP extends AbstractProcessor {
+
+        private final List<Integer> keys = new ArrayList<>();
+        private PartitionService partitionService;
+        private int localParallelism;
+        private int processorIndex;
+        private Traverser<Entry<Integer, Integer>> snapshotTraverser;
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            partitionService = context.jetInstance().getHazelcastInstance().getPartitionService();
+            localParallelism = context.localParallelism();
+            processorIndex = context.localProcessorIndex();
+            for (int key = processorIndex; key < KEY_COUNT; key += localParallelism) {
+                keys.add(key);
+            }
+        }
+
+        @Override
+        public boolean complete() {
+            return false;
+        }
+
+        @Override
+        public boolean saveToSnapshot() {
+            if (snapshotTraverser == null) {
+                snapshotTraverser = traverseIterable(keys).map(key -> entry(key, key));
+            }
+            if (!emitFromTraverserToSnapshot(snapshotTraverser)) {
+                return false;
+            }
+            snapshotTraverser = null;
+            return true;
+        }
+
+        @Override
+        protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+            // on a single member the partitions are assigned to the processors round-robin
+            int owner = partitionService.getPartition(key).getPartitionId() % localParallelism;
+            if (owner != processorIndex) {
+                misroutedKeys.add(key + " at processor " + processorIndex + ", owner " + owner);
+            }
+            restoredKeys.add(key);
+            restoredCount.incrementAndGet();
+        }
+    }
+}
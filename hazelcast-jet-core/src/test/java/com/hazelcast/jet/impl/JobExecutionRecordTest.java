@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class JobExecutionRecordTest {
+
+    private static final int MAX_INCREMENTAL = 2;
+
+    private final JobExecutionRecord record = new JobExecutionRecord(1, 1, false);
+
+    @Test
+    public void when_noSnapshot_then_incrementalNotPossible() {
+        assertFalse(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+    }
+
+    @Test
+    public void when_incrementalSnapshots_then_writtenToSameMapUntilLimit() {
+        completeSnapshot(false, null);
+        assertEquals(0, record.dataMapIndex());
+
+        assertTrue(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+        completeSnapshot(true, null);
+        assertEquals(0, record.dataMapIndex());
+        assertEquals(1, record.snapshotId());
+
+        assertTrue(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+        completeSnapshot(true, null);
+        assertEquals(0, record.dataMapIndex());
+
+        // the limit is reached, the next full snapshot goes to the other map
+        assertFalse(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+        completeSnapshot(false, null);
+        assertEquals(1, record.dataMapIndex());
+        assertTrue(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+    }
+
+    @Test
+    public void when_snapshotFailed_then_nextSnapshotFull() {
+        completeSnapshot(false, null);
+        completeSnapshot(true, "failure");
+        assertEquals(0, record.snapshotId());
+        assertEquals(0, record.dataMapIndex());
+        assertFalse(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+
+        completeSnapshot(false, null);
+        assertEquals(1, record.dataMapIndex());
+        assertTrue(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+    }
+
+    @Test
+    public void when_snapshotExported_then_nextSnapshotFull() {
+        completeSnapshot(false, null);
+        record.startNewSnapshot("exported", false);
+        record.ongoingSnapshotDone(0, 0, 0, null);
+        assertFalse(record.canTakeIncrementalSnapshot(MAX_INCREMENTAL));
+    }
+
+    private void completeSnapshot(boolean incremental, String failure) {
+        record.startNewSnapshot(null, incremental);
+        assertEquals(incremental, record.ongoingSnapshotIncremental());
+        record.ongoingSnapshotDone(0, 0, 0, failure);
+        assertFalse(record.ongoingSnapshotIncremental());
+    }
+}
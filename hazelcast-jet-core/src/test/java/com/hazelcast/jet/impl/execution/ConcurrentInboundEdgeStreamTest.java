@@ -234,6 +234,58 @@ public class ConcurrentInboundEdgeStreamTest {
         drainAndAssert(MADE_PROGRESS, wm(1));
     }
 
+    @Test
+    public void when_unalignedSnapshot_then_barrierForwardedFirstAndInFlightItemsOvertaken() {
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true, item -> 42, "cies");
+
+        add(q1, barrier(0), 3);
+        add(q2, 1, 2, barrier(0), 4);
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+
+        List<Object> inFlightItems = new ArrayList<>();
+        stream.startOvertaking((item, partitionKey) -> inFlightItems.add(item));
+        assertEquals(DONE, stream.overtake());
+        assertEquals(Arrays.asList(1, 2), inFlightItems);
+
+        // the overtaken items are still drained, before the items behind the barrier
+        drainAndAssert(MADE_PROGRESS, 3, 1, 2, 4);
+    }
+
+    @Test
+    public void when_overtaking_then_queueWithoutBarrierDrainedOnlyAfterOvertaken() {
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true, item -> 42, "cies");
+
+        add(q1, barrier(0));
+        add(q2, 1);
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+
+        List<Object> inFlightItems = new ArrayList<>();
+        stream.startOvertaking((item, partitionKey) -> inFlightItems.add(item));
+        assertEquals(MADE_PROGRESS, stream.overtake());
+        drainAndAssert(MADE_PROGRESS, 1);
+
+        add(q2, 2, barrier(0), 3);
+        drainAndAssert(NO_PROGRESS);
+
+        assertEquals(DONE, stream.overtake());
+        assertEquals(Arrays.asList(1, 2), inFlightItems);
+        drainAndAssert(MADE_PROGRESS, 2, 3);
+    }
+
+    @Test
+    public void when_unalignedSnapshotAndTerminalBarrier_then_waitForBarrier() {
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true, item -> 42, "cies");
+
+        add(q1, new SnapshotBarrier(0, true));
+        add(q2, 1);
+        drainAndAssert(MADE_PROGRESS, 1);
+
+        add(q1, 2);
+        add(q2, new SnapshotBarrier(0, true));
+        drainAndAssert(MADE_PROGRESS, new SnapshotBarrier(0, true));
+        drainAndAssert(MADE_PROGRESS, 2);
+    }
+
     private void drainAndAssert(ProgressState expectedState, Object... expectedItems) {
         List<Object> list = new ArrayList<>();
         assertEquals("progressState", expectedState, stream.drainTo(list::add));
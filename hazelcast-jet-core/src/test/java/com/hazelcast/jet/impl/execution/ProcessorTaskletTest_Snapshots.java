@@ -17,6 +17,8 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.Outbox;
@@ -50,6 +52,7 @@ import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -192,10 +195,63 @@ public class ProcessorTaskletTest_Snapshots {
         assertEquals(asList(ssEntry1.getValue(), ssEntry2.getValue(), barrier(0), DONE_ITEM), getSnapshotBufferValues());
     }
 
+    @Test
+    public void when_unalignedSnapshot_then_inFlightItemsSavedAfterState() {
+        // Given
+        OneToOneConcurrentArrayQueue<Object> q1 = new OneToOneConcurrentArrayQueue<>(128);
+        OneToOneConcurrentArrayQueue<Object> q2 = new OneToOneConcurrentArrayQueue<>(128);
+        ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(new Object(), q1, q2);
+        InboundEdgeStream instream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true, item -> 42, "cies");
+        q1.addAll(asList(0, barrier(0), 3));
+        q2.addAll(asList(1, 2, barrier(0)));
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE, singletonList(instream));
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, barrier(0), 3, 1, 2), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 2, barrier(0)), getSnapshotBufferValues());
+        Entry inFlightEntry = (Entry) snapshotCollector.getBuffer().get(1);
+        assertEquals(new InFlightItemKey(0, 0, 0, 0, 42), serializationService.toObject(inFlightEntry.getKey()));
+    }
+
+    @Test
+    public void when_inFlightItemsRestored_then_processedAfterRestoreInOrder() {
+        Entry<String, String> ssEntry1 = entry("k1", "v1");
+        List<Object> restoredSnapshot = asList(
+                entry(new InFlightItemKey(0, 1, 0, 1, 42), "b"),
+                ssEntry1,
+                entry(new InFlightItemKey(0, 1, 0, 0, 42), "a"),
+                DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE, restoredSnapshot, 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, asList("c", DONE_ITEM), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(asList("finishRestore", "a", "b", "c", DONE_ITEM), outstream1.getBuffer());
+    }
+
     private ProcessorTasklet createTasklet(ProcessingGuarantee guarantee) {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
         }
+        return createTasklet(guarantee, instreams);
+    }
+
+    private ProcessorTasklet createTasklet(ProcessingGuarantee guarantee, List<? extends InboundEdgeStream> instreams) {
         snapshotContext = new SnapshotContext(mock(ILogger.class), "test job", -1, guarantee);
         snapshotContext.initTaskletCount(1, 0);
         final ProcessorTasklet t = new ProcessorTasklet(context, serializationService, processor, instreams, outstreams,
@@ -23,9 +23,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static com.hazelcast.jet.config.EdgeConfig.DEFAULT_PACKET_SIZE_LIMIT;
 import static com.hazelcast.jet.config.InstanceConfig.DEFAULT_FLOW_CONTROL_PERIOD_MS;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.COMPRESSED_SEQ_UNIT_LOG2;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.INITIAL_RECEIVE_WINDOW_COMPRESSED;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.PACKETS_PER_RECEIVE_WINDOW;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.PACKET_SIZE_ADAPTATION_RANGE;
 import static java.lang.Math.abs;
 import static java.lang.Math.ceil;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -41,12 +44,17 @@ public class ReceiverTaskletSendLimitTest {
     private static final int RWIN_MULTIPLIER = 3;
     private static final int FLOW_CONTROL_PERIOD_MS = 100;
 
+    private static final long RTT = MILLISECONDS.toNanos(50);
+
     private ReceiverTasklet tasklet;
+    private ReceiverTasklet adaptiveTasklet;
 
     @Before
     public void before() {
         tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS,
                 new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
+        adaptiveTasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, DEFAULT_PACKET_SIZE_LIMIT, true,
+                FLOW_CONTROL_PERIOD_MS, new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
     }
 
     @Test
@@ -138,4 +146,73 @@ public class ReceiverTaskletSendLimitTest {
         final long rwin = seqLimitAfterRecover - ackedSeqCompressed;
         assertTrue(rwin >= RWIN_MULTIPLIER * ackedSeqsPerIterCompressed);
     }
+
+    @Test
+    public void when_adaptiveAndSteadyFlow_then_rwinTwiceBandwidthDelayProduct() {
+        // Given
+        final int ackedSeqsPerIterCompressed = 1000;
+        final long ackedSeqsPerIter = ackedSeqsPerIterCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+        final int iterCount = 15;
+        adaptiveTasklet.recordRttSample(RTT, START);
+        long seqLimitCompressed = 0;
+
+        // When
+        for (int i = 0; i < iterCount; i++) {
+            adaptiveTasklet.ackItem(ackedSeqsPerIter);
+            seqLimitCompressed = adaptiveTasklet.updateAndGetSendSeqLimitCompressed(START + i * ACK_PERIOD);
+        }
+
+        // Then
+        final long ackedSeqCompressed = (iterCount * ackedSeqsPerIter) >> COMPRESSED_SEQ_UNIT_LOG2;
+        final long rwin = seqLimitCompressed - ackedSeqCompressed;
+        final long bdp = ackedSeqsPerIterCompressed * (RTT + ACK_PERIOD) / ACK_PERIOD;
+        assertTrue("rwin=" + rwin, abs(rwin - 2 * bdp) < 2);
+        assertEquals(DEFAULT_PACKET_SIZE_LIMIT * PACKET_SIZE_ADAPTATION_RANGE, adaptiveTasklet.getPacketSizeLimit());
+    }
+
+    @Test
+    public void when_adaptiveAndItemsWaiting_then_rwinDrainsToBandwidthDelayProduct() {
+        // Given
+        final int ackedSeqsPerIterCompressed = 1000;
+        final long ackedSeqsPerIter = ackedSeqsPerIterCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+        final int iterCount = 15;
+        adaptiveTasklet.recordRttSample(RTT, START);
+        int iter = 0;
+        for (int i = 0; i < iterCount; i++, iter++) {
+            adaptiveTasklet.ackItem(ackedSeqsPerIter);
+            adaptiveTasklet.updateAndGetSendSeqLimitCompressed(START + iter * ACK_PERIOD);
+        }
+
+        // When
+        adaptiveTasklet.setNumWaitingInInbox(1);
+        long seqLimitCompressed = 0;
+        for (int i = 0; i < iterCount; i++, iter++) {
+            adaptiveTasklet.ackItem(ackedSeqsPerIter);
+            seqLimitCompressed = adaptiveTasklet.updateAndGetSendSeqLimitCompressed(START + iter * ACK_PERIOD);
+        }
+
+        // Then
+        final long ackedSeqCompressed = (2 * iterCount * ackedSeqsPerIter) >> COMPRESSED_SEQ_UNIT_LOG2;
+        final long rwin = seqLimitCompressed - ackedSeqCompressed;
+        final long bdp = ackedSeqsPerIterCompressed * (RTT + ACK_PERIOD) / ACK_PERIOD;
+        assertTrue("rwin=" + rwin, abs(rwin - bdp) < 3);
+    }
+
+    @Test
+    public void when_adaptiveAndSlowFlow_then_smallerPackets() {
+        // Given
+        final long ackedSeqsPerIter = 1 << COMPRESSED_SEQ_UNIT_LOG2;
+        adaptiveTasklet.setNumWaitingInInbox(1);
+
+        // When
+        for (int i = 0; i < 30; i++) {
+            adaptiveTasklet.ackItem(ackedSeqsPerIter);
+            adaptiveTasklet.updateAndGetSendSeqLimitCompressed(START + i * ACK_PERIOD);
+        }
+
+        // Then
+        final long rwinBytes = adaptiveTasklet.getReceiveWindowBytes().get();
+        assertTrue("rwinBytes=" + rwinBytes, rwinBytes <= 2 << COMPRESSED_SEQ_UNIT_LOG2);
+        assertEquals(rwinBytes / PACKETS_PER_RECEIVE_WINDOW, adaptiveTasklet.getPacketSizeLimit());
+    }
 }
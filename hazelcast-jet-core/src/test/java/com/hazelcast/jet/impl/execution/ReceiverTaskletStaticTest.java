@@ -39,7 +39,7 @@ public class ReceiverTaskletStaticTest {
 
     @Test
     public void testEstimatedMemoryFootprint() {
-        assertEquals(56, estimatedMemoryFootprint(0));
-        assertEquals(66, estimatedMemoryFootprint(10));
+        assertEquals(20, estimatedMemoryFootprint(0));
+        assertEquals(30, estimatedMemoryFootprint(10));
     }
 }
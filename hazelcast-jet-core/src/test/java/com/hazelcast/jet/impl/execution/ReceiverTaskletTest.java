@@ -18,6 +18,7 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.impl.util.Lz4BlockCodec;
 import com.hazelcast.logging.LoggingService;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastSerialClassRunner;
@@ -26,9 +27,16 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
+import static com.hazelcast.jet.config.EdgeConfig.DEFAULT_PACKET_SIZE_LIMIT;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 @RunWith(HazelcastSerialClassRunner.class)
@@ -52,6 +60,54 @@ public class ReceiverTaskletTest {
         assertEquals(asList(1, 2), collector.getBuffer());
     }
 
+    @Test
+    public void when_receiveCompressedPacket_then_emitDecompressedObjects() throws IOException {
+        String item1 = String.join("", Collections.nCopies(100, "a"));
+        String item2 = String.join("", Collections.nCopies(100, "b"));
+        pushCompressedObjects(item1, item2);
+        t.call();
+        assertEquals(asList(item1, item2), collector.getBuffer());
+        assertEquals(2, t.getItemsInCounter().get());
+        assertTrue(t.getBytesInCounter().get() < t.getUncompressedBytesInCounter().get());
+    }
+
+    @Test
+    public void when_packetWaitsInQueue_then_rttSampleTakenAtArrival() throws IOException {
+        ReceiverTasklet adaptive = new ReceiverTasklet(collector, 3, DEFAULT_PACKET_SIZE_LIMIT, true, 100,
+                mock(LoggingService.class), "");
+        long rtt = MILLISECONDS.toNanos(5);
+        long receivedAt = System.nanoTime() - SECONDS.toNanos(1);
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.writeLong(receivedAt - rtt); // echoed ack timestamp
+        out.writeInt(1);
+        out.writeObject(1);
+        out.writeInt(1); // partition id
+        adaptive.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()), receivedAt);
+
+        adaptive.call();
+
+        assertEquals(singletonList(1), collector.getBuffer());
+        assertEquals(rtt, adaptive.getMinRttNanos().get());
+    }
+
+    private void pushCompressedObjects(Object... objs) throws IOException {
+        final BufferObjectDataOutput items = serService.createObjectDataOutput();
+        for (Object obj : objs) {
+            items.writeObject(obj);
+            items.writeInt(Math.abs(obj.hashCode())); // partition id
+        }
+        final byte[] itemBytes = items.toByteArray();
+        final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(itemBytes.length)];
+        final int compressedLength = new Lz4BlockCodec().compress(itemBytes, 0, itemBytes.length, compressed, 0);
+
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.writeInt(-objs.length);
+        out.writeInt(itemBytes.length);
+        out.writeInt(compressedLength);
+        out.write(Arrays.copyOf(compressed, compressedLength));
+        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
+    }
+
     private void pushObjects(Object... objs) throws IOException {
         final BufferObjectDataOutput out = serService.createObjectDataOutput();
         out.writeInt(objs.length);
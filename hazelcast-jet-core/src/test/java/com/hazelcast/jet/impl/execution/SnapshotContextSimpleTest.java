@@ -17,6 +17,7 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.impl.JobExecutionRecord.VertexSnapshotStats;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.test.HazelcastSerialClassRunner;
@@ -28,6 +29,7 @@ import org.junit.runner.RunWith;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 
+import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -99,6 +101,23 @@ public class SnapshotContextSimpleTest {
         ssContext.snapshotDoneForTasklet(1, 1, 1);
     }
 
+    @Test
+    public void when_snapshotDone_then_vertexStatsMerged() {
+        ssContext.initTaskletCount(3, 0);
+        CompletableFuture<SnapshotOperationResult> future = ssContext.startNewSnapshot(10, "map", false);
+
+        // When
+        ssContext.snapshotDoneForTasklet("v1", new VertexSnapshotStats(10, 2, 1, 100, 5, 1));
+        ssContext.snapshotDoneForTasklet("v1", new VertexSnapshotStats(20, 3, 2, 50, 6, 2));
+        ssContext.snapshotDoneForTasklet("v2", new VertexSnapshotStats(0, 0, 0, 0, 0, 0));
+
+        // Then
+        SnapshotOperationResult result = future.join();
+        assertEquals(30, result.getNumBytes());
+        assertEquals(singleton("v1"), result.getVertexStats().keySet());
+        assertEquals(new VertexSnapshotStats(30, 5, 3, 100, 11, 3), result.getVertexStats().get("v1"));
+    }
+
     @Test
     public void test_taskletDoneWhilePostponed() {
         ssContext.initTaskletCount(2, 2);
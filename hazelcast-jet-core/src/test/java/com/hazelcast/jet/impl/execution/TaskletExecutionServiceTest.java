@@ -19,6 +19,8 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.internal.metrics.renderers.ProbeRenderer;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.logging.ILogger;
@@ -36,22 +38,30 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
 
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_REBALANCE_PERIOD_MILLIS;
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS;
+import static com.hazelcast.jet.core.JetProperties.JET_COOPERATIVE_WORK_STEALING_ENABLED;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
+import static java.util.Collections.newSetFromMap;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
@@ -71,23 +81,54 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
     private final CompletableFuture<Void> cancellationFuture = new CompletableFuture<>();
 
     private TaskletExecutionService es;
+    private MetricsRegistryImpl metricsRegistry;
     private ClassLoader classLoaderMock;
 
     @Before
     public void before() {
+        es = createService(new Properties());
+        classLoaderMock = mock(ClassLoader.class);
+    }
+
+    private TaskletExecutionService createService(Properties props) {
         NodeEngineImpl neMock = mock(NodeEngineImpl.class);
         HazelcastInstance hzMock = mock(HazelcastInstance.class);
         LoggingService loggingService = mock(LoggingService.class);
         Mockito.when(hzMock.getName()).thenReturn("test-hz-instance");
         Mockito.when(neMock.getLoggingService()).thenReturn(loggingService);
         Mockito.when(neMock.getHazelcastInstance()).thenReturn(hzMock);
-        MetricsRegistryImpl metricsRegistry = new MetricsRegistryImpl(mock(ILogger.class), ProbeLevel.INFO);
+        metricsRegistry = new MetricsRegistryImpl(mock(ILogger.class), ProbeLevel.INFO);
         Mockito.when(neMock.getMetricsRegistry()).thenReturn(metricsRegistry);
         Mockito.when(loggingService.getLogger(TaskletExecutionService.class))
                .thenReturn(Logger.getLogger(TaskletExecutionService.class));
-        HazelcastProperties properties = new HazelcastProperties(new Properties());
-        es = new TaskletExecutionService(neMock, THREAD_COUNT, properties);
-        classLoaderMock = mock(ClassLoader.class);
+        HazelcastProperties properties = new HazelcastProperties(props);
+        return new TaskletExecutionService(neMock, THREAD_COUNT, properties);
+    }
+
+    private long readLongMetric(String metric) {
+        long[] result = {-1};
+        metricsRegistry.render(new ProbeRenderer() {
+            @Override
+            public void renderLong(String name, long value) {
+                if (name.contains("metric=" + metric + ']')) {
+                    result[0] = value;
+                }
+            }
+
+            @Override
+            public void renderDouble(String name, double value) {
+            }
+
+            @Override
+            public void renderException(String name, Exception e) {
+            }
+
+            @Override
+            public void renderNoValue(String name) {
+            }
+        });
+        assertNotEquals("metric " + metric + " not registered", -1, result[0]);
+        return result[0];
     }
 
     @After
@@ -186,6 +227,71 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         tasklets.forEach(MockTasklet::assertDone);
     }
 
+    @Test
+    public void when_workStealingEnabled_then_idleWorkersTakeOverTasklets() {
+        // Given
+        es.shutdown();
+        Properties props = new Properties();
+        props.setProperty(JET_COOPERATIVE_WORK_STEALING_ENABLED.getName(), "true");
+        props.setProperty(JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS.getName(), "10");
+        es = createService(props);
+        // tasklets are assigned round-robin: the long-running ones all end up on the first worker
+        List<Tasklet> tasklets = new ArrayList<>();
+        List<ThreadRecordingTasklet> longTasklets = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            ThreadRecordingTasklet t = new ThreadRecordingTasklet(2000);
+            longTasklets.add(t);
+            tasklets.add(t);
+            for (int j = 1; j < THREAD_COUNT; j++) {
+                tasklets.add(new MockTasklet().callsBeforeDone(10));
+            }
+        }
+
+        // When
+        es.beginExecute(tasklets, cancellationFuture, classLoaderMock).join();
+
+        // Then
+        // -- ThreadRecordingTasklet asserts it's never called concurrently
+        assertTrue("no tasklet was moved to another worker",
+                longTasklets.stream().anyMatch(t -> t.threads.size() > 1));
+    }
+
+    @Test
+    public void when_rebalancingEnabled_then_expensiveTaskletsAreSpread() {
+        // Given
+        es.shutdown();
+        Properties props = new Properties();
+        props.setProperty(JET_COOPERATIVE_REBALANCE_PERIOD_MILLIS.getName(), "10");
+        props.setProperty(JET_COOPERATIVE_WORK_STEALING_COOLDOWN_MILLIS.getName(), "10");
+        es = createService(props);
+        // tasklets are assigned round-robin: the expensive ones all end up on the first worker
+        List<Tasklet> tasklets = new ArrayList<>();
+        List<ThreadRecordingTasklet> expensiveTasklets = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            ThreadRecordingTasklet t = new ThreadRecordingTasklet(2000);
+            expensiveTasklets.add(t);
+            tasklets.add(t);
+            for (int j = 1; j < THREAD_COUNT; j++) {
+                tasklets.add(new MockTasklet().callsBeforeDone(10));
+            }
+        }
+
+        // When
+        es.beginExecute(tasklets, cancellationFuture, classLoaderMock).join();
+
+        // Then
+        // -- ThreadRecordingTasklet asserts it's never called concurrently
+        assertTrue("rebalancer didn't move any tasklet", readLongMetric("rebalanceMoveCount") > 0);
+        Thread overloadedThread = expensiveTasklets.get(0).firstThread;
+        for (ThreadRecordingTasklet t : expensiveTasklets) {
+            assertEquals("expensive tasklet didn't start on the overloaded worker", overloadedThread, t.firstThread);
+        }
+        long movedAwayCount = expensiveTasklets.stream().filter(t -> t.lastThread != overloadedThread).count();
+        assertTrue("no expensive tasklet was moved away from the overloaded worker", movedAwayCount > 0);
+        assertTrue("expensive tasklets all ended on a single worker",
+                expensiveTasklets.stream().map(t -> t.lastThread).distinct().count() > 1);
+    }
+
     @Test
     public void when_nonBlockingTaskletIsCancelled_then_completesEarly() throws Exception {
         // Given
@@ -335,6 +441,36 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         }
     }
 
+    @Test
+    public void when_idleStrategySet_then_tasksExecuted() {
+        for (IdleStrategyType idleStrategy : IdleStrategyType.values()) {
+            // Given
+            final List<MockTasklet> tasklets = asList(
+                    new MockTasklet().callsBeforeDone(10),
+                    new MockTasklet().blocking().callsBeforeDone(10));
+
+            // When
+            es.beginExecute(tasklets, cancellationFuture, classLoaderMock, t -> idleStrategy).join();
+
+            // Then
+            tasklets.forEach(MockTasklet::assertDone);
+        }
+    }
+
+    @Test
+    public void when_taskletsWithDifferentIdleStrategies_then_allExecuted() {
+        // Given
+        final List<MockTasklet> tasklets =
+                Stream.generate(() -> new MockTasklet().callsBeforeDone(10)).limit(100).collect(toList());
+
+        // When
+        es.beginExecute(tasklets, cancellationFuture, classLoaderMock,
+                t -> IdleStrategyType.values()[tasklets.indexOf(t) % IdleStrategyType.values().length]).join();
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+    }
+
     private void executeAndJoin(List<MockTasklet> tasklets) {
         CompletableFuture<Void> f = es.beginExecute(tasklets, cancellationFuture, classLoaderMock);
         f.join();
@@ -429,6 +565,33 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         }
     }
 
+    private static class ThreadRecordingTasklet implements Tasklet {
+
+        final Set<Thread> threads = newSetFromMap(new ConcurrentHashMap<>());
+        volatile Thread firstThread;
+        volatile Thread lastThread;
+        private final AtomicBoolean inCall = new AtomicBoolean();
+        private int callsBeforeDone;
+
+        ThreadRecordingTasklet(int callsBeforeDone) {
+            this.callsBeforeDone = callsBeforeDone;
+        }
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            assertTrue("called concurrently", inCall.compareAndSet(false, true));
+            threads.add(Thread.currentThread());
+            if (firstThread == null) {
+                firstThread = Thread.currentThread();
+            }
+            lastThread = Thread.currentThread();
+            LockSupport.parkNanos(100_000);
+            inCall.set(false);
+            return --callsBeforeDone == 0 ? DONE : MADE_PROGRESS;
+        }
+    }
+
     private static class TaskletAssertingThreadLocal implements Tasklet {
 
         private static ThreadLocal<Integer> threadLocal = ThreadLocal.withInitial(() -> 0);
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.execution.WatermarkCoalescer.StandardImpl;
+import com.hazelcast.jet.impl.execution.WatermarkCoalescer.TournamentTreeImpl;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(QuickTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class WatermarkCoalescer_TournamentTreeTest {
+
+    @Test
+    public void when_created_then_implementationDependsOnQueueCount() {
+        int threshold = WatermarkCoalescer.TOURNAMENT_TREE_MIN_QUEUE_COUNT;
+        assertTrue(WatermarkCoalescer.create(threshold - 1) instanceof StandardImpl);
+        assertTrue(WatermarkCoalescer.create(threshold) instanceof TournamentTreeImpl);
+    }
+
+    @Test
+    public void when_allQueuesHaveWm_then_minForwarded() {
+        WatermarkCoalescer wc = new TournamentTreeImpl(5);
+        for (int i = 4; i > 0; i--) {
+            assertEquals(NO_NEW_WM, wc.observeWm(i, 10 + i));
+        }
+        assertEquals(11, wc.observeWm(0, 20));
+        assertEquals(12, wc.observeWm(1, 30));
+        assertEquals(NO_NEW_WM, wc.queueDone(0));
+        assertEquals(13, wc.queueDone(2));
+    }
+
+    @Test
+    public void when_randomOperations_then_sameResultsAsScanning() {
+        Random random = new Random(42);
+        for (int queueCount : new int[] {2, 3, 7, 64, 100, 257}) {
+            for (int round = 0; round < 20; round++) {
+                assertSameResults(random, queueCount);
+            }
+        }
+    }
+
+    private static void assertSameResults(Random random, int queueCount) {
+        WatermarkCoalescer expected = new StandardImpl(queueCount);
+        WatermarkCoalescer actual = new TournamentTreeImpl(queueCount);
+        long[] lastWms = new long[queueCount];
+        boolean[] done = new boolean[queueCount];
+        int doneCount = 0;
+        for (int step = 0; step < 50 * queueCount && doneCount < queueCount; step++) {
+            int queueIndex = random.nextInt(queueCount);
+            if (done[queueIndex]) {
+                continue;
+            }
+            String op = "step " + step + ", queue " + queueIndex;
+            int action = random.nextInt(100);
+            if (action < 70) {
+                lastWms[queueIndex] += 1 + random.nextInt(10);
+                assertEquals(op, expected.observeWm(queueIndex, lastWms[queueIndex]),
+                        actual.observeWm(queueIndex, lastWms[queueIndex]));
+            } else if (action < 85) {
+                expected.observeEvent(queueIndex);
+                actual.observeEvent(queueIndex);
+            } else if (action < 98) {
+                assertEquals(op, expected.observeWm(queueIndex, IDLE_MESSAGE.timestamp()),
+                        actual.observeWm(queueIndex, IDLE_MESSAGE.timestamp()));
+            } else {
+                done[queueIndex] = true;
+                doneCount++;
+                assertEquals(op, expected.queueDone(queueIndex), actual.queueDone(queueIndex));
+            }
+            assertEquals(op, expected.checkWmHistory(), actual.checkWmHistory());
+            assertEquals(op, expected.coalescedWm(), actual.coalescedWm());
+            assertEquals(op, expected.topObservedWm(), actual.topObservedWm());
+        }
+    }
+}
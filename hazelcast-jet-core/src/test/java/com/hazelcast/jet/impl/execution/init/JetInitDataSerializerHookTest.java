@@ -80,7 +80,12 @@ public class JetInitDataSerializerHookTest {
 
                 new Object[]{
                         "JobExecutionRecord.SnapshotStats",
-                        populateFields(new JobExecutionRecord.SnapshotStats(), emptyList()),
+                        populateFields(new JobExecutionRecord.SnapshotStats(), singletonList("vertexStats")),
+                        emptyList()},
+
+                new Object[]{
+                        "JobExecutionRecord.VertexSnapshotStats",
+                        populateFields(new JobExecutionRecord.VertexSnapshotStats(), emptyList()),
                         emptyList()}
         );
     }
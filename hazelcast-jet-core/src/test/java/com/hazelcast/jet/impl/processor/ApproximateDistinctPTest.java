@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class ApproximateDistinctPTest {
+
+    @Test
+    public void when_duplicateKeys_then_firstItemEmitted() {
+        verifyProcessor(() -> distinctP(10))
+                .input(asList("a", "b", "a", "c", "b", "c"))
+                .expectOutput(asList("a", "b", "c"));
+    }
+
+    @Test
+    public void when_keySeenBeforeLastRotation_then_dropped() {
+        verifyProcessor(() -> distinctP(10))
+                .input(asList("a", wm(0), wm(10), "a", "b"))
+                .expectOutput(asList("a", wm(0), wm(10), "b"));
+    }
+
+    @Test
+    public void when_keyNotSeenForTwoRotations_then_emittedAgain() {
+        verifyProcessor(() -> distinctP(10))
+                .input(asList("a", wm(0), wm(10), wm(15), wm(20), "a"))
+                .expectOutput(asList("a", wm(0), wm(10), wm(15), wm(20), "a"));
+    }
+
+    @Test
+    public void when_watermarkJumpsByTwoTtl_then_bothFiltersCleared() {
+        verifyProcessor(() -> distinctP(10))
+                .input(asList("a", wm(0), wm(25), "a"))
+                .expectOutput(asList("a", wm(0), wm(25), "a"));
+    }
+
+    @Test
+    public void when_duplicateAfterRotation_then_keyKeptAlive() {
+        verifyProcessor(() -> distinctP(10))
+                .input(asList("a", wm(0), wm(10), "a", wm(20), "a"))
+                .expectOutput(asList("a", wm(0), wm(10), wm(20)));
+    }
+
+    private static ApproximateDistinctP<String> distinctP(long ttl) {
+        return new ApproximateDistinctP<>(FunctionEx.<String>identity(), ttl, 1000, 0.001);
+    }
+}
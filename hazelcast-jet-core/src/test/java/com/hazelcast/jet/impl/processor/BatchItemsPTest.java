@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class BatchItemsPTest {
+
+    @Test
+    public void when_batchFull_then_emitted() {
+        // a snapshot emits the pending batch, which would change the batches
+        verifyProcessor(() -> new BatchItemsP<>(2, Long.MAX_VALUE))
+                .disableSnapshots()
+                .input(asList(1, 2, 3, 4, 5))
+                .expectOutput(asList(asList(1, 2), asList(3, 4), singletonList(5)));
+    }
+
+    @Test
+    public void when_watermark_then_pendingBatchEmittedFirst() {
+        verifyProcessor(() -> new BatchItemsP<>(10, Long.MAX_VALUE))
+                .disableSnapshots()
+                .input(asList(1, 2, wm(5), 3))
+                .expectOutput(asList(asList(1, 2), wm(5), singletonList(3)));
+    }
+
+    @Test
+    public void when_zeroLatency_then_eachItemEmittedAlone() {
+        verifyProcessor(() -> new BatchItemsP<>(10, 0))
+                .input(asList(1, 2, 3))
+                .expectOutput(asList(singletonList(1), singletonList(2), singletonList(3)));
+    }
+
+    @Test
+    public void when_outboxFull_then_itemNotTaken() throws Exception {
+        BatchItemsP<Integer> p = new BatchItemsP<>(1, Long.MAX_VALUE);
+        TestOutbox outbox = new TestOutbox(1);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(1, 2, 3));
+
+        // the first batch fills the outbox, the third item can't be taken
+        p.process(0, inbox);
+        assertEquals(3, inbox.peek());
+        assertFalse(p.tryProcess());
+        assertEquals(singletonList(1), outbox.queue(0).poll());
+        assertNull(outbox.queue(0).poll());
+
+        assertTrue(p.tryProcess());
+        assertEquals(singletonList(2), outbox.queue(0).poll());
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        assertTrue(p.complete());
+        assertEquals(singletonList(3), outbox.queue(0).poll());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.util.Util.hash64;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class BloomFilterTest {
+
+    @Test
+    public void when_added_then_neverReportedAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(hash64(i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(hash64(i)));
+            assertFalse(filter.add(hash64(i)));
+        }
+    }
+
+    @Test
+    public void when_expectedItemsAdded_then_falsePositiveRateAsConfigured() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(hash64(i));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(hash64(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("falsePositives=" + falsePositives, falsePositives < 2 * 1000);
+    }
+
+    @Test
+    public void when_merged_then_containsHashesOfBoth() {
+        BloomFilter filter1 = new BloomFilter(100, 0.01);
+        BloomFilter filter2 = new BloomFilter(100, 0.01);
+        filter1.add(hash64("a"));
+        filter2.add(hash64("b"));
+
+        filter1.merge(filter2.words());
+
+        assertTrue(filter1.mightContain(hash64("a")));
+        assertTrue(filter1.mightContain(hash64("b")));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.Traversers.traverseItems;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static java.util.Arrays.asList;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class FusedFlatMapPTest {
+
+    @Test
+    public void when_wrappedProcessorEmits_then_outputFlatMapped() {
+        SupplierEx<Processor> headSupplier = Processors.mapP((Integer i) -> i * 10);
+
+        TestSupport.verifyProcessor(() -> new FusedFlatMapP(headSupplier.get(),
+                       item -> traverseItems(item, (Integer) item + 1)))
+                   .input(asList(1, wm(5), 2))
+                   .expectOutput(asList(10, 11, wm(5), 20, 21));
+    }
+
+    @Test
+    public void when_flatMapReturnsEmpty_then_itemDropped() {
+        SupplierEx<Processor> headSupplier = Processors.mapP((Integer i) -> i);
+
+        TestSupport.verifyProcessor(() -> new FusedFlatMapP(headSupplier.get(),
+                       item -> (Integer) item % 2 == 0 ? traverseItems(item) : traverseItems()))
+                   .input(asList(1, 2, 3, 4))
+                   .expectOutput(asList(2, 4));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.impl.util.ArrayDequeInbox;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.Traversers.traverseItems;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class FusedInputFlatMapPTest {
+
+    @Test
+    public void when_inputFlatMapped_then_wrappedProcessorReceivesOutput() {
+        SupplierEx<Processor> tailSupplier = Processors.mapP((Integer i) -> i * 10);
+
+        TestSupport.verifyProcessor(() -> new FusedInputFlatMapP(tailSupplier.get(),
+                       item -> traverseItems(item, (Integer) item + 1)))
+                   .input(asList(1, wm(5), 2))
+                   .expectOutput(asList(10, 20, wm(5), 20, 30));
+    }
+
+    @Test
+    public void when_flatMapReturnsEmpty_then_itemDropped() {
+        SupplierEx<Processor> tailSupplier = Processors.mapP((Integer i) -> i);
+
+        TestSupport.verifyProcessor(() -> new FusedInputFlatMapP(tailSupplier.get(),
+                       item -> (Integer) item % 2 == 0 ? traverseItems(item) : traverseItems()))
+                   .input(asList(1, 2, 3, 4, 5))
+                   .expectOutput(asList(2, 4));
+    }
+
+    @Test
+    public void when_mappedItemsPending_then_progressReportedToInboxTracker() throws Exception {
+        ProgressTracker tracker = new ProgressTracker();
+        ArrayDequeInbox inbox = new ArrayDequeInbox(tracker);
+        TestOutbox outbox = new TestOutbox(1);
+        Processor p = new FusedInputFlatMapP(Processors.mapP((Integer i) -> i).get(),
+                item -> traverseItems(item, (Integer) item + 1, (Integer) item + 2));
+        p.init(outbox, new TestProcessorContext());
+        inbox.queue().add(1);
+
+        p.process(0, inbox);
+        assertEquals(1, outbox.queue(0).poll());
+
+        // the outer inbox still holds the item, the progress comes from the mapped items
+        tracker.reset();
+        p.process(0, inbox);
+        assertEquals(1, inbox.size());
+        assertTrue("no progress reported", tracker.isMadeProgress());
+        assertEquals(2, outbox.queue(0).poll());
+
+        tracker.reset();
+        p.process(0, inbox);
+        assertTrue(tracker.isMadeProgress());
+        assertEquals(3, outbox.queue(0).poll());
+        assertTrue(inbox.isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.impl.processor.HashJoinCollectP.HashJoinArrayList;
+import com.hazelcast.jet.impl.processor.HashJoinCollectP.SpilledLookupTable;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.impl.processor.HashPartitionedSpill.DEFAULT_PARTITION_COUNT;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class HashPartitionedSpillTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File parentDirectory;
+    private HashPartitionedSpill spill;
+
+    @Before
+    public void before() throws IOException {
+        parentDirectory = tempFolder.newFolder();
+        spill = new HashPartitionedSpill(parentDirectory.toPath(), "vertex/0", DEFAULT_PARTITION_COUNT,
+                new DefaultSerializationServiceBuilder().build());
+    }
+
+    @After
+    public void after() {
+        spill.close();
+        assertEquals(0, parentDirectory.list().length);
+    }
+
+    @Test
+    public void when_entriesWritten_then_readFromTheirPartition() {
+        for (int i = 0; i < 1000; i++) {
+            spill.write(i, "v" + i);
+        }
+
+        Map<Object, Object> read = new HashMap<>();
+        for (int p = 0; p < spill.partitionCount(); p++) {
+            Traverser<Entry<Object, Object>> entries = spill.entries(p);
+            for (Entry<Object, Object> e; (e = entries.next()) != null; ) {
+                assertEquals(p, spill.partitionId(spill.toData(e.getKey())));
+                read.put(e.getKey(), e.getValue());
+            }
+        }
+        assertEquals(1000, read.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("v" + i, read.get(i));
+        }
+        assertTrue(spill.spilledBytes() > 0);
+    }
+
+    @Test
+    public void when_partitionRepartitioned_then_entriesSplitIntoChildPartitions() {
+        for (int i = 0; i < 1000; i++) {
+            spill.write(i, "v" + i);
+        }
+        int partitionId = spill.partitionId(spill.toData(0));
+
+        HashPartitionedSpill child = spill.repartition(partitionId);
+        try {
+            Map<Object, Object> read = new HashMap<>();
+            int nonEmptyPartitions = 0;
+            for (int p = 0; p < child.partitionCount(); p++) {
+                Traverser<Entry<Object, Object>> entries = child.entries(p);
+                nonEmptyPartitions += child.partitionBytes(p) > 0 ? 1 : 0;
+                for (Entry<Object, Object> e; (e = entries.next()) != null; ) {
+                    assertEquals(p, child.partitionId(child.toData(e.getKey())));
+                    read.put(e.getKey(), e.getValue());
+                }
+            }
+            assertEquals(spill.partitionBytes(partitionId), child.spilledBytes());
+            assertTrue("nonEmptyPartitions=" + nonEmptyPartitions, nonEmptyPartitions > 1);
+            for (int i = 0; i < 1000; i++) {
+                if (spill.partitionId(spill.toData(i)) == partitionId) {
+                    assertEquals("v" + i, read.remove(i));
+                }
+            }
+            assertTrue(read.isEmpty());
+        } finally {
+            child.close();
+        }
+    }
+
+    @Test
+    public void when_spilledLookupTable_then_valuesFound() {
+        spill.write("a", 1);
+        spill.write("b", 2);
+        spill.write("a", 3);
+
+        SpilledLookupTable table = new SpilledLookupTable(spill);
+
+        Object a = table.get("a");
+        assertTrue(a instanceof HashJoinArrayList);
+        assertEquals(asList(1, 3), a);
+        assertEquals(2, table.get("b"));
+        assertNull(table.get("c"));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void when_spilledLookupTableIterated_then_entryPerKey() {
+        for (int i = 0; i < 1000; i++) {
+            spill.write(i % 300, i);
+        }
+
+        SpilledLookupTable table = new SpilledLookupTable(spill);
+
+        Map<Object, Object> copy = new HashMap<>(table);
+        assertEquals(300, copy.size());
+        assertEquals(300, table.size());
+        assertEquals(asList(0, 300, 600, 900), copy.get(0));
+        assertEquals(asList(299, 599, 899), copy.get(299));
+        assertEquals(copy, table);
+    }
+
+    @Test
+    public void when_nothingWritten_then_partitionsEmpty() {
+        for (int p = 0; p < spill.partitionCount(); p++) {
+            assertNull(spill.entries(p).next());
+        }
+        assertTrue(spill.isEmpty());
+    }
+}
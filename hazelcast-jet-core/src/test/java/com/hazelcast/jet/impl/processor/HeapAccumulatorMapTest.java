@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.averagingLong;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class HeapAccumulatorMapTest {
+
+    private static final int KEY_COUNT = 10_000;
+
+    @Test
+    public void when_longKeys_then_countedPerKey() {
+        assertCounts(i -> (long) i);
+    }
+
+    @Test
+    public void when_intKeys_then_countedPerKey() {
+        assertCounts(i -> i);
+    }
+
+    @Test
+    public void when_stringKeys_then_countedPerKey() {
+        assertCounts(i -> "key-" + i);
+    }
+
+    @Test
+    public void when_keyTypesMixed_then_switchesToGenericKeys() {
+        assertCounts(i -> i % 3 == 0 ? (Object) (long) i : i % 3 == 1 ? "key-" + i : null);
+    }
+
+    @Test
+    public void when_objectAccumulator_then_accumulatedInPlace() {
+        AggregateOperation1<Long, MutableReference<Long>, Long> sumOp = AggregateOperation
+                .withCreate(() -> new MutableReference<>(0L))
+                .<Long>andAccumulate((acc, item) -> acc.set(acc.get() + item))
+                .andExportFinish(MutableReference::get);
+        AccumulatorMap<Long, MutableReference<Long>> map = new HeapAccumulatorMap<>(sumOp, sumOp.createFn().get());
+
+        for (long i = 0; i < KEY_COUNT; i++) {
+            map.accumulate(i % 10, i, sumOp.accumulateFn());
+        }
+
+        Map<Long, Long> sums = new HashMap<>();
+        map.forEach((k, acc) -> sums.put(k, acc.get()));
+        for (long key = 0; key < 10; key++) {
+            long expected = 0;
+            for (long i = key; i < KEY_COUNT; i += 10) {
+                expected += i;
+            }
+            assertEquals(expected, (long) sums.get(key));
+        }
+    }
+
+    @Test
+    public void when_longLongAccumulator_then_bothValuesStored() {
+        AggregateOperation1<Long, LongLongAccumulator, Double> avgOp = averagingLong(Long::longValue);
+        AccumulatorMap<String, LongLongAccumulator> map = new HeapAccumulatorMap<>(avgOp, avgOp.createFn().get());
+
+        map.accumulate("a", 1L, avgOp.accumulateFn());
+        map.accumulate("b", 10L, avgOp.accumulateFn());
+        map.accumulate("a", 3L, avgOp.accumulateFn());
+
+        List<Entry<String, LongLongAccumulator>> entries = drain(map.traverser());
+        assertEquals(2, entries.size());
+        assertEquals("a", entries.get(0).getKey());
+        assertEquals(new LongLongAccumulator(2, 4), entries.get(0).getValue());
+        assertEquals(new LongLongAccumulator(1, 10), entries.get(1).getValue());
+    }
+
+    @Test
+    public void when_putIfAbsent_then_onlyFirstStored() {
+        AggregateOperation1<Object, LongAccumulator, Long> op = counting();
+        AccumulatorMap<Long, LongAccumulator> map = new HeapAccumulatorMap<>(op, op.createFn().get());
+
+        assertTrue(map.putIfAbsent(1L, new LongAccumulator(5)));
+        assertFalse(map.putIfAbsent(1L, new LongAccumulator(7)));
+
+        List<Entry<Long, LongAccumulator>> entries = drain(map.traverser());
+        assertEquals(1, entries.size());
+        assertEquals(new LongAccumulator(5), entries.get(0).getValue());
+    }
+
+    @Test
+    public void when_traversingInlineAccumulators_then_newInstances() {
+        AggregateOperation1<Object, LongAccumulator, Long> op = counting();
+        AccumulatorMap<Long, LongAccumulator> map = new HeapAccumulatorMap<>(op, op.createFn().get());
+        map.accumulate(1L, "item", op.accumulateFn());
+        map.accumulate(2L, "item", op.accumulateFn());
+
+        List<Entry<Long, LongAccumulator>> entries = drain(map.traverser());
+
+        assertNotSame(entries.get(0).getValue(), entries.get(1).getValue());
+    }
+
+    @Test
+    public void when_drainingTraverserExhausted_then_empty() {
+        AggregateOperation1<Object, LongAccumulator, Long> op = counting();
+        AccumulatorMap<String, LongAccumulator> map = new HeapAccumulatorMap<>(op, op.createFn().get());
+        map.accumulate("a", "item", op.accumulateFn());
+
+        Traverser<Entry<String, LongAccumulator>> traverser = map.drainingTraverser();
+        assertEquals("a", traverser.next().getKey());
+        assertNull(traverser.next());
+
+        assertTrue(map.isEmpty());
+        map.accumulate("b", "item", op.accumulateFn());
+        assertEquals(1, map.size());
+    }
+
+    private static void assertCounts(IntFunction<Object> keyFn) {
+        AggregateOperation1<Object, LongAccumulator, Long> op = counting();
+        AccumulatorMap<Object, LongAccumulator> map = new HeapAccumulatorMap<>(op, op.createFn().get());
+        Set<Object> seenKeys = new HashSet<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < KEY_COUNT; i++) {
+                Object key = keyFn.apply(i);
+                assertEquals(seenKeys.add(key), map.accumulate(key, "item", op.accumulateFn()));
+            }
+        }
+
+        List<Entry<Object, LongAccumulator>> entries = drain(map.drainingTraverser());
+        Map<Object, Long> counts = new HashMap<>();
+        for (Entry<Object, LongAccumulator> e : entries) {
+            counts.merge(e.getKey(), e.getValue().get(), Long::sum);
+        }
+        Map<Object, Long> expected = new HashMap<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            expected.merge(keyFn.apply(i), 3L, Long::sum);
+        }
+        assertEquals(expected, counts);
+        assertEquals(expected.size(), entries.size());
+        assertTrue(map.isEmpty());
+    }
+
+    private static <K, A> List<Entry<K, A>> drain(Traverser<Entry<K, A>> traverser) {
+        List<Entry<K, A>> result = new ArrayList<>();
+        for (Entry<K, A> e; (e = traverser.next()) != null; ) {
+            result.add(e);
+        }
+        return result;
+    }
+}
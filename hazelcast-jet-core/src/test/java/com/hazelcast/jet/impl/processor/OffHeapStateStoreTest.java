@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.impl.execution.OffHeapStateMemory;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static com.hazelcast.jet.impl.execution.OffHeapStateMemory.BLOCK_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class OffHeapStateStoreTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private InternalSerializationService serializationService;
+    private OffHeapStateMemory memory;
+    private OffHeapStateStore<Integer, String> store;
+
+    @Before
+    public void before() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        memory = new OffHeapStateMemory(64L * BLOCK_SIZE, "test");
+        store = new OffHeapStateStore<>(memory, serializationService);
+    }
+
+    @After
+    public void after() {
+        store.clear();
+        assertEquals(0, memory.usedBytes());
+    }
+
+    @Test
+    public void when_putAndGet_then_valueReturned() {
+        store.put(1, "a");
+        store.put(2, "b");
+        store.put(1, "longer");
+
+        assertEquals("longer", store.get(1));
+        assertEquals("b", store.get(2));
+        assertNull(store.get(3));
+        assertTrue(store.containsKey(2));
+        assertFalse(store.containsKey(3));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void when_computeIfAbsent_then_createdOnlyOnce() {
+        assertEquals("x1", store.computeIfAbsent(1, k -> "x" + k));
+        assertEquals("x1", store.computeIfAbsent(1, k -> "y" + k));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void when_randomOperations_then_sameContentAsHashMap() {
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                store.remove(key);
+                expected.remove(key);
+            } else {
+                // vary the value length to exercise both the in-place and the appending update
+                String value = Integer.toString(random.nextInt(1 << (1 + random.nextInt(30))));
+                store.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected, toMap(store.traverser()));
+        for (Entry<Integer, String> e : expected.entrySet()) {
+            assertEquals(e.getValue(), store.get(e.getKey()));
+        }
+        // the compaction keeps the held memory bounded
+        assertTrue("usedBytes=" + memory.usedBytes(), memory.usedBytes() <= 4L * BLOCK_SIZE);
+    }
+
+    @Test
+    public void when_evict_then_onlyMatchingEntriesRemoved() {
+        for (int i = 0; i < 100; i++) {
+            store.put(i, i % 2 == 0 ? "even" : "odd");
+        }
+
+        store.evict("even"::equals, 10);
+
+        assertEquals(90, store.size());
+        for (int i = 1; i < 100; i += 2) {
+            assertEquals("odd", store.get(i));
+        }
+    }
+
+    @Test
+    public void when_snapshotTraverser_then_serializedEntries() {
+        store.put(1, "a");
+
+        Entry<Object, Object> entry = store.snapshotTraverser().next();
+
+        assertTrue(entry.getKey() instanceof Data);
+        assertTrue(entry.getValue() instanceof Data);
+        assertEquals(1, (int) serializationService.toObject(entry.getKey()));
+        assertEquals("a", serializationService.toObject(entry.getValue()));
+    }
+
+    @Test
+    public void when_limitExceeded_then_fail() {
+        char[] chars = new char[BLOCK_SIZE];
+        String value = new String(chars);
+
+        exception.expect(JetException.class);
+        for (int i = 0; i < 100; i++) {
+            store.put(i, value);
+        }
+    }
+
+    private static <K, V> Map<K, V> toMap(Traverser<Entry<K, V>> traverser) {
+        Map<K, V> map = new HashMap<>();
+        for (Entry<K, V> e; (e = traverser.next()) != null; ) {
+            map.put(e.getKey(), e.getValue());
+        }
+        return map;
+    }
+}
@@ -17,10 +17,14 @@
 package com.hazelcast.jet.impl.processor;
 
 import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.TimestampKind;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.datamodel.KeyedWindowResult;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.SupplierEx;
@@ -40,12 +44,15 @@ import java.util.List;
 import java.util.Map.Entry;
 
 import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.aggregate.AggregateOperations.summingLong;
 import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
 import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 @Category(ParallelTest.class)
@@ -193,6 +200,83 @@ public class SlidingWindowP_stage1Test {
                 .expectOutput(singletonList(wm(16)));
     }
 
+    @Test
+    public void when_preAggregationMaxKeysExceeded_then_oldestFrameEvictedEarly() throws Exception {
+        TestOutbox outbox = new TestOutbox(10);
+        SlidingWindowP p = createEvictingProcessor(outbox);
+        TestInbox inbox = new TestInbox();
+
+        inbox.addAll(evictingInput());
+        p.process(0, inbox);
+        assertTrue(p.tryProcessWatermark(wm(4)));
+        assertTrue(p.complete());
+
+        assertEquals(evictingOutput(), new ArrayList<>(outbox.queue(0)));
+    }
+
+    @Test
+    public void when_evictedItemDoesNotFitOutbox_then_emittedInNextCall() throws Exception {
+        TestOutbox outbox = new TestOutbox(1);
+        SlidingWindowP p = createEvictingProcessor(outbox);
+        TestInbox inbox = new TestInbox();
+        List<Object> output = new ArrayList<>();
+
+        inbox.addAll(evictingInput());
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        // the first evicted item is in the outbox, the second one is pending
+        assertFalse(p.tryProcess());
+        outbox.drainQueueAndReset(0, output, false);
+        assertTrue(p.tryProcess());
+        outbox.drainQueueAndReset(0, output, false);
+        while (!p.tryProcessWatermark(wm(4))) {
+            outbox.drainQueueAndReset(0, output, false);
+        }
+        outbox.drainQueueAndReset(0, output, false);
+        while (!p.complete()) {
+            outbox.drainQueueAndReset(0, output, false);
+        }
+        outbox.drainQueueAndReset(0, output, false);
+
+        assertEquals(evictingOutput(), output);
+    }
+
+    private SlidingWindowP createEvictingProcessor(TestOutbox outbox) throws Exception {
+        FunctionEx<Entry<Long, Long>, Object> keyFn = Entry::getValue;
+        ToLongFunctionEx<Entry<Long, Long>> timestampFn = Entry::getKey;
+        SlidingWindowP p = (SlidingWindowP) Processors.accumulateByFrameP(
+                singletonList(keyFn),
+                singletonList(timestampFn),
+                TimestampKind.EVENT,
+                slidingWinPolicy(16, 4),
+                counting().withIdentityFinish()
+        ).get();
+        suppliedProcessors.add(p);
+        TestProcessorContext context = new TestProcessorContext();
+        context.setJobConfig(new JobConfig().setPreAggregationMaxKeys(2));
+        p.init(outbox, context);
+        return p;
+    }
+
+    private static List<Entry<Long, Long>> evictingInput() {
+        return asList(
+                entry(0L, 1L), // to frame 4
+                entry(0L, 2L), // to frame 4
+                entry(4L, 3L), // to frame 8, evicts key 1 from frame 4
+                entry(0L, 1L) // to frame 4, evicts key 2 from frame 4
+        );
+    }
+
+    private static List<Object> evictingOutput() {
+        return asList(
+                new KeyedWindowResult<>(0, 4, 1L, new LongAccumulator(1)),
+                new KeyedWindowResult<>(0, 4, 2L, new LongAccumulator(1)),
+                new KeyedWindowResult<>(0, 4, 1L, new LongAccumulator(1)),
+                wm(4),
+                new KeyedWindowResult<>(4, 8, 3L, new LongAccumulator(1))
+        );
+    }
+
     private static <V> KeyedWindowResult<Long, LongAccumulator> frame(long ts, long value) {
         return new KeyedWindowResult<>(ts - 4, ts, KEY, new LongAccumulator(value));
     }
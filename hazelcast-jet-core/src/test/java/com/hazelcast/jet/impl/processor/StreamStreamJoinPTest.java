@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.jet.function.BiFunctionEx;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class StreamStreamJoinPTest {
+
+    // items are entries of timestamp and key
+    private static final FunctionEx<Entry<Long, String>, String> KEY_FN = Entry::getValue;
+    private static final ToLongFunctionEx<Entry<Long, String>> TIMESTAMP_FN = Entry::getKey;
+
+    @Test
+    public void when_sameKeyWithinBounds_then_joined() {
+        verifyProcessor(joinP(0, 10, Tuple2::tuple2))
+                .inputs(asList(
+                        asList(entry(0L, "a"), entry(5L, "b"), entry(6L, "c")),
+                        asList(entry(3L, "a"), entry(20L, "b"), entry(7L, "d"))
+                ))
+                .expectOutput(singletonList(tuple2(entry(0L, "a"), entry(3L, "a"))));
+    }
+
+    @Test
+    public void when_otherInputArrivesFirst_then_joined() {
+        verifyProcessor(joinP(-5, 5, Tuple2::tuple2))
+                .inputs(asList(
+                        singletonList(entry(10L, "a")),
+                        asList(entry(4L, "a"), entry(7L, "a"), entry(15L, "a"), entry(16L, "a"))
+                ), new int[] {1, 0})
+                .expectOutput(asList(
+                        tuple2(entry(10L, "a"), entry(7L, "a")),
+                        tuple2(entry(10L, "a"), entry(15L, "a"))
+                ));
+    }
+
+    @Test
+    public void when_eventBehindWatermark_then_dropped() {
+        verifyProcessor(joinP(0, 10, Tuple2::tuple2))
+                .inputs(asList(
+                        asList(wm(10), entry(5L, "a"), entry(10L, "a")),
+                        singletonList(entry(12L, "a"))
+                ), new int[] {1, 0})
+                .expectOutput(asList(
+                        wm(10),
+                        tuple2(entry(10L, "a"), entry(12L, "a"))
+                ));
+    }
+
+    @Test
+    public void when_outputFnReturnsNull_then_pairSkipped() {
+        verifyProcessor(joinP(0, 10, (l, r) -> null))
+                .inputs(asList(
+                        singletonList(entry(0L, "a")),
+                        singletonList(entry(3L, "a"))
+                ))
+                .expectOutput(emptyList());
+    }
+
+    private static SupplierEx<Processor> joinP(
+            long lowerBound,
+            long upperBound,
+            BiFunctionEx<Entry<Long, String>, Entry<Long, String>, Object> mapToOutputFn
+    ) {
+        return () -> new StreamStreamJoinP<>(
+                nCopies(2, KEY_FN), nCopies(2, TIMESTAMP_FN), lowerBound, upperBound, mapToOutputFn);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.ColumnarBatch;
+import com.hazelcast.jet.function.ToDoubleFunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.stream.LongStream;
+
+import static com.hazelcast.jet.datamodel.ColumnarBatch.columnarBatch;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class ToColumnarPTest {
+
+    private ToColumnarP<Long> p;
+    private TestInbox inbox;
+    private TestOutbox outbox;
+
+    @Before
+    public void before() throws Exception {
+        p = new ToColumnarP<>(3,
+                singletonList((ToLongFunctionEx<Long>) Long::longValue),
+                singletonList((ToDoubleFunctionEx<Long>) x -> x / 2.0));
+        inbox = new TestInbox();
+        outbox = new TestOutbox(1);
+        p.init(outbox, new TestProcessorContext());
+    }
+
+    @Test
+    public void when_batchFull_then_emitted() {
+        inbox.addAll(asList(1L, 2L, 3L, 4L));
+
+        p.process(0, inbox);
+
+        assertEquals(columnarBatch(3, new long[][] {{1, 2, 3}}, new double[][] {{0.5, 1, 1.5}}), outbox.queue(0).poll());
+        assertTrue(inbox.isEmpty());
+        assertNull(outbox.queue(0).poll());
+
+        // the partial batch is emitted when the inbox is drained
+        assertTrue(p.tryProcess());
+        assertEquals(columnarBatch(1, new long[][] {{4}}, new double[][] {{2}}), outbox.queue(0).poll());
+        assertTrue(p.complete());
+        assertNull(outbox.queue(0).poll());
+    }
+
+    @Test
+    public void when_outboxFull_then_retried() {
+        inbox.addAll(asList(1L, 2L, 3L, 4L, 5L, 6L, 7L));
+
+        p.process(0, inbox);
+        assertEquals(7L, inbox.peek());
+        outbox.queue(0).clear();
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+
+        assertEquals(columnarBatch(3, new long[][] {{4, 5, 6}}, new double[][] {{2, 2.5, 3}}), outbox.queue(0).poll());
+    }
+
+    @Test
+    public void when_batchGrowsPastInitialCapacity_then_emittedBatchesIntact() {
+        p = new ToColumnarP<>(40, singletonList((ToLongFunctionEx<Long>) Long::longValue), emptyList());
+        outbox = new TestOutbox(2);
+        p.init(outbox, new TestProcessorContext());
+        long[] expected = LongStream.range(0, 20).toArray();
+        LongStream.range(0, 20).forEach(inbox::add);
+
+        p.process(0, inbox);
+        assertTrue(p.tryProcess());
+        ColumnarBatch first = (ColumnarBatch) outbox.queue(0).poll();
+        inbox.add(100L);
+        p.process(0, inbox);
+        assertTrue(p.tryProcess());
+
+        assertEquals(columnarBatch(20, new long[][] {expected}, null), first);
+        assertEquals(columnarBatch(1, new long[][] {{100}}, null), outbox.queue(0).poll());
+    }
+
+    @Test
+    public void when_watermark_then_batchEmittedFirst() {
+        inbox.add(1L);
+        p.process(0, inbox);
+
+        Watermark wm = new Watermark(10);
+        assertFalse(p.tryProcessWatermark(wm));
+        assertEquals(columnarBatch(1, new long[][] {{1}}, new double[][] {{0.5}}), outbox.queue(0).poll());
+        assertTrue(p.tryProcessWatermark(wm));
+        assertEquals(wm, outbox.queue(0).poll());
+    }
+}
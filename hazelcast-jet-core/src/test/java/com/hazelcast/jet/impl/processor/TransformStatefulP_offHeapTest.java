@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.impl.execution.OffHeapStateMemory;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.execution.OffHeapStateMemory.BLOCK_SIZE;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class TransformStatefulP_offHeapTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private OffHeapStateMemory memory;
+    private JetInstance jetInstance;
+
+    @Before
+    public void before() {
+        memory = new OffHeapStateMemory(16L * BLOCK_SIZE, "test");
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        HazelcastInstanceImpl hzInstance = mock(HazelcastInstanceImpl.class);
+        when(hzInstance.getSerializationService()).thenReturn(serializationService);
+        jetInstance = mock(JetInstance.class);
+        when(jetInstance.getHazelcastInstance()).thenReturn(hzInstance);
+    }
+
+    @Test
+    public void when_snapshotRestored_then_stateKeptOffHeap() throws Exception {
+        // Given
+        TestOutbox outbox = new TestOutbox(new int[] {10}, 10);
+        Processor p = createProcessor(outbox);
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(entry("a", 1L), entry("b", 2L), entry("a", 3L)));
+        p.process(0, inbox);
+        assertEquals(asList(entry("a", 1L), entry("b", 2L), entry("a", 4L)), new ArrayList<>(outbox.queue(0)));
+        assertTrue("state not stored off-heap", memory.usedBytes() > 0);
+
+        // When
+        assertTrue(p.saveToSnapshot());
+        List<Entry<Object, Object>> snapshot = new ArrayList<>();
+        outbox.drainSnapshotQueueAndReset(snapshot, false);
+        p.close();
+
+        TestOutbox outbox2 = new TestOutbox(10);
+        Processor p2 = createProcessor(outbox2);
+        inbox.addAll(snapshot);
+        p2.restoreFromSnapshot(inbox);
+        assertTrue(p2.finishSnapshotRestore());
+
+        // Then
+        inbox.addAll(asList(entry("a", 5L), entry("b", 6L)));
+        p2.process(0, inbox);
+        assertEquals(asList(entry("a", 9L), entry("b", 8L)), new ArrayList<>(outbox2.queue(0)));
+        p2.close();
+    }
+
+    @Test
+    public void when_disposed_then_allBlocksFreed() throws Exception {
+        TestOutbox outbox = new TestOutbox(10);
+        Processor p = createProcessor(outbox);
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(entry("a", 1L), entry("b", 2L)));
+        p.process(0, inbox);
+        p.close();
+        assertTrue(memory.usedBytes() > 0);
+
+        memory.dispose();
+
+        assertEquals(0, memory.usedBytes());
+        exception.expect(IllegalStateException.class);
+        memory.allocate(1);
+    }
+
+    private Processor createProcessor(TestOutbox outbox) throws Exception {
+        Processor p = Processors.mapStatefulP(
+                0,
+                Entry<String, Long>::getKey,
+                e -> 0L,
+                () -> new long[1],
+                (long[] s, Entry<String, Long> e) -> {
+                    s[0] += e.getValue();
+                    return s[0];
+                },
+                (e, k, r) -> entry(k, r)
+        ).get();
+        p.init(outbox, new ProcCtx(jetInstance, 0, 0, new JobConfig(), Logger.getLogger(getClass()), "v",
+                0, 0, ProcessingGuarantee.EXACTLY_ONCE, 1, 0, 1, memory));
+        return p;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class TwoStacksSlidingWindowTest {
+
+    private static final int FRAMES_IN_WINDOW = 5;
+
+    private final AggregateOperation1<Long, LongAccumulator, Long> maxOp = AggregateOperation
+            .withCreate(() -> new LongAccumulator(Long.MIN_VALUE))
+            .<Long>andAccumulate((acc, item) -> acc.set(Math.max(acc.get(), item)))
+            .andCombine((acc1, acc2) -> acc1.set(Math.max(acc1.get(), acc2.get())))
+            .andExportFinish(LongAccumulator::get);
+
+    @Test
+    public void when_slidingOverFrames_then_sameAsCombiningAllFrames() {
+        Random random = new Random(42);
+        List<AccumulatorMap<Integer, LongAccumulator>> frames = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            if (random.nextInt(5) == 0) {
+                // a frame without data
+                frames.add(null);
+                continue;
+            }
+            AccumulatorMap<Integer, LongAccumulator> frame = new HeapAccumulatorMap<>(maxOp, maxOp.createFn().get());
+            for (int j = 0; j < 20; j++) {
+                frame.accumulate(random.nextInt(10), (long) random.nextInt(1000), maxOp.accumulateFn());
+            }
+            frames.add(frame);
+        }
+
+        TwoStacksSlidingWindow<Integer, LongAccumulator> window = new TwoStacksSlidingWindow<>(maxOp);
+        for (int i = 0; i < FRAMES_IN_WINDOW - 1; i++) {
+            window.addLast(frames.get(i));
+        }
+        for (int i = FRAMES_IN_WINDOW - 1; i < frames.size(); i++) {
+            window.addLast(frames.get(i));
+            assertEquals(FRAMES_IN_WINDOW, window.size());
+            Map<Integer, LongAccumulator> actual = window.window();
+            assertEquals(combine(frames.subList(i - FRAMES_IN_WINDOW + 1, i + 1)), actual);
+            // the returned accumulators must not be shared with the window
+            actual.values().forEach(acc -> acc.set(Long.MAX_VALUE));
+            window.removeFirst();
+        }
+    }
+
+    @Test
+    public void when_keyLeavesWindow_then_removed() {
+        AccumulatorMap<Integer, LongAccumulator> frame1 = new HeapAccumulatorMap<>(maxOp, maxOp.createFn().get());
+        frame1.accumulate(1, 10L, maxOp.accumulateFn());
+        AccumulatorMap<Integer, LongAccumulator> frame2 = new HeapAccumulatorMap<>(maxOp, maxOp.createFn().get());
+        frame2.accumulate(2, 20L, maxOp.accumulateFn());
+
+        TwoStacksSlidingWindow<Integer, LongAccumulator> window = new TwoStacksSlidingWindow<>(maxOp);
+        window.addLast(frame1);
+        window.addLast(null);
+        window.addLast(frame2);
+        window.removeFirst();
+        assertEquals(singletonMap(2, new LongAccumulator(20)), window.window());
+        window.removeFirst();
+        window.removeFirst();
+        assertEquals(0, window.size());
+        assertTrue(window.window().isEmpty());
+    }
+
+    private Map<Integer, LongAccumulator> combine(List<AccumulatorMap<Integer, LongAccumulator>> frames) {
+        Map<Integer, LongAccumulator> result = new HashMap<>();
+        for (AccumulatorMap<Integer, LongAccumulator> frame : frames) {
+            if (frame != null) {
+                frame.forEach((key, acc) ->
+                        maxOp.combineFn().accept(result.computeIfAbsent(key, k -> maxOp.createFn().get()), acc));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetProperties;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.processor.ReadLocalSnapshotP;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(QuickTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class LocalDiskSnapshotStoreTest extends JetTestSupport {
+
+    private static final String MAP_NAME = "__jet.snapshot.0000-0000-0000-0001.0";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JetInstance instance1;
+    private JetInstance instance2;
+    private LocalDiskSnapshotStore store1;
+    private LocalDiskSnapshotStore store2;
+    private InternalSerializationService serializationService;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getProperties().setProperty(JetProperties.JET_SNAPSHOT_STORE.getName(), "local-disk");
+        config.getProperties().setProperty(JetProperties.JET_SNAPSHOT_STORE_DIRECTORY.getName(),
+                folder.getRoot().getAbsolutePath());
+        instance1 = createJetMember(config);
+        instance2 = createJetMember(config);
+        store1 = store(instance1);
+        store2 = store(instance2);
+        serializationService = ((HazelcastInstanceImpl) instance1.getHazelcastInstance()).getSerializationService();
+    }
+
+    @Test
+    public void when_snapshotMap_then_localDiskStoreUsed() {
+        JetService jetService = jetService(instance1);
+        assertSame(store1, jetService.getSnapshotStore(MAP_NAME));
+        assertTrue(jetService.getSnapshotStore("__jet.exportedSnapshot.foo") instanceof IMapSnapshotStore);
+    }
+
+    @Test
+    public void when_chunkWritten_then_restoredByOwnerOnly() {
+        // When
+        put(store1, 1L, 0, new byte[] {1, 2, 3});
+
+        // Then
+        long[] snapshotIds = {1L};
+        Set<String> bothMembers = new HashSet<>(asList(uuid(instance1), uuid(instance2)));
+        assertEquals(1, store1.localChunkCount(MAP_NAME, snapshotIds, bothMembers));
+        // the replica is only restored after the owner is gone
+        assertEquals(0, store2.localChunkCount(MAP_NAME, snapshotIds, bothMembers));
+        assertEquals(1, store2.localChunkCount(MAP_NAME, snapshotIds, singleton(uuid(instance2))));
+        assertEquals(1, store1.countChunks(MAP_NAME, snapshotIds));
+    }
+
+    @Test
+    public void when_fullSnapshotBegins_then_olderSnapshotsDeleted() {
+        // Given
+        put(store1, 1L, 0, new byte[] {1});
+        put(store1, 2L, 0, new byte[] {2});
+        List<Path> segments = store1.segmentsToRestore(MAP_NAME, 1L, 1L, singleton(uuid(instance1)));
+        assertEquals(1, segments.size());
+
+        // When
+        store1.clearOlderSnapshots(MAP_NAME, 2L);
+
+        // Then
+        assertTrueEventually(() -> assertTrue(
+                store1.segmentsToRestore(MAP_NAME, 1L, 1L, singleton(uuid(instance1))).isEmpty()));
+        assertTrueEventually(() -> assertFalse(segments.get(0).toFile().exists()));
+        assertEquals(1, store1.localChunkCount(MAP_NAME, new long[] {2L}, singleton(uuid(instance1))));
+    }
+
+    @Test
+    public void when_jobFinished_then_mapCleared() {
+        // Given
+        put(store1, 1L, 0, new byte[] {1});
+
+        // When
+        store1.clearMap(MAP_NAME);
+
+        // Then
+        assertTrue(store1.mapNames().isEmpty());
+        assertEquals(0, store1.localChunkCount(MAP_NAME, new long[] {1L}, singleton(uuid(instance1))));
+    }
+
+    @Test
+    public void when_segmentsRead_then_chunksEmitted() {
+        // Given
+        put(store1, 1L, 0, new byte[] {1, 2});
+        put(store1, 1L, 1, new byte[] {3});
+        put(store1, 2L, 0, new byte[] {4});
+
+        // When-Then
+        List<Entry<SnapshotDataKey, byte[]>> expected = asList(
+                entry(key(1L, 0), new byte[] {1, 2}),
+                entry(key(1L, 1), new byte[] {3}));
+        verifyProcessor(() -> new ReadLocalSnapshotP(MAP_NAME, 1L, 1L))
+                .jetInstance(instance1)
+                .disableSnapshots()
+                .outputChecker(LocalDiskSnapshotStoreTest::chunksEqual)
+                .expectOutput(expected);
+    }
+
+    @Test
+    public void when_replicationDisabled_then_noReplica() {
+        // Given
+        JetConfig config = new JetConfig();
+        config.getProperties().setProperty(JetProperties.JET_SNAPSHOT_STORE.getName(), "local-disk");
+        config.getProperties().setProperty(JetProperties.JET_SNAPSHOT_STORE_DIRECTORY.getName(),
+                folder.getRoot().getAbsolutePath());
+        config.getProperties().setProperty(JetProperties.JET_SNAPSHOT_STORE_REPLICATION_ENABLED.getName(), "false");
+        JetInstance instance3 = createJetMember(config);
+        LocalDiskSnapshotStore store3 = store(instance3);
+
+        // When
+        put(store3, 1L, 0, new byte[] {1});
+
+        // Then
+        Set<String> otherMembers = new HashSet<>(asList(uuid(instance1), uuid(instance2)));
+        assertEquals(0, store1.localChunkCount(MAP_NAME, new long[] {1L}, otherMembers)
+                + store2.localChunkCount(MAP_NAME, new long[] {1L}, otherMembers));
+    }
+
+    private void put(LocalDiskSnapshotStore store, long snapshotId, int sequence, byte[] chunk) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        store.put(MAP_NAME, key(snapshotId, sequence), serializationService.toData(chunk),
+                new ExecutionCallback<Object>() {
+                    @Override
+                    public void onResponse(Object response) {
+                        future.complete(response);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                });
+        assertNull(future.join());
+    }
+
+    private static SnapshotDataKey key(long snapshotId, int sequence) {
+        return new SnapshotDataKey(1, snapshotId, "vertex", sequence);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean chunksEqual(List<?> expected, List<?> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Entry<SnapshotDataKey, byte[]> e = (Entry<SnapshotDataKey, byte[]>) expected.get(i);
+            Entry<SnapshotDataKey, byte[]> a = (Entry<SnapshotDataKey, byte[]>) actual.get(i);
+            if (!e.getKey().equals(a.getKey()) || !Arrays.equals(e.getValue(), a.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LocalDiskSnapshotStore store(JetInstance instance) {
+        LocalDiskSnapshotStore store = jetService(instance).getLocalDiskSnapshotStore();
+        assertNotNull(store);
+        return store;
+    }
+
+    private static JetService jetService(JetInstance instance) {
+        return ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine
+                .getService(JetService.SERVICE_NAME);
+    }
+
+    private static String uuid(JetInstance instance) {
+        return instance.getHazelcastInstance().getCluster().getLocalMember().getUuid();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class Lz4BlockCodecTest {
+
+    private final Lz4BlockCodec codec = new Lz4BlockCodec();
+    private final Random random = new Random(42);
+
+    @Test
+    public void when_emptyInput_then_roundTrips() {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void when_shortInput_then_roundTrips() {
+        for (int length = 1; length < 32; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void when_randomInput_then_roundTripsWithinMaxLength() {
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void when_repetitiveInput_then_compressesWell() {
+        byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 17 == 0 ? random.nextInt(4) : i % 13);
+        }
+        int compressedLength = assertRoundTrip(data);
+        assertTrue("compressedLength=" + compressedLength, compressedLength < data.length / 2);
+    }
+
+    @Test
+    public void when_runOfSameByte_then_roundTrips() {
+        // an overlapping match with offset 1
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 7);
+        assertRoundTrip(data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_truncatedInput_then_throws() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+        Lz4BlockCodec.decompress(compressed, 0, compressedLength - 1, new byte[data.length], 0, data.length);
+    }
+
+    private int assertRoundTrip(byte[] data) {
+        // use non-zero offsets to check the offset handling
+        byte[] src = new byte[data.length + 3];
+        System.arraycopy(data, 0, src, 3, data.length);
+        byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(data.length) + 5];
+        int compressedLength = codec.compress(src, 3, data.length, compressed, 5);
+        assertTrue(compressedLength <= Lz4BlockCodec.maxCompressedLength(data.length));
+
+        byte[] decompressed = new byte[data.length + 7];
+        Lz4BlockCodec.decompress(compressed, 5, compressedLength, decompressed, 7, data.length);
+        assertArrayEquals(data, Arrays.copyOfRange(decompressed, 7, decompressed.length));
+        return compressedLength;
+    }
+}
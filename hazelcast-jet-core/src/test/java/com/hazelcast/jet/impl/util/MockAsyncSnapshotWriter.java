@@ -92,4 +92,14 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return 0;
     }
+
+    @Override
+    public long getPutLatencyNanos() {
+        return 0;
+    }
+
+    @Override
+    public long getStallTimeNanos() {
+        return 0;
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class SnapshotWriteThrottleTest {
+
+    private long now;
+
+    @Test
+    public void when_unlimited_then_alwaysAcquires() {
+        SnapshotWriteThrottle throttle = new SnapshotWriteThrottle(0, () -> now);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(throttle.tryAcquire(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void when_budgetUsed_then_acquiresAfterPaidOff() {
+        SnapshotWriteThrottle throttle = new SnapshotWriteThrottle(1000, () -> now);
+        assertTrue(throttle.tryAcquire(100));
+        assertFalse(throttle.tryAcquire(1));
+
+        now += MILLISECONDS.toNanos(99);
+        assertFalse(throttle.tryAcquire(1));
+
+        now += MILLISECONDS.toNanos(1);
+        assertTrue(throttle.tryAcquire(1));
+    }
+
+    @Test
+    public void when_chunkLargerThanBudget_then_acquiresAndNextWaits() {
+        SnapshotWriteThrottle throttle = new SnapshotWriteThrottle(1000, () -> now);
+        assertTrue(throttle.tryAcquire(5000));
+
+        now += MILLISECONDS.toNanos(4999);
+        assertFalse(throttle.tryAcquire(1));
+
+        now += MILLISECONDS.toNanos(1);
+        assertTrue(throttle.tryAcquire(1));
+    }
+
+    @Test
+    public void when_idle_then_burstLimited() {
+        SnapshotWriteThrottle throttle = new SnapshotWriteThrottle(1000, () -> now);
+        now += SECONDS.toNanos(10);
+
+        // the budget accumulated during the idle time is limited to MAX_BURST_MILLIS,
+        // at 1000 bytes/s it is one byte per millisecond
+        long burstBytes = SnapshotWriteThrottle.MAX_BURST_MILLIS;
+        assertTrue(throttle.tryAcquire(burstBytes));
+        assertTrue(throttle.tryAcquire(1));
+        assertFalse(throttle.tryAcquire(1));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.logging.Logger;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.util.ThreadAffinity.parseCpuList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class ThreadAffinityTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void when_emptyList_then_noCpus() {
+        assertArrayEquals(new int[0], parseCpuList(""));
+        assertArrayEquals(new int[0], parseCpuList("  "));
+        assertArrayEquals(new int[0], parseCpuList(null));
+    }
+
+    @Test
+    public void when_numbersAndRanges_then_parsed() {
+        assertArrayEquals(new int[] {3}, parseCpuList("3"));
+        assertArrayEquals(new int[] {2, 3, 4, 5, 8}, parseCpuList("2-5,8"));
+        assertArrayEquals(new int[] {1, 4, 5}, parseCpuList(" 1 , 4 - 5 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_notANumber_then_fail() {
+        parseCpuList("1,a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_reversedRange_then_fail() {
+        parseCpuList("5-2");
+    }
+
+    @Test
+    public void when_negativeNumber_then_fail() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Negative CPU number: -1");
+        parseCpuList("-1");
+    }
+
+    @Test
+    public void when_rangeStartsWithNegativeNumber_then_fail() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Negative CPU number: -2");
+        parseCpuList("-2-3");
+    }
+
+    @Test
+    public void when_emptyList_then_disabled() {
+        ThreadAffinity affinity = new ThreadAffinity("", Logger.getLogger(ThreadAffinityTest.class));
+        assertFalse(affinity.isEnabled());
+        // does nothing
+        affinity.pinCurrentThread(0);
+    }
+}
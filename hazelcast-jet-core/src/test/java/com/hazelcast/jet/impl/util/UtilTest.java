@@ -28,6 +28,7 @@ import org.junit.runner.RunWith;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -36,12 +37,14 @@ import java.util.stream.Stream;
 import static com.hazelcast.jet.impl.util.Util.addClamped;
 import static com.hazelcast.jet.impl.util.Util.addOrIncrementIndexInName;
 import static com.hazelcast.jet.impl.util.Util.gcd;
+import static com.hazelcast.jet.impl.util.Util.hash64;
 import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
 import static com.hazelcast.jet.impl.util.Util.roundRobinPart;
 import static com.hazelcast.jet.impl.util.Util.subtractClamped;
 import static java.util.stream.Collectors.toMap;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
@@ -180,4 +183,13 @@ public class UtilTest extends JetTestSupport {
         assertArrayEquals(new int[] {1},
                 roundRobinPart(3, 2, 1));
     }
+
+    @Test
+    public void test_hash64_when_hashCodesCollide_then_hashesDiffer() {
+        // these pairs have the same hashCode()
+        assertNotEquals(hash64(1L), hash64(1L << 32));
+        assertNotEquals(hash64("Aa"), hash64("BB"));
+        assertEquals(hash64("Aa"), hash64(new String(new char[] {'A', 'a'})));
+        assertEquals(hash64(TimeUnit.SECONDS), hash64(TimeUnit.valueOf("SECONDS")));
+    }
 }
@@ -21,6 +21,7 @@ import com.hazelcast.core.ReplicatedMap;
 import com.hazelcast.jet.JetInstance;
 import com.hazelcast.jet.Util;
 import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.core.DAG;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
@@ -57,6 +58,7 @@ import static com.hazelcast.jet.pipeline.test.AssertionSinks.assertAnyOrder;
 import static com.hazelcast.jet.pipeline.test.AssertionSinks.assertOrdered;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
@@ -222,6 +224,138 @@ public class BatchStageTest extends PipelineTestSupport {
                 streamToString(sinkStreamOf(String.class), identity()));
     }
 
+    @Test
+    public void fusing_when_mapAfterMapUsingContext_then_fusedIntoItsVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        batchStageFromList(input)
+                .mapUsingContext(ContextFactory.withCreateFn(i -> "-context"), (suffix, i) -> i + suffix)
+                .map(s -> s + "-mapped")
+                .drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 3, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(input.stream(), i -> i + "-context-mapped"),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    @Test
+    public void fusing_when_flatMapAfterGroupAndAggregate_then_fusedIntoItsVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        batchStageFromList(input)
+                .groupingKey(i -> i % 10)
+                .aggregate(counting())
+                .flatMap(e -> traverseItems(e.getKey(), e.getKey()))
+                .drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 4, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(IntStream.range(0, 10).boxed().flatMap(i -> Stream.of(i, i)), Objects::toString),
+                streamToString(sinkStreamOf(Integer.class), Objects::toString));
+    }
+
+    @Test
+    public void fusing_when_mapBeforeMapUsingContext_then_fusedIntoItsVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        // the local parallelism differs from the source, the map can only be fused downstream
+        batchStageFromList(input)
+                .map(i -> i + "-mapped")
+                .setLocalParallelism(2)
+                .mapUsingContext(ContextFactory.withCreateFn(i -> "-context"), (suffix, s) -> s + suffix)
+                .setLocalParallelism(2)
+                .drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 3, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(input.stream(), i -> i + "-mapped-context"),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    @Test
+    public void fusing_when_localParallelismDifferent_then_notFusedIntoUpstreamVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        batchStageFromList(input)
+                .mapUsingContext(ContextFactory.withCreateFn(i -> "-context"), (suffix, i) -> i + suffix)
+                .map(s -> s + "-mapped")
+                .setLocalParallelism(2)
+                .drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 4, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(input.stream(), i -> i + "-context-mapped"),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    @Test
+    public void fusing_when_upstreamHasMoreConsumers_then_notFusedIntoUpstreamVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        BatchStage<String> contextStage = batchStageFromList(input)
+                .mapUsingContext(ContextFactory.withCreateFn(i -> "-context"), (suffix, i) -> i + suffix);
+        contextStage.map(s -> s + "-mapped").drainTo(sink);
+        contextStage.map(s -> s + "-other").drainTo(Sinks.noop());
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 6, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(input.stream(), i -> i + "-context-mapped"),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    @Test
+    public void fusing_when_upstreamIsPeek_then_notFusedIntoUpstreamVertex() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        batchStageFromList(input)
+                .mapUsingContext(ContextFactory.withCreateFn(i -> "-context"), (suffix, i) -> i + suffix)
+                .peek()
+                .map(s -> s + "-mapped")
+                .drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(dag.toDotString(), 4, vertexCount(dag));
+        execute();
+        assertEquals(
+                streamToString(input.stream(), i -> i + "-context-mapped"),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    private static int vertexCount(DAG dag) {
+        int[] count = {0};
+        dag.iterator().forEachRemaining(v -> count[0]++);
+        return count[0];
+    }
+
     @Test
     public void filterUsingContext() {
         // Given
@@ -330,6 +464,26 @@ public class BatchStageTest extends PipelineTestSupport {
                 streamToString(sinkStreamOfEntry(), formatFn));
     }
 
+    @Test
+    public void mapUsingContextAsyncBatched() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        BatchStage<String> mapped = batchStageFromList(input)
+                .mapUsingContextAsyncBatched(ContextFactory.withCreateFn(jet -> "-"), 16, 1000,
+                        (suffix, items) -> completedFuture(items.stream()
+                                                                .map(i -> i % 3 == 0 ? null : i + suffix)
+                                                                .collect(toList())));
+
+        // Then
+        mapped.drainTo(sink);
+        execute();
+        assertEquals(
+                streamToString(input.stream().filter(i -> i % 3 != 0).map(i -> i + "-"), identity()),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
     @Test
     public void mapUsingIMapAsync() {
         // Given
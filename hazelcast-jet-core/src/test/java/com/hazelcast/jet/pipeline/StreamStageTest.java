@@ -24,6 +24,7 @@ import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
@@ -68,10 +69,13 @@ import static com.hazelcast.jet.pipeline.WindowDefinition.tumbling;
 import static com.hazelcast.jet.pipeline.test.AssertionSinks.assertAnyOrder;
 import static com.hazelcast.jet.pipeline.test.AssertionSinks.assertOrdered;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class StreamStageTest extends PipelineStreamTestSupport {
 
@@ -323,21 +327,30 @@ public class StreamStageTest extends PipelineStreamTestSupport {
     }
 
     @Test
-    public void fusing_when_localParallelismDifferent_then_notFused() {
+    public void fusing_when_localParallelismDifferent_then_onlyStageWithSameParallelismFused() {
         // Given
         List<Integer> input = sequence(itemCount);
 
         // When
         streamStageFromList(input)
                 .map(item -> item + "-a")
+                .setName("map-a")
                 .setLocalParallelism(1)
                 .map(item -> item + "b")
+                .setName("map-b")
                 .setLocalParallelism(2)
                 .drainTo(sink);
 
         // Then
+        DAG dag = p.toDag();
         assertContainsFused(false);
-        assertVertexCount(p.toDag(), 5);
+        assertVertexCount(dag, 4);
+        // the first map has the local parallelism of the timestamps stage, it's
+        // fused into its vertex. The second map stays a separate vertex.
+        assertNull("map-a wasn't fused", dag.getVertex("map-a"));
+        Vertex mapB = dag.getVertex("map-b");
+        assertNotNull("map-b was fused", mapB);
+        assertEquals(2, mapB.getLocalParallelism());
         execute();
         assertEquals(
                 streamToString(input.stream().map(t -> t  + "-ab"), identity()),
@@ -503,6 +516,26 @@ public class StreamStageTest extends PipelineStreamTestSupport {
                         e -> String.format("(%04d, %s)", e.getKey(), e.getValue())));
     }
 
+    @Test
+    public void mapUsingContextAsyncBatched() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        StreamStage<String> mapped = streamStageFromList(input)
+                .mapUsingContextAsyncBatched(ContextFactory.withCreateFn(jet -> "-"), 16, 1000,
+                        (suffix, items) -> completedFuture(items.stream()
+                                                                .map(i -> i % 3 == 0 ? null : i + suffix)
+                                                                .collect(toList())));
+
+        // Then
+        mapped.drainTo(sink);
+        execute();
+        assertEquals(
+                streamToString(input.stream().filter(i -> i % 3 != 0).map(i -> i + "-"), identity()),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
     @Test
     public void mapUsingIMapAsync() {
         // Given
@@ -560,6 +593,88 @@ public class StreamStageTest extends PipelineStreamTestSupport {
                         e -> String.format("(%04d, %s)", e.getKey(), e.getValue())));
     }
 
+    @Test
+    public void joinStream() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        StreamStage<String> joined = streamStageFromList(input)
+                .groupingKey(i -> i % 10)
+                .joinStream(streamStageFromList(input).groupingKey(i -> i % 10), 0, 20,
+                        (i0, i1) -> String.format("%04d-%04d", i0, i1));
+
+        // Then
+        joined.drainTo(sink);
+        execute();
+        assertEquals(
+                streamToString(input.stream().flatMap(i0 -> input.stream()
+                        .filter(i1 -> i0 % 10 == i1 % 10 && i1 - i0 >= 0 && i1 - i0 <= 20)
+                        .map(i1 -> String.format("%04d-%04d", i0, i1))), identity()),
+                streamToString(sinkStreamOf(String.class), identity()));
+    }
+
+    @Test
+    public void distinct_keyed() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        StreamStage<Integer> distinct = streamStageFromList(input)
+                .groupingKey(i -> i / 10)
+                .distinct(itemCount);
+
+        // Then
+        distinct.drainTo(sink);
+        execute();
+        Function<Integer, String> formatFn = i -> String.format("%04d", i);
+        assertEquals(
+                streamToString(input.stream().filter(i -> i % 10 == 0), formatFn),
+                streamToString(sinkStreamOf(Integer.class), formatFn));
+    }
+
+    @Test
+    public void distinct_keyedWithTtl() {
+        // Given
+        List<Integer> input = IntStream.range(0, itemCount)
+                                       .mapToObj(i -> 10 * i)
+                                       .collect(toList());
+
+        // When
+        StreamStage<Integer> distinct =
+                p.drawFrom(TestSources.items(new DelayedIterable<>(input)))
+                 .addTimestamps(ts -> ts, 0).setLocalParallelism(1)
+                 .groupingKey(i -> i % 2)
+                 .distinct(4);
+
+        // Then
+        distinct.drainTo(sink);
+        execute();
+        Function<Integer, String> formatFn = i -> String.format("%04d", i);
+        assertEquals(
+                streamToString(input.stream(), formatFn),
+                streamToString(sinkStreamOf(Integer.class), formatFn));
+    }
+
+    @Test
+    public void approximateDistinct_keyed() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+
+        // When
+        StreamStage<Integer> distinct = streamStageFromList(input)
+                .groupingKey(i -> i / 10)
+                .approximateDistinct(itemCount, itemCount, 1e-6);
+
+        // Then
+        distinct.drainTo(sink);
+        execute();
+        Function<Integer, String> formatFn = i -> String.format("%04d", i);
+        assertEquals(
+                streamToString(input.stream().filter(i -> i % 10 == 0), formatFn),
+                streamToString(sinkStreamOf(Integer.class), formatFn));
+    }
+
     @Test
     public void mapStateful_global() {
         // Given
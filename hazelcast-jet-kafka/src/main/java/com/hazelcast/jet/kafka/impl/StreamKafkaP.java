@@ -34,8 +34,10 @@ import org.apache.kafka.common.TopicPartition;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +65,7 @@ public final class StreamKafkaP<K, V, T> extends AbstractProcessor {
     private static final Duration POLL_TIMEOUT_MS = Duration.ofMillis(50);
 
     Map<TopicPartition, Integer> currentAssignment = new HashMap<>();
+    final Set<TopicPartition> pausedPartitions = new HashSet<>();
 
     private final Properties properties;
     private final List<String> topics;
@@ -109,6 +112,7 @@ public final class StreamKafkaP<K, V, T> extends AbstractProcessor {
         totalParallelism = context.totalParallelism();
         snapshottingEnabled = context.snapshottingEnabled();
         consumer = new KafkaConsumer<>(properties);
+        eventTimeMapper.registerMetrics(context);
         assignPartitions(false);
     }
 
@@ -138,6 +142,9 @@ public final class StreamKafkaP<K, V, T> extends AbstractProcessor {
             }
             eventTimeMapper.addPartitions(newAssignments.size());
             consumer.assign(currentAssignment.keySet());
+            // the consumer keeps the partitions that remain assigned paused
+            pausedPartitions.clear();
+            pausedPartitions.addAll(consumer.paused());
             if (seekToBeginning) {
                 // for newly detected partitions, we should always seek to the beginning
                 consumer.seekToBeginning(newAssignments);
@@ -174,6 +181,7 @@ public final class StreamKafkaP<K, V, T> extends AbstractProcessor {
         ConsumerRecords<K, V> records = null;
         assignPartitions(true);
         if (!currentAssignment.isEmpty()) {
+            pauseOrResumePartitions();
             records = consumer.poll(POLL_TIMEOUT_MS);
         }
 
@@ -274,6 +282,31 @@ public final class StreamKafkaP<K, V, T> extends AbstractProcessor {
         return true;
     }
 
+    /**
+     * Stops fetching from the partitions that are too far ahead of the
+     * slowest partition, see {@link EventTimePolicy#withMaxSkew(long)}.
+     */
+    private void pauseOrResumePartitions() {
+        List<TopicPartition> toPause = new ArrayList<>();
+        List<TopicPartition> toResume = new ArrayList<>();
+        for (Entry<TopicPartition, Integer> en : currentAssignment.entrySet()) {
+            boolean throttled = eventTimeMapper.isPartitionThrottled(en.getValue());
+            if (throttled && pausedPartitions.add(en.getKey())) {
+                toPause.add(en.getKey());
+            } else if (!throttled && pausedPartitions.remove(en.getKey())) {
+                toResume.add(en.getKey());
+            }
+        }
+        if (!toPause.isEmpty()) {
+            logFinest(getLogger(), "Pausing partitions ahead of the slowest one: %s", toPause);
+            consumer.pause(toPause);
+        }
+        if (!toResume.isEmpty()) {
+            logFinest(getLogger(), "Resuming partitions: %s", toResume);
+            consumer.resume(toResume);
+        }
+    }
+
     private boolean isEmpty(ConsumerRecords<K, V> records) {
         return records == null || records.isEmpty();
     }
@@ -209,6 +209,43 @@ public class StreamKafkaPTest extends KafkaTestSupport {
         assertTrueEventually(() -> assertTrue(job.getFuture().isDone()));
     }
 
+    @Test
+    public void when_maxSkewSetOnSourceStage_then_partitionAheadPausedUntilOthersCatchUp() throws Exception {
+        JetInstance instance = createJetMember();
+
+        Pipeline p = Pipeline.create();
+        p.drawFrom(KafkaSources.<Integer, String>kafka(properties, topic1Name))
+         .withNativeTimestamps(0, 10)
+         .setLocalParallelism(1)
+         .map(Entry::getValue)
+         .drainTo(Sinks.list("sink"));
+
+        Job job = instance.newJob(p);
+        assertJobStatusEventually(job, RUNNING);
+        sleepSeconds(3);
+        IList<String> list = instance.getList("sink");
+
+        for (int i = 0; i < INITIAL_PARTITION_COUNT; i++) {
+            produce(topic1Name, i, 0L, i, "initial-" + i);
+        }
+        assertTrueEventually(() -> assertEquals(INITIAL_PARTITION_COUNT, list.size()), 10);
+
+        // partition 0 gets ahead of the others by more than maxSkew and is paused
+        produce(topic1Name, 0, 100L, 0, "ahead").get();
+        assertTrueEventually(() -> assertTrue(list.contains("ahead")), 10);
+        produce(topic1Name, 0, 101L, 0, "held").get();
+        sleepSeconds(2);
+        assertFalse("event from a paused partition was read", list.contains("held"));
+
+        // the other partitions catch up, partition 0 is resumed
+        for (int i = 1; i < INITIAL_PARTITION_COUNT; i++) {
+            produce(topic1Name, i, 100L, i, "caught-up-" + i);
+        }
+        assertTrueEventually(() -> assertTrue(list.contains("held")), 10);
+
+        job.cancel();
+    }
+
     @Test
     public void when_eventsInAllPartitions_then_watermarkOutputImmediately() throws Exception {
         StreamKafkaP processor = createProcessor(1, r -> entry(r.key(), r.value()), 10_000);
@@ -330,6 +367,46 @@ public class StreamKafkaPTest extends KafkaTestSupport {
         return new StreamKafkaP<>(properties, topics, projectionFn, eventTimePolicy);
     }
 
+    @Test
+    public void when_partitionAddedWhilePartitionPaused_then_pausedPartitionResumedLater() throws Exception {
+        properties.setProperty("metadata.max.age.ms", "100");
+        EventTimePolicy<Entry<Integer, String>> eventTimePolicy = EventTimePolicy.<Entry<Integer, String>>eventTimePolicy(
+                Entry::getKey, limitingLag(LAG), 1, 0, 60_000
+        ).withMaxSkew(10);
+        StreamKafkaP<Integer, String, Entry<Integer, String>> processor = new StreamKafkaP<>(
+                properties, singletonList(topic1Name), r -> entry(r.key(), r.value()), eventTimePolicy);
+        TestOutbox outbox = new TestOutbox(new int[]{10}, 10);
+        processor.init(outbox, new TestProcessorContext());
+        TopicPartition partition0 = new TopicPartition(topic1Name, 0);
+
+        // partition 0 gets ahead of partition 1 and is paused
+        produce(topic1Name, 0, null, 100, "100");
+        produce(topic1Name, 1, null, 0, "0");
+        consumeEventually(processor, outbox, entry(100, "100"));
+        consumeEventually(processor, outbox, entry(0, "0"));
+        assertTrueEventually(() -> {
+            processor.complete();
+            outbox.queue(0).clear();
+            assertTrue(processor.pausedPartitions.contains(partition0));
+        }, 5);
+
+        // the assignment changes while partition 0 is paused
+        setPartitionCount(topic1Name, INITIAL_PARTITION_COUNT + 1);
+        assertTrueEventually(() -> {
+            processor.complete();
+            outbox.queue(0).clear();
+            assertEquals(INITIAL_PARTITION_COUNT + 1, processor.currentAssignment.size());
+        }, 15);
+        assertTrue(processor.pausedPartitions.contains(partition0));
+
+        // partition 1 catches up, partition 0 must be resumed
+        produce(topic1Name, 1, null, 100, "100b");
+        consumeEventually(processor, outbox, entry(100, "100b"));
+        produce(topic1Name, 0, null, 101, "101");
+        consumeEventually(processor, outbox, entry(101, "101"));
+        assertFalse(processor.pausedPartitions.contains(partition0));
+    }
+
     @Test
     public void when_partitionAdded_then_consumedFromBeginning() throws Exception {
         properties.setProperty("metadata.max.age.ms", "100");
@@ -425,6 +502,17 @@ public class StreamKafkaPTest extends KafkaTestSupport {
         return (T) outbox.queue(0).poll();
     }
 
+    private void consumeEventually(Processor processor, TestOutbox outbox, Object expected) {
+        assertTrueEventually(() -> {
+            assertFalse(processor.complete());
+            boolean found = false;
+            for (Object item; (item = outbox.queue(0).poll()) != null; ) {
+                found |= expected.equals(item);
+            }
+            assertTrue("not received: " + expected, found);
+        }, 12);
+    }
+
     private void assertNoMoreItems(StreamKafkaP processor, TestOutbox outbox) throws InterruptedException {
         Thread.sleep(1000);
         assertFalse(processor.complete());